@@ -0,0 +1,42 @@
+package dev.mars.analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dense int codes for the few distinct values of a string column. Codes are never reused or removed, so a
+ * code stays valid for as long as the store that owns the dictionary; callers synchronise.
+ */
+final class StringDictionary {
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    int encode(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * The code of {@code value}, or -1 when no row has ever held it.
+     */
+    int code(String value) {
+        Integer code = codes.get(value);
+        return code != null ? code : -1;
+    }
+
+    String value(int code) {
+        return values.get(code);
+    }
+
+    int size() {
+        return values.size();
+    }
+}
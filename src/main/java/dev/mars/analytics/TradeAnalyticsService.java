@@ -0,0 +1,194 @@
+package dev.mars.analytics;
+
+import dev.mars.dto.TradeAnalyticsResult;
+import dev.mars.event.TradeChangedEvent;
+import dev.mars.event.TradeSnapshot;
+import dev.mars.exception.BusinessException;
+import dev.mars.exception.CapacityExceededException;
+import dev.mars.metrics.TradingMetrics;
+import dev.mars.repository.TradeFilter;
+import dev.mars.repository.TradeRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.interceptor.Interceptor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Group-by and filter queries over the whole trade book, answered from a {@link TradeColumnStore} instead
+ * of the database. The store is loaded at startup in id-ordered chunks and then kept current from
+ * committed {@link TradeChangedEvent}s, so it trails the database by no more than the commit in progress.
+ * Scans run on the {@code trade-analytics} threads, one range of the columns each. Should a change ever
+ * fail to apply, the store is reloaded in the background rather than left missing it; a reload that fails
+ * is retried after {@code rebuild-retry-initial}, doubling up to {@code rebuild-retry-max}.
+ */
+@ApplicationScoped
+public class TradeAnalyticsService {
+
+    private static final Logger LOG = Logger.getLogger(TradeAnalyticsService.class);
+
+    @Inject
+    TradeRepository tradeRepository;
+
+    @Inject
+    TradingMetrics tradingMetrics;
+
+    @ConfigProperty(name = "trading.analytics.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "trading.analytics.load-chunk-size", defaultValue = "10000")
+    int loadChunkSize;
+
+    @ConfigProperty(name = "trading.analytics.scan-threads", defaultValue = "0")
+    int scanThreads;
+
+    @ConfigProperty(name = "trading.analytics.min-partition-rows", defaultValue = "65536")
+    int minPartitionRows;
+
+    @ConfigProperty(name = "trading.analytics.rebuild-retry-initial", defaultValue = "1s")
+    Duration rebuildRetryInitial;
+
+    @ConfigProperty(name = "trading.analytics.rebuild-retry-max", defaultValue = "5m")
+    Duration rebuildRetryMax;
+
+    private final TradeColumnStore store = new TradeColumnStore();
+    private volatile boolean loaded;
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private ExecutorService scanPool;
+    private ScheduledExecutorService rebuildExecutor;
+    private int partitions;
+
+    @PostConstruct
+    void init() {
+        partitions = scanThreads > 0 ? scanThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threads = new AtomicInteger();
+        scanPool = Executors.newFixedThreadPool(partitions, runnable -> {
+            Thread thread = new Thread(runnable, "trade-analytics-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        rebuildExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trade-analytics-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scanPool.shutdownNow();
+        rebuildExecutor.shutdownNow();
+    }
+
+    // Runs after ApplicationLifecycle has created the sample data
+    void onStart(@Observes @Priority(Interceptor.Priority.APPLICATION + 1000) StartupEvent ev) {
+        if (enabled) {
+            tradingMetrics.registerTradeAnalytics(store::size, store::estimatedBytes);
+            rebuild();
+        }
+    }
+
+    /**
+     * Reloads the column store from the database. Queries are refused with 503 until the load completes;
+     * trades committed meanwhile are applied as they commit and are not overwritten by the load.
+     */
+    public void rebuild() {
+        long started = System.nanoTime();
+        loaded = false;
+        store.startLoad();
+        long afterId = 0;
+        int read;
+        do {
+            long from = afterId;
+            List<TradeSnapshot> chunk = QuarkusTransaction.requiringNew()
+                    .call(() -> tradeRepository.findSnapshotsAfter(from, loadChunkSize));
+            store.load(chunk);
+            read = chunk.size();
+            if (read > 0) {
+                afterId = chunk.get(read - 1).id;
+            }
+        } while (read == loadChunkSize);
+        store.finishLoad();
+        loaded = true;
+        LOG.infof("Trade analytics store loaded %d trades in %d ms", store.size(),
+                Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    public TradeAnalyticsResult query(TradeFilter filter, List<TradeDimension> dimensions, int limit) {
+        if (!enabled) {
+            throw new BusinessException("Trade analytics are disabled (trading.analytics.enabled=false)");
+        }
+        if (!loaded) {
+            throw new CapacityExceededException("Trade analytics are still loading", 5);
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        long started = System.nanoTime();
+        TradeAnalyticsResult result = store.query(filter, dimensions, limit, scanPool, partitions, minPartitionRows);
+        Duration duration = Duration.ofNanos(System.nanoTime() - started);
+        result.durationMicros = duration.toNanos() / 1000;
+        tradingMetrics.recordAnalyticsQuery(result.partitions, duration);
+        LOG.debugf("Trade analytics query %s by %s: %d of %d trades in %d groups, %d partitions, %d us", filter,
+                result.groupBy, result.tradesMatched, result.tradesScanned, result.totalGroups, result.partitions,
+                result.durationMicros);
+        return result;
+    }
+
+    void onTradeChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) TradeChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            store.apply(event.changes);
+        } catch (RuntimeException e) {
+            // Nothing of the batch was applied; other AFTER_SUCCESS observers still run, and the reload picks it up
+            LOG.errorf(e, "Could not apply %d trade changes to the analytics store; reloading it", event.changes.size());
+            scheduleRebuild();
+        }
+    }
+
+    /**
+     * Refuses queries from now on and reloads the store on the {@code trade-analytics-rebuild} thread; requests
+     * made while a reload is already pending are folded into it.
+     */
+    void scheduleRebuild() {
+        loaded = false;
+        if (!rebuildScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        rebuildExecutor.execute(() -> attemptRebuild(rebuildRetryInitial));
+    }
+
+    // Queries stay refused until a reload succeeds, so a failed one is tried again, backing off
+    private void attemptRebuild(Duration retryDelay) {
+        rebuildScheduled.set(false);
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            LOG.errorf(e, "Trade analytics store reload failed; retrying in %s", retryDelay);
+            if (rebuildScheduled.compareAndSet(false, true)) {
+                Duration nextDelay = retryDelay.multipliedBy(2).compareTo(rebuildRetryMax) < 0
+                        ? retryDelay.multipliedBy(2)
+                        : rebuildRetryMax;
+                rebuildExecutor.schedule(() -> attemptRebuild(nextDelay), retryDelay.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+}
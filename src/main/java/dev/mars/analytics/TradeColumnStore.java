@@ -0,0 +1,669 @@
+package dev.mars.analytics;
+
+import dev.mars.domain.Trade;
+import dev.mars.dto.TradeAnalyticsGroup;
+import dev.mars.dto.TradeAnalyticsResult;
+import dev.mars.event.TradeChange;
+import dev.mars.event.TradeSnapshot;
+import dev.mars.repository.TradeFilter;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Column-oriented copy of the trade book for ad-hoc aggregation. Each trade is a slot across primitive
+ * arrays: ids, dates as epoch days, quantity and price as longs in units of 10<sup>-4</sup> and notional in
+ * units of 10<sup>-8</sup> (the scales of their columns, so no value is rounded), and instrument, currency,
+ * status and trade type as small dictionary codes. A query is one pass over the
+ * arrays, split into contiguous ranges that are scanned in parallel and merged.
+ * <p>
+ * Slots are appended; replacing or removing a trade tombstones its slot, and the arrays are compacted once
+ * dead slots outnumber live ones. Queries share a read lock.
+ * <p>
+ * A quantity or notional beyond the range of a scaled long (about 9.2 &times; 10<sup>14</sup> and
+ * 9.2 &times; 10<sup>10</sup> respectively) is stored saturated, with the exact values kept aside for its trade, and group totals spill over to
+ * {@link BigInteger} once they leave that range, so no trade makes a load, a change or a query fail.
+ */
+public class TradeColumnStore {
+
+    static final int SCALE = 4;
+    static final int NOTIONAL_SCALE = 8;
+
+    private static final Trade.TradeStatus[] STATUSES = Trade.TradeStatus.values();
+    private static final Trade.TradeType[] TRADE_TYPES = Trade.TradeType.values();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final BitSet live = new BitSet();
+    // Slots whose quantity or notional was saturated; the exact scaled values are in exactById
+    private BitSet oversized = new BitSet();
+    private final Map<Long, BigInteger[]> exactById = new HashMap<>();
+    private final StringDictionary instruments = new StringDictionary();
+    private final StringDictionary currencies = new StringDictionary();
+
+    private long[] ids = new long[1024];
+    private long[] counterpartyIds = new long[1024];
+    private long[] quantities = new long[1024];
+    private long[] prices = new long[1024];
+    private long[] notionals = new long[1024];
+    private int[] tradeDates = new int[1024];
+    private int[] settlementDates = new int[1024];
+    private int[] instrumentCodes = new int[1024];
+    private int[] currencyCodes = new int[1024];
+    private byte[] statuses = new byte[1024];
+    private byte[] tradeTypes = new byte[1024];
+    private int slots;
+
+    // Trades changed since a load started; the load must not overwrite them with what it read earlier
+    private Set<Long> changedWhileLoading;
+
+    /**
+     * Empties the store ahead of a {@link #load} sequence. Changes applied until {@link #finishLoad} win
+     * over loaded rows for the same trade, whichever arrives first.
+     */
+    public void startLoad() {
+        lock.writeLock().lock();
+        try {
+            reset(1024);
+            changedWhileLoading = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds {@code trades}; throws, having added none of them, if one cannot be stored.
+     */
+    public void load(List<TradeSnapshot> trades) {
+        List<Row> rows = trades.stream().map(Row::of).toList();
+        lock.writeLock().lock();
+        try {
+            ensureCapacity(slots + rows.size());
+            for (Row row : rows) {
+                if (changedWhileLoading == null || !changedWhileLoading.contains(row.id)) {
+                    removeSlot(row.id);
+                    addSlot(row);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void finishLoad() {
+        lock.writeLock().lock();
+        try {
+            changedWhileLoading = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies {@code changes} in order. Every change is converted before the store is touched, so one that
+     * cannot be stored throws with none of them applied rather than leaving the batch half done.
+     */
+    public void apply(List<TradeChange> changes) {
+        List<Row> rows = new ArrayList<>(changes.size());
+        for (TradeChange change : changes) {
+            rows.add(change.after != null ? Row.of(change.after) : null);
+        }
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < changes.size(); i++) {
+                long id = changes.get(i).tradeId();
+                removeSlot(id);
+                if (rows.get(i) != null) {
+                    addSlot(rows.get(i));
+                }
+                if (changedWhileLoading != null) {
+                    changedWhileLoading.add(id);
+                }
+            }
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rough heap footprint of the column arrays and the id-to-slot map, for the store size metric.
+     */
+    public long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) ids.length * (5 * Long.BYTES + 4 * Integer.BYTES + 2) + slotById.size() * 48L
+                    + exactById.size() * 128L;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Totals of the trades matching {@code filter}, grouped by {@code dimensions} and ordered by descending
+     * notional, at most {@code limit} groups. The slots are split into up to {@code partitions} ranges of at
+     * least {@code minPartitionRows}; all but one are scanned on {@code pool}, the last on the caller.
+     */
+    public TradeAnalyticsResult query(TradeFilter filter, List<TradeDimension> dimensions, int limit,
+                                      ExecutorService pool, int partitions, int minPartitionRows) {
+        lock.readLock().lock();
+        try {
+            TradeAnalyticsResult result = new TradeAnalyticsResult();
+            result.groupBy = dimensions.stream().map(dimension -> dimension.property).toList();
+            result.tradesScanned = slotById.size();
+            Scan scan = compile(filter, dimensions);
+            if (scan == null) {
+                result.groups = List.of();
+                return result;
+            }
+
+            int ranges = Math.max(1, Math.min(partitions, slots / Math.max(1, minPartitionRows)));
+            result.partitions = ranges;
+            int rangeSize = (slots + ranges - 1) / Math.max(1, ranges);
+            List<Future<Partial>> futures = new ArrayList<>(ranges - 1);
+            for (int i = 0; i < ranges - 1; i++) {
+                int from = i * rangeSize;
+                int to = Math.min(slots, from + rangeSize);
+                futures.add(pool.submit(() -> scan.run(from, to)));
+            }
+            Partial merged = scan.run((ranges - 1) * rangeSize, slots);
+            for (Future<Partial> future : futures) {
+                merged.merge(await(future));
+            }
+
+            result.tradesMatched = merged.matched;
+            result.totalGroups = merged.groups.size();
+            result.groups = merged.groups.entrySet().stream()
+                    .sorted(Comparator.comparing((Map.Entry<GroupKey, Totals> entry) -> entry.getValue().notional)
+                            .reversed()
+                            .thenComparing(Map.Entry::getKey))
+                    .limit(limit)
+                    .map(entry -> toGroup(dimensions, entry.getKey(), entry.getValue()))
+                    .toList();
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static BigInteger toScaled(BigDecimal value, int scale) {
+        if (value == null) {
+            return BigInteger.ZERO;
+        }
+        return value.setScale(scale, RoundingMode.HALF_EVEN).unscaledValue();
+    }
+
+    static boolean fitsLong(BigInteger value) {
+        return value.bitLength() < Long.SIZE;
+    }
+
+    // The nearest long, for the columns; callers keep the exact value of the ones that do not fit
+    static long saturated(BigInteger value) {
+        if (fitsLong(value)) {
+            return value.longValue();
+        }
+        return value.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+    }
+
+    // Null when the filter names a value no trade holds, so nothing can match
+    private Scan compile(TradeFilter filter, List<TradeDimension> dimensions) {
+        Scan scan = new Scan(dimensions);
+        if (filter.instrument != null) {
+            scan.instrumentCode = instruments.code(filter.instrument);
+            if (scan.instrumentCode < 0) {
+                return null;
+            }
+        }
+        if (filter.currency != null) {
+            scan.currencyCode = currencies.code(filter.currency);
+            if (scan.currencyCode < 0) {
+                return null;
+            }
+        }
+        if (filter.counterpartyId != null) {
+            scan.anyCounterparty = false;
+            scan.counterpartyId = filter.counterpartyId;
+        }
+        if (filter.status != null) {
+            scan.status = filter.status.ordinal();
+        }
+        if (filter.tradeType != null) {
+            scan.tradeType = filter.tradeType.ordinal();
+        }
+        if (filter.tradeDateFrom != null) {
+            scan.tradeDateFrom = epochDay(filter.tradeDateFrom);
+        }
+        if (filter.tradeDateTo != null) {
+            scan.tradeDateTo = epochDay(filter.tradeDateTo);
+        }
+        if (filter.settlementDateFrom != null) {
+            scan.settlementDateFrom = epochDay(filter.settlementDateFrom);
+        }
+        if (filter.settlementDateTo != null) {
+            scan.settlementDateTo = epochDay(filter.settlementDateTo);
+        }
+        if (filter.minValue != null) {
+            // Stored notionals are whole units of 10^-8, so rounding minValue up to that scale keeps exactly
+            // the notionals the SQL notional >= :minValue would
+            BigInteger minNotional = filter.minValue.setScale(NOTIONAL_SCALE, RoundingMode.CEILING).unscaledValue();
+            if (fitsLong(minNotional)) {
+                scan.minNotional = minNotional.longValue();
+            } else if (minNotional.signum() > 0) {
+                // Above every long: only a saturated notional can reach it, compared exactly
+                if (exactById.isEmpty()) {
+                    return null;
+                }
+                scan.minNotional = Long.MAX_VALUE;
+                scan.minNotionalExact = minNotional;
+            }
+        }
+        return scan;
+    }
+
+    private TradeAnalyticsGroup toGroup(List<TradeDimension> dimensions, GroupKey key, Totals totals) {
+        TradeAnalyticsGroup group = new TradeAnalyticsGroup();
+        for (int i = 0; i < dimensions.size(); i++) {
+            long value = key.values[i];
+            switch (dimensions.get(i)) {
+                case INSTRUMENT -> group.instrument = instruments.value((int) value);
+                case CURRENCY -> group.currency = currencies.value((int) value);
+                case COUNTERPARTY_ID -> group.counterpartyId = value;
+                case STATUS -> group.status = STATUSES[(int) value];
+                case TRADE_TYPE -> group.tradeType = TRADE_TYPES[(int) value];
+                case TRADE_DATE -> group.tradeDate = LocalDate.ofEpochDay(value);
+                case SETTLEMENT_DATE -> group.settlementDate = LocalDate.ofEpochDay(value);
+            }
+        }
+        group.count = totals.count;
+        group.quantity = totals.quantity.toDecimal();
+        group.notional = totals.notional.toDecimal();
+        group.averagePrice = group.quantity.signum() != 0
+                ? group.notional.divide(group.quantity, SCALE, RoundingMode.HALF_EVEN)
+                : null;
+        return group;
+    }
+
+    private static Partial await(Future<Partial> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scanning trade columns", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime
+                    ? runtime
+                    : new IllegalStateException("Trade column scan failed", e.getCause());
+        }
+    }
+
+    private static int epochDay(LocalDate date) {
+        return Math.toIntExact(date.toEpochDay());
+    }
+
+    private void addSlot(Row row) {
+        ensureCapacity(slots + 1);
+        int slot = slots++;
+        ids[slot] = row.id;
+        counterpartyIds[slot] = row.counterpartyId;
+        quantities[slot] = saturated(row.quantity);
+        prices[slot] = saturated(row.price);
+        notionals[slot] = saturated(row.notional);
+        tradeDates[slot] = row.tradeDate;
+        settlementDates[slot] = row.settlementDate;
+        instrumentCodes[slot] = instruments.encode(row.instrument);
+        currencyCodes[slot] = currencies.encode(row.currency);
+        statuses[slot] = row.status;
+        tradeTypes[slot] = row.tradeType;
+        if (!fitsLong(row.quantity) || !fitsLong(row.notional)) {
+            oversized.set(slot);
+            exactById.put(row.id, new BigInteger[] {row.quantity, row.notional});
+        }
+        live.set(slot);
+        slotById.put(row.id, slot);
+    }
+
+    private void removeSlot(long id) {
+        Integer slot = slotById.remove(id);
+        if (slot != null) {
+            live.clear(slot);
+            oversized.clear(slot);
+            exactById.remove(id);
+        }
+    }
+
+    private void compactIfSparse() {
+        int dead = slots - slotById.size();
+        if (dead > 1024 && dead > slotById.size()) {
+            BitSet compactedOversized = new BitSet();
+            int target = 0;
+            for (int slot = live.nextSetBit(0); slot >= 0 && slot < slots; slot = live.nextSetBit(slot + 1)) {
+                ids[target] = ids[slot];
+                counterpartyIds[target] = counterpartyIds[slot];
+                quantities[target] = quantities[slot];
+                prices[target] = prices[slot];
+                notionals[target] = notionals[slot];
+                tradeDates[target] = tradeDates[slot];
+                settlementDates[target] = settlementDates[slot];
+                instrumentCodes[target] = instrumentCodes[slot];
+                currencyCodes[target] = currencyCodes[slot];
+                statuses[target] = statuses[slot];
+                tradeTypes[target] = tradeTypes[slot];
+                if (oversized.get(slot)) {
+                    compactedOversized.set(target);
+                }
+                slotById.put(ids[target], target);
+                target++;
+            }
+            slots = target;
+            live.clear();
+            live.set(0, target);
+            oversized = compactedOversized;
+        }
+    }
+
+    private void reset(int capacity) {
+        slotById.clear();
+        live.clear();
+        oversized.clear();
+        exactById.clear();
+        ids = new long[capacity];
+        counterpartyIds = new long[capacity];
+        quantities = new long[capacity];
+        prices = new long[capacity];
+        notionals = new long[capacity];
+        tradeDates = new int[capacity];
+        settlementDates = new int[capacity];
+        instrumentCodes = new int[capacity];
+        currencyCodes = new int[capacity];
+        statuses = new byte[capacity];
+        tradeTypes = new byte[capacity];
+        slots = 0;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(needed, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        counterpartyIds = Arrays.copyOf(counterpartyIds, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        notionals = Arrays.copyOf(notionals, capacity);
+        tradeDates = Arrays.copyOf(tradeDates, capacity);
+        settlementDates = Arrays.copyOf(settlementDates, capacity);
+        instrumentCodes = Arrays.copyOf(instrumentCodes, capacity);
+        currencyCodes = Arrays.copyOf(currencyCodes, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        tradeTypes = Arrays.copyOf(tradeTypes, capacity);
+    }
+
+    /**
+     * A filter compiled against the dictionaries into primitive comparisons, and the grouping to apply.
+     * Runs on the query's scan threads while the caller holds the read lock.
+     */
+    private final class Scan {
+        final TradeDimension[] dimensions;
+        int instrumentCode = -1;
+        int currencyCode = -1;
+        boolean anyCounterparty = true;
+        long counterpartyId;
+        int status = -1;
+        int tradeType = -1;
+        int tradeDateFrom = Integer.MIN_VALUE;
+        int tradeDateTo = Integer.MAX_VALUE;
+        int settlementDateFrom = Integer.MIN_VALUE;
+        int settlementDateTo = Integer.MAX_VALUE;
+        long minNotional = Long.MIN_VALUE;
+        // Set when minValue is beyond the long range; only saturated notionals are then compared, exactly
+        BigInteger minNotionalExact;
+
+        Scan(List<TradeDimension> dimensions) {
+            this.dimensions = dimensions.toArray(new TradeDimension[0]);
+        }
+
+        Partial run(int from, int to) {
+            Partial partial = new Partial();
+            // One probe key is refilled per row; a copy is only made for a group seen for the first time
+            GroupKey probe = new GroupKey(new long[dimensions.length]);
+            for (int slot = live.nextSetBit(from); slot >= 0 && slot < to; slot = live.nextSetBit(slot + 1)) {
+                if (!matches(slot)) {
+                    continue;
+                }
+                partial.matched++;
+                for (int i = 0; i < dimensions.length; i++) {
+                    probe.values[i] = value(dimensions[i], slot);
+                }
+                probe.rehash();
+                Totals totals = partial.groups.get(probe);
+                if (totals == null) {
+                    totals = new Totals();
+                    partial.groups.put(probe.copy(), totals);
+                }
+                if (oversized.get(slot)) {
+                    BigInteger[] exact = exactById.get(ids[slot]);
+                    totals.count++;
+                    totals.quantity.add(exact[0]);
+                    totals.notional.add(exact[1]);
+                } else {
+                    totals.add(quantities[slot], notionals[slot]);
+                }
+            }
+            return partial;
+        }
+
+        private boolean matches(int slot) {
+            return (instrumentCode < 0 || instrumentCodes[slot] == instrumentCode)
+                    && (currencyCode < 0 || currencyCodes[slot] == currencyCode)
+                    && (anyCounterparty || counterpartyIds[slot] == counterpartyId)
+                    && (status < 0 || statuses[slot] == status)
+                    && (tradeType < 0 || tradeTypes[slot] == tradeType)
+                    && tradeDates[slot] >= tradeDateFrom && tradeDates[slot] <= tradeDateTo
+                    && settlementDates[slot] >= settlementDateFrom && settlementDates[slot] <= settlementDateTo
+                    && notionals[slot] >= minNotional
+                    && (minNotionalExact == null || exactNotional(slot).compareTo(minNotionalExact) >= 0);
+        }
+
+        private BigInteger exactNotional(int slot) {
+            return oversized.get(slot) ? exactById.get(ids[slot])[1] : BigInteger.valueOf(notionals[slot]);
+        }
+
+        private long value(TradeDimension dimension, int slot) {
+            return switch (dimension) {
+                case INSTRUMENT -> instrumentCodes[slot];
+                case CURRENCY -> currencyCodes[slot];
+                case COUNTERPARTY_ID -> counterpartyIds[slot];
+                case STATUS -> statuses[slot];
+                case TRADE_TYPE -> tradeTypes[slot];
+                case TRADE_DATE -> tradeDates[slot];
+                case SETTLEMENT_DATE -> settlementDates[slot];
+            };
+        }
+    }
+
+    private static final class Partial {
+        final Map<GroupKey, Totals> groups = new HashMap<>();
+        long matched;
+
+        void merge(Partial other) {
+            matched += other.matched;
+            other.groups.forEach((key, totals) -> {
+                Totals existing = groups.get(key);
+                if (existing == null) {
+                    groups.put(key, totals);
+                } else {
+                    existing.merge(totals);
+                }
+            });
+        }
+    }
+
+    private static final class Totals {
+        long count;
+        final Sum quantity = new Sum(SCALE);
+        final Sum notional = new Sum(NOTIONAL_SCALE);
+
+        void add(long quantity, long notional) {
+            count++;
+            this.quantity.add(quantity);
+            this.notional.add(notional);
+        }
+
+        void merge(Totals other) {
+            count += other.count;
+            quantity.add(other.quantity);
+            notional.add(other.notional);
+        }
+    }
+
+    /**
+     * Sum of scaled values, kept in a long until it overflows and in a {@link BigInteger} from then on.
+     */
+    private static final class Sum implements Comparable<Sum> {
+        final int scale;
+        long value;
+        BigInteger big;
+
+        Sum(int scale) {
+            this.scale = scale;
+        }
+
+        void add(long addend) {
+            if (big == null) {
+                long result = value + addend;
+                // Overflowed when both operands have the sign the result lacks
+                if (((value ^ result) & (addend ^ result)) >= 0) {
+                    value = result;
+                    return;
+                }
+                big = BigInteger.valueOf(value);
+            }
+            big = big.add(BigInteger.valueOf(addend));
+        }
+
+        void add(BigInteger addend) {
+            big = toBigInteger().add(addend);
+        }
+
+        void add(Sum other) {
+            if (other.big == null) {
+                add(other.value);
+            } else {
+                add(other.big);
+            }
+        }
+
+        BigInteger toBigInteger() {
+            return big != null ? big : BigInteger.valueOf(value);
+        }
+
+        BigDecimal toDecimal() {
+            return new BigDecimal(toBigInteger(), scale);
+        }
+
+        @Override
+        public int compareTo(Sum other) {
+            if (big == null && other.big == null) {
+                return Long.compare(value, other.value);
+            }
+            return toBigInteger().compareTo(other.toBigInteger());
+        }
+    }
+
+    /**
+     * A trade converted to column values, before any of the store is changed; throws if it cannot be.
+     */
+    private static final class Row {
+        final long id;
+        final long counterpartyId;
+        final BigInteger quantity;
+        final BigInteger price;
+        final BigInteger notional;
+        final int tradeDate;
+        final int settlementDate;
+        final String instrument;
+        final String currency;
+        final byte status;
+        final byte tradeType;
+
+        private Row(TradeSnapshot trade) {
+            id = trade.id;
+            counterpartyId = trade.counterpartyId != null ? trade.counterpartyId : 0;
+            quantity = toScaled(trade.quantity, SCALE);
+            price = toScaled(trade.price, SCALE);
+            notional = toScaled(trade.notional, NOTIONAL_SCALE);
+            tradeDate = epochDay(trade.tradeDate);
+            settlementDate = epochDay(trade.settlementDate);
+            instrument = Objects.requireNonNull(trade.instrument, "instrument");
+            currency = Objects.requireNonNull(trade.currency, "currency");
+            status = (byte) trade.status.ordinal();
+            tradeType = (byte) trade.tradeType.ordinal();
+        }
+
+        static Row of(TradeSnapshot trade) {
+            try {
+                return new Row(trade);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Trade " + trade.id + " cannot be stored in the column store", e);
+            }
+        }
+    }
+
+    private static final class GroupKey implements Comparable<GroupKey> {
+        final long[] values;
+        int hash;
+
+        GroupKey(long[] values) {
+            this.values = values;
+            rehash();
+        }
+
+        void rehash() {
+            hash = Arrays.hashCode(values);
+        }
+
+        GroupKey copy() {
+            return new GroupKey(values.clone());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof GroupKey other && hash == other.hash && Arrays.equals(values, other.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public int compareTo(GroupKey other) {
+            return Arrays.compare(values, other.values);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package dev.mars.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A trade property the analytics endpoint can group by with {@code groupBy=}.
+ */
+public enum TradeDimension {
+    INSTRUMENT("instrument"),
+    CURRENCY("currency"),
+    COUNTERPARTY_ID("counterpartyId"),
+    STATUS("status"),
+    TRADE_TYPE("tradeType"),
+    TRADE_DATE("tradeDate"),
+    SETTLEMENT_DATE("settlementDate");
+
+    private static final Map<String, TradeDimension> BY_PROPERTY = Arrays.stream(values())
+            .collect(Collectors.toMap(dimension -> dimension.property, Function.identity()));
+
+    public final String property;
+
+    TradeDimension(String property) {
+        this.property = property;
+    }
+
+    /**
+     * Parses a comma-separated list of property names such as {@code instrument,currency}, keeping the
+     * client's order and dropping repeats. Null or blank means no grouping: one total over every match.
+     */
+    public static List<TradeDimension> parse(String dimensions) {
+        if (dimensions == null || dimensions.isBlank()) {
+            return List.of();
+        }
+        Set<TradeDimension> parsed = new LinkedHashSet<>();
+        for (String name : dimensions.split(",")) {
+            TradeDimension dimension = BY_PROPERTY.get(name.trim());
+            if (dimension == null) {
+                throw new IllegalArgumentException("Unknown analytics dimension: " + name.trim());
+            }
+            parsed.add(dimension);
+        }
+        return new ArrayList<>(parsed);
+    }
+}
@@ -1,6 +1,6 @@
 package dev.mars.domain;
 
-import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -10,8 +10,16 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "counterparties")
-public class Counterparty extends PanacheEntity {
+@Table(name = "counterparties", indexes = {
+        @Index(name = "idx_counterparties_name_id", columnList = "name, id"),
+        @Index(name = "idx_counterparties_status", columnList = "status"),
+        @Index(name = "idx_counterparties_type", columnList = "type")
+})
+public class Counterparty extends PanacheEntityBase {
+
+    @Id
+    @TradingId(sequenceName = "counterparty_seq")
+    public Long id;
 
     @NotBlank(message = "Name is required")
     @Size(min = 2, max = 100, message = "Name must be between 2 and 100 characters")
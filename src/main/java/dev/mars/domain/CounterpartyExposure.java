@@ -0,0 +1,45 @@
+package dev.mars.domain;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Running trade count and notional for one (counterparty, status, currency) cell. Maintained by
+ * {@code CounterpartyExposureService} in the same transaction as the trade writes, so a counterparty's
+ * exposure is read from a handful of rows instead of summing all of its trades.
+ */
+@Entity
+@Table(name = "counterparty_exposures", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_counterparty_exposures_cell", columnNames = {"counterparty_id", "status", "currency"})
+})
+public class CounterpartyExposure extends PanacheEntity {
+
+    // Plain id rather than an association: rows are only ever read and written by counterparty id
+    @Column(name = "counterparty_id", nullable = false)
+    public Long counterpartyId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    public Trade.TradeStatus status;
+
+    @Column(nullable = false, length = 3)
+    public String currency;
+
+    @Column(nullable = false)
+    public long tradeCount;
+
+    @Column(nullable = false, precision = 38, scale = 8)
+    public BigDecimal notional = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    public LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,41 @@
+package dev.mars.domain;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * The response first given to a request carrying an {@code Idempotency-Key}, kept until {@link #expiresAt}
+ * so that a retry of the same request is answered with it instead of being executed again. The id is the
+ * endpoint scope and the client's key, e.g. {@code trades:5f0c...}.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_expires_at", columnList = "expiresAt")
+})
+public class IdempotencyRecord extends PanacheEntityBase {
+
+    @Id
+    @Column(length = 320)
+    public String id;
+
+    // SHA-256 of the request body, so a key reused for a different request is refused
+    @Column(nullable = false, length = 64)
+    public String requestHash;
+
+    @Column(nullable = false)
+    public int responseStatus;
+
+    @Column(nullable = false, length = 8192)
+    public String responseBody;
+
+    @Column(length = 512)
+    public String responseLocation;
+
+    @Column(nullable = false)
+    public LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    public LocalDateTime expiresAt;
+}
@@ -0,0 +1,34 @@
+package dev.mars.domain;
+
+import dev.mars.dto.TradeEvent;
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A trade change waiting to be published downstream. Written in the same transaction as the change itself,
+ * so it exists exactly when the change committed; the outbox relay delivers it and then deletes it.
+ * {@link #payload} is the change as {@link TradeEvent} JSON; its sequence is the outbox id, set on delivery.
+ */
+@Entity
+@Table(name = "trade_outbox")
+public class OutboxEvent extends PanacheEntityBase {
+
+    @Id
+    @TradingId(sequenceName = "trade_outbox_seq")
+    public Long id;
+
+    @Column(nullable = false)
+    public Long tradeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    public TradeEvent.Type eventType;
+
+    @Column(nullable = false, length = 4000)
+    public String payload;
+
+    @Column(nullable = false)
+    public LocalDateTime createdAt;
+}
@@ -0,0 +1,52 @@
+package dev.mars.domain;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the settlement engine for one business date. While a pass is {@code RUNNING},
+ * {@link #checkpointTradeId} is the id up to which every due trade has been processed, so a pass
+ * interrupted by a crash or shutdown resumes from there instead of starting over.
+ */
+@Entity
+@Table(name = "settlement_runs", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_settlement_runs_business_date", columnNames = "businessDate")
+})
+public class SettlementRun extends PanacheEntity {
+
+    @Column(nullable = false)
+    public LocalDate businessDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    public RunStatus status;
+
+    @Column(nullable = false)
+    public long checkpointTradeId;
+
+    // Trades settled for this business date, over every pass
+    @Column(nullable = false)
+    public long settledCount;
+
+    @Column(nullable = false)
+    public LocalDateTime startedAt;
+
+    @Column(nullable = false)
+    public LocalDateTime updatedAt;
+
+    public LocalDateTime completedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public enum RunStatus {
+        RUNNING,
+        COMPLETED
+    }
+}
@@ -0,0 +1,62 @@
+package dev.mars.domain;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered 64-bit ids assigned without any database round trip: 41 bits of milliseconds since
+ * 2024-01-01T00:00:00Z, 10 bits of node id and a 12-bit sequence within the millisecond. Ids from one
+ * node are strictly increasing; ids from different nodes are unique as long as node ids are.
+ * <p>
+ * The timestamp never moves backwards: if the wall clock does, or more than 4096 ids are taken in one
+ * millisecond, ids are taken from the next millisecond until the clock catches up.
+ */
+public class SnowflakeIds {
+
+    static final long EPOCH_MILLIS = 1_704_067_200_000L;
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+    private final LongSupplier clock;
+
+    private long lastTimestamp = -1;
+    private long sequence;
+
+    public SnowflakeIds(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeIds(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    public synchronized long next() {
+        long timestamp = Math.max(clock.getAsLong() - EPOCH_MILLIS, lastTimestamp);
+        if (timestamp == lastTimestamp) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                timestamp++;
+            }
+        } else {
+            sequence = 0;
+        }
+        lastTimestamp = timestamp;
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+
+    public static long epochMillisOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    public static int nodeIdOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE_ID);
+    }
+}
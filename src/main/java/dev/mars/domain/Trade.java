@@ -1,6 +1,6 @@
 package dev.mars.domain;
 
-import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
@@ -10,15 +10,32 @@ import jakarta.validation.constraints.Size;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 @Entity
-@Table(name = "trades")
-public class Trade extends PanacheEntity {
+@Table(name = "trades", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_trades_trade_reference", columnNames = "tradeReference")
+}, indexes = {
+        @Index(name = "idx_trades_status_trade_date", columnList = "status, tradeDate"),
+        @Index(name = "idx_trades_counterparty_trade_date", columnList = "counterparty_id, tradeDate DESC"),
+        @Index(name = "idx_trades_instrument_trade_date", columnList = "instrument, tradeDate"),
+        @Index(name = "idx_trades_currency_trade_date", columnList = "currency, tradeDate"),
+        @Index(name = "idx_trades_settlement_date", columnList = "settlementDate"),
+        @Index(name = "idx_trades_status_settlement_date", columnList = "status, settlementDate"),
+        @Index(name = "idx_trades_keyset", columnList = "tradeDate DESC, createdAt DESC, id DESC"),
+        @Index(name = "idx_trades_notional", columnList = "notional")
+})
+public class Trade extends PanacheEntityBase {
+
+    @Id
+    @TradingId(sequenceName = "trade_seq")
+    public Long id;
 
     @NotBlank(message = "Trade reference is required")
     @Size(min = 3, max = 50, message = "Trade reference must be between 3 and 50 characters")
-    @Column(nullable = false, unique = true, length = 50)
+    @Column(nullable = false, length = 50)
     public String tradeReference;
 
     @NotNull(message = "Counterparty is required")
@@ -46,6 +63,10 @@ public class Trade extends PanacheEntity {
     @Column(nullable = false, precision = 19, scale = 4)
     public BigDecimal price;
 
+    // quantity * price, stored so value filters, top-N and projections use the column instead of multiplying
+    @Column(nullable = false, precision = 38, scale = 8)
+    public BigDecimal notional;
+
     @NotNull(message = "Trade date is required")
     @Column(nullable = false)
     public LocalDate tradeDate;
@@ -77,11 +98,21 @@ public class Trade extends PanacheEntity {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        updateNotional();
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        updateNotional();
+    }
+
+    /**
+     * Recomputes {@link #notional} from quantity and price. Called on insert and update; call it directly
+     * after changing either field if the value is needed before the next flush.
+     */
+    public void updateNotional() {
+        notional = quantity != null && price != null ? quantity.multiply(price) : BigDecimal.ZERO;
     }
 
     public enum TradeType {
@@ -94,11 +125,27 @@ public class Trade extends PanacheEntity {
         CONFIRMED,
         SETTLED,
         CANCELLED,
-        FAILED
+        FAILED;
+
+        /**
+         * Statuses a trade may move into this one from in a bulk transition. PENDING is only ever the
+         * initial status, so nothing moves back into it.
+         */
+        public Set<TradeStatus> allowedPredecessors() {
+            return switch (this) {
+                case PENDING -> EnumSet.noneOf(TradeStatus.class);
+                case CONFIRMED -> EnumSet.of(PENDING);
+                case SETTLED -> EnumSet.of(CONFIRMED);
+                case CANCELLED, FAILED -> EnumSet.of(PENDING, CONFIRMED);
+            };
+        }
     }
 
     // Calculated field
     public BigDecimal getTotalValue() {
+        if (notional != null) {
+            return notional;
+        }
         if (quantity != null && price != null) {
             return quantity.multiply(price);
         }
@@ -0,0 +1,23 @@
+package dev.mars.domain;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an entity id assigned by {@link TradingIdGenerator}, whose strategy is chosen by configuration
+ * ({@code trading.id.strategy}) rather than fixed in the mapping.
+ */
+@IdGeneratorType(TradingIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface TradingId {
+
+    /**
+     * Database sequence the {@code pooled-lo} strategy allocates blocks from.
+     */
+    String sequenceName();
+}
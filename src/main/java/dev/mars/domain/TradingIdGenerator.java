@@ -0,0 +1,112 @@
+package dev.mars.domain;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.hibernate.MappingException;
+import org.hibernate.boot.model.relational.Database;
+import org.hibernate.boot.model.relational.SqlStringGenerationContext;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+import org.jboss.logging.Logger;
+
+import java.lang.reflect.Member;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Properties;
+
+/**
+ * Id generator behind {@link TradingId}. Two strategies, selected with {@code trading.id.strategy}:
+ * <ul>
+ *     <li>{@code pooled-lo} (default): the entity's sequence is read once per block of
+ *     {@code trading.id.block-size} ids, and the block is handed out from memory. The sequence must be
+ *     created with {@code INCREMENT BY} equal to the block size (see the Flyway migrations).</li>
+ *     <li>{@code time-ordered}: {@link SnowflakeIds} built from {@code trading.id.node-id}, with no database
+ *     access at all. Every node must have its own node id.</li>
+ * </ul>
+ * Either way ids grow with time, so new rows land at the right-hand edge of the primary key index.
+ */
+public class TradingIdGenerator implements IdentifierGenerator {
+
+    private static final Logger LOG = Logger.getLogger(TradingIdGenerator.class);
+
+    public static final String POOLED_LO = "pooled-lo";
+    public static final String TIME_ORDERED = "time-ordered";
+
+    // One source per application, shared by every entity, so a node id is only ever used once
+    private static SnowflakeIds timeOrderedIds;
+
+    private final String sequenceName;
+    private SequenceStyleGenerator sequenceGenerator;
+    private SnowflakeIds snowflakeIds;
+
+    public TradingIdGenerator(TradingId tradingId, Member member, CustomIdGeneratorCreationContext context) {
+        this.sequenceName = tradingId.sequenceName();
+    }
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        Config config = ConfigProvider.getConfig();
+        String strategy = config.getOptionalValue("trading.id.strategy", String.class).orElse(POOLED_LO);
+        switch (strategy) {
+            case POOLED_LO -> {
+                int blockSize = config.getOptionalValue("trading.id.block-size", Integer.class).orElse(1000);
+                Properties sequenceParameters = new Properties();
+                sequenceParameters.putAll(parameters);
+                sequenceParameters.setProperty(SequenceStyleGenerator.SEQUENCE_PARAM, sequenceName);
+                sequenceParameters.setProperty(SequenceStyleGenerator.INCREMENT_PARAM, String.valueOf(blockSize));
+                sequenceParameters.setProperty(SequenceStyleGenerator.OPT_PARAM, "pooled-lo");
+                sequenceGenerator = new SequenceStyleGenerator();
+                sequenceGenerator.configure(type, sequenceParameters, serviceRegistry);
+            }
+            case TIME_ORDERED -> snowflakeIds = timeOrderedIds(config);
+            default -> throw new MappingException("Unknown trading.id.strategy '" + strategy
+                    + "'; expected " + POOLED_LO + " or " + TIME_ORDERED);
+        }
+    }
+
+    @Override
+    public void registerExportables(Database database) {
+        if (sequenceGenerator != null) {
+            sequenceGenerator.registerExportables(database);
+        }
+    }
+
+    @Override
+    public void initialize(SqlStringGenerationContext context) {
+        if (sequenceGenerator != null) {
+            sequenceGenerator.initialize(context);
+        }
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return snowflakeIds != null ? snowflakeIds.next() : sequenceGenerator.generate(session, object);
+    }
+
+    private static synchronized SnowflakeIds timeOrderedIds(Config config) {
+        if (timeOrderedIds == null) {
+            int nodeId = config.getOptionalValue("trading.id.node-id", Integer.class)
+                    .orElseGet(TradingIdGenerator::nodeIdFromHostName);
+            timeOrderedIds = new SnowflakeIds(nodeId);
+            LOG.infof("Assigning time-ordered ids as node %d", nodeId);
+        }
+        return timeOrderedIds;
+    }
+
+    private static int nodeIdFromHostName() {
+        String hostName;
+        try {
+            hostName = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            hostName = "localhost";
+        }
+        int nodeId = Math.floorMod(hostName.hashCode(), SnowflakeIds.MAX_NODE_ID + 1);
+        LOG.warnf("trading.id.node-id is not set; derived node %d from host name %s. "
+                + "Set it explicitly when running more than one node", nodeId, hostName);
+        return nodeId;
+    }
+}
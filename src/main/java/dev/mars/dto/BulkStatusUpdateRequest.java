@@ -0,0 +1,24 @@
+package dev.mars.dto;
+
+import dev.mars.domain.Trade;
+import dev.mars.repository.TradeFilter;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+/**
+ * Moves many trades to one status. The trades are given either as explicit {@code ids} or as a
+ * {@code filter} with at least one criterion, never both.
+ */
+public class BulkStatusUpdateRequest {
+
+    @NotNull(message = "Target status is required")
+    public Trade.TradeStatus status;
+
+    public List<Long> ids;
+
+    public TradeFilter filter;
+
+    public BulkStatusUpdateRequest() {
+    }
+}
@@ -0,0 +1,25 @@
+package dev.mars.dto;
+
+import dev.mars.domain.Trade;
+
+/**
+ * Outcome counts of a bulk status transition. {@code unchanged}, {@code rejected} and {@code notFound}
+ * are only counted for explicit ids; a filter only ever selects trades that can make the transition.
+ */
+public class BulkStatusUpdateResult {
+    public Trade.TradeStatus status;
+    // Trades moved to the target status
+    public long updated;
+    // Trades already in the target status
+    public long unchanged;
+    // Trades in a status the target cannot be reached from
+    public long rejected;
+    public long notFound;
+
+    public BulkStatusUpdateResult() {
+    }
+
+    public BulkStatusUpdateResult(Trade.TradeStatus status) {
+        this.status = status;
+    }
+}
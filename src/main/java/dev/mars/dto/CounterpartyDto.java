@@ -34,6 +34,44 @@ public class CounterpartyDto {
         this.tradeCount = counterparty.trades != null ? counterparty.trades.size() : 0;
     }
 
+    /**
+     * Projection constructor used by JPQL {@code SELECT new} queries; the trade count comes from the
+     * same statement instead of initialising the lazy trades collection.
+     */
+    public CounterpartyDto(Long id, String name, String code, String email, String phoneNumber, String address,
+                           Counterparty.CounterpartyType type, Counterparty.CounterpartyStatus status,
+                           LocalDateTime createdAt, LocalDateTime updatedAt, Long tradeCount) {
+        this.id = id;
+        this.name = name;
+        this.code = code;
+        this.email = email;
+        this.phoneNumber = phoneNumber;
+        this.address = address;
+        this.type = type;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.tradeCount = tradeCount != null ? tradeCount.intValue() : 0;
+    }
+
+    /**
+     * Copy of this DTO with the given trade count, for combining cached reference data with a live count.
+     */
+    public CounterpartyDto withTradeCount(long tradeCount) {
+        return new CounterpartyDto(id, name, code, email, phoneNumber, address, type, status,
+                createdAt, updatedAt, tradeCount);
+    }
+
+    /**
+     * Reference data only: built field by field so the lazy trades collection is never initialised,
+     * and {@code tradeCount} is left at 0.
+     */
+    public static CounterpartyDto referenceOf(Counterparty counterparty) {
+        return new CounterpartyDto(counterparty.id, counterparty.name, counterparty.code, counterparty.email,
+                counterparty.phoneNumber, counterparty.address, counterparty.type, counterparty.status,
+                counterparty.createdAt, counterparty.updatedAt, null);
+    }
+
     public static CounterpartyDto from(Counterparty counterparty) {
         return new CounterpartyDto(counterparty);
     }
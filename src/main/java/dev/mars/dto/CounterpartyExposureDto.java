@@ -0,0 +1,36 @@
+package dev.mars.dto;
+
+import dev.mars.domain.CounterpartyExposure;
+import dev.mars.domain.Trade;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class CounterpartyExposureDto {
+    public Long counterpartyId;
+    public long tradeCount;
+    public BigDecimal notional = BigDecimal.ZERO;
+    public Map<Trade.TradeStatus, TradeStatistics.Bucket> byStatus = new EnumMap<>(Trade.TradeStatus.class);
+    public Map<String, TradeStatistics.Bucket> byCurrency = new TreeMap<>();
+
+    public CounterpartyExposureDto() {
+    }
+
+    public static CounterpartyExposureDto from(Long counterpartyId, List<CounterpartyExposure> cells) {
+        CounterpartyExposureDto dto = new CounterpartyExposureDto();
+        dto.counterpartyId = counterpartyId;
+        for (CounterpartyExposure cell : cells) {
+            if (cell.tradeCount == 0) {
+                continue;
+            }
+            dto.tradeCount += cell.tradeCount;
+            dto.notional = dto.notional.add(cell.notional);
+            dto.byStatus.computeIfAbsent(cell.status, status -> new TradeStatistics.Bucket()).add(cell.tradeCount, cell.notional);
+            dto.byCurrency.computeIfAbsent(cell.currency, currency -> new TradeStatistics.Bucket()).add(cell.tradeCount, cell.notional);
+        }
+        return dto;
+    }
+}
@@ -0,0 +1,19 @@
+package dev.mars.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is null once the listing is exhausted.
+ */
+public class CursorPage<T> {
+    public List<T> items;
+    public String nextCursor;
+
+    public CursorPage() {
+    }
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,36 @@
+package dev.mars.dto;
+
+import jakarta.ws.rs.core.Response;
+
+import java.net.URI;
+
+/**
+ * The status, body and location of a response to a request that may carry an {@code Idempotency-Key}.
+ * On a replay {@code entity} is the JSON stored with the original response and {@code replayed} is set.
+ */
+public class IdempotentResponse {
+    public int status;
+    public Object entity;
+    public String location;
+    public boolean replayed;
+
+    public IdempotentResponse() {
+    }
+
+    public IdempotentResponse(int status, Object entity, String location) {
+        this.status = status;
+        this.entity = entity;
+        this.location = location;
+    }
+
+    public Response toResponse() {
+        Response.ResponseBuilder builder = Response.status(status).entity(entity);
+        if (location != null) {
+            builder.location(URI.create(location));
+        }
+        if (replayed) {
+            builder.header("Idempotent-Replayed", "true");
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,69 @@
+package dev.mars.dto;
+
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.MediaType;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.StringJoiner;
+
+/**
+ * Validators for a representation, read without building it: an entity tag made from the values the
+ * representation depends on, and the latest modification time among them. List representations get a
+ * weak tag, since they are only compared as a whole, and no modification time: deleting a row other
+ * than the latest changes a listing without moving its latest timestamp, so only the tag, which also
+ * holds the count, can tell. A strong tag promises identical bytes, so it is qualified with the media type
+ * of the representation it is sent with.
+ */
+public class ResourceVersion {
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    public String tag;
+    public boolean weak;
+    public LocalDateTime lastModified;
+
+    public ResourceVersion() {
+    }
+
+    /**
+     * Tag from {@code parts} (timestamps as epoch microseconds, anything else as its string value) and,
+     * for a strong tag, Last-Modified from the latest timestamp among them.
+     */
+    public static ResourceVersion of(boolean weak, Object... parts) {
+        ResourceVersion version = new ResourceVersion();
+        StringJoiner tag = new StringJoiner("-");
+        for (Object part : parts) {
+            if (part instanceof LocalDateTime timestamp) {
+                tag.add(Long.toHexString(ChronoUnit.MICROS.between(EPOCH, timestamp)));
+                if (!weak && (version.lastModified == null || timestamp.isAfter(version.lastModified))) {
+                    version.lastModified = timestamp;
+                }
+            } else {
+                tag.add(String.valueOf(part));
+            }
+        }
+        version.tag = tag.toString();
+        version.weak = weak;
+        return version;
+    }
+
+    public EntityTag entityTag() {
+        return new EntityTag(tag, weak);
+    }
+
+    /**
+     * The tag sent with the representation in {@code mediaType}; weak tags are shared by all of them.
+     */
+    public EntityTag entityTag(MediaType mediaType) {
+        if (weak || mediaType == null) {
+            return entityTag();
+        }
+        return new EntityTag(tag + "-" + mediaType.getSubtype(), false);
+    }
+
+    public Date lastModifiedDate() {
+        return lastModified != null ? Date.from(lastModified.atZone(ZoneId.systemDefault()).toInstant()) : null;
+    }
+}
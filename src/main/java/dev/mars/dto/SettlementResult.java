@@ -0,0 +1,20 @@
+package dev.mars.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Outcome of one settlement pass for a business date.
+ */
+public class SettlementResult {
+    public LocalDate businessDate;
+    // Whether the pass continued from the checkpoint of an interrupted one
+    public boolean resumed;
+    // Whether every due trade was processed; false when a chunk failed and the pass will resume later
+    public boolean completed;
+    public long settled;
+    public long checkpointTradeId;
+    public long durationMillis;
+
+    public SettlementResult() {
+    }
+}
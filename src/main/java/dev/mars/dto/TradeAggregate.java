@@ -0,0 +1,32 @@
+package dev.mars.dto;
+
+import dev.mars.domain.Trade;
+
+import java.math.BigDecimal;
+
+/**
+ * Trade count and notional for one (status, tradeType, currency) cell. Every coarser statistic
+ * is a roll-up of these cells, so they are all answered by a single GROUP BY.
+ */
+public class TradeAggregate {
+    public Trade.TradeStatus status;
+    public Trade.TradeType tradeType;
+    public String currency;
+    public long count;
+    public BigDecimal notional;
+
+    public TradeAggregate() {
+    }
+
+    /**
+     * Projection constructor used by the JPQL {@code SELECT new} GROUP BY query.
+     */
+    public TradeAggregate(Trade.TradeStatus status, Trade.TradeType tradeType, String currency,
+                          Long count, BigDecimal notional) {
+        this.status = status;
+        this.tradeType = tradeType;
+        this.currency = currency;
+        this.count = count != null ? count : 0L;
+        this.notional = notional != null ? notional : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,27 @@
+package dev.mars.dto;
+
+import dev.mars.domain.Trade;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Totals for one group of an analytics query. Only the properties named in {@code groupBy} are set; the
+ * others are null. {@code averagePrice} is the quantity-weighted price, notional over quantity.
+ */
+public class TradeAnalyticsGroup {
+    public String instrument;
+    public String currency;
+    public Long counterpartyId;
+    public Trade.TradeStatus status;
+    public Trade.TradeType tradeType;
+    public LocalDate tradeDate;
+    public LocalDate settlementDate;
+    public long count;
+    public BigDecimal quantity;
+    public BigDecimal notional;
+    public BigDecimal averagePrice;
+
+    public TradeAnalyticsGroup() {
+    }
+}
@@ -0,0 +1,20 @@
+package dev.mars.dto;
+
+import java.util.List;
+
+/**
+ * Answer to an analytics query: the groups in descending notional, at most the requested limit of
+ * {@code totalGroups}, and how many trades were scanned and matched.
+ */
+public class TradeAnalyticsResult {
+    public List<String> groupBy;
+    public long tradesScanned;
+    public long tradesMatched;
+    public int totalGroups;
+    public int partitions;
+    public long durationMicros;
+    public List<TradeAnalyticsGroup> groups;
+
+    public TradeAnalyticsResult() {
+    }
+}
@@ -0,0 +1,43 @@
+package dev.mars.dto;
+
+/**
+ * Outcome of one item of a trade batch, identified by its position in the submitted array.
+ */
+public class TradeBatchItemResult {
+
+    public enum Status {
+        CREATED,
+        FAILED,
+        // valid, but not inserted because another item of an ATOMIC batch failed
+        SKIPPED
+    }
+
+    public int index;
+    public String tradeReference;
+    public Status status;
+    public TradeDto trade;
+    public String error;
+
+    public TradeBatchItemResult() {
+    }
+
+    public TradeBatchItemResult(int index, String tradeReference, Status status, TradeDto trade, String error) {
+        this.index = index;
+        this.tradeReference = tradeReference;
+        this.status = status;
+        this.trade = trade;
+        this.error = error;
+    }
+
+    public static TradeBatchItemResult created(int index, TradeDto trade) {
+        return new TradeBatchItemResult(index, trade.tradeReference, Status.CREATED, trade, null);
+    }
+
+    public static TradeBatchItemResult failed(int index, String tradeReference, String error) {
+        return new TradeBatchItemResult(index, tradeReference, Status.FAILED, null, error);
+    }
+
+    public static TradeBatchItemResult skipped(int index, String tradeReference) {
+        return new TradeBatchItemResult(index, tradeReference, Status.SKIPPED, null, null);
+    }
+}
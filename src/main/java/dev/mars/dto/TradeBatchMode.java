@@ -0,0 +1,10 @@
+package dev.mars.dto;
+
+/**
+ * How a trade batch treats invalid items: {@code PARTIAL} inserts the valid ones, {@code ATOMIC} inserts
+ * nothing unless every item is valid.
+ */
+public enum TradeBatchMode {
+    PARTIAL,
+    ATOMIC
+}
@@ -0,0 +1,25 @@
+package dev.mars.dto;
+
+import java.util.List;
+
+/**
+ * Result of a trade batch: one entry per submitted item, in submission order, plus totals.
+ */
+public class TradeBatchResult {
+    public TradeBatchMode mode;
+    public int submitted;
+    public int created;
+    public int failed;
+    public List<TradeBatchItemResult> results;
+
+    public TradeBatchResult() {
+    }
+
+    public TradeBatchResult(TradeBatchMode mode, List<TradeBatchItemResult> results) {
+        this.mode = mode;
+        this.results = results;
+        this.submitted = results.size();
+        this.created = (int) results.stream().filter(r -> r.status == TradeBatchItemResult.Status.CREATED).count();
+        this.failed = (int) results.stream().filter(r -> r.status == TradeBatchItemResult.Status.FAILED).count();
+    }
+}
@@ -48,7 +48,47 @@ public class TradeDto {
         this.updatedAt = trade.updatedAt;
     }
 
+    /**
+     * Projection constructor used by JPQL {@code SELECT new} queries, so list endpoints can build
+     * DTOs from one joined SELECT without hydrating managed entities or counterparty proxies.
+     */
+    public TradeDto(Long id, String tradeReference, Long counterpartyId, String counterpartyName,
+                    String counterpartyCode, String instrument, Trade.TradeType tradeType,
+                    BigDecimal quantity, BigDecimal price, BigDecimal notional,
+                    LocalDate tradeDate, LocalDate settlementDate,
+                    String currency, Trade.TradeStatus status, String notes,
+                    LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.tradeReference = tradeReference;
+        this.counterpartyId = counterpartyId;
+        this.counterpartyName = counterpartyName;
+        this.counterpartyCode = counterpartyCode;
+        this.instrument = instrument;
+        this.tradeType = tradeType;
+        this.quantity = quantity;
+        this.price = price;
+        this.totalValue = notional != null ? notional : BigDecimal.ZERO;
+        this.tradeDate = tradeDate;
+        this.settlementDate = settlementDate;
+        this.currency = currency;
+        this.status = status;
+        this.notes = notes;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
     public static TradeDto from(Trade trade) {
         return new TradeDto(trade);
     }
+
+    /**
+     * Takes the counterparty columns from {@code counterparty} instead of {@code trade.counterparty},
+     * which may be an uninitialised reference.
+     */
+    public static TradeDto from(Trade trade, CounterpartyDto counterparty) {
+        return new TradeDto(trade.id, trade.tradeReference, counterparty.id, counterparty.name, counterparty.code,
+                trade.instrument, trade.tradeType, trade.quantity, trade.price, trade.getTotalValue(),
+                trade.tradeDate, trade.settlementDate, trade.currency, trade.status, trade.notes,
+                trade.createdAt, trade.updatedAt);
+    }
 }
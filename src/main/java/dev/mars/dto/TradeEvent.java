@@ -0,0 +1,118 @@
+package dev.mars.dto;
+
+import dev.mars.domain.Trade;
+import dev.mars.event.TradeChange;
+import dev.mars.event.TradeSnapshot;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One committed trade change as sent on the trade event stream. {@code changes} counts the changes folded
+ * into it while its subscriber was behind; {@code previousStatus} is the status before the first of them.
+ * {@code updatedAt} is the trade's {@code updatedAt} after the change, or when it was deleted, and is what
+ * orders the changes to one trade; {@code sequence} only identifies the event.
+ * A {@code RESET} carries no trade: the subscriber fell too far behind and should re-read what it shows.
+ */
+public class TradeEvent {
+    public long sequence;
+    public Type type;
+    public int changes;
+    public Long tradeId;
+    public String tradeReference;
+    public Long counterpartyId;
+    public String instrument;
+    public Trade.TradeType tradeType;
+    public Trade.TradeStatus status;
+    public Trade.TradeStatus previousStatus;
+    public String currency;
+    public BigDecimal quantity;
+    public BigDecimal price;
+    public BigDecimal notional;
+    public LocalDate tradeDate;
+    public LocalDate settlementDate;
+    public LocalDateTime updatedAt;
+
+    public TradeEvent() {
+    }
+
+    public static TradeEvent of(long sequence, TradeChange change) {
+        TradeEvent event = new TradeEvent();
+        event.sequence = sequence;
+        event.type = change.isCreate() ? Type.CREATED : change.isDelete() ? Type.DELETED : Type.UPDATED;
+        event.changes = 1;
+        TradeSnapshot trade = change.isDelete() ? change.before : change.after;
+        event.tradeId = trade.id;
+        event.tradeReference = trade.tradeReference;
+        event.counterpartyId = trade.counterpartyId;
+        event.instrument = trade.instrument;
+        event.tradeType = trade.tradeType;
+        event.status = trade.status;
+        event.previousStatus = change.before != null ? change.before.status : null;
+        event.currency = trade.currency;
+        event.quantity = trade.quantity;
+        event.price = trade.price;
+        event.notional = trade.notional;
+        event.tradeDate = trade.tradeDate;
+        event.settlementDate = trade.settlementDate;
+        event.updatedAt = change.isDelete() ? LocalDateTime.now() : trade.updatedAt;
+        return event;
+    }
+
+    public static TradeEvent reset(long sequence) {
+        TradeEvent event = new TradeEvent();
+        event.sequence = sequence;
+        event.type = Type.RESET;
+        return event;
+    }
+
+    /**
+     * This event followed by {@code later} for the same trade, as one event; null when together they cancel
+     * out (a trade created and deleted before the subscriber saw either).
+     */
+    public TradeEvent coalesce(TradeEvent later) {
+        if (type == Type.CREATED && later.type == Type.DELETED) {
+            return null;
+        }
+        TradeEvent merged = later.copy();
+        merged.changes = changes + later.changes;
+        if (type == Type.CREATED) {
+            // Still a creation to the client, which never saw the status the update replaced
+            merged.type = Type.CREATED;
+            merged.previousStatus = null;
+        } else {
+            merged.previousStatus = previousStatus;
+        }
+        return merged;
+    }
+
+    private TradeEvent copy() {
+        TradeEvent copy = new TradeEvent();
+        copy.sequence = sequence;
+        copy.type = type;
+        copy.changes = changes;
+        copy.tradeId = tradeId;
+        copy.tradeReference = tradeReference;
+        copy.counterpartyId = counterpartyId;
+        copy.instrument = instrument;
+        copy.tradeType = tradeType;
+        copy.status = status;
+        copy.previousStatus = previousStatus;
+        copy.currency = currency;
+        copy.quantity = quantity;
+        copy.price = price;
+        copy.notional = notional;
+        copy.tradeDate = tradeDate;
+        copy.settlementDate = settlementDate;
+        copy.updatedAt = updatedAt;
+        return copy;
+    }
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        RESET
+    }
+}
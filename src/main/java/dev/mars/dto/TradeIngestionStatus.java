@@ -0,0 +1,55 @@
+package dev.mars.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Where a trade submitted for asynchronous capture stands. {@code ingestionId} is assigned on acceptance;
+ * {@code tradeId} is set once the trade is committed, {@code error} if it was rejected at commit.
+ */
+public class TradeIngestionStatus {
+    public String ingestionId;
+    public String tradeReference;
+    public State state;
+    public Long tradeId;
+    public String error;
+    public LocalDateTime acceptedAt;
+    public LocalDateTime completedAt;
+
+    public TradeIngestionStatus() {
+    }
+
+    public static TradeIngestionStatus accepted(String ingestionId, String tradeReference) {
+        TradeIngestionStatus status = new TradeIngestionStatus();
+        status.ingestionId = ingestionId;
+        status.tradeReference = tradeReference;
+        status.state = State.ACCEPTED;
+        status.acceptedAt = LocalDateTime.now();
+        return status;
+    }
+
+    public TradeIngestionStatus committed(Long tradeId) {
+        return complete(State.COMMITTED, tradeId, null);
+    }
+
+    public TradeIngestionStatus failed(String error) {
+        return complete(State.FAILED, null, error);
+    }
+
+    private TradeIngestionStatus complete(State state, Long tradeId, String error) {
+        TradeIngestionStatus status = new TradeIngestionStatus();
+        status.ingestionId = ingestionId;
+        status.tradeReference = tradeReference;
+        status.acceptedAt = acceptedAt;
+        status.state = state;
+        status.tradeId = tradeId;
+        status.error = error;
+        status.completedAt = LocalDateTime.now();
+        return status;
+    }
+
+    public enum State {
+        ACCEPTED,
+        COMMITTED,
+        FAILED
+    }
+}
@@ -0,0 +1,64 @@
+package dev.mars.dto;
+
+import dev.mars.domain.Trade;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Trade counts and notional sums broken down by status, trade type and currency.
+ * Every status and trade type is always present (with zeros) so dashboards get a stable shape.
+ */
+public class TradeStatistics {
+    public long totalCount;
+    public BigDecimal totalNotional = BigDecimal.ZERO;
+    public Map<Trade.TradeStatus, Bucket> byStatus = new EnumMap<>(Trade.TradeStatus.class);
+    public Map<Trade.TradeType, Bucket> byTradeType = new EnumMap<>(Trade.TradeType.class);
+    public Map<String, Bucket> byCurrency = new TreeMap<>();
+    public String source;
+
+    public TradeStatistics() {
+    }
+
+    public static TradeStatistics from(Collection<TradeAggregate> cells, String source) {
+        TradeStatistics stats = new TradeStatistics();
+        stats.source = source;
+        for (Trade.TradeStatus status : Trade.TradeStatus.values()) {
+            stats.byStatus.put(status, new Bucket());
+        }
+        for (Trade.TradeType type : Trade.TradeType.values()) {
+            stats.byTradeType.put(type, new Bucket());
+        }
+        for (TradeAggregate cell : cells) {
+            if (cell.count == 0) {
+                continue;
+            }
+            stats.totalCount += cell.count;
+            stats.totalNotional = stats.totalNotional.add(cell.notional);
+            stats.byStatus.get(cell.status).add(cell.count, cell.notional);
+            stats.byTradeType.get(cell.tradeType).add(cell.count, cell.notional);
+            stats.byCurrency.computeIfAbsent(cell.currency, currency -> new Bucket()).add(cell.count, cell.notional);
+        }
+        return stats;
+    }
+
+    public long countOf(Trade.TradeStatus status) {
+        return byStatus.get(status).count;
+    }
+
+    public static class Bucket {
+        public long count;
+        public BigDecimal notional = BigDecimal.ZERO;
+
+        public Bucket() {
+        }
+
+        void add(long count, BigDecimal notional) {
+            this.count += count;
+            this.notional = this.notional.add(notional);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package dev.mars.event;
+
+import dev.mars.domain.Counterparty;
+
+/**
+ * CDI event fired by {@code CounterpartyService} inside the transaction that creates, updates or deletes
+ * a counterparty. {@code before} is null for a create and {@code after} is null for a delete.
+ */
+public class CounterpartyChangedEvent {
+    public final CounterpartySnapshot before;
+    public final CounterpartySnapshot after;
+
+    public CounterpartyChangedEvent(CounterpartySnapshot before, CounterpartySnapshot after) {
+        this.before = before;
+        this.after = after;
+    }
+
+    public static CounterpartyChangedEvent created(Counterparty counterparty) {
+        return new CounterpartyChangedEvent(null, CounterpartySnapshot.of(counterparty));
+    }
+
+    public static CounterpartyChangedEvent updated(CounterpartySnapshot before, Counterparty counterparty) {
+        return new CounterpartyChangedEvent(before, CounterpartySnapshot.of(counterparty));
+    }
+
+    public static CounterpartyChangedEvent deleted(CounterpartySnapshot before) {
+        return new CounterpartyChangedEvent(before, null);
+    }
+
+    public Long counterpartyId() {
+        return after != null ? after.id : before.id;
+    }
+}
@@ -0,0 +1,28 @@
+package dev.mars.event;
+
+import dev.mars.domain.Counterparty;
+
+/**
+ * Immutable copy of the counterparty fields that derived views (search index, caches) depend on.
+ */
+public class CounterpartySnapshot {
+    public final Long id;
+    public final String name;
+    public final String code;
+    public final Counterparty.CounterpartyType type;
+    public final Counterparty.CounterpartyStatus status;
+
+    public CounterpartySnapshot(Long id, String name, String code,
+                                Counterparty.CounterpartyType type, Counterparty.CounterpartyStatus status) {
+        this.id = id;
+        this.name = name;
+        this.code = code;
+        this.type = type;
+        this.status = status;
+    }
+
+    public static CounterpartySnapshot of(Counterparty counterparty) {
+        return new CounterpartySnapshot(counterparty.id, counterparty.name, counterparty.code,
+                counterparty.type, counterparty.status);
+    }
+}
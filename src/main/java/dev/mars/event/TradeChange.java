@@ -0,0 +1,40 @@
+package dev.mars.event;
+
+import dev.mars.domain.Trade;
+
+/**
+ * One trade mutation as a before/after pair: {@code before} is null for a create, {@code after} is null for a delete.
+ */
+public class TradeChange {
+    public final TradeSnapshot before;
+    public final TradeSnapshot after;
+
+    public TradeChange(TradeSnapshot before, TradeSnapshot after) {
+        this.before = before;
+        this.after = after;
+    }
+
+    public static TradeChange created(Trade trade) {
+        return new TradeChange(null, TradeSnapshot.of(trade));
+    }
+
+    public static TradeChange updated(TradeSnapshot before, Trade trade) {
+        return new TradeChange(before, TradeSnapshot.of(trade));
+    }
+
+    public static TradeChange deleted(TradeSnapshot before) {
+        return new TradeChange(before, null);
+    }
+
+    public Long tradeId() {
+        return after != null ? after.id : before.id;
+    }
+
+    public boolean isCreate() {
+        return before == null;
+    }
+
+    public boolean isDelete() {
+        return after == null;
+    }
+}
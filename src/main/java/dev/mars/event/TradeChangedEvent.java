@@ -0,0 +1,20 @@
+package dev.mars.event;
+
+import java.util.List;
+
+/**
+ * CDI event fired by {@code TradeService} inside the transaction that creates, updates or deletes trades.
+ * Observers that maintain derived state pick a transactional phase: {@code IN_PROGRESS} to write it
+ * atomically with the trades, {@code AFTER_SUCCESS} to apply it only once the transaction has committed.
+ */
+public class TradeChangedEvent {
+    public final List<TradeChange> changes;
+
+    public TradeChangedEvent(List<TradeChange> changes) {
+        this.changes = List.copyOf(changes);
+    }
+
+    public static TradeChangedEvent of(TradeChange change) {
+        return new TradeChangedEvent(List.of(change));
+    }
+}
@@ -0,0 +1,40 @@
+package dev.mars.event;
+
+import dev.mars.domain.Trade;
+
+/**
+ * Which trade changes a stream subscriber wants. A change matches when the trade matched before it or
+ * matches after it, so a subscriber also hears about trades leaving its view (e.g. PENDING to CONFIRMED).
+ */
+public class TradeEventFilter {
+    public final Long counterpartyId;
+    public final String instrument;
+    public final Trade.TradeStatus status;
+
+    public TradeEventFilter(Long counterpartyId, String instrument, Trade.TradeStatus status) {
+        this.counterpartyId = counterpartyId;
+        this.instrument = instrument;
+        this.status = status;
+    }
+
+    public static TradeEventFilter all() {
+        return new TradeEventFilter(null, null, null);
+    }
+
+    public boolean matches(TradeChange change) {
+        return matches(change.before) || matches(change.after);
+    }
+
+    private boolean matches(TradeSnapshot trade) {
+        return trade != null
+                && (counterpartyId == null || counterpartyId.equals(trade.counterpartyId))
+                && (instrument == null || instrument.equals(trade.instrument))
+                && (status == null || status == trade.status);
+    }
+
+    @Override
+    public String toString() {
+        return "TradeEventFilter{counterpartyId=" + counterpartyId + ", instrument='" + instrument
+                + "', status=" + status + '}';
+    }
+}
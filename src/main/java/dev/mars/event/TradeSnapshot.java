@@ -0,0 +1,67 @@
+package dev.mars.event;
+
+import dev.mars.domain.Trade;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Immutable copy of the trade fields that derived views (statistics, aggregates, caches) key on.
+ * Taken while the entity is still managed, so observers never touch a detached or deleted entity.
+ */
+public class TradeSnapshot {
+    public final Long id;
+    public final String tradeReference;
+    public final Long counterpartyId;
+    public final String instrument;
+    public final Trade.TradeType tradeType;
+    public final Trade.TradeStatus status;
+    public final String currency;
+    public final BigDecimal quantity;
+    public final BigDecimal price;
+    public final BigDecimal notional;
+    public final LocalDate tradeDate;
+    public final LocalDate settlementDate;
+    public final LocalDateTime updatedAt;
+
+    public TradeSnapshot(Long id, String tradeReference, Long counterpartyId, String instrument,
+                         Trade.TradeType tradeType, Trade.TradeStatus status, String currency,
+                         BigDecimal quantity, BigDecimal price, BigDecimal notional,
+                         LocalDate tradeDate, LocalDate settlementDate, LocalDateTime updatedAt) {
+        this.id = id;
+        this.tradeReference = tradeReference;
+        this.counterpartyId = counterpartyId;
+        this.instrument = instrument;
+        this.tradeType = tradeType;
+        this.status = status;
+        this.currency = currency;
+        this.quantity = quantity;
+        this.price = price;
+        this.notional = notional != null ? notional : BigDecimal.ZERO;
+        this.tradeDate = tradeDate;
+        this.settlementDate = settlementDate;
+        this.updatedAt = updatedAt;
+    }
+
+    public static TradeSnapshot of(Trade trade) {
+        return new TradeSnapshot(trade.id, trade.tradeReference,
+                trade.counterparty != null ? trade.counterparty.id : null,
+                trade.instrument, trade.tradeType, trade.status, trade.currency,
+                trade.quantity, trade.price, trade.getTotalValue(), trade.tradeDate, trade.settlementDate,
+                trade.updatedAt);
+    }
+
+    /**
+     * Copy of this snapshot with another status, for changes applied by a bulk UPDATE rather than the entity.
+     */
+    public TradeSnapshot withStatus(Trade.TradeStatus status, LocalDateTime updatedAt) {
+        return new TradeSnapshot(id, tradeReference, counterpartyId, instrument, tradeType, status, currency,
+                quantity, price, notional, tradeDate, settlementDate, updatedAt);
+    }
+
+    @Override
+    public String toString() {
+        return "TradeSnapshot{id=" + id + ", tradeReference='" + tradeReference + "', status=" + status + '}';
+    }
+}
@@ -0,0 +1,19 @@
+package dev.mars.exception;
+
+/**
+ * A request could not be taken on because a bounded resource is full; answered with 503 and a
+ * {@code Retry-After} hint rather than the 400 of a {@link BusinessException}.
+ */
+public class CapacityExceededException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public CapacityExceededException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -2,6 +2,7 @@ package dev.mars.exception;
 
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.ext.ExceptionMapper;
 import jakarta.ws.rs.ext.Provider;
@@ -17,12 +18,15 @@ public class GlobalExceptionHandler implements ExceptionMapper<Exception> {
 
     private static final Logger LOG = Logger.getLogger(GlobalExceptionHandler.class);
 
+    // Errors are always JSON, including for requests that negotiated a binary format
     @Override
     public Response toResponse(Exception exception) {
         LOG.error("Exception occurred", exception);
 
         if (exception instanceof BusinessException) {
             return handleBusinessException((BusinessException) exception);
+        } else if (exception instanceof CapacityExceededException) {
+            return handleCapacityExceededException((CapacityExceededException) exception);
         } else if (exception instanceof ConstraintViolationException) {
             return handleValidationException((ConstraintViolationException) exception);
         } else if (exception instanceof IllegalArgumentException) {
@@ -39,6 +43,20 @@ public class GlobalExceptionHandler implements ExceptionMapper<Exception> {
                 LocalDateTime.now()
         );
         return Response.status(Response.Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(error)
+                .build();
+    }
+
+    private Response handleCapacityExceededException(CapacityExceededException ex) {
+        ErrorResponse error = new ErrorResponse(
+                "CAPACITY_EXCEEDED",
+                ex.getMessage(),
+                LocalDateTime.now()
+        );
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header("Retry-After", ex.getRetryAfterSeconds())
+                .type(MediaType.APPLICATION_JSON)
                 .entity(error)
                 .build();
     }
@@ -58,6 +76,7 @@ public class GlobalExceptionHandler implements ExceptionMapper<Exception> {
                 violations
         );
         return Response.status(Response.Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
                 .entity(error)
                 .build();
     }
@@ -69,6 +88,7 @@ public class GlobalExceptionHandler implements ExceptionMapper<Exception> {
                 LocalDateTime.now()
         );
         return Response.status(Response.Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
                 .entity(error)
                 .build();
     }
@@ -80,6 +100,7 @@ public class GlobalExceptionHandler implements ExceptionMapper<Exception> {
                 LocalDateTime.now()
         );
         return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                .type(MediaType.APPLICATION_JSON)
                 .entity(error)
                 .build();
     }
@@ -4,6 +4,8 @@ import dev.mars.domain.Counterparty;
 import dev.mars.domain.Trade;
 import dev.mars.repository.CounterpartyRepository;
 import dev.mars.repository.TradeRepository;
+import dev.mars.service.CounterpartyExposureService;
+import dev.mars.service.TradeIngestionService;
 import io.quarkus.runtime.ShutdownEvent;
 import io.quarkus.runtime.StartupEvent;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -26,6 +28,12 @@ public class ApplicationLifecycle {
     @Inject
     TradeRepository tradeRepository;
 
+    @Inject
+    CounterpartyExposureService counterpartyExposureService;
+
+    @Inject
+    TradeIngestionService tradeIngestionService;
+
     @Transactional
     void onStart(@Observes StartupEvent ev) {
         LOG.info("=== Quarkus Trading Application Starting ===");
@@ -35,6 +43,10 @@ public class ApplicationLifecycle {
             LOG.info("Database is empty, initializing sample data...");
             initializeSampleData();
         }
+
+        // Sample data and any rows written outside the services are folded into the exposure cells
+        tradeRepository.flush();
+        counterpartyExposureService.reconcile();
         
         // Log application statistics
         logApplicationStats();
@@ -44,6 +56,9 @@ public class ApplicationLifecycle {
 
     void onStop(@Observes ShutdownEvent ev) {
         LOG.info("=== Quarkus Trading Application Shutting Down ===");
+
+        // Trades accepted for asynchronous capture exist only in memory until committed
+        tradeIngestionService.drain();
         
         // Log final statistics
         logApplicationStats();
@@ -0,0 +1,109 @@
+package dev.mars.metrics;
+
+import dev.mars.dto.CursorPage;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the JSON bytes of list responses as they are written. Full responses keep a running bytes-per-row
+ * figure for their endpoint; a sparse fieldset response (rows written as maps) is then charged against it,
+ * so {@code trading.fieldsets.saved} is what the same rows would have cost in full minus what was sent.
+ * Until an endpoint has served one full response there is no baseline and no saving is recorded.
+ */
+@Provider
+@MeteredListPayload
+public class ListPayloadMeter implements WriterInterceptor {
+
+    @Inject
+    TradingMetrics tradingMetrics;
+
+    @Context
+    ResourceInfo resourceInfo;
+
+    private final Map<String, Baseline> fullRowBytes = new ConcurrentHashMap<>();
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        List<?> rows = rowsOf(context.getEntity());
+        if (rows == null || rows.isEmpty() || !MediaType.APPLICATION_JSON_TYPE.isCompatible(context.getMediaType())) {
+            context.proceed();
+            return;
+        }
+        OutputStream original = context.getOutputStream();
+        CountingOutputStream counting = new CountingOutputStream(original);
+        context.setOutputStream(counting);
+        try {
+            context.proceed();
+        } finally {
+            context.setOutputStream(original);
+        }
+
+        String endpoint = resourceInfo.getResourceMethod().getName();
+        Baseline baseline = fullRowBytes.computeIfAbsent(endpoint, name -> new Baseline());
+        if (rows.get(0) instanceof Map) {
+            tradingMetrics.recordListPayload(endpoint, "sparse", counting.count);
+            long full = baseline.estimate(rows.size());
+            if (full > 0) {
+                tradingMetrics.recordFieldsetBytesSaved(endpoint, Math.max(0, full - counting.count));
+            }
+        } else {
+            tradingMetrics.recordListPayload(endpoint, "full", counting.count);
+            baseline.add(counting.count, rows.size());
+        }
+    }
+
+    private static List<?> rowsOf(Object entity) {
+        if (entity instanceof CursorPage<?> page) {
+            return page.items;
+        }
+        return entity instanceof List<?> list ? list : null;
+    }
+
+    private static final class Baseline {
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+
+        void add(long responseBytes, int responseRows) {
+            bytes.add(responseBytes);
+            rows.add(responseRows);
+        }
+
+        long estimate(int responseRows) {
+            long seen = rows.sum();
+            return seen == 0 ? 0 : bytes.sum() * responseRows / seen;
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
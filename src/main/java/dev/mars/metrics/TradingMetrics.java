@@ -1,15 +1,21 @@
 package dev.mars.metrics;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
 import java.time.Duration;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
 
 /**
  * Custom metrics for the Trading Application.
@@ -42,6 +48,7 @@ public class TradingMetrics {
     private final AtomicInteger pendingTrades = new AtomicInteger(0);
     private final AtomicInteger activeCounterparties = new AtomicInteger(0);
     private final AtomicInteger totalTradeValue = new AtomicInteger(0);
+    private final AtomicInteger exposureDriftCells = new AtomicInteger(0);
 
     /**
      * Initialize all metrics. Called automatically by CDI.
@@ -114,6 +121,10 @@ public class TradingMetrics {
         Gauge.builder("trading.trades.total.value", totalTradeValue, AtomicInteger::get)
                 .description("Total value of all trades")
                 .register(meterRegistry);
+
+        Gauge.builder("trading.exposure.drift.cells", exposureDriftCells, AtomicInteger::get)
+                .description("Exposure cells found out of line with the trades by the last reconciliation")
+                .register(meterRegistry);
     }
 
     // Trade metrics methods
@@ -129,24 +140,38 @@ public class TradingMetrics {
     }
 
     public void recordTradeConfirmed(String instrument, String tradeType) {
+        recordTradesConfirmed(instrument, tradeType, 1);
+    }
+
+    /**
+     * Records {@code count} trades of one instrument and type confirmed together, e.g. by a bulk transition.
+     */
+    public void recordTradesConfirmed(String instrument, String tradeType, long count) {
         initializeMetrics();
         Counter.builder("trading.trades.confirmed")
                 .tag("instrument", instrument)
                 .tag("type", tradeType)
                 .register(meterRegistry)
-                .increment();
-        pendingTrades.decrementAndGet();
+                .increment(count);
+        pendingTrades.addAndGet((int) -count);
     }
 
     public void recordTradeSettled(String instrument, String tradeType, double value) {
+        recordTradesSettled(instrument, tradeType, 1, value);
+    }
+
+    /**
+     * Records {@code count} trades of one instrument and type settled together, worth {@code totalValue}.
+     */
+    public void recordTradesSettled(String instrument, String tradeType, long count, double totalValue) {
         initializeMetrics();
         Counter.builder("trading.trades.settled")
                 .tag("instrument", instrument)
                 .tag("type", tradeType)
                 .register(meterRegistry)
-                .increment();
-        activeTrades.decrementAndGet();
-        totalTradeValue.addAndGet((int) value);
+                .increment(count);
+        activeTrades.addAndGet((int) -count);
+        totalTradeValue.addAndGet((int) totalValue);
     }
 
     public void recordTradeFailed(String instrument, String tradeType, String errorType) {
@@ -234,6 +259,248 @@ public class TradingMetrics {
                 .record(duration);
     }
 
+    public void recordExposureReconciliation(int driftedCells, Duration duration) {
+        initializeMetrics();
+        exposureDriftCells.set(driftedCells);
+        Counter.builder("trading.exposure.drift.corrections")
+                .description("Total number of exposure cells corrected by reconciliation")
+                .register(meterRegistry)
+                .increment(driftedCells);
+        Timer.builder("trading.exposure.reconciliation.time")
+                .description("Time taken to reconcile counterparty exposures")
+                .register(meterRegistry)
+                .record(duration);
+    }
+
+    public void registerSearchIndex(IntSupplier entries, LongSupplier estimatedBytes) {
+        Gauge.builder("trading.search.index.entries", entries, supplier -> supplier.getAsInt())
+                .description("Number of counterparties in the name search index")
+                .register(meterRegistry);
+        Gauge.builder("trading.search.index.bytes", estimatedBytes, supplier -> supplier.getAsLong())
+                .description("Estimated heap used by the name search index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public void registerTradeReferenceFilter(DoubleSupplier falsePositiveProbability, LongSupplier sizeInBytes) {
+        Gauge.builder("trading.trade-reference.filter.fpp", falsePositiveProbability, supplier -> supplier.getAsDouble())
+                .description("Expected false positive probability of the trade reference filter at its current fill")
+                .register(meterRegistry);
+        Gauge.builder("trading.trade-reference.filter.bytes", sizeInBytes, supplier -> supplier.getAsLong())
+                .description("Heap used by the trade reference filter")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Outcome of a duplicate reference check: skipped (filter ruled it out), duplicate, or false_positive.
+     */
+    public void recordTradeReferenceCheck(String result) {
+        Counter.builder("trading.trade-reference.checks")
+                .description("Duplicate trade reference checks by outcome")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void registerSettlementBacklog(LongSupplier dueTrades, LongSupplier lagDays) {
+        Gauge.builder("trading.settlement.backlog", dueTrades, supplier -> supplier.getAsLong())
+                .description("CONFIRMED trades due for settlement, as of the last settlement run")
+                .register(meterRegistry);
+        Gauge.builder("trading.settlement.lag", lagDays, supplier -> supplier.getAsLong())
+                .description("Days between the business date and the oldest unsettled due trade, as of the last settlement run")
+                .baseUnit("days")
+                .register(meterRegistry);
+    }
+
+    /**
+     * One settlement chunk committed; the rate of {@code trading.settlement.trades} is the engine's throughput.
+     */
+    public void recordSettlementChunk(int settled, Duration duration) {
+        Counter.builder("trading.settlement.trades")
+                .description("Trades settled by the settlement engine")
+                .register(meterRegistry)
+                .increment(settled);
+        Timer.builder("trading.settlement.chunk.time")
+                .description("Time taken to settle one chunk of due trades")
+                .register(meterRegistry)
+                .record(duration);
+    }
+
+    public void recordSettlementRun(boolean completed, Duration duration) {
+        Timer.builder("trading.settlement.run.time")
+                .description("Time taken by a settlement run")
+                .tag("outcome", completed ? "completed" : "interrupted")
+                .register(meterRegistry)
+                .record(duration);
+    }
+
+    public void registerIngestionQueue(IntSupplier depth) {
+        Gauge.builder("trading.ingestion.queue.depth", depth, supplier -> supplier.getAsInt())
+                .description("Trades accepted for asynchronous capture and not yet committed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Outcome of an asynchronously captured trade: accepted, rejected (buffer full), committed or failed.
+     */
+    public void recordIngestion(String outcome) {
+        Counter.builder("trading.ingestion.trades")
+                .description("Trades submitted for asynchronous capture by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void recordIngestionCommitLag(Duration lag) {
+        Timer.builder("trading.ingestion.commit.lag")
+                .description("Time from accepting a trade for asynchronous capture to committing it")
+                .register(meterRegistry)
+                .record(lag);
+    }
+
+    /**
+     * A request sent with an {@code Idempotency-Key}: executed, replayed, or refused as a mismatch (key reused
+     * for a different request).
+     */
+    public void recordIdempotentRequest(String scope, String outcome) {
+        Counter.builder("trading.idempotency.requests")
+                .description("Requests carrying an Idempotency-Key by outcome")
+                .tag("scope", scope)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Subscribers to the trade event stream, and the most undelivered trades any one of them has buffered.
+     */
+    public void registerTradeEventStream(IntSupplier subscribers, IntSupplier maxPending) {
+        Gauge.builder("trading.events.subscribers", subscribers, supplier -> supplier.getAsInt())
+                .description("Clients connected to the trade event stream")
+                .register(meterRegistry);
+        Gauge.builder("trading.events.subscriber.pending.max", maxPending, supplier -> supplier.getAsInt())
+                .description("Largest number of trades waiting to be sent to one stream subscriber")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Trade changes on the stream by outcome: queued for a subscriber, coalesced into one already queued,
+     * delivered, or dropped when a subscriber that fell too far behind was reset.
+     */
+    public void recordTradeEvents(String outcome, long count) {
+        Counter.builder("trading.events")
+                .description("Trade changes sent to stream subscribers by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment(count);
+    }
+
+    public void recordTradeEventLag(Duration lag) {
+        Timer.builder("trading.events.subscriber.lag")
+                .description("Time from a trade change committing to reaching a stream subscriber")
+                .register(meterRegistry)
+                .record(lag);
+    }
+
+    public void registerOutboxBacklog(LongSupplier queuedEvents, LongSupplier lagSeconds) {
+        Gauge.builder("trading.outbox.backlog", queuedEvents, supplier -> supplier.getAsLong())
+                .description("Trade events in the outbox waiting to be relayed, as of the last relay poll")
+                .register(meterRegistry);
+        Gauge.builder("trading.outbox.lag", lagSeconds, supplier -> supplier.getAsLong())
+                .description("Age of the oldest trade event waiting in the outbox, as of the last relay poll")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * One outbox batch delivered and deleted, or failed and rolled back; the rate of
+     * {@code trading.outbox.relayed} is the relay's throughput.
+     */
+    public void recordOutboxBatch(boolean delivered, int events, Duration duration) {
+        Counter.builder("trading.outbox.relayed")
+                .description("Trade events delivered from the outbox to its sink")
+                .register(meterRegistry)
+                .increment(events);
+        Timer.builder("trading.outbox.batch.time")
+                .description("Time taken to claim, deliver and delete one outbox batch")
+                .tag("outcome", delivered ? "delivered" : "failed")
+                .register(meterRegistry)
+                .record(duration);
+    }
+
+    public void recordOutboxDeliveryLag(Duration lag) {
+        Timer.builder("trading.outbox.delivery.lag")
+                .description("Time from a trade change being written to the outbox to its delivery")
+                .register(meterRegistry)
+                .record(lag);
+    }
+
+    public void registerTradeAnalytics(IntSupplier trades, LongSupplier estimatedBytes) {
+        Gauge.builder("trading.analytics.trades", trades, supplier -> supplier.getAsInt())
+                .description("Trades held in the analytics column store")
+                .register(meterRegistry);
+        Gauge.builder("trading.analytics.bytes", estimatedBytes, supplier -> supplier.getAsLong())
+                .description("Estimated heap used by the analytics column store")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * One analytics query; {@code partitions} is how many ranges of the columns were scanned in parallel.
+     */
+    public void recordAnalyticsQuery(int partitions, Duration duration) {
+        Timer.builder("trading.analytics.query.time")
+                .description("Time taken to scan and group the analytics column store for one query")
+                .tag("parallel", partitions > 1 ? "true" : "false")
+                .register(meterRegistry)
+                .record(duration);
+    }
+
+    /**
+     * JSON bytes written by a list endpoint, tagged {@code fieldset=full} or {@code sparse} (a {@code fields=} request).
+     */
+    public void recordListPayload(String endpoint, String fieldset, long bytes) {
+        DistributionSummary.builder("trading.list.payload")
+                .description("JSON bytes written per list response")
+                .baseUnit("bytes")
+                .tag("endpoint", endpoint)
+                .tag("fieldset", fieldset)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    /**
+     * Bytes a sparse fieldset request did not send, against what its rows would have cost in full.
+     */
+    public void recordFieldsetBytesSaved(String endpoint, long bytes) {
+        DistributionSummary.builder("trading.fieldsets.saved")
+                .description("JSON bytes saved per list response by a sparse fieldset")
+                .baseUnit("bytes")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    /**
+     * A virtual thread blocked while pinned to its carrier; {@code site} is the class that blocked.
+     */
+    public void recordVirtualThreadPinned(String site, Duration duration) {
+        Timer.builder("trading.virtual-threads.pinned")
+                .description("Virtual threads that blocked while pinned to their carrier thread")
+                .tag("site", site)
+                .register(meterRegistry)
+                .record(duration);
+    }
+
+    /**
+     * Binds hit, miss, eviction and size meters ({@code cache.gets}, {@code cache.evictions}, ...) for a
+     * Caffeine cache built with {@code recordStats()}.
+     */
+    public void registerCache(String name, Cache<?, ?> cache) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+    }
+
     // Gauge update methods
     public void updateActiveTradesCount(int count) {
         activeTrades.set(count);
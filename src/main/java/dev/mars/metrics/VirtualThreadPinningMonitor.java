@@ -0,0 +1,74 @@
+package dev.mars.metrics;
+
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier, e.g. inside a {@code synchronized}
+ * block of the JDBC driver or the connection pool. A pinned thread holds a carrier for the whole wait,
+ * so enough of them at once starve every other virtual thread. Events come from the JDK's own
+ * {@code jdk.VirtualThreadPinned} JFR event, streamed in-process.
+ */
+@ApplicationScoped
+@IfBuildProperty(name = "trading.virtual-threads.enabled", stringValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger LOG = Logger.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    @Inject
+    TradingMetrics tradingMetrics;
+
+    @ConfigProperty(name = "trading.virtual-threads.pinning-threshold", defaultValue = "20ms")
+    Duration threshold;
+
+    private RecordingStream stream;
+
+    void onStart(@Observes StartupEvent ev) {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        LOG.infof("Reporting virtual threads pinned for longer than %d ms", threshold.toMillis());
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        String site = pinnedSite(event);
+        tradingMetrics.recordVirtualThreadPinned(site, event.getDuration());
+        LOG.debugf("Virtual thread pinned for %d ms at %s", event.getDuration().toMillis(), site);
+    }
+
+    // The first frame outside the JDK, i.e. the library or application code that blocked while pinned
+    private static String pinnedSite(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "unknown";
+        }
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type;
+            }
+        }
+        return "jdk";
+    }
+}
@@ -0,0 +1,56 @@
+package dev.mars.repository;
+
+import dev.mars.domain.Counterparty;
+import dev.mars.dto.CounterpartyDto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position within a counterparty listing ordered by name and id (both ascending).
+ */
+public class CounterpartyCursor {
+
+    private static final String SEPARATOR = "|";
+
+    public final String name;
+    public final Long id;
+
+    public CounterpartyCursor(String name, Long id) {
+        this.name = name;
+        this.id = id;
+    }
+
+    public static CounterpartyCursor of(Counterparty counterparty) {
+        return new CounterpartyCursor(counterparty.name, counterparty.id);
+    }
+
+    public static CounterpartyCursor of(CounterpartyDto counterparty) {
+        return new CounterpartyCursor(counterparty.name, counterparty.id);
+    }
+
+    public String encode() {
+        // id goes first so that a separator inside the name cannot confuse decoding
+        String raw = id + SEPARATOR + name;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously returned as {@code nextCursor}; blank input means "start from the top".
+     */
+    public static CounterpartyCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int split = raw.indexOf(SEPARATOR);
+            if (split < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            return new CounterpartyCursor(raw.substring(split + 1), Long.valueOf(raw.substring(0, split)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package dev.mars.repository;
+
+import dev.mars.domain.CounterpartyExposure;
+import dev.mars.domain.Trade;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@ApplicationScoped
+public class CounterpartyExposureRepository implements PanacheRepository<CounterpartyExposure> {
+
+    /**
+     * Difference between the exposure recomputed from the trades table and the stored cells, one row per
+     * cell that has drifted: {@code [counterparty_id, status, currency, count delta, notional delta]}.
+     * Both sides are read by a single statement, so they come from the same snapshot.
+     */
+    private static final String DRIFT_QUERY = "SELECT counterparty_id, status, currency, SUM(trade_count), SUM(notional) FROM ("
+            + "SELECT counterparty_id, CAST(status AS VARCHAR(20)) AS status, currency, "
+            + "COUNT(*) AS trade_count, SUM(notional) AS notional "
+            + "FROM trades GROUP BY counterparty_id, status, currency "
+            + "UNION ALL "
+            + "SELECT counterparty_id, CAST(status AS VARCHAR(20)), currency, -tradeCount, -notional "
+            + "FROM counterparty_exposures"
+            + ") d GROUP BY counterparty_id, status, currency "
+            + "HAVING SUM(trade_count) <> 0 OR SUM(notional) <> 0";
+
+    public List<CounterpartyExposure> findByCounterpartyId(Long counterpartyId) {
+        return list("counterpartyId", Sort.by("status").and("currency"), counterpartyId);
+    }
+
+    public BigDecimal getTotalNotionalByCounterpartyId(Long counterpartyId) {
+        return find("SELECT SUM(e.notional) FROM CounterpartyExposure e WHERE e.counterpartyId = ?1", counterpartyId)
+                .project(BigDecimal.class)
+                .firstResult();
+    }
+
+    /**
+     * The counterparty's trades, summed over its cells instead of counted in the trades table.
+     */
+    public long countTradesByCounterpartyId(Long counterpartyId) {
+        Long count = find("SELECT SUM(e.tradeCount) FROM CounterpartyExposure e WHERE e.counterpartyId = ?1", counterpartyId)
+                .project(Long.class)
+                .firstResult();
+        return count != null ? count : 0;
+    }
+
+    /**
+     * {@code [trade count, latest updatedAt]} over the counterparty's cells. Every trade write touches a
+     * cell in the same transaction, so this changes whenever the counterparty's trades do.
+     */
+    public Object[] findVersionByCounterpartyId(Long counterpartyId) {
+        return getEntityManager()
+                .createQuery("SELECT SUM(e.tradeCount), MAX(e.updatedAt) FROM CounterpartyExposure e "
+                        + "WHERE e.counterpartyId = :counterpartyId", Object[].class)
+                .setParameter("counterpartyId", counterpartyId)
+                .getSingleResult();
+    }
+
+    /**
+     * {@code [trade count, latest updatedAt]} over all cells.
+     */
+    public Object[] findVersion() {
+        return getEntityManager()
+                .createQuery("SELECT SUM(e.tradeCount), MAX(e.updatedAt) FROM CounterpartyExposure e", Object[].class)
+                .getSingleResult();
+    }
+
+    /**
+     * Adds the deltas to an existing cell with one atomic UPDATE and returns the number of rows changed
+     * (0 when the cell does not exist yet).
+     */
+    public int addDelta(Long counterpartyId, Trade.TradeStatus status, String currency,
+                        long countDelta, BigDecimal notionalDelta) {
+        return update("tradeCount = tradeCount + ?1, notional = notional + ?2, updatedAt = ?3 "
+                        + "WHERE counterpartyId = ?4 AND status = ?5 AND currency = ?6",
+                countDelta, notionalDelta, LocalDateTime.now(), counterpartyId, status, currency);
+    }
+
+    public long deleteByCounterpartyId(Long counterpartyId) {
+        return delete("counterpartyId", counterpartyId);
+    }
+
+    public long deleteEmptyCells() {
+        return delete("tradeCount = 0 AND notional = 0");
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findDrift() {
+        return getEntityManager().createNativeQuery(DRIFT_QUERY).getResultList();
+    }
+}
@@ -0,0 +1,64 @@
+package dev.mars.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A {@code CounterpartyDto} property a client may ask for with {@code fields=}, and the column it is read from.
+ * Only the trade count needs the join to the trades and the GROUP BY that goes with it.
+ */
+public enum CounterpartyField {
+    ID("id", "c.id"),
+    NAME("name", "c.name"),
+    CODE("code", "c.code"),
+    EMAIL("email", "c.email"),
+    PHONE_NUMBER("phoneNumber", "c.phoneNumber"),
+    ADDRESS("address", "c.address"),
+    TYPE("type", "c.type"),
+    STATUS("status", "c.status"),
+    CREATED_AT("createdAt", "c.createdAt"),
+    UPDATED_AT("updatedAt", "c.updatedAt"),
+    TRADE_COUNT("tradeCount", "COUNT(t)", true);
+
+    private static final Map<String, CounterpartyField> BY_PROPERTY = Arrays.stream(values())
+            .collect(Collectors.toMap(field -> field.property, Function.identity()));
+
+    public final String property;
+    final String expression;
+    final boolean tradeJoin;
+
+    CounterpartyField(String property, String expression) {
+        this(property, expression, false);
+    }
+
+    CounterpartyField(String property, String expression, boolean tradeJoin) {
+        this.property = property;
+        this.expression = expression;
+        this.tradeJoin = tradeJoin;
+    }
+
+    /**
+     * Parses a comma-separated list of property names such as {@code id,name,code}, keeping the client's order
+     * and dropping repeats. Null or blank means every field, returned as null.
+     */
+    public static List<CounterpartyField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<CounterpartyField> parsed = new LinkedHashSet<>();
+        for (String name : fields.split(",")) {
+            CounterpartyField field = BY_PROPERTY.get(name.trim());
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown counterparty field: " + name.trim());
+            }
+            parsed.add(field);
+        }
+        return new ArrayList<>(parsed);
+    }
+}
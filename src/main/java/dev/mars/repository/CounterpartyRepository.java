@@ -1,17 +1,32 @@
 package dev.mars.repository;
 
 import dev.mars.domain.Counterparty;
+import dev.mars.dto.CounterpartyDto;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import io.quarkus.panache.common.Page;
+import io.quarkus.panache.common.Parameters;
 import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.TypedQuery;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class CounterpartyRepository implements PanacheRepository<Counterparty> {
 
+    private static final String DTO_SELECT = "SELECT new dev.mars.dto.CounterpartyDto("
+            + "c.id, c.name, c.code, c.email, c.phoneNumber, c.address, c.type, c.status, c.createdAt, c.updatedAt, "
+            + "COUNT(t)) FROM Counterparty c LEFT JOIN c.trades t";
+
+    private static final String DTO_GROUP_BY = " GROUP BY c.id, c.name, c.code, c.email, c.phoneNumber, c.address, "
+            + "c.type, c.status, c.createdAt, c.updatedAt";
+
+    private static final String NAME_ORDER = " ORDER BY c.name ASC, c.id ASC";
+
     public Optional<Counterparty> findByCode(String code) {
         return find("code", code).firstResultOptional();
     }
@@ -38,6 +53,20 @@ public class CounterpartyRepository implements PanacheRepository<Counterparty> {
                 .list();
     }
 
+    /**
+     * Keyset page ordered by (name, id); seeks past {@code after} rather than skipping an offset.
+     */
+    public List<Counterparty> findAllAfter(CounterpartyCursor after, int limit) {
+        Sort sort = Sort.by("name").ascending().and("id", Sort.Direction.Ascending);
+        if (after == null) {
+            return findAll(sort).range(0, limit - 1).list();
+        }
+        return find("name > :cursorName or (name = :cursorName and id > :cursorId)", sort,
+                Parameters.with("cursorName", after.name).and("cursorId", after.id))
+                .range(0, limit - 1)
+                .list();
+    }
+
     public long countByStatus(Counterparty.CounterpartyStatus status) {
         return count("status", status);
     }
@@ -57,4 +86,157 @@ public class CounterpartyRepository implements PanacheRepository<Counterparty> {
     public List<Counterparty> findCounterpartiesWithoutTrades() {
         return find("SELECT c FROM Counterparty c WHERE c.trades IS EMPTY").list();
     }
+
+    // DTO projections: the trade count is aggregated in the same statement instead of
+    // initialising each counterparty's lazy trades collection.
+
+    public List<CounterpartyDto> findAllDtos() {
+        return dtoQuery(null, " ORDER BY c.id ASC").getResultList();
+    }
+
+    public List<CounterpartyDto> findAllDtosPaged(int pageIndex, int pageSize) {
+        return dtoQuery(null, NAME_ORDER)
+                .setFirstResult(pageIndex * pageSize)
+                .setMaxResults(pageSize)
+                .getResultList();
+    }
+
+    public List<CounterpartyDto> findDtosAfter(CounterpartyCursor after, int limit) {
+        if (after == null) {
+            return dtoQuery(null, NAME_ORDER).setMaxResults(limit).getResultList();
+        }
+        return dtoQuery("c.name > :cursorName or (c.name = :cursorName and c.id > :cursorId)", NAME_ORDER)
+                .setParameter("cursorName", after.name)
+                .setParameter("cursorId", after.id)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public Optional<CounterpartyDto> findDtoById(Long id) {
+        return dtoQuery("c.id = :id", "")
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst();
+    }
+
+    public Optional<CounterpartyDto> findDtoByCode(String code) {
+        return dtoQuery("c.code = :code", "")
+                .setParameter("code", code)
+                .getResultStream()
+                .findFirst();
+    }
+
+    public List<CounterpartyDto> findDtosByType(Counterparty.CounterpartyType type) {
+        return dtoQuery("c.type = :type", " ORDER BY c.id ASC")
+                .setParameter("type", type)
+                .getResultList();
+    }
+
+    public List<CounterpartyDto> findDtosByStatus(Counterparty.CounterpartyStatus status) {
+        return dtoQuery("c.status = :status", " ORDER BY c.id ASC")
+                .setParameter("status", status)
+                .getResultList();
+    }
+
+    public List<Counterparty> findByIds(Collection<? extends Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return list("id IN ?1", ids);
+    }
+
+    /**
+     * {@code [id, name, code]} for every counterparty, the input of the in-memory name search index.
+     */
+    public List<Object[]> findAllIdsNamesAndCodes() {
+        return getEntityManager()
+                .createQuery("SELECT c.id, c.name, c.code FROM Counterparty c", Object[].class)
+                .getResultList();
+    }
+
+    public List<CounterpartyDto> findDtosByNameContaining(String name) {
+        return dtoQuery("LOWER(c.name) LIKE LOWER(:name)", " ORDER BY c.id ASC")
+                .setParameter("name", "%" + name + "%")
+                .getResultList();
+    }
+
+    // Sparse fieldsets: only the requested columns are selected, and the trades are joined and grouped
+    // only when the trade count is among them. Each row holds the values in the order of {@code fields}.
+
+    public List<Object[]> findAllFields(List<CounterpartyField> fields) {
+        return fieldsQuery(fields, null, " ORDER BY c.id ASC").getResultList();
+    }
+
+    public List<Object[]> findAllFieldsPaged(List<CounterpartyField> fields, int pageIndex, int pageSize) {
+        return fieldsQuery(fields, null, NAME_ORDER)
+                .setFirstResult(pageIndex * pageSize)
+                .setMaxResults(pageSize)
+                .getResultList();
+    }
+
+    public List<Object[]> findFieldsAfter(List<CounterpartyField> fields, CounterpartyCursor after, int limit) {
+        if (after == null) {
+            return fieldsQuery(fields, null, NAME_ORDER).setMaxResults(limit).getResultList();
+        }
+        return fieldsQuery(fields, "c.name > :cursorName or (c.name = :cursorName and c.id > :cursorId)", NAME_ORDER)
+                .setParameter("cursorName", after.name)
+                .setParameter("cursorId", after.id)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public List<Object[]> findFieldsByType(List<CounterpartyField> fields, Counterparty.CounterpartyType type) {
+        return fieldsQuery(fields, "c.type = :type", " ORDER BY c.id ASC")
+                .setParameter("type", type)
+                .getResultList();
+    }
+
+    public List<Object[]> findFieldsByStatus(List<CounterpartyField> fields, Counterparty.CounterpartyStatus status) {
+        return fieldsQuery(fields, "c.status = :status", " ORDER BY c.id ASC")
+                .setParameter("status", status)
+                .getResultList();
+    }
+
+    public List<Object[]> findFieldsByNameContaining(List<CounterpartyField> fields, String name) {
+        return fieldsQuery(fields, "LOWER(c.name) LIKE LOWER(:name)", " ORDER BY c.id ASC")
+                .setParameter("name", "%" + name + "%")
+                .getResultList();
+    }
+
+    /**
+     * The counterparty's {@code updatedAt}, read on its own for a conditional GET.
+     */
+    public Optional<LocalDateTime> findUpdatedAtById(Long id) {
+        return getEntityManager()
+                .createQuery("SELECT c.updatedAt FROM Counterparty c WHERE c.id = :id", LocalDateTime.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst();
+    }
+
+    /**
+     * {@code [count, latest updatedAt]} over all counterparties; the timestamp is null when there are none.
+     */
+    public Object[] findVersion() {
+        return getEntityManager()
+                .createQuery("SELECT COUNT(c), MAX(c.updatedAt) FROM Counterparty c", Object[].class)
+                .getSingleResult();
+    }
+
+    private TypedQuery<Object[]> fieldsQuery(List<CounterpartyField> fields, String predicate, String orderBy) {
+        boolean tradeJoin = fields.stream().anyMatch(field -> field.tradeJoin);
+        String select = fields.stream()
+                .map(field -> field.expression)
+                .collect(Collectors.joining(", ", "SELECT ", " FROM Counterparty c"));
+        String where = predicate != null ? " WHERE " + predicate : "";
+        String jpql = tradeJoin
+                ? select + " LEFT JOIN c.trades t" + where + DTO_GROUP_BY + orderBy
+                : select + where + orderBy;
+        return getEntityManager().createQuery(jpql, Object[].class);
+    }
+
+    private TypedQuery<CounterpartyDto> dtoQuery(String predicate, String orderBy) {
+        String where = predicate != null ? " WHERE " + predicate : "";
+        return getEntityManager().createQuery(DTO_SELECT + where + DTO_GROUP_BY + orderBy, CounterpartyDto.class);
+    }
 }
@@ -0,0 +1,25 @@
+package dev.mars.repository;
+
+import dev.mars.domain.IdempotencyRecord;
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@ApplicationScoped
+public class IdempotencyRecordRepository implements PanacheRepositoryBase<IdempotencyRecord, String> {
+
+    public Optional<IdempotencyRecord> findUnexpired(String id, LocalDateTime now) {
+        return find("id = ?1 AND expiresAt > ?2", id, now).firstResultOptional();
+    }
+
+    public long deleteExpired(LocalDateTime now) {
+        return delete("expiresAt <= ?1", now);
+    }
+
+    // A key reused after its TTL but before the purge still has its old row, which would collide on insert
+    public long deleteExpired(String id, LocalDateTime now) {
+        return delete("id = ?1 AND expiresAt <= ?2", id, now);
+    }
+}
@@ -0,0 +1,45 @@
+package dev.mars.repository;
+
+import dev.mars.domain.OutboxEvent;
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+import org.hibernate.LockOptions;
+import org.hibernate.jpa.SpecHints;
+
+import java.util.Collection;
+import java.util.List;
+
+@ApplicationScoped
+public class OutboxEventRepository implements PanacheRepositoryBase<OutboxEvent, Long> {
+
+    /**
+     * Up to {@code limit} undelivered events in id order, locked until the transaction ends. Rows another
+     * relay has locked are skipped ({@code FOR UPDATE SKIP LOCKED}), so relays on several nodes claim
+     * disjoint batches instead of queueing behind each other.
+     */
+    public List<OutboxEvent> lockBatch(int limit) {
+        return getEntityManager()
+                .createQuery("FROM OutboxEvent e ORDER BY e.id", OutboxEvent.class)
+                .setMaxResults(limit)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint(SpecHints.HINT_SPEC_LOCK_TIMEOUT, LockOptions.SKIP_LOCKED)
+                .getResultList();
+    }
+
+    public long deleteByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return delete("id IN ?1", ids);
+    }
+
+    /**
+     * The number of undelivered events and the creation time of the oldest, or null when there is none.
+     */
+    public Object[] backlog() {
+        return getEntityManager()
+                .createQuery("SELECT COUNT(e), MIN(e.createdAt) FROM OutboxEvent e", Object[].class)
+                .getSingleResult();
+    }
+}
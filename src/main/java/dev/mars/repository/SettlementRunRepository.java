@@ -0,0 +1,37 @@
+package dev.mars.repository;
+
+import dev.mars.domain.SettlementRun;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@ApplicationScoped
+public class SettlementRunRepository implements PanacheRepository<SettlementRun> {
+
+    public Optional<SettlementRun> findByBusinessDate(LocalDate businessDate) {
+        return find("businessDate", businessDate).firstResultOptional();
+    }
+
+    public List<SettlementRun> findRunning() {
+        return list("status", Sort.by("businessDate"), SettlementRun.RunStatus.RUNNING);
+    }
+
+    /**
+     * Advances the checkpoint of a running pass and adds the trades settled since the last one.
+     */
+    public int saveCheckpoint(Long id, long checkpointTradeId, long settledDelta) {
+        return update("checkpointTradeId = ?1, settledCount = settledCount + ?2, updatedAt = ?3 WHERE id = ?4",
+                checkpointTradeId, settledDelta, LocalDateTime.now(), id);
+    }
+
+    public int complete(Long id) {
+        LocalDateTime now = LocalDateTime.now();
+        return update("status = ?1, completedAt = ?2, updatedAt = ?2 WHERE id = ?3",
+                SettlementRun.RunStatus.COMPLETED, now, id);
+    }
+}
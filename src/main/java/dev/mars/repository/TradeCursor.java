@@ -0,0 +1,55 @@
+package dev.mars.repository;
+
+import dev.mars.dto.TradeDto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Keyset position within a trade listing ordered by tradeDate, createdAt and id (all descending).
+ * Clients only ever see the encoded form, so the key layout can change without breaking them.
+ */
+public class TradeCursor {
+
+    private static final String SEPARATOR = "|";
+
+    public final LocalDate tradeDate;
+    public final LocalDateTime createdAt;
+    public final Long id;
+
+    public TradeCursor(LocalDate tradeDate, LocalDateTime createdAt, Long id) {
+        this.tradeDate = tradeDate;
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public static TradeCursor of(TradeDto trade) {
+        return new TradeCursor(trade.tradeDate, trade.createdAt, trade.id);
+    }
+
+    public String encode() {
+        String raw = tradeDate + SEPARATOR + createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously returned as {@code nextCursor}; blank input means "start from the top".
+     */
+    public static TradeCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            return new TradeCursor(LocalDate.parse(parts[0]), LocalDateTime.parse(parts[1]), Long.valueOf(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+}
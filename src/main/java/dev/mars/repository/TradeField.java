@@ -0,0 +1,70 @@
+package dev.mars.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A {@code TradeDto} property a client may ask for with {@code fields=}, and the column it is read from.
+ * Only the name and code of the counterparty need the counterparty join; its id is the trade's own foreign key.
+ */
+public enum TradeField {
+    ID("id", "t.id"),
+    TRADE_REFERENCE("tradeReference", "t.tradeReference"),
+    COUNTERPARTY_ID("counterpartyId", "t.counterparty.id"),
+    COUNTERPARTY_NAME("counterpartyName", "c.name", true),
+    COUNTERPARTY_CODE("counterpartyCode", "c.code", true),
+    INSTRUMENT("instrument", "t.instrument"),
+    TRADE_TYPE("tradeType", "t.tradeType"),
+    QUANTITY("quantity", "t.quantity"),
+    PRICE("price", "t.price"),
+    TOTAL_VALUE("totalValue", "t.notional"),
+    TRADE_DATE("tradeDate", "t.tradeDate"),
+    SETTLEMENT_DATE("settlementDate", "t.settlementDate"),
+    CURRENCY("currency", "t.currency"),
+    STATUS("status", "t.status"),
+    NOTES("notes", "t.notes"),
+    CREATED_AT("createdAt", "t.createdAt"),
+    UPDATED_AT("updatedAt", "t.updatedAt");
+
+    private static final Map<String, TradeField> BY_PROPERTY = Arrays.stream(values())
+            .collect(Collectors.toMap(field -> field.property, Function.identity()));
+
+    public final String property;
+    final String expression;
+    final boolean counterpartyJoin;
+
+    TradeField(String property, String expression) {
+        this(property, expression, false);
+    }
+
+    TradeField(String property, String expression, boolean counterpartyJoin) {
+        this.property = property;
+        this.expression = expression;
+        this.counterpartyJoin = counterpartyJoin;
+    }
+
+    /**
+     * Parses a comma-separated list of property names such as {@code id,tradeReference,status}, keeping the
+     * client's order and dropping repeats. Null or blank means every field, returned as null.
+     */
+    public static List<TradeField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<TradeField> parsed = new LinkedHashSet<>();
+        for (String name : fields.split(",")) {
+            TradeField field = BY_PROPERTY.get(name.trim());
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown trade field: " + name.trim());
+            }
+            parsed.add(field);
+        }
+        return new ArrayList<>(parsed);
+    }
+}
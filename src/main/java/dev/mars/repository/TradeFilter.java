@@ -0,0 +1,153 @@
+package dev.mars.repository;
+
+import dev.mars.domain.Trade;
+import io.quarkus.panache.common.Parameters;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Combinable trade search criteria. Every non-null field becomes one predicate of a single
+ * WHERE clause, so any mix of criteria is answered by one query on the database.
+ */
+public class TradeFilter {
+    public Long counterpartyId;
+    public Trade.TradeStatus status;
+    public Trade.TradeType tradeType;
+    public String instrument;
+    public String currency;
+    public LocalDate tradeDateFrom;
+    public LocalDate tradeDateTo;
+    public LocalDate settlementDateFrom;
+    public LocalDate settlementDateTo;
+    public BigDecimal minValue;
+
+    public TradeFilter() {
+    }
+
+    public static TradeFilter all() {
+        return new TradeFilter();
+    }
+
+    public TradeFilter counterpartyId(Long counterpartyId) {
+        this.counterpartyId = counterpartyId;
+        return this;
+    }
+
+    public TradeFilter status(Trade.TradeStatus status) {
+        this.status = status;
+        return this;
+    }
+
+    public TradeFilter tradeType(Trade.TradeType tradeType) {
+        this.tradeType = tradeType;
+        return this;
+    }
+
+    public TradeFilter instrument(String instrument) {
+        this.instrument = instrument;
+        return this;
+    }
+
+    public TradeFilter currency(String currency) {
+        this.currency = currency;
+        return this;
+    }
+
+    public TradeFilter tradeDateBetween(LocalDate from, LocalDate to) {
+        this.tradeDateFrom = from;
+        this.tradeDateTo = to;
+        return this;
+    }
+
+    public TradeFilter settlementDateBetween(LocalDate from, LocalDate to) {
+        this.settlementDateFrom = from;
+        this.settlementDateTo = to;
+        return this;
+    }
+
+    public TradeFilter minValue(BigDecimal minValue) {
+        this.minValue = minValue;
+        return this;
+    }
+
+    /**
+     * Narrows the trade date window to the last {@code days} days, keeping any later lower bound.
+     */
+    public TradeFilter recentDays(int days) {
+        LocalDate cutoff = LocalDate.now().minusDays(days);
+        if (tradeDateFrom == null || tradeDateFrom.isBefore(cutoff)) {
+            tradeDateFrom = cutoff;
+        }
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return toPredicates(new Parameters()).isEmpty();
+    }
+
+    /**
+     * Predicates refer to the trade as alias {@code t}; the named parameters they use are
+     * appended to {@code parameters}.
+     */
+    List<String> toPredicates(Parameters parameters) {
+        List<String> predicates = new ArrayList<>();
+        if (counterpartyId != null) {
+            predicates.add("t.counterparty.id = :counterpartyId");
+            parameters.and("counterpartyId", counterpartyId);
+        }
+        if (status != null) {
+            predicates.add("t.status = :status");
+            parameters.and("status", status);
+        }
+        if (tradeType != null) {
+            predicates.add("t.tradeType = :tradeType");
+            parameters.and("tradeType", tradeType);
+        }
+        if (instrument != null) {
+            predicates.add("t.instrument = :instrument");
+            parameters.and("instrument", instrument);
+        }
+        if (currency != null) {
+            predicates.add("t.currency = :currency");
+            parameters.and("currency", currency);
+        }
+        if (tradeDateFrom != null) {
+            predicates.add("t.tradeDate >= :tradeDateFrom");
+            parameters.and("tradeDateFrom", tradeDateFrom);
+        }
+        if (tradeDateTo != null) {
+            predicates.add("t.tradeDate <= :tradeDateTo");
+            parameters.and("tradeDateTo", tradeDateTo);
+        }
+        if (settlementDateFrom != null) {
+            predicates.add("t.settlementDate >= :settlementDateFrom");
+            parameters.and("settlementDateFrom", settlementDateFrom);
+        }
+        if (settlementDateTo != null) {
+            predicates.add("t.settlementDate <= :settlementDateTo");
+            parameters.and("settlementDateTo", settlementDateTo);
+        }
+        if (minValue != null) {
+            predicates.add("t.notional >= :minValue");
+            parameters.and("minValue", minValue);
+        }
+        return predicates;
+    }
+
+    @Override
+    public String toString() {
+        return "TradeFilter{" +
+                "counterpartyId=" + counterpartyId +
+                ", status=" + status +
+                ", tradeType=" + tradeType +
+                ", instrument='" + instrument + '\'' +
+                ", currency='" + currency + '\'' +
+                ", tradeDate=" + tradeDateFrom + ".." + tradeDateTo +
+                ", settlementDate=" + settlementDateFrom + ".." + settlementDateTo +
+                ", minValue=" + minValue +
+                '}';
+    }
+}
@@ -1,19 +1,62 @@
 package dev.mars.repository;
 
 import dev.mars.domain.Trade;
+import dev.mars.dto.TradeAggregate;
+import dev.mars.dto.TradeDto;
+import dev.mars.event.TradeSnapshot;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import io.quarkus.panache.common.Page;
+import io.quarkus.panache.common.Parameters;
 import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @ApplicationScoped
 public class TradeRepository implements PanacheRepository<Trade> {
 
+    private static final String DTO_SELECT = "SELECT new dev.mars.dto.TradeDto("
+            + "t.id, t.tradeReference, c.id, c.name, c.code, t.instrument, t.tradeType, t.quantity, t.price, t.notional, "
+            + "t.tradeDate, t.settlementDate, t.currency, t.status, t.notes, t.createdAt, t.updatedAt) "
+            + "FROM Trade t JOIN t.counterparty c";
+
+    private static final String SNAPSHOT_SELECT = "SELECT new dev.mars.event.TradeSnapshot("
+            + "t.id, t.tradeReference, t.counterparty.id, t.instrument, t.tradeType, t.status, t.currency, "
+            + "t.quantity, t.price, t.notional, t.tradeDate, t.settlementDate, t.updatedAt) "
+            + "FROM Trade t";
+
+    private static final String VERSION_SELECT = "SELECT t.updatedAt, c.updatedAt FROM Trade t JOIN t.counterparty c";
+
+    private static final String FILTER_VERSION_SELECT = "SELECT COUNT(t), MAX(t.updatedAt), MAX(c.updatedAt) "
+            + "FROM Trade t JOIN t.counterparty c";
+
+    private static final Set<String> SORTABLE_FIELDS = Set.of(
+            "tradeDate", "settlementDate", "createdAt", "updatedAt", "tradeReference",
+            "instrument", "currency", "status", "quantity", "price", "notional");
+
+    private static final Sort NOTIONAL_DESC = Sort.by("notional").descending()
+            .and("id", Sort.Direction.Descending);
+
+    // Also the default order, so offset pages are as stable as cursor pages when tradeDate and createdAt tie
+    private static final Sort KEYSET_SORT = Sort.by("tradeDate").descending()
+            .and("createdAt", Sort.Direction.Descending)
+            .and("id", Sort.Direction.Descending);
+
     public Optional<Trade> findByTradeReference(String tradeReference) {
         return find("tradeReference", tradeReference).firstResultOptional();
     }
@@ -47,7 +90,7 @@ public class TradeRepository implements PanacheRepository<Trade> {
     }
 
     public List<Trade> findTradesAboveValue(BigDecimal minValue) {
-        return find("quantity * price >= ?1", minValue).list();
+        return find("notional >= ?1", minValue).list();
     }
 
     public List<Trade> findByCurrency(String currency) {
@@ -55,7 +98,7 @@ public class TradeRepository implements PanacheRepository<Trade> {
     }
 
     public List<Trade> findAllPaged(int pageIndex, int pageSize) {
-        return findAll(Sort.by("tradeDate").descending().and("createdAt", Sort.Direction.Descending))
+        return findAll(KEYSET_SORT)
                 .page(Page.of(pageIndex, pageSize))
                 .list();
     }
@@ -82,19 +125,327 @@ public class TradeRepository implements PanacheRepository<Trade> {
         return count("tradeReference = ?1 and id != ?2", tradeReference, id) > 0;
     }
 
+    /**
+     * Which of {@code tradeReferences} are already taken, in one IN query.
+     */
+    public Set<String> findExistingTradeReferences(Collection<String> tradeReferences) {
+        if (tradeReferences.isEmpty()) {
+            return Set.of();
+        }
+        return getEntityManager()
+                .createQuery("SELECT t.tradeReference FROM Trade t WHERE t.tradeReference IN :references", String.class)
+                .setParameter("references", tradeReferences)
+                .getResultStream()
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Up to {@code limit} snapshots of the trades after {@code afterId}, in id order, for loading an in-memory
+     * copy of the book a chunk at a time.
+     */
+    public List<TradeSnapshot> findSnapshotsAfter(long afterId, int limit) {
+        return getEntityManager()
+                .createQuery(SNAPSHOT_SELECT + " WHERE t.id > :afterId ORDER BY t.id", TradeSnapshot.class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Snapshots of the trades among {@code ids} whose status is in {@code fromStatuses}, locked until the
+     * transaction ends so a following {@link #updateStatus} changes exactly these rows.
+     */
+    public List<TradeSnapshot> lockByIdsAndStatus(Collection<Long> ids, Set<Trade.TradeStatus> fromStatuses) {
+        if (ids.isEmpty() || fromStatuses.isEmpty()) {
+            return List.of();
+        }
+        return getEntityManager()
+                .createQuery(SNAPSHOT_SELECT + " WHERE t.id IN :ids AND t.status IN :statuses ORDER BY t.id",
+                        TradeSnapshot.class)
+                .setParameter("ids", ids)
+                .setParameter("statuses", fromStatuses)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
+
+    /**
+     * Up to {@code limit} snapshots, in id order after {@code afterId}, of the trades matching {@code filter}
+     * whose status is in {@code fromStatuses}; locked like {@link #lockByIdsAndStatus}.
+     */
+    public List<TradeSnapshot> lockByFilterAndStatus(TradeFilter filter, Set<Trade.TradeStatus> fromStatuses,
+                                                     long afterId, int limit) {
+        if (fromStatuses.isEmpty()) {
+            return List.of();
+        }
+        Parameters parameters = new Parameters();
+        List<String> predicates = filter.toPredicates(parameters);
+        predicates.add("t.status IN :fromStatuses");
+        predicates.add("t.id > :afterId");
+        parameters.and("fromStatuses", fromStatuses).and("afterId", afterId);
+
+        TypedQuery<TradeSnapshot> query = getEntityManager().createQuery(SNAPSHOT_SELECT + " WHERE "
+                + String.join(" AND ", predicates) + " ORDER BY t.id", TradeSnapshot.class);
+        parameters.map().forEach(query::setParameter);
+        return query.setMaxResults(limit)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
+
+    /**
+     * Moves the trades among {@code ids} that are still in one of {@code fromStatuses} to {@code status},
+     * in one guarded UPDATE. Bypasses the entity lifecycle, so the caller supplies {@code updatedAt}.
+     */
+    public int updateStatus(Collection<Long> ids, Set<Trade.TradeStatus> fromStatuses, Trade.TradeStatus status,
+                            LocalDateTime updatedAt) {
+        if (ids.isEmpty() || fromStatuses.isEmpty()) {
+            return 0;
+        }
+        return update("status = :status, updatedAt = :updatedAt WHERE id IN :ids AND status IN :fromStatuses",
+                Parameters.with("status", status)
+                        .and("updatedAt", updatedAt)
+                        .and("ids", ids)
+                        .and("fromStatuses", fromStatuses));
+    }
+
+    /**
+     * Up to {@code limit} ids, in id order after {@code afterId}, of the CONFIRMED trades settling on or
+     * before {@code businessDate}. Served by the (status, settlementDate) index.
+     */
+    public List<Long> findDueSettlementIds(LocalDate businessDate, long afterId, int limit) {
+        return getEntityManager()
+                .createQuery("SELECT t.id FROM Trade t WHERE t.status = :status AND t.settlementDate <= :businessDate "
+                        + "AND t.id > :afterId ORDER BY t.id", Long.class)
+                .setParameter("status", Trade.TradeStatus.CONFIRMED)
+                .setParameter("businessDate", businessDate)
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * {@code [count, earliest settlementDate]} of the CONFIRMED trades due by {@code businessDate};
+     * the date is null when none are due.
+     */
+    public Object[] findDueSettlementBacklog(LocalDate businessDate) {
+        return getEntityManager()
+                .createQuery("SELECT COUNT(t), MIN(t.settlementDate) FROM Trade t "
+                        + "WHERE t.status = :status AND t.settlementDate <= :businessDate", Object[].class)
+                .setParameter("status", Trade.TradeStatus.CONFIRMED)
+                .setParameter("businessDate", businessDate)
+                .getSingleResult();
+    }
+
+    public Map<Long, Trade.TradeStatus> findStatusesByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return getEntityManager()
+                .createQuery("SELECT t.id, t.status FROM Trade t WHERE t.id IN :ids", Object[].class)
+                .setParameter("ids", ids)
+                .getResultStream()
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> (Trade.TradeStatus) row[1]));
+    }
+
     public BigDecimal getTotalValueByCounterpartyId(Long counterpartyId) {
-        return find("SELECT SUM(t.quantity * t.price) FROM Trade t WHERE t.counterparty.id = ?1", counterpartyId)
+        return find("SELECT SUM(t.notional) FROM Trade t WHERE t.counterparty.id = ?1", counterpartyId)
                 .project(BigDecimal.class)
                 .firstResult();
     }
 
+    /**
+     * Count and notional per (status, tradeType, currency) in one GROUP BY; every trade statistic rolls up from these cells.
+     */
+    public List<TradeAggregate> aggregateByStatusTypeAndCurrency() {
+        return getEntityManager().createQuery(
+                        "SELECT new dev.mars.dto.TradeAggregate(t.status, t.tradeType, t.currency, COUNT(t), SUM(t.notional)) "
+                                + "FROM Trade t GROUP BY t.status, t.tradeType, t.currency", TradeAggregate.class)
+                .getResultList();
+    }
+
     public List<Trade> findTradesWithCounterparty() {
         return find("SELECT t FROM Trade t JOIN FETCH t.counterparty").list();
     }
 
+    /**
+     * Forward-only cursor over every trade with its counterparty, in id order. Runs on a
+     * {@link StatelessSession} so rows are never retained in a persistence context.
+     */
+    public ScrollableResults<Trade> scrollTradesWithCounterparty(StatelessSession session, int fetchSize) {
+        return session.createSelectionQuery("SELECT t FROM Trade t JOIN FETCH t.counterparty ORDER BY t.id", Trade.class)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY);
+    }
+
+    /**
+     * Every trade reference, streamed with the given JDBC fetch size; close the stream when done.
+     */
+    public Stream<String> streamTradeReferences(int fetchSize) {
+        return getEntityManager().unwrap(Session.class)
+                .createSelectionQuery("SELECT t.tradeReference FROM Trade t", String.class)
+                .setFetchSize(fetchSize)
+                .getResultStream();
+    }
+
     public List<Trade> findRecentTrades(int days) {
         LocalDate cutoffDate = LocalDate.now().minusDays(days);
         return find("tradeDate >= ?1", cutoffDate)
                 .list();
     }
+
+    // DTO projections: one joined SELECT per call, no managed entities, no lazy counterparty loads.
+    // Every criterion of the filter runs as a single query with the sort and page applied by the database.
+
+    public List<TradeDto> findDtosByFilter(TradeFilter filter, Sort sort) {
+        return filterQuery(DTO_SELECT, TradeDto.class, filter, null, sort).getResultList();
+    }
+
+    public List<TradeDto> findDtosByFilter(TradeFilter filter, Sort sort, int pageIndex, int pageSize) {
+        return filterQuery(DTO_SELECT, TradeDto.class, filter, null, sort)
+                .setFirstResult(pageIndex * pageSize)
+                .setMaxResults(pageSize)
+                .getResultList();
+    }
+
+    // Keyset (cursor) pagination: each page seeks past the last row of the previous one
+    // instead of skipping an offset, so deep pages cost the same as the first.
+    public List<TradeDto> findDtosByFilterAfter(TradeFilter filter, TradeCursor after, int limit) {
+        return filterQuery(DTO_SELECT, TradeDto.class, filter, after, KEYSET_SORT)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    // Sparse fieldsets: only the requested columns are selected, and the counterparty is joined only
+    // when its name or code is among them. Each row holds the values in the order of {@code fields}.
+
+    public List<Object[]> findFieldsByFilter(TradeFilter filter, List<TradeField> fields, Sort sort,
+                                             int pageIndex, int pageSize) {
+        return filterQuery(fieldSelect(fields), Object[].class, filter, null, sort)
+                .setFirstResult(pageIndex * pageSize)
+                .setMaxResults(pageSize)
+                .getResultList();
+    }
+
+    public List<Object[]> findFieldsByFilterAfter(TradeFilter filter, List<TradeField> fields, TradeCursor after,
+                                                  int limit) {
+        return filterQuery(fieldSelect(fields), Object[].class, filter, after, KEYSET_SORT)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * The {@code limit} largest trades by notional matching {@code filter}, read in order from the notional index.
+     */
+    public List<TradeDto> findTopDtosByNotional(TradeFilter filter, int limit) {
+        return filterQuery(DTO_SELECT, TradeDto.class, filter, null, NOTIONAL_DESC)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public Optional<TradeDto> findDtoById(Long id) {
+        return getEntityManager().createQuery(DTO_SELECT + " WHERE t.id = :id", TradeDto.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst();
+    }
+
+    public Optional<TradeDto> findDtoByTradeReference(String tradeReference) {
+        return getEntityManager().createQuery(DTO_SELECT + " WHERE t.tradeReference = :tradeReference", TradeDto.class)
+                .setParameter("tradeReference", tradeReference)
+                .getResultStream()
+                .findFirst();
+    }
+
+    // Versions: the timestamps and counts a representation depends on, read without building it
+
+    /**
+     * {@code [trade updatedAt, counterparty updatedAt]}; the counterparty's changes show in the trade's DTO too.
+     */
+    public Optional<Object[]> findVersionById(Long id) {
+        return getEntityManager()
+                .createQuery(VERSION_SELECT + " WHERE t.id = :id", Object[].class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst();
+    }
+
+    public Optional<Object[]> findVersionByTradeReference(String tradeReference) {
+        return getEntityManager()
+                .createQuery(VERSION_SELECT + " WHERE t.tradeReference = :tradeReference", Object[].class)
+                .setParameter("tradeReference", tradeReference)
+                .getResultStream()
+                .findFirst();
+    }
+
+    /**
+     * {@code [count, latest trade updatedAt, latest counterparty updatedAt]} of the trades matching
+     * {@code filter}; the timestamps are null when none match.
+     */
+    public Object[] findVersionByFilter(TradeFilter filter) {
+        return filterQuery(FILTER_VERSION_SELECT, Object[].class, filter, null, null).getSingleResult();
+    }
+
+    /**
+     * Parses a client sort expression such as {@code tradeDate,desc} against the sortable trade columns.
+     */
+    public static Sort sortOf(String expression) {
+        if (expression == null || expression.isBlank()) {
+            return KEYSET_SORT;
+        }
+        String[] parts = expression.split(",");
+        String field = parts[0].trim();
+        if (!SORTABLE_FIELDS.contains(field)) {
+            throw new IllegalArgumentException("Cannot sort trades by: " + field);
+        }
+        Sort.Direction direction = Sort.Direction.Ascending;
+        if (parts.length > 1 && parts[1].trim().equalsIgnoreCase("desc")) {
+            direction = Sort.Direction.Descending;
+        } else if (parts.length > 1 && !parts[1].trim().equalsIgnoreCase("asc")) {
+            throw new IllegalArgumentException("Invalid sort direction: " + parts[1]);
+        }
+        // id as a final tie-breaker keeps pages stable when the sort column has duplicates
+        return Sort.by(field, direction).and("id", direction);
+    }
+
+    private <R> TypedQuery<R> filterQuery(String select, Class<R> resultType, TradeFilter filter,
+                                          TradeCursor after, Sort sort) {
+        Parameters parameters = new Parameters();
+        List<String> predicates = filter.toPredicates(parameters);
+        if (after != null) {
+            predicates.add("(t.tradeDate < :cursorTradeDate"
+                    + " or (t.tradeDate = :cursorTradeDate and t.createdAt < :cursorCreatedAt)"
+                    + " or (t.tradeDate = :cursorTradeDate and t.createdAt = :cursorCreatedAt and t.id < :cursorId))");
+            parameters.and("cursorTradeDate", after.tradeDate)
+                    .and("cursorCreatedAt", after.createdAt)
+                    .and("cursorId", after.id);
+        }
+
+        StringBuilder jpql = new StringBuilder(select);
+        if (!predicates.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", predicates));
+        }
+        jpql.append(orderBy(sort));
+
+        TypedQuery<R> query = getEntityManager().createQuery(jpql.toString(), resultType);
+        parameters.map().forEach(query::setParameter);
+        return query;
+    }
+
+    private static String fieldSelect(List<TradeField> fields) {
+        boolean counterpartyJoin = fields.stream().anyMatch(field -> field.counterpartyJoin);
+        return fields.stream()
+                .map(field -> field.expression)
+                .collect(Collectors.joining(", ", "SELECT ", " FROM Trade t"))
+                + (counterpartyJoin ? " JOIN t.counterparty c" : "");
+    }
+
+    // Sort columns come from SORTABLE_FIELDS or fixed constants, never straight from the client
+    private static String orderBy(Sort sort) {
+        if (sort == null) {
+            return "";
+        }
+        return sort.getColumns().stream()
+                .map(column -> "t." + column.getName()
+                        + (column.getDirection() == Sort.Direction.Descending ? " DESC" : " ASC"))
+                .collect(Collectors.joining(", ", " ORDER BY ", ""));
+    }
 }
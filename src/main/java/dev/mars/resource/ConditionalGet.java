@@ -0,0 +1,57 @@
+package dev.mars.resource;
+
+import dev.mars.dto.ResourceVersion;
+import dev.mars.serialization.WireFormats;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Variant;
+
+import java.util.Date;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Answers a GET from the representation's {@link ResourceVersion}: 304 when the client's
+ * {@code If-None-Match} or {@code If-Modified-Since} still holds, so the representation is never built,
+ * otherwise 200 with the body from {@code body} and the {@code ETag} header, plus {@code Last-Modified}
+ * when the version has one (not for listings). A null body (deleted after its version was read) answers 404.
+ * Strong tags name the negotiated media type, so a JSON tag never validates a cached CBOR body.
+ */
+final class ConditionalGet {
+
+    // In the order of the endpoints' @Produces, so the same type is chosen as for the body
+    private static final List<Variant> VARIANTS = Variant.mediaTypes(MediaType.APPLICATION_JSON_TYPE,
+            WireFormats.CBOR_TYPE, WireFormats.SMILE_TYPE, WireFormats.PROTOBUF_TYPE).build();
+
+    private ConditionalGet() {
+    }
+
+    static Response respond(Request request, ResourceVersion version, Supplier<?> body) {
+        Variant variant = version.weak ? null : request.selectVariant(VARIANTS);
+        MediaType mediaType = variant != null ? variant.getMediaType() : null;
+        EntityTag tag = version.entityTag(mediaType);
+        Date lastModified = version.lastModifiedDate();
+        Response.ResponseBuilder notModified = lastModified != null
+                ? request.evaluatePreconditions(lastModified, tag)
+                : request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build();
+        }
+        Object entity = body.get();
+        if (entity == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        // The same version is offered as JSON and the binary formats
+        Response.ResponseBuilder ok = Response.ok(entity).tag(tag).header(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (mediaType != null) {
+            ok.type(mediaType);
+        }
+        if (lastModified != null) {
+            ok.lastModified(lastModified);
+        }
+        return ok.build();
+    }
+}
@@ -3,11 +3,21 @@ package dev.mars.resource;
 import dev.mars.domain.Counterparty;
 import dev.mars.dto.CounterpartyDto;
 import dev.mars.dto.CreateCounterpartyRequest;
+import dev.mars.dto.IdempotentResponse;
+import dev.mars.metrics.MeteredListPayload;
+import dev.mars.repository.CounterpartyField;
+import dev.mars.search.TrigramIndex;
+import dev.mars.serialization.WireFormats;
 import dev.mars.service.CounterpartyService;
+import dev.mars.service.IdempotencyService;
+import io.quarkus.arc.properties.UnlessBuildProperty;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import org.jboss.logging.Logger;
 
@@ -16,6 +26,8 @@ import java.util.List;
 @Path("/api/counterparties")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
+// Replaced by VirtualThreadCounterpartyResource when trading.virtual-threads.enabled=true at build time
+@UnlessBuildProperty(name = "trading.virtual-threads.enabled", stringValue = "true", enableIfMissing = true)
 public class CounterpartyResource {
 
     private static final Logger LOG = Logger.getLogger(CounterpartyResource.class);
@@ -23,46 +35,79 @@ public class CounterpartyResource {
     @Inject
     CounterpartyService counterpartyService;
 
+    @Inject
+    IdempotencyService idempotencyService;
+
     @GET
+    @Produces({MediaType.APPLICATION_JSON, WireFormats.CBOR, WireFormats.SMILE, WireFormats.PROTOBUF})
+    @MeteredListPayload
     public Response getAllCounterparties(
             @QueryParam("page") @DefaultValue("0") int page,
             @QueryParam("size") @DefaultValue("20") int size,
             @QueryParam("type") Counterparty.CounterpartyType type,
             @QueryParam("status") Counterparty.CounterpartyStatus status,
-            @QueryParam("search") String search) {
+            @QueryParam("search") String search,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("fields") String fields,
+            @Context Request request,
+            @Context HttpHeaders headers) {
         
-        LOG.debugf("GET /api/counterparties - page: %d, size: %d, type: %s, status: %s, search: %s", 
-                   page, size, type, status, search);
-
-        List<CounterpartyDto> counterparties;
+        LOG.debugf("GET /api/counterparties - page: %d, size: %d, type: %s, status: %s, search: %s, cursor: %s, fields: %s", 
+                   page, size, type, status, search, cursor, fields);
 
-        if (search != null && !search.trim().isEmpty()) {
-            counterparties = counterpartyService.searchCounterpartiesByName(search.trim());
-        } else if (type != null) {
-            counterparties = counterpartyService.getCounterpartiesByType(type);
-        } else if (status != null && status == Counterparty.CounterpartyStatus.ACTIVE) {
-            counterparties = counterpartyService.getActiveCounterparties();
-        } else if (page > 0 || size != 20) {
-            counterparties = counterpartyService.getAllCounterpartiesPaged(page, size);
-        } else {
-            counterparties = counterpartyService.getAllCounterparties();
+        // Only the requested columns are selected, and the trades are counted only for tradeCount
+        List<CounterpartyField> fieldset = CounterpartyField.parse(fields);
+        if (fieldset != null && WireFormats.preferred(WireFormats.PROTOBUF_TYPE, headers)) {
+            throw new IllegalArgumentException("Sparse fieldsets are not available as " + WireFormats.PROTOBUF);
         }
 
-        return Response.ok(counterparties).build();
+        // One weak ETag covers every variant of the listing; it changes with any counterparty or trade count
+        return ConditionalGet.respond(request, counterpartyService.getCounterpartiesVersion(), () -> {
+            if (fieldset != null) {
+                return getCounterpartyFields(fieldset, page, size, type, status, search, cursor);
+            }
+            // Presence of the cursor parameter (even empty, for the first page) selects keyset paging
+            if (cursor != null) {
+                return counterpartyService.getAllCounterpartiesAfter(cursor, size);
+            }
+            if (search != null && !search.trim().isEmpty()) {
+                return counterpartyService.searchCounterpartiesByName(search.trim());
+            } else if (type != null) {
+                return counterpartyService.getCounterpartiesByType(type);
+            } else if (status != null && status == Counterparty.CounterpartyStatus.ACTIVE) {
+                return counterpartyService.getActiveCounterparties();
+            } else if (page > 0 || size != 20) {
+                return counterpartyService.getAllCounterpartiesPaged(page, size);
+            }
+            return counterpartyService.getAllCounterparties();
+        });
+    }
+
+    @GET
+    @Path("/search")
+    public Response suggestCounterparties(@QueryParam("q") String query,
+                                          @QueryParam("limit") @DefaultValue("10") int limit) {
+        LOG.debugf("GET /api/counterparties/search - q: %s, limit: %d", query, limit);
+
+        List<TrigramIndex.Match> matches = counterpartyService.suggestCounterparties(query, limit);
+        return Response.ok(matches).build();
     }
 
     @GET
     @Path("/{id}")
-    public Response getCounterpartyById(@PathParam("id") Long id) {
+    @Produces({MediaType.APPLICATION_JSON, WireFormats.CBOR, WireFormats.SMILE, WireFormats.PROTOBUF})
+    public Response getCounterpartyById(@PathParam("id") Long id, @Context Request request) {
         LOG.debugf("GET /api/counterparties/%d", id);
-        
-        return counterpartyService.getCounterpartyById(id)
-                .map(counterparty -> Response.ok(counterparty).build())
+
+        return counterpartyService.getCounterpartyVersion(id)
+                .map(version -> ConditionalGet.respond(request, version,
+                        () -> counterpartyService.getCounterpartyById(id).orElse(null)))
                 .orElse(Response.status(Response.Status.NOT_FOUND).build());
     }
 
     @GET
     @Path("/code/{code}")
+    @Produces({MediaType.APPLICATION_JSON, WireFormats.CBOR, WireFormats.SMILE, WireFormats.PROTOBUF})
     public Response getCounterpartyByCode(@PathParam("code") String code) {
         LOG.debugf("GET /api/counterparties/code/%s", code);
         
@@ -73,6 +118,7 @@ public class CounterpartyResource {
 
     @GET
     @Path("/active")
+    @Produces({MediaType.APPLICATION_JSON, WireFormats.CBOR, WireFormats.SMILE, WireFormats.PROTOBUF})
     public Response getActiveCounterparties() {
         LOG.debug("GET /api/counterparties/active");
         
@@ -80,12 +126,19 @@ public class CounterpartyResource {
         return Response.ok(activeCounterparties).build();
     }
 
+    /**
+     * Creates the counterparty. A retry carrying the same {@code Idempotency-Key} gets the original
+     * response back instead of a duplicate-code error.
+     */
     @POST
-    public Response createCounterparty(@Valid CreateCounterpartyRequest request) {
+    public Response createCounterparty(@Valid CreateCounterpartyRequest request,
+                                       @HeaderParam("Idempotency-Key") String idempotencyKey) {
         LOG.debugf("POST /api/counterparties - creating counterparty with code: %s", request.code);
-        
-        CounterpartyDto created = counterpartyService.createCounterparty(request);
-        return Response.status(Response.Status.CREATED).entity(created).build();
+
+        return idempotencyService.execute("counterparties", idempotencyKey, request, () -> {
+            CounterpartyDto created = counterpartyService.createCounterparty(request);
+            return new IdempotentResponse(Response.Status.CREATED.getStatusCode(), created, null);
+        }).toResponse();
     }
 
     @PUT
@@ -133,6 +186,24 @@ public class CounterpartyResource {
         return Response.ok(new CounterpartyStats(totalCount, activeCount)).build();
     }
 
+    private Object getCounterpartyFields(List<CounterpartyField> fieldset, int page, int size,
+                                         Counterparty.CounterpartyType type, Counterparty.CounterpartyStatus status,
+                                         String search, String cursor) {
+        if (cursor != null) {
+            return counterpartyService.getCounterpartyFieldsAfter(fieldset, cursor, size);
+        }
+        if (search != null && !search.trim().isEmpty()) {
+            return counterpartyService.searchCounterpartyFieldsByName(fieldset, search.trim());
+        } else if (type != null) {
+            return counterpartyService.getCounterpartyFieldsByType(fieldset, type);
+        } else if (status != null && status == Counterparty.CounterpartyStatus.ACTIVE) {
+            return counterpartyService.getActiveCounterpartyFields(fieldset);
+        } else if (page > 0 || size != 20) {
+            return counterpartyService.getAllCounterpartyFieldsPaged(fieldset, page, size);
+        }
+        return counterpartyService.getAllCounterpartyFields(fieldset);
+    }
+
     public static class CounterpartyStats {
         public long totalCount;
         public long activeCount;
@@ -0,0 +1,50 @@
+package dev.mars.resource;
+
+import dev.mars.dto.TradeEvent;
+import dev.mars.service.TradeEventSink;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+
+import java.util.Locale;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Writes trade events to a Server-Sent Events connection: the event name is the change type, the id its
+ * sequence number and the data the {@link TradeEvent} as JSON. Heartbeats are SSE comments.
+ */
+final class SseTradeEventSink implements TradeEventSink {
+
+    private final SseEventSink eventSink;
+    private final Sse sse;
+
+    SseTradeEventSink(SseEventSink eventSink, Sse sse) {
+        this.eventSink = eventSink;
+        this.sse = sse;
+    }
+
+    @Override
+    public CompletionStage<?> send(TradeEvent event) {
+        return eventSink.send(sse.newEventBuilder()
+                .id(Long.toString(event.sequence))
+                .name(event.type.name().toLowerCase(Locale.ROOT))
+                .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                .data(TradeEvent.class, event)
+                .build());
+    }
+
+    @Override
+    public CompletionStage<?> heartbeat() {
+        return eventSink.send(sse.newEventBuilder().comment("heartbeat").build());
+    }
+
+    @Override
+    public boolean isClosed() {
+        return eventSink.isClosed();
+    }
+
+    @Override
+    public void close() {
+        eventSink.close();
+    }
+}
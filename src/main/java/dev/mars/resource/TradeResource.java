@@ -1,23 +1,55 @@
 package dev.mars.resource;
 
+import dev.mars.analytics.TradeAnalyticsService;
+import dev.mars.analytics.TradeDimension;
 import dev.mars.domain.Trade;
+import dev.mars.dto.BulkStatusUpdateRequest;
+import dev.mars.dto.BulkStatusUpdateResult;
+import dev.mars.dto.CounterpartyExposureDto;
 import dev.mars.dto.CreateTradeRequest;
+import dev.mars.dto.IdempotentResponse;
+import dev.mars.dto.TradeAnalyticsResult;
+import dev.mars.dto.TradeBatchMode;
+import dev.mars.dto.TradeBatchResult;
 import dev.mars.dto.TradeDto;
+import dev.mars.dto.TradeIngestionStatus;
+import dev.mars.dto.TradeStatistics;
+import dev.mars.event.TradeEventFilter;
+import dev.mars.metrics.MeteredListPayload;
+import dev.mars.repository.TradeField;
+import dev.mars.repository.TradeFilter;
+import dev.mars.serialization.WireFormats;
+import dev.mars.service.IdempotencyService;
+import dev.mars.service.TradeBatchService;
+import dev.mars.service.TradeEventHub;
+import dev.mars.service.TradeExportService;
+import dev.mars.service.TradeIngestionService;
 import dev.mars.service.TradeService;
+import dev.mars.service.TradeStatusTransitionService;
+import io.quarkus.arc.properties.UnlessBuildProperty;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
 import org.jboss.logging.Logger;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 @Path("/api/trades")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
+// Replaced by VirtualThreadTradeResource when trading.virtual-threads.enabled=true at build time
+@UnlessBuildProperty(name = "trading.virtual-threads.enabled", stringValue = "true", enableIfMissing = true)
 public class TradeResource {
 
     private static final Logger LOG = Logger.getLogger(TradeResource.class);
@@ -25,62 +57,207 @@ public class TradeResource {
     @Inject
     TradeService tradeService;
 
+    @Inject
+    TradeExportService tradeExportService;
+
+    @Inject
+    TradeBatchService tradeBatchService;
+
+    @Inject
+    TradeStatusTransitionService tradeStatusTransitionService;
+
+    @Inject
+    TradeIngestionService tradeIngestionService;
+
+    @Inject
+    IdempotencyService idempotencyService;
+
+    @Inject
+    TradeEventHub tradeEventHub;
+
+    @Inject
+    TradeAnalyticsService tradeAnalyticsService;
+
     @GET
+    @Produces({MediaType.APPLICATION_JSON, WireFormats.CBOR, WireFormats.SMILE, WireFormats.PROTOBUF})
+    @MeteredListPayload
     public Response getAllTrades(
             @QueryParam("page") @DefaultValue("0") int page,
             @QueryParam("size") @DefaultValue("20") int size,
             @QueryParam("counterpartyId") Long counterpartyId,
             @QueryParam("status") Trade.TradeStatus status,
+            @QueryParam("tradeType") Trade.TradeType tradeType,
+            @QueryParam("instrument") String instrument,
+            @QueryParam("currency") String currency,
             @QueryParam("startDate") String startDate,
             @QueryParam("endDate") String endDate,
-            @QueryParam("recent") @DefaultValue("0") int recentDays) {
+            @QueryParam("settlementStartDate") String settlementStartDate,
+            @QueryParam("settlementEndDate") String settlementEndDate,
+            @QueryParam("minValue") BigDecimal minValue,
+            @QueryParam("recent") @DefaultValue("0") int recentDays,
+            @QueryParam("sort") String sort,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("fields") String fields,
+            @Context Request request,
+            @Context HttpHeaders headers) {
         
-        LOG.debugf("GET /api/trades - page: %d, size: %d, counterpartyId: %s, status: %s", 
-                   page, size, counterpartyId, status);
-
-        List<TradeDto> trades;
+        LOG.debugf("GET /api/trades - page: %d, size: %d, counterpartyId: %s, status: %s, sort: %s, cursor: %s, fields: %s", 
+                   page, size, counterpartyId, status, sort, cursor, fields);
 
+        // All criteria combine into one filter that the database evaluates in a single query
+        TradeFilter filter = TradeFilter.all()
+                .counterpartyId(counterpartyId)
+                .status(status)
+                .tradeType(tradeType)
+                .instrument(instrument)
+                .currency(currency)
+                .tradeDateBetween(parseDate("startDate", startDate), parseDate("endDate", endDate))
+                .settlementDateBetween(parseDate("settlementStartDate", settlementStartDate),
+                        parseDate("settlementEndDate", settlementEndDate))
+                .minValue(minValue);
         if (recentDays > 0) {
-            trades = tradeService.getRecentTrades(recentDays);
-        } else if (counterpartyId != null) {
-            trades = tradeService.getTradesByCounterpartyId(counterpartyId);
-        } else if (status != null) {
-            trades = tradeService.getTradesByStatus(status);
-        } else if (startDate != null && endDate != null) {
-            LocalDate start = LocalDate.parse(startDate);
-            LocalDate end = LocalDate.parse(endDate);
-            trades = tradeService.getTradesByDateRange(start, end);
-        } else if (page > 0 || size != 20) {
-            trades = tradeService.getAllTradesPaged(page, size);
-        } else {
-            trades = tradeService.getAllTrades();
+            filter.recentDays(recentDays);
+        }
+
+        if (cursor != null && sort != null) {
+            throw new IllegalArgumentException("Cursor paging uses a fixed order and cannot be combined with sort");
+        }
+        // Only the requested columns are selected, and the counterparty is joined only for its name or code
+        List<TradeField> fieldset = TradeField.parse(fields);
+        if (fieldset != null && WireFormats.preferred(WireFormats.PROTOBUF_TYPE, headers)) {
+            throw new IllegalArgumentException("Sparse fieldsets are not available as " + WireFormats.PROTOBUF);
         }
 
+        // Polling clients revalidate against the filter's weak ETag and get 304 without the page being read
+        return ConditionalGet.respond(request, tradeService.getTradesVersion(filter), () -> {
+            // Presence of the cursor parameter (even empty, for the first page) selects keyset paging
+            if (cursor != null) {
+                return fieldset != null
+                        ? tradeService.getTradeFieldsAfter(filter, fieldset, cursor, size)
+                        : tradeService.getTradesAfter(filter, cursor, size);
+            }
+            return fieldset != null
+                    ? tradeService.searchTradeFields(filter, fieldset, sort, page, size)
+                    : tradeService.searchTrades(filter, sort, page, size);
+        });
+    }
+
+    @GET
+    @Path("/export")
+    @Produces({"application/x-ndjson", "text/csv"})
+    public Response exportTrades(@QueryParam("format") @DefaultValue("ndjson") String format) {
+        LOG.debugf("GET /api/trades/export - format: %s", format);
+
+        TradeExportService.Format exportFormat = TradeExportService.Format.fromParameter(format);
+        StreamingOutput body = output -> tradeExportService.export(exportFormat, output);
+        return Response.ok(body, exportFormat.mediaType)
+                .header("Content-Disposition", "attachment; filename=\"trades." + exportFormat.extension + "\"")
+                .build();
+    }
+
+    /**
+     * Committed trade changes as Server-Sent Events, optionally narrowed to a counterparty, instrument or status.
+     * Replaces polling the listing: a subscriber that falls behind gets the latest state of each trade, and one
+     * that falls too far behind gets a {@code reset} event telling it to re-read.
+     */
+    @GET
+    @Path("/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void streamTrades(@QueryParam("counterpartyId") Long counterpartyId,
+                             @QueryParam("instrument") String instrument,
+                             @QueryParam("status") Trade.TradeStatus status,
+                             @Context SseEventSink eventSink,
+                             @Context Sse sse) {
+        LOG.debugf("GET /api/trades/stream - counterpartyId: %s, instrument: %s, status: %s",
+                counterpartyId, instrument, status);
+
+        tradeEventHub.subscribe(new TradeEventFilter(counterpartyId, instrument, status),
+                new SseTradeEventSink(eventSink, sse));
+    }
+
+    @GET
+    @Path("/top")
+    public Response getTopTradesByNotional(
+            @QueryParam("limit") @DefaultValue("10") int limit,
+            @QueryParam("counterpartyId") Long counterpartyId,
+            @QueryParam("status") Trade.TradeStatus status,
+            @QueryParam("instrument") String instrument,
+            @QueryParam("currency") String currency) {
+        LOG.debugf("GET /api/trades/top - limit: %d, counterpartyId: %s, status: %s, currency: %s",
+                   limit, counterpartyId, status, currency);
+
+        TradeFilter filter = TradeFilter.all()
+                .counterpartyId(counterpartyId)
+                .status(status)
+                .instrument(instrument)
+                .currency(currency);
+        List<TradeDto> trades = tradeService.getTopTradesByNotional(filter, limit);
         return Response.ok(trades).build();
     }
 
+    /**
+     * Count, quantity and notional of the matching trades grouped by {@code groupBy} (e.g.
+     * {@code instrument,currency}), largest notional first. Answered from the in-memory column store.
+     */
+    @GET
+    @Path("/analytics")
+    public Response getTradeAnalytics(
+            @QueryParam("groupBy") String groupBy,
+            @QueryParam("counterpartyId") Long counterpartyId,
+            @QueryParam("status") Trade.TradeStatus status,
+            @QueryParam("tradeType") Trade.TradeType tradeType,
+            @QueryParam("instrument") String instrument,
+            @QueryParam("currency") String currency,
+            @QueryParam("startDate") String startDate,
+            @QueryParam("endDate") String endDate,
+            @QueryParam("settlementStartDate") String settlementStartDate,
+            @QueryParam("settlementEndDate") String settlementEndDate,
+            @QueryParam("minValue") BigDecimal minValue,
+            @QueryParam("limit") @DefaultValue("1000") int limit) {
+        LOG.debugf("GET /api/trades/analytics - groupBy: %s, counterpartyId: %s, status: %s, instrument: %s, currency: %s",
+                groupBy, counterpartyId, status, instrument, currency);
+
+        TradeFilter filter = TradeFilter.all()
+                .counterpartyId(counterpartyId)
+                .status(status)
+                .tradeType(tradeType)
+                .instrument(instrument)
+                .currency(currency)
+                .tradeDateBetween(parseDate("startDate", startDate), parseDate("endDate", endDate))
+                .settlementDateBetween(parseDate("settlementStartDate", settlementStartDate),
+                        parseDate("settlementEndDate", settlementEndDate))
+                .minValue(minValue);
+        TradeAnalyticsResult result = tradeAnalyticsService.query(filter, TradeDimension.parse(groupBy), limit);
+        return Response.ok(result).build();
+    }
+
     @GET
     @Path("/{id}")
-    public Response getTradeById(@PathParam("id") Long id) {
+    @Produces({MediaType.APPLICATION_JSON, WireFormats.CBOR, WireFormats.SMILE, WireFormats.PROTOBUF})
+    public Response getTradeById(@PathParam("id") Long id, @Context Request request) {
         LOG.debugf("GET /api/trades/%d", id);
-        
-        return tradeService.getTradeById(id)
-                .map(trade -> Response.ok(trade).build())
+
+        return tradeService.getTradeVersion(id)
+                .map(version -> ConditionalGet.respond(request, version,
+                        () -> tradeService.getTradeById(id).orElse(null)))
                 .orElse(Response.status(Response.Status.NOT_FOUND).build());
     }
 
     @GET
     @Path("/reference/{reference}")
-    public Response getTradeByReference(@PathParam("reference") String reference) {
+    @Produces({MediaType.APPLICATION_JSON, WireFormats.CBOR, WireFormats.SMILE, WireFormats.PROTOBUF})
+    public Response getTradeByReference(@PathParam("reference") String reference, @Context Request request) {
         LOG.debugf("GET /api/trades/reference/%s", reference);
-        
-        return tradeService.getTradeByReference(reference)
-                .map(trade -> Response.ok(trade).build())
+
+        return tradeService.getTradeVersionByReference(reference)
+                .map(version -> ConditionalGet.respond(request, version,
+                        () -> tradeService.getTradeByReference(reference).orElse(null)))
                 .orElse(Response.status(Response.Status.NOT_FOUND).build());
     }
 
     @GET
     @Path("/pending")
+    @Produces({MediaType.APPLICATION_JSON, WireFormats.CBOR, WireFormats.SMILE, WireFormats.PROTOBUF})
     public Response getPendingTrades() {
         LOG.debug("GET /api/trades/pending");
         
@@ -90,6 +267,7 @@ public class TradeResource {
 
     @GET
     @Path("/counterparty/{counterpartyId}")
+    @Produces({MediaType.APPLICATION_JSON, WireFormats.CBOR, WireFormats.SMILE, WireFormats.PROTOBUF})
     public Response getTradesByCounterparty(@PathParam("counterpartyId") Long counterpartyId) {
         LOG.debugf("GET /api/trades/counterparty/%d", counterpartyId);
         
@@ -97,12 +275,54 @@ public class TradeResource {
         return Response.ok(trades).build();
     }
 
+    /**
+     * Creates the trade, or with {@code async=true} buffers it for a later group commit and answers 202 with
+     * the ingestion id to poll at {@code /api/trades/ingestion/{ingestionId}}. A retry carrying the same
+     * {@code Idempotency-Key} gets the original response back without the trade being submitted again.
+     */
     @POST
-    public Response createTrade(@Valid CreateTradeRequest request) {
-        LOG.debugf("POST /api/trades - creating trade with reference: %s", request.tradeReference);
-        
-        TradeDto created = tradeService.createTrade(request);
-        return Response.status(Response.Status.CREATED).entity(created).build();
+    @Consumes({MediaType.APPLICATION_JSON, WireFormats.CBOR, WireFormats.SMILE, WireFormats.PROTOBUF})
+    public Response createTrade(@Valid CreateTradeRequest request,
+                                @QueryParam("async") @DefaultValue("false") boolean async,
+                                @HeaderParam("Idempotency-Key") String idempotencyKey) {
+        LOG.debugf("POST /api/trades - creating trade with reference: %s, async: %s", request.tradeReference, async);
+
+        return idempotencyService.execute("trades", idempotencyKey, List.of(request, async), () -> {
+            if (async) {
+                TradeIngestionStatus accepted = tradeIngestionService.submit(request);
+                return new IdempotentResponse(Response.Status.ACCEPTED.getStatusCode(), accepted,
+                        "/api/trades/ingestion/" + accepted.ingestionId);
+            }
+            TradeDto created = tradeService.createTrade(request);
+            return new IdempotentResponse(Response.Status.CREATED.getStatusCode(), created, null);
+        }).toResponse();
+    }
+
+    @GET
+    @Path("/ingestion/{ingestionId}")
+    public Response getIngestionStatus(@PathParam("ingestionId") String ingestionId) {
+        LOG.debugf("GET /api/trades/ingestion/%s", ingestionId);
+
+        return tradeIngestionService.getStatus(ingestionId)
+                .map(status -> Response.ok(status).build())
+                .orElse(Response.status(Response.Status.NOT_FOUND).build());
+    }
+
+    /**
+     * Creates every trade of the array in one transaction. Returns 201 when all were created, 200 when
+     * only some were, and 400 when none were; the body always carries one result per item.
+     */
+    @POST
+    @Path("/batch")
+    public Response createTrades(List<CreateTradeRequest> requests,
+                                 @QueryParam("mode") @DefaultValue("PARTIAL") TradeBatchMode mode) {
+        LOG.debugf("POST /api/trades/batch - %d trades, mode: %s", requests != null ? requests.size() : 0, mode);
+
+        TradeBatchResult result = tradeBatchService.createTrades(requests, mode);
+        Response.Status status = result.failed == 0 ? Response.Status.CREATED
+                : result.created == 0 ? Response.Status.BAD_REQUEST
+                : Response.Status.OK;
+        return Response.status(status).entity(result).build();
     }
 
     @PUT
@@ -130,6 +350,19 @@ public class TradeResource {
         return Response.ok(updated).build();
     }
 
+    /**
+     * Moves the trades given by {@code ids} or {@code filter} to {@code status}, skipping any whose current
+     * status does not allow it, and returns the count of each outcome.
+     */
+    @PATCH
+    @Path("/status")
+    public Response updateTradeStatuses(@Valid BulkStatusUpdateRequest request) {
+        LOG.debugf("PATCH /api/trades/status - status: %s", request != null ? request.status : null);
+
+        BulkStatusUpdateResult result = tradeStatusTransitionService.transition(request);
+        return Response.ok(result).build();
+    }
+
     @DELETE
     @Path("/{id}")
     public Response deleteTrade(@PathParam("id") Long id) {
@@ -139,17 +372,27 @@ public class TradeResource {
         return Response.noContent().build();
     }
 
+    @GET
+    @Path("/stats")
+    public Response getTradeStatistics() {
+        LOG.debug("GET /api/trades/stats");
+
+        TradeStatistics statistics = tradeService.getTradeStatistics();
+        return Response.ok(statistics).build();
+    }
+
     @GET
     @Path("/stats/count")
     public Response getTradeStats() {
         LOG.debug("GET /api/trades/stats/count");
         
-        long totalCount = tradeService.getTradeCount();
-        long pendingCount = tradeService.getTradeCountByStatus(Trade.TradeStatus.PENDING);
-        long confirmedCount = tradeService.getTradeCountByStatus(Trade.TradeStatus.CONFIRMED);
-        long settledCount = tradeService.getTradeCountByStatus(Trade.TradeStatus.SETTLED);
+        // All counts come from the same single-pass statistics instead of one query per status
+        TradeStatistics statistics = tradeService.getTradeStatistics();
+        long pendingCount = statistics.countOf(Trade.TradeStatus.PENDING);
+        long confirmedCount = statistics.countOf(Trade.TradeStatus.CONFIRMED);
+        long settledCount = statistics.countOf(Trade.TradeStatus.SETTLED);
         
-        return Response.ok(new TradeStats(totalCount, pendingCount, confirmedCount, settledCount)).build();
+        return Response.ok(new TradeStats(statistics.totalCount, pendingCount, confirmedCount, settledCount)).build();
     }
 
     @GET
@@ -161,6 +404,26 @@ public class TradeResource {
         return Response.ok(new TradeValueStats(counterpartyId, totalValue)).build();
     }
 
+    @GET
+    @Path("/stats/exposure/{counterpartyId}")
+    public Response getCounterpartyExposure(@PathParam("counterpartyId") Long counterpartyId) {
+        LOG.debugf("GET /api/trades/stats/exposure/%d", counterpartyId);
+
+        CounterpartyExposureDto exposure = tradeService.getCounterpartyExposure(counterpartyId);
+        return Response.ok(exposure).build();
+    }
+
+    private static LocalDate parseDate(String name, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value + " (expected yyyy-MM-dd)");
+        }
+    }
+
     public static class TradeStats {
         public long totalCount;
         public long pendingCount;
@@ -0,0 +1,20 @@
+package dev.mars.resource;
+
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+
+/**
+ * {@link CounterpartyResource} with every endpoint, and the {@code @Transactional} service calls it makes, run on a
+ * virtual thread instead of a worker thread. Built in place of it with {@code trading.virtual-threads.enabled=true}.
+ */
+@Path("/api/counterparties")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+@IfBuildProperty(name = "trading.virtual-threads.enabled", stringValue = "true")
+@RunOnVirtualThread
+public class VirtualThreadCounterpartyResource extends CounterpartyResource {
+}
@@ -0,0 +1,73 @@
+package dev.mars.search;
+
+import dev.mars.event.CounterpartyChangedEvent;
+import dev.mars.event.CounterpartySnapshot;
+import dev.mars.metrics.TradingMetrics;
+import dev.mars.repository.CounterpartyRepository;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.interceptor.Interceptor;
+import jakarta.transaction.Transactional;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Trigram index over counterparty names and codes, loaded at startup and kept current from
+ * {@link CounterpartyChangedEvent}s. Changes are applied while the writing transaction is in progress,
+ * so the writer can find what it just saved, and undone if that transaction rolls back.
+ */
+@ApplicationScoped
+public class CounterpartySearchIndex {
+
+    private static final Logger LOG = Logger.getLogger(CounterpartySearchIndex.class);
+
+    @Inject
+    CounterpartyRepository counterpartyRepository;
+
+    @Inject
+    TradingMetrics tradingMetrics;
+
+    private final TrigramIndex index = new TrigramIndex();
+
+    // Runs after ApplicationLifecycle has created the sample data
+    @Transactional
+    void onStart(@Observes @Priority(Interceptor.Priority.APPLICATION + 1000) StartupEvent ev) {
+        tradingMetrics.registerSearchIndex(index::size, index::estimatedBytes);
+        rebuild();
+    }
+
+    @Transactional
+    public void rebuild() {
+        long started = System.nanoTime();
+        List<Object[]> entries = counterpartyRepository.findAllIdsNamesAndCodes();
+        index.replaceAll(entries);
+        LOG.infof("Counterparty search index loaded %d entries in %d ms",
+                entries.size(), Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    public List<TrigramIndex.Match> search(String query, int limit) {
+        return index.search(query, limit);
+    }
+
+    void onCounterpartyChanged(@Observes(during = TransactionPhase.IN_PROGRESS) CounterpartyChangedEvent event) {
+        apply(event.before, event.after);
+    }
+
+    void onCounterpartyChangeRolledBack(@Observes(during = TransactionPhase.AFTER_FAILURE) CounterpartyChangedEvent event) {
+        apply(event.after, event.before);
+    }
+
+    private void apply(CounterpartySnapshot from, CounterpartySnapshot to) {
+        if (to != null) {
+            index.put(to.id, to.name, to.code);
+        } else if (from != null) {
+            index.remove(from.id);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package dev.mars.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index from character trigrams to entries of (id, name, code).
+ * <p>
+ * A query of three or more characters matches entries whose name or code contains it (case-insensitive):
+ * the posting lists of its trigrams are intersected and the few surviving candidates are verified.
+ * Shorter queries match the start of any word in the name or code, which is what an autocomplete
+ * box needs after one or two keystrokes. Matches are ranked exact, prefix, whole word, word prefix,
+ * then substring, with shorter names first among equals.
+ * <p>
+ * Entries live in append-only slots; replacing or removing an entry tombstones its slot, and the
+ * postings are compacted once dead slots outnumber live ones. Reads share a read lock.
+ */
+public class TrigramIndex {
+
+    // Marks word-prefix grams so they can never collide with a real trigram
+    private static final char WORD_PREFIX = '\u0000';
+
+    private static final Comparator<Match> RANKING = Comparator
+            .comparingInt((Match match) -> match.score).reversed()
+            .thenComparingInt(match -> match.name.length())
+            .thenComparing(match -> match.name)
+            .thenComparingLong(match -> match.id);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, IntList> postings = new HashMap<>();
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final BitSet live = new BitSet();
+
+    private long[] ids = new long[1024];
+    private String[] names = new String[1024];
+    private String[] codes = new String[1024];
+    private String[] nameKeys = new String[1024];
+    private String[] codeKeys = new String[1024];
+    private int slots;
+    private long postingCount;
+
+    public static final class Match {
+        public final long id;
+        public final String name;
+        public final String code;
+        public final int score;
+
+        Match(long id, String name, String code, int score) {
+            this.id = id;
+            this.name = name;
+            this.code = code;
+            this.score = score;
+        }
+    }
+
+    public void put(long id, String name, String code) {
+        lock.writeLock().lock();
+        try {
+            removeSlot(id);
+            addSlot(id, name, code);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeSlot(id);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the whole content of the index; {@code entries} are {@code [id, name, code]} rows.
+     */
+    public void replaceAll(List<Object[]> entries) {
+        lock.writeLock().lock();
+        try {
+            reset(Math.max(1024, entries.size()));
+            for (Object[] entry : entries) {
+                addSlot(((Number) entry[0]).longValue(), (String) entry[1], (String) entry[2]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Match> search(String query, int limit) {
+        String key = normalize(query);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            int[] candidates = candidates(key);
+            PriorityQueue<Match> best = new PriorityQueue<>(Math.min(limit, Math.max(1, candidates.length)) + 1,
+                    RANKING.reversed());
+            for (int slot : candidates) {
+                int score = score(slot, key);
+                if (score == 0) {
+                    continue;
+                }
+                best.add(new Match(ids[slot], names[slot], codes[slot], score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            List<Match> matches = new ArrayList<>(best);
+            matches.sort(RANKING);
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rough heap footprint of the postings and entry arrays, for the index size metric.
+     */
+    public long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            return postingCount * Integer.BYTES + postings.size() * 64L + (long) ids.length * 48L;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private int[] candidates(String key) {
+        if (key.length() < 3) {
+            IntList list = postings.get(WORD_PREFIX + key);
+            return list != null ? list.toArray() : new int[0];
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        addTrigrams(key, grams);
+        List<IntList> lists = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            IntList list = postings.get(gram);
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+        int[] result = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i));
+        }
+        return result;
+    }
+
+    private int score(int slot, String key) {
+        if (!live.get(slot)) {
+            return 0;
+        }
+        String name = nameKeys[slot];
+        String code = codeKeys[slot];
+        if (code.equals(key)) return 100;
+        if (name.equals(key)) return 90;
+        if (code.startsWith(key)) return 80;
+        if (name.startsWith(key)) return 70;
+        int wordMatch = Math.max(wordMatch(name, key), wordMatch(code, key));
+        if (wordMatch == 2) return 65;
+        if (wordMatch == 1) return 60;
+        if (key.length() >= 3 && (name.contains(key) || code.contains(key))) return 50;
+        return 0;
+    }
+
+    // 2 when key occurs as a whole word of text, 1 when it only starts a word, 0 otherwise
+    private static int wordMatch(String text, String key) {
+        int best = 0;
+        for (int i = text.indexOf(key); i >= 0; i = text.indexOf(key, i + 1)) {
+            if (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1))) {
+                int end = i + key.length();
+                if (end == text.length() || !Character.isLetterOrDigit(text.charAt(end))) {
+                    return 2;
+                }
+                best = 1;
+            }
+        }
+        return best;
+    }
+
+    private void addSlot(long id, String name, String code) {
+        ensureCapacity(slots + 1);
+        int slot = slots++;
+        ids[slot] = id;
+        names[slot] = name != null ? name : "";
+        codes[slot] = code != null ? code : "";
+        nameKeys[slot] = normalize(name);
+        codeKeys[slot] = normalize(code);
+        live.set(slot);
+        slotById.put(id, slot);
+
+        Set<String> grams = new LinkedHashSet<>();
+        for (String key : new String[]{nameKeys[slot], codeKeys[slot]}) {
+            addTrigrams(key, grams);
+            addWordPrefixes(key, grams);
+        }
+        for (String gram : grams) {
+            postings.computeIfAbsent(gram, g -> new IntList()).add(slot);
+        }
+        postingCount += grams.size();
+    }
+
+    private void removeSlot(long id) {
+        Integer slot = slotById.remove(id);
+        if (slot != null) {
+            live.clear(slot);
+        }
+    }
+
+    private void compactIfSparse() {
+        int dead = slots - slotById.size();
+        if (dead > 1024 && dead > slotById.size()) {
+            long[] oldIds = ids;
+            String[] oldNames = names;
+            String[] oldCodes = codes;
+            BitSet oldLive = (BitSet) live.clone();
+            int oldSlots = slots;
+            reset(Math.max(1024, slotById.size() * 2));
+            for (int slot = oldLive.nextSetBit(0); slot >= 0 && slot < oldSlots; slot = oldLive.nextSetBit(slot + 1)) {
+                addSlot(oldIds[slot], oldNames[slot], oldCodes[slot]);
+            }
+        }
+    }
+
+    private void reset(int capacity) {
+        postings.clear();
+        slotById.clear();
+        live.clear();
+        ids = new long[capacity];
+        names = new String[capacity];
+        codes = new String[capacity];
+        nameKeys = new String[capacity];
+        codeKeys = new String[capacity];
+        slots = 0;
+        postingCount = 0;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(needed, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        names = Arrays.copyOf(names, capacity);
+        codes = Arrays.copyOf(codes, capacity);
+        nameKeys = Arrays.copyOf(nameKeys, capacity);
+        codeKeys = Arrays.copyOf(codeKeys, capacity);
+    }
+
+    private static void addTrigrams(String key, Set<String> grams) {
+        for (int i = 0; i + 3 <= key.length(); i++) {
+            grams.add(key.substring(i, i + 3));
+        }
+    }
+
+    private static void addWordPrefixes(String key, Set<String> grams) {
+        for (int i = 0; i < key.length(); i++) {
+            if (Character.isLetterOrDigit(key.charAt(i)) && (i == 0 || !Character.isLetterOrDigit(key.charAt(i - 1)))) {
+                grams.add(WORD_PREFIX + key.substring(i, i + 1));
+                if (i + 2 <= key.length()) {
+                    grams.add(WORD_PREFIX + key.substring(i, i + 2));
+                }
+            }
+        }
+    }
+
+    // Both inputs are ascending, since slots are only ever appended
+    private static int[] intersect(int[] left, IntList right) {
+        int[] out = new int[Math.min(left.length, right.size)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < left.length && j < right.size) {
+            int a = left[i];
+            int b = right.data[j];
+            if (a == b) {
+                out[n++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static final class IntList {
+        int[] data = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
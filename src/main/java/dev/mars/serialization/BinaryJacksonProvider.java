@@ -0,0 +1,89 @@
+package dev.mars.serialization;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * CBOR and Smile bodies, written and read by copies of the application's JSON {@link ObjectMapper}, so
+ * the field names and modules are the same as in JSON. Decimals travel in the formats' native binary
+ * decimal encoding, and dates and timestamps as numeric arrays rather than ISO strings.
+ */
+@Provider
+@Produces({WireFormats.CBOR, WireFormats.SMILE})
+@Consumes({WireFormats.CBOR, WireFormats.SMILE})
+public class BinaryJacksonProvider implements MessageBodyWriter<Object>, MessageBodyReader<Object> {
+
+    private final ObjectMapper cborMapper;
+    private final ObjectMapper smileMapper;
+
+    @Inject
+    public BinaryJacksonProvider(ObjectMapper objectMapper) {
+        this.cborMapper = binaryCopy(objectMapper, new CBORFactory());
+        this.smileMapper = binaryCopy(objectMapper, new SmileFactory());
+    }
+
+    static ObjectMapper binaryCopy(ObjectMapper objectMapper, JsonFactory factory) {
+        return objectMapper.copyWith(factory)
+                .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, true)
+                // The container owns the entity streams
+                .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false)
+                .configure(JsonParser.Feature.AUTO_CLOSE_SOURCE, false);
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return mapperFor(mediaType) != null;
+    }
+
+    @Override
+    public void writeTo(Object entity, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        mapperFor(mediaType).writeValue(entityStream, entity);
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return mapperFor(mediaType) != null;
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+        ObjectMapper mapper = mapperFor(mediaType);
+        try {
+            return mapper.readerFor(mapper.constructType(genericType)).readValue(entityStream);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed " + mediaType + " request: " + e.getOriginalMessage());
+        }
+    }
+
+    private ObjectMapper mapperFor(MediaType mediaType) {
+        if (WireFormats.matches(WireFormats.CBOR_TYPE, mediaType)) {
+            return cborMapper;
+        }
+        if (WireFormats.matches(WireFormats.SMILE_TYPE, mediaType)) {
+            return smileMapper;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,307 @@
+package dev.mars.serialization;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import dev.mars.domain.Trade;
+import dev.mars.dto.CounterpartyDto;
+import dev.mars.dto.CreateTradeRequest;
+import dev.mars.dto.CursorPage;
+import dev.mars.dto.TradeDto;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Reads and writes the messages of {@code schema/trading.proto} straight from and to the DTOs, without
+ * generated message classes in between. Every message is written in one pass: the size of a nested message
+ * is computed first, so its length prefix can be written before it.
+ * <p>
+ * Enum numbers are the Java ordinal plus one (0 is unspecified), so constants are only ever appended.
+ */
+public final class ProtobufCodec {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private ProtobufCodec() {
+    }
+
+    /**
+     * Writes a {@code Trade}, {@code Counterparty}, list ({@code TradeList}, {@code CounterpartyList}) or
+     * cursor page ({@code TradePage}, {@code CounterpartyPage}) message. The two list and page messages share
+     * their field numbers, so the element type only matters for the elements themselves.
+     */
+    public static void write(CodedOutputStream out, Object entity) throws IOException {
+        if (entity instanceof TradeDto trade) {
+            writeTrade(out, trade);
+        } else if (entity instanceof CounterpartyDto counterparty) {
+            writeCounterparty(out, counterparty);
+        } else if (entity instanceof List<?> list) {
+            writeElements(out, 1, list);
+        } else if (entity instanceof CursorPage<?> page) {
+            writeElements(out, 1, page.items);
+            writeString(out, 2, page.nextCursor);
+        } else {
+            throw new IllegalArgumentException("No protobuf message for " + entity.getClass().getSimpleName());
+        }
+    }
+
+    public static boolean canWrite(Class<?> type) {
+        return TradeDto.class.isAssignableFrom(type) || CounterpartyDto.class.isAssignableFrom(type)
+                || List.class.isAssignableFrom(type) || CursorPage.class.isAssignableFrom(type);
+    }
+
+    private static void writeElements(CodedOutputStream out, int field, List<?> elements) throws IOException {
+        if (elements == null) {
+            return;
+        }
+        for (Object element : elements) {
+            if (element instanceof TradeDto trade) {
+                writeMessageHeader(out, field, tradeSize(trade));
+                writeTrade(out, trade);
+            } else if (element instanceof CounterpartyDto counterparty) {
+                writeMessageHeader(out, field, counterpartySize(counterparty));
+                writeCounterparty(out, counterparty);
+            } else {
+                throw new IllegalArgumentException("No protobuf message for " + element.getClass().getSimpleName());
+            }
+        }
+    }
+
+    // Trade
+
+    static void writeTrade(CodedOutputStream out, TradeDto trade) throws IOException {
+        writeInt64(out, 1, trade.id);
+        writeString(out, 2, trade.tradeReference);
+        writeInt64(out, 3, trade.counterpartyId);
+        writeString(out, 4, trade.counterpartyName);
+        writeString(out, 5, trade.counterpartyCode);
+        writeString(out, 6, trade.instrument);
+        writeEnum(out, 7, trade.tradeType);
+        writeDecimal(out, 8, trade.quantity);
+        writeDecimal(out, 9, trade.price);
+        writeDecimal(out, 10, trade.totalValue);
+        writeDate(out, 11, trade.tradeDate);
+        writeDate(out, 12, trade.settlementDate);
+        writeString(out, 13, trade.currency);
+        writeEnum(out, 14, trade.status);
+        writeString(out, 15, trade.notes);
+        writeTimestamp(out, 16, trade.createdAt);
+        writeTimestamp(out, 17, trade.updatedAt);
+    }
+
+    static int tradeSize(TradeDto trade) {
+        return int64Size(1, trade.id)
+                + stringSize(2, trade.tradeReference)
+                + int64Size(3, trade.counterpartyId)
+                + stringSize(4, trade.counterpartyName)
+                + stringSize(5, trade.counterpartyCode)
+                + stringSize(6, trade.instrument)
+                + enumSize(7, trade.tradeType)
+                + decimalSize(8, trade.quantity)
+                + decimalSize(9, trade.price)
+                + decimalSize(10, trade.totalValue)
+                + dateSize(11, trade.tradeDate)
+                + dateSize(12, trade.settlementDate)
+                + stringSize(13, trade.currency)
+                + enumSize(14, trade.status)
+                + stringSize(15, trade.notes)
+                + timestampSize(16, trade.createdAt)
+                + timestampSize(17, trade.updatedAt);
+    }
+
+    // Counterparty
+
+    static void writeCounterparty(CodedOutputStream out, CounterpartyDto counterparty) throws IOException {
+        writeInt64(out, 1, counterparty.id);
+        writeString(out, 2, counterparty.name);
+        writeString(out, 3, counterparty.code);
+        writeString(out, 4, counterparty.email);
+        writeString(out, 5, counterparty.phoneNumber);
+        writeString(out, 6, counterparty.address);
+        writeEnum(out, 7, counterparty.type);
+        writeEnum(out, 8, counterparty.status);
+        writeTimestamp(out, 9, counterparty.createdAt);
+        writeTimestamp(out, 10, counterparty.updatedAt);
+        out.writeInt32(11, counterparty.tradeCount);
+    }
+
+    static int counterpartySize(CounterpartyDto counterparty) {
+        return int64Size(1, counterparty.id)
+                + stringSize(2, counterparty.name)
+                + stringSize(3, counterparty.code)
+                + stringSize(4, counterparty.email)
+                + stringSize(5, counterparty.phoneNumber)
+                + stringSize(6, counterparty.address)
+                + enumSize(7, counterparty.type)
+                + enumSize(8, counterparty.status)
+                + timestampSize(9, counterparty.createdAt)
+                + timestampSize(10, counterparty.updatedAt)
+                + CodedOutputStream.computeInt32Size(11, counterparty.tradeCount);
+    }
+
+    // CreateTradeRequest
+
+    /**
+     * Reads a {@code CreateTradeRequest} message; fields this version does not know are skipped.
+     */
+    public static CreateTradeRequest readCreateTradeRequest(CodedInputStream in) throws IOException {
+        CreateTradeRequest request = new CreateTradeRequest();
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1 -> request.tradeReference = in.readString();
+                case 2 -> request.counterpartyId = in.readInt64();
+                case 3 -> request.instrument = in.readString();
+                case 4 -> request.tradeType = readEnum(in, Trade.TradeType.values());
+                case 5 -> request.quantity = readDecimal(in);
+                case 6 -> request.price = readDecimal(in);
+                case 7 -> request.tradeDate = LocalDate.ofEpochDay(in.readInt32());
+                case 8 -> request.settlementDate = LocalDate.ofEpochDay(in.readInt32());
+                case 9 -> request.currency = in.readString();
+                case 10 -> {
+                    Trade.TradeStatus status = readEnum(in, Trade.TradeStatus.values());
+                    if (status != null) {
+                        request.status = status;
+                    }
+                }
+                case 11 -> request.notes = in.readString();
+                default -> in.skipField(tag);
+            }
+        }
+        return request;
+    }
+
+    /**
+     * Writes a {@code CreateTradeRequest} message, for clients and tests on the JVM.
+     */
+    public static void writeCreateTradeRequest(CodedOutputStream out, CreateTradeRequest request) throws IOException {
+        writeString(out, 1, request.tradeReference);
+        writeInt64(out, 2, request.counterpartyId);
+        writeString(out, 3, request.instrument);
+        writeEnum(out, 4, request.tradeType);
+        writeDecimal(out, 5, request.quantity);
+        writeDecimal(out, 6, request.price);
+        writeDate(out, 7, request.tradeDate);
+        writeDate(out, 8, request.settlementDate);
+        writeString(out, 9, request.currency);
+        writeEnum(out, 10, request.status);
+        writeString(out, 11, request.notes);
+    }
+
+    // Field encodings; null values are left out
+
+    private static void writeMessageHeader(CodedOutputStream out, int field, int size) throws IOException {
+        out.writeTag(field, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        out.writeUInt32NoTag(size);
+    }
+
+    private static int messageSize(int field, int size) {
+        return CodedOutputStream.computeTagSize(field) + CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+    }
+
+    private static void writeInt64(CodedOutputStream out, int field, Long value) throws IOException {
+        if (value != null) {
+            out.writeInt64(field, value);
+        }
+    }
+
+    private static int int64Size(int field, Long value) {
+        return value != null ? CodedOutputStream.computeInt64Size(field, value) : 0;
+    }
+
+    private static void writeString(CodedOutputStream out, int field, String value) throws IOException {
+        if (value != null) {
+            out.writeString(field, value);
+        }
+    }
+
+    private static int stringSize(int field, String value) {
+        return value != null ? CodedOutputStream.computeStringSize(field, value) : 0;
+    }
+
+    private static void writeEnum(CodedOutputStream out, int field, Enum<?> value) throws IOException {
+        if (value != null) {
+            out.writeEnum(field, value.ordinal() + 1);
+        }
+    }
+
+    private static int enumSize(int field, Enum<?> value) {
+        return value != null ? CodedOutputStream.computeEnumSize(field, value.ordinal() + 1) : 0;
+    }
+
+    private static <E extends Enum<E>> E readEnum(CodedInputStream in, E[] values) throws IOException {
+        int number = in.readEnum();
+        if (number == 0) {
+            return null;
+        }
+        if (number < 0 || number > values.length) {
+            throw new IllegalArgumentException("Unknown enum number " + number);
+        }
+        return values[number - 1];
+    }
+
+    private static void writeDate(CodedOutputStream out, int field, LocalDate value) throws IOException {
+        if (value != null) {
+            out.writeInt32(field, (int) value.toEpochDay());
+        }
+    }
+
+    private static int dateSize(int field, LocalDate value) {
+        return value != null ? CodedOutputStream.computeInt32Size(field, (int) value.toEpochDay()) : 0;
+    }
+
+    private static void writeTimestamp(CodedOutputStream out, int field, LocalDateTime value) throws IOException {
+        if (value != null) {
+            out.writeInt64(field, ChronoUnit.MICROS.between(EPOCH, value));
+        }
+    }
+
+    private static int timestampSize(int field, LocalDateTime value) {
+        return value != null ? CodedOutputStream.computeInt64Size(field, ChronoUnit.MICROS.between(EPOCH, value)) : 0;
+    }
+
+    // Decimal { bytes unscaled = 1; int32 scale = 2; }
+
+    private static void writeDecimal(CodedOutputStream out, int field, BigDecimal value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        writeMessageHeader(out, field, decimalBodySize(unscaled, value.scale()));
+        out.writeByteArray(1, unscaled);
+        out.writeInt32(2, value.scale());
+    }
+
+    private static int decimalSize(int field, BigDecimal value) {
+        if (value == null) {
+            return 0;
+        }
+        return messageSize(field, decimalBodySize(value.unscaledValue().toByteArray(), value.scale()));
+    }
+
+    private static int decimalBodySize(byte[] unscaled, int scale) {
+        return CodedOutputStream.computeByteArraySize(1, unscaled) + CodedOutputStream.computeInt32Size(2, scale);
+    }
+
+    private static BigDecimal readDecimal(CodedInputStream in) throws IOException {
+        int limit = in.pushLimit(in.readRawVarint32());
+        byte[] unscaled = new byte[0];
+        int scale = 0;
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1 -> unscaled = in.readByteArray();
+                case 2 -> scale = in.readInt32();
+                default -> in.skipField(tag);
+            }
+        }
+        in.popLimit(limit);
+        return new BigDecimal(unscaled.length == 0 ? BigInteger.ZERO : new BigInteger(unscaled), scale);
+    }
+}
@@ -0,0 +1,57 @@
+package dev.mars.serialization;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import dev.mars.dto.CreateTradeRequest;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * {@code application/x-protobuf} bodies, per the schema published at {@code /schema/trading.proto}.
+ */
+@Provider
+@Produces(WireFormats.PROTOBUF)
+@Consumes(WireFormats.PROTOBUF)
+public class ProtobufProvider implements MessageBodyWriter<Object>, MessageBodyReader<CreateTradeRequest> {
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return WireFormats.matches(WireFormats.PROTOBUF_TYPE, mediaType) && ProtobufCodec.canWrite(type);
+    }
+
+    @Override
+    public void writeTo(Object entity, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        CodedOutputStream out = CodedOutputStream.newInstance(entityStream);
+        ProtobufCodec.write(out, entity);
+        out.flush();
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return WireFormats.matches(WireFormats.PROTOBUF_TYPE, mediaType) && type == CreateTradeRequest.class;
+    }
+
+    @Override
+    public CreateTradeRequest readFrom(Class<CreateTradeRequest> type, Type genericType, Annotation[] annotations,
+                                       MediaType mediaType, MultivaluedMap<String, String> httpHeaders,
+                                       InputStream entityStream) throws IOException {
+        try {
+            return ProtobufCodec.readCreateTradeRequest(CodedInputStream.newInstance(entityStream));
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalArgumentException("Malformed protobuf request: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package dev.mars.serialization;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+
+import java.util.List;
+
+/**
+ * Media types of the binary representations offered next to JSON on the trade and counterparty endpoints.
+ */
+public final class WireFormats {
+
+    public static final String CBOR = "application/cbor";
+    public static final String SMILE = "application/x-jackson-smile";
+    public static final String PROTOBUF = "application/x-protobuf";
+
+    public static final MediaType CBOR_TYPE = MediaType.valueOf(CBOR);
+    public static final MediaType SMILE_TYPE = MediaType.valueOf(SMILE);
+    public static final MediaType PROTOBUF_TYPE = MediaType.valueOf(PROTOBUF);
+
+    private WireFormats() {
+    }
+
+    /**
+     * Whether {@code actual} is {@code format} itself, ignoring parameters; unlike
+     * {@link MediaType#isCompatible} a wildcard does not match, so the binary providers are only
+     * chosen when the format was negotiated explicitly.
+     */
+    public static boolean matches(MediaType format, MediaType actual) {
+        return actual != null
+                && format.getType().equalsIgnoreCase(actual.getType())
+                && format.getSubtype().equalsIgnoreCase(actual.getSubtype());
+    }
+
+    /**
+     * Whether {@code format} is the client's first choice in its {@code Accept} header.
+     */
+    public static boolean preferred(MediaType format, HttpHeaders headers) {
+        List<MediaType> acceptable = headers.getAcceptableMediaTypes();
+        return !acceptable.isEmpty() && matches(format, acceptable.get(0));
+    }
+}
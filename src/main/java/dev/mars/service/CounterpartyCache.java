@@ -0,0 +1,148 @@
+package dev.mars.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.mars.dto.CounterpartyDto;
+import dev.mars.event.CounterpartyChangedEvent;
+import dev.mars.event.CounterpartySnapshot;
+import dev.mars.metrics.TradingMetrics;
+import dev.mars.repository.CounterpartyRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Caffeine cache of counterparty reference data by id, plus a code to id mapping. Trades are validated
+ * against it on every write, so cached values carry no trade count and are never touched by trade changes.
+ * <p>
+ * Entries are invalidated from {@link CounterpartyChangedEvent}s twice: while the writing transaction is
+ * in progress, and again once it has completed, so a value another request loaded in between (still the
+ * old committed row) does not outlive the change. Those events are local to one node: a change made on
+ * another node, or outside the application, is only seen here once the entry expires. Until then trade
+ * writes on this node still check the old {@code status}, so a counterparty suspended elsewhere can take
+ * new trades here for up to {@code trading.cache.counterparty.expire-after-write}.
+ */
+@ApplicationScoped
+public class CounterpartyCache {
+
+    private static final Logger LOG = Logger.getLogger(CounterpartyCache.class);
+
+    @Inject
+    CounterpartyRepository counterpartyRepository;
+
+    @Inject
+    TradingMetrics tradingMetrics;
+
+    @ConfigProperty(name = "trading.cache.counterparty.maximum-size", defaultValue = "10000")
+    long maximumSize;
+
+    @ConfigProperty(name = "trading.cache.counterparty.expire-after-write", defaultValue = "1m")
+    Duration expireAfterWrite;
+
+    private Cache<Long, CounterpartyDto> byId;
+    private Cache<String, Long> idByCode;
+
+    @PostConstruct
+    void init() {
+        byId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        idByCode = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        tradingMetrics.registerCache("counterparty.by-id", byId);
+        tradingMetrics.registerCache("counterparty.by-code", idByCode);
+    }
+
+    /**
+     * Reference data of the counterparty; {@code tradeCount} is always 0 on cached values.
+     */
+    public Optional<CounterpartyDto> get(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        // A null from the loader is not cached, so unknown ids are looked up again next time
+        return Optional.ofNullable(byId.get(id, key -> counterpartyRepository.findByIdOptional(key)
+                .map(CounterpartyDto::referenceOf)
+                .orElse(null)));
+    }
+
+    /**
+     * Reference data for each of {@code ids} that exists; the ones not cached are read with one IN query.
+     */
+    public Map<Long, CounterpartyDto> getAll(Collection<Long> ids) {
+        return byId.getAll(ids, missing -> counterpartyRepository.findByIds(missing).stream()
+                .collect(Collectors.toMap(counterparty -> counterparty.id, CounterpartyDto::referenceOf)));
+    }
+
+    public Optional<CounterpartyDto> getByCode(String code) {
+        if (code == null) {
+            return Optional.empty();
+        }
+        Long id = idByCode.get(code, this::loadIdByCode);
+        if (id == null) {
+            return Optional.empty();
+        }
+        Optional<CounterpartyDto> counterparty = get(id);
+        if (counterparty.isPresent() && code.equals(counterparty.get().code)) {
+            return counterparty;
+        }
+        // The code moved to another counterparty between the two lookups; resolve it again
+        idByCode.invalidate(code);
+        id = idByCode.get(code, this::loadIdByCode);
+        return id != null ? get(id) : Optional.empty();
+    }
+
+    public void invalidate(Long id) {
+        byId.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        byId.invalidateAll();
+        idByCode.invalidateAll();
+    }
+
+    void onChangeInProgress(@Observes(during = TransactionPhase.IN_PROGRESS) CounterpartyChangedEvent event) {
+        invalidate(event);
+    }
+
+    void onChangeCompleted(@Observes(during = TransactionPhase.AFTER_COMPLETION) CounterpartyChangedEvent event) {
+        invalidate(event);
+    }
+
+    private void invalidate(CounterpartyChangedEvent event) {
+        LOG.debugf("Invalidating cached counterparty %d", event.counterpartyId());
+        byId.invalidate(event.counterpartyId());
+        invalidateCode(event.before);
+        invalidateCode(event.after);
+    }
+
+    private void invalidateCode(CounterpartySnapshot snapshot) {
+        if (snapshot != null && snapshot.code != null) {
+            idByCode.invalidate(snapshot.code);
+        }
+    }
+
+    private Long loadIdByCode(String code) {
+        return counterpartyRepository.findByCode(code)
+                .map(counterparty -> {
+                    byId.put(counterparty.id, CounterpartyDto.referenceOf(counterparty));
+                    return counterparty.id;
+                })
+                .orElse(null);
+    }
+}
@@ -0,0 +1,193 @@
+package dev.mars.service;
+
+import dev.mars.domain.CounterpartyExposure;
+import dev.mars.domain.Trade;
+import dev.mars.dto.CounterpartyExposureDto;
+import dev.mars.event.TradeChange;
+import dev.mars.event.TradeChangedEvent;
+import dev.mars.event.TradeSnapshot;
+import dev.mars.metrics.TradingMetrics;
+import dev.mars.repository.CounterpartyExposureRepository;
+import dev.mars.repository.CounterpartyRepository;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
+import jakarta.transaction.Transactional;
+import org.jboss.logging.Logger;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Keeps the {@link CounterpartyExposure} cells in step with the trades table. Deltas are applied in the
+ * transaction that changes the trades, so the aggregate commits or rolls back with them; a scheduled
+ * reconciliation recomputes every cell from the trades and corrects (and reports) any drift.
+ */
+@ApplicationScoped
+public class CounterpartyExposureService {
+
+    private static final Logger LOG = Logger.getLogger(CounterpartyExposureService.class);
+
+    @Inject
+    CounterpartyExposureRepository exposureRepository;
+
+    @Inject
+    CounterpartyRepository counterpartyRepository;
+
+    @Inject
+    TradingMetrics tradingMetrics;
+
+    public CounterpartyExposureDto getExposure(Long counterpartyId) {
+        LOG.debugf("Fetching exposure for counterparty id: %d", counterpartyId);
+        return CounterpartyExposureDto.from(counterpartyId, exposureRepository.findByCounterpartyId(counterpartyId));
+    }
+
+    public BigDecimal getTotalNotional(Long counterpartyId) {
+        BigDecimal total = exposureRepository.getTotalNotionalByCounterpartyId(counterpartyId);
+        return total != null ? total : BigDecimal.ZERO;
+    }
+
+    void onTradeChanged(@Observes(during = TransactionPhase.IN_PROGRESS) TradeChangedEvent event) {
+        Map<CellKey, Delta> deltas = new TreeMap<>();
+        for (TradeChange change : event.changes) {
+            if (change.before != null) {
+                deltas.computeIfAbsent(CellKey.of(change.before), key -> new Delta()).subtract(change.before);
+            }
+            if (change.after != null) {
+                deltas.computeIfAbsent(CellKey.of(change.after), key -> new Delta()).add(change.after);
+            }
+        }
+        // Cells are updated in key order so concurrent multi-trade transactions cannot deadlock on them
+        deltas.forEach((key, delta) -> {
+            if (!delta.isZero()) {
+                applyDelta(key.counterpartyId, key.status, key.currency, delta.count, delta.notional);
+            }
+        });
+    }
+
+    @Scheduled(every = "${trading.exposure.reconciliation.every:1h}",
+            delayed = "${trading.exposure.reconciliation.delay:5m}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * Recomputes every cell from the trades table, brings the stored cells in line and returns how many had drifted.
+     * Corrections are applied as deltas, so trades committed while this runs are neither lost nor counted twice.
+     */
+    @Transactional
+    public int reconcile() {
+        long started = System.nanoTime();
+        List<Object[]> drift = exposureRepository.findDrift();
+        for (Object[] row : drift) {
+            Long counterpartyId = ((Number) row[0]).longValue();
+            Trade.TradeStatus status = Trade.TradeStatus.valueOf(row[1].toString().trim());
+            String currency = (String) row[2];
+            long countDelta = ((Number) row[3]).longValue();
+            BigDecimal notionalDelta = toBigDecimal(row[4]);
+            LOG.warnf("Exposure drift for counterparty %d %s %s: count %+d, notional %s",
+                    counterpartyId, status, currency, countDelta, notionalDelta.toPlainString());
+            applyDelta(counterpartyId, status, currency, countDelta, notionalDelta);
+        }
+        long pruned = exposureRepository.deleteEmptyCells();
+
+        Duration duration = Duration.ofNanos(System.nanoTime() - started);
+        tradingMetrics.recordExposureReconciliation(drift.size(), duration);
+        LOG.infof("Exposure reconciliation corrected %d cells and pruned %d empty cells in %d ms",
+                drift.size(), pruned, duration.toMillis());
+        return drift.size();
+    }
+
+    private void applyDelta(Long counterpartyId, Trade.TradeStatus status, String currency,
+                            long countDelta, BigDecimal notionalDelta) {
+        if (exposureRepository.addDelta(counterpartyId, status, currency, countDelta, notionalDelta) > 0) {
+            return;
+        }
+        // First trade in this cell: serialise cell creation per counterparty, then re-check before inserting
+        counterpartyRepository.findById(counterpartyId, LockModeType.PESSIMISTIC_WRITE);
+        if (exposureRepository.addDelta(counterpartyId, status, currency, countDelta, notionalDelta) > 0) {
+            return;
+        }
+        CounterpartyExposure cell = new CounterpartyExposure();
+        cell.counterpartyId = counterpartyId;
+        cell.status = status;
+        cell.currency = currency;
+        cell.tradeCount = countDelta;
+        cell.notional = notionalDelta;
+        exposureRepository.persistAndFlush(cell);
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+    }
+
+    private static final class CellKey implements Comparable<CellKey> {
+        private static final Comparator<CellKey> ORDER = Comparator
+                .comparing((CellKey key) -> key.counterpartyId)
+                .thenComparing(key -> key.status)
+                .thenComparing(key -> key.currency);
+
+        final Long counterpartyId;
+        final Trade.TradeStatus status;
+        final String currency;
+
+        CellKey(Long counterpartyId, Trade.TradeStatus status, String currency) {
+            this.counterpartyId = counterpartyId;
+            this.status = status;
+            this.currency = currency;
+        }
+
+        static CellKey of(TradeSnapshot trade) {
+            return new CellKey(trade.counterpartyId, trade.status, trade.currency);
+        }
+
+        @Override
+        public int compareTo(CellKey other) {
+            return ORDER.compare(this, other);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof CellKey other)) return false;
+            return Objects.equals(counterpartyId, other.counterpartyId) && status == other.status
+                    && Objects.equals(currency, other.currency);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(counterpartyId, status, currency);
+        }
+    }
+
+    private static final class Delta {
+        long count;
+        BigDecimal notional = BigDecimal.ZERO;
+
+        void add(TradeSnapshot trade) {
+            count++;
+            notional = notional.add(trade.notional);
+        }
+
+        void subtract(TradeSnapshot trade) {
+            count--;
+            notional = notional.subtract(trade.notional);
+        }
+
+        boolean isZero() {
+            return count == 0 && notional.signum() == 0;
+        }
+    }
+}
@@ -3,81 +3,191 @@ package dev.mars.service;
 import dev.mars.domain.Counterparty;
 import dev.mars.dto.CounterpartyDto;
 import dev.mars.dto.CreateCounterpartyRequest;
+import dev.mars.dto.CursorPage;
+import dev.mars.dto.ResourceVersion;
+import dev.mars.event.CounterpartyChangedEvent;
+import dev.mars.event.CounterpartySnapshot;
 import dev.mars.exception.BusinessException;
 import dev.mars.metrics.TradingMetrics;
+import dev.mars.repository.CounterpartyCursor;
+import dev.mars.repository.CounterpartyExposureRepository;
+import dev.mars.repository.CounterpartyField;
 import dev.mars.repository.CounterpartyRepository;
+import dev.mars.search.CounterpartySearchIndex;
+import dev.mars.search.TrigramIndex;
 import io.micrometer.core.instrument.Timer;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import org.jboss.logging.Logger;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class CounterpartyService {
 
     private static final Logger LOG = Logger.getLogger(CounterpartyService.class);
 
+    private static final int MAX_SUGGESTIONS = 100;
+
     @Inject
     CounterpartyRepository counterpartyRepository;
 
+    @Inject
+    CounterpartyExposureRepository counterpartyExposureRepository;
+
+    @Inject
+    CounterpartySearchIndex counterpartySearchIndex;
+
+    @Inject
+    Event<CounterpartyChangedEvent> counterpartyChangedEvent;
+
+    @Inject
+    CounterpartyCache counterpartyCache;
+
     @Inject
     TradingMetrics tradingMetrics;
 
     public List<CounterpartyDto> getAllCounterparties() {
         LOG.debug("Fetching all counterparties");
-        return counterpartyRepository.listAll()
-                .stream()
-                .map(CounterpartyDto::from)
-                .collect(Collectors.toList());
+        return counterpartyRepository.findAllDtos();
     }
 
     public List<CounterpartyDto> getAllCounterpartiesPaged(int page, int size) {
         LOG.debugf("Fetching counterparties page %d with size %d", page, size);
-        return counterpartyRepository.findAllPaged(page, size)
-                .stream()
-                .map(CounterpartyDto::from)
-                .collect(Collectors.toList());
+        return counterpartyRepository.findAllDtosPaged(page, size);
     }
 
+    public CursorPage<CounterpartyDto> getAllCounterpartiesAfter(String cursor, int size) {
+        LOG.debugf("Fetching counterparties after cursor %s with size %d", cursor, size);
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than 0");
+        }
+        // One extra row tells us whether another page exists without a COUNT query
+        List<CounterpartyDto> rows = counterpartyRepository.findDtosAfter(CounterpartyCursor.decode(cursor), size + 1);
+        boolean hasMore = rows.size() > size;
+        List<CounterpartyDto> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = hasMore ? CounterpartyCursor.of(page.get(page.size() - 1)).encode() : null;
+        return new CursorPage<>(page, nextCursor);
+    }
+
+    // Reference data comes from the cache; only the trade count, which changes with every trade, is read live
+    // from the exposure cells, the same cells the counterparty's entity tag is computed from
     public Optional<CounterpartyDto> getCounterpartyById(Long id) {
         LOG.debugf("Fetching counterparty with id: %d", id);
-        return counterpartyRepository.findByIdOptional(id)
-                .map(CounterpartyDto::from);
+        return counterpartyCache.get(id).map(this::withTradeCount);
+    }
+
+    /**
+     * Validators for the counterparty's representation: its own {@code updatedAt}, read from the row rather
+     * than the cache, and its exposure cells for the trade count, instead of counting its trades. A cached
+     * value older than the row (changed on another node) is dropped, so the body built next matches the tag.
+     */
+    public Optional<ResourceVersion> getCounterpartyVersion(Long id) {
+        return counterpartyRepository.findUpdatedAtById(id).map(updatedAt -> {
+            counterpartyCache.get(id)
+                    .filter(cached -> !updatedAt.equals(cached.updatedAt))
+                    .ifPresent(stale -> counterpartyCache.invalidate(id));
+            Object[] exposure = counterpartyExposureRepository.findVersionByCounterpartyId(id);
+            return ResourceVersion.of(false, updatedAt, exposure[0], exposure[1]);
+        });
+    }
+
+    /**
+     * Weak entity tag, without Last-Modified, for the counterparty listings; it changes with any counterparty
+     * or trade count.
+     */
+    public ResourceVersion getCounterpartiesVersion() {
+        Object[] counterparties = counterpartyRepository.findVersion();
+        Object[] exposure = counterpartyExposureRepository.findVersion();
+        return ResourceVersion.of(true, counterparties[0], counterparties[1], exposure[0], exposure[1]);
     }
 
     public Optional<CounterpartyDto> getCounterpartyByCode(String code) {
         LOG.debugf("Fetching counterparty with code: %s", code);
-        return counterpartyRepository.findByCode(code)
-                .map(CounterpartyDto::from);
+        return counterpartyCache.getByCode(code).map(this::withTradeCount);
     }
 
     public List<CounterpartyDto> getCounterpartiesByType(Counterparty.CounterpartyType type) {
         LOG.debugf("Fetching counterparties with type: %s", type);
-        return counterpartyRepository.findByType(type)
-                .stream()
-                .map(CounterpartyDto::from)
-                .collect(Collectors.toList());
+        return counterpartyRepository.findDtosByType(type);
     }
 
     public List<CounterpartyDto> getActiveCounterparties() {
         LOG.debug("Fetching active counterparties");
-        return counterpartyRepository.findActiveCounterparties()
-                .stream()
-                .map(CounterpartyDto::from)
-                .collect(Collectors.toList());
+        return counterpartyRepository.findDtosByStatus(Counterparty.CounterpartyStatus.ACTIVE);
     }
 
+    /**
+     * Every counterparty whose name contains {@code name}, ignoring case. Ranked, limited suggestions
+     * come from {@link #suggestCounterparties} instead.
+     */
     public List<CounterpartyDto> searchCounterpartiesByName(String name) {
         LOG.debugf("Searching counterparties with name containing: %s", name);
-        return counterpartyRepository.findByNameContaining(name)
-                .stream()
-                .map(CounterpartyDto::from)
-                .collect(Collectors.toList());
+        return counterpartyRepository.findDtosByNameContaining(name);
+    }
+
+    // Sparse fieldsets: the listings above narrowed to the requested fields, each counterparty returned as a
+    // map of property name to value in the requested order.
+
+    public List<Map<String, Object>> getAllCounterpartyFields(List<CounterpartyField> fields) {
+        LOG.debugf("Fetching counterparty fields %s", fields);
+        return toFieldMaps(fields, counterpartyRepository.findAllFields(fields));
+    }
+
+    public List<Map<String, Object>> getAllCounterpartyFieldsPaged(List<CounterpartyField> fields, int page, int size) {
+        LOG.debugf("Fetching counterparty fields %s page %d with size %d", fields, page, size);
+        return toFieldMaps(fields, counterpartyRepository.findAllFieldsPaged(fields, page, size));
+    }
+
+    public CursorPage<Map<String, Object>> getCounterpartyFieldsAfter(List<CounterpartyField> fields, String cursor,
+                                                                      int size) {
+        LOG.debugf("Fetching counterparty fields %s after cursor %s with size %d", fields, cursor, size);
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than 0");
+        }
+        // name and id are read after the requested fields when missing, for the next cursor only
+        List<CounterpartyField> selected = withField(withField(fields, CounterpartyField.NAME), CounterpartyField.ID);
+        List<Object[]> rows = counterpartyRepository.findFieldsAfter(selected, CounterpartyCursor.decode(cursor), size + 1);
+        boolean hasMore = rows.size() > size;
+        List<Object[]> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            Object[] last = page.get(page.size() - 1);
+            nextCursor = new CounterpartyCursor((String) last[selected.indexOf(CounterpartyField.NAME)],
+                    (Long) last[selected.indexOf(CounterpartyField.ID)]).encode();
+        }
+        return new CursorPage<>(toFieldMaps(fields, page), nextCursor);
+    }
+
+    public List<Map<String, Object>> getCounterpartyFieldsByType(List<CounterpartyField> fields,
+                                                                 Counterparty.CounterpartyType type) {
+        LOG.debugf("Fetching counterparty fields %s with type: %s", fields, type);
+        return toFieldMaps(fields, counterpartyRepository.findFieldsByType(fields, type));
+    }
+
+    public List<Map<String, Object>> getActiveCounterpartyFields(List<CounterpartyField> fields) {
+        LOG.debugf("Fetching active counterparty fields %s", fields);
+        return toFieldMaps(fields, counterpartyRepository.findFieldsByStatus(fields, Counterparty.CounterpartyStatus.ACTIVE));
+    }
+
+    public List<Map<String, Object>> searchCounterpartyFieldsByName(List<CounterpartyField> fields, String name) {
+        LOG.debugf("Searching counterparty fields %s with name containing: %s", fields, name);
+        return toFieldMaps(fields, counterpartyRepository.findFieldsByNameContaining(fields, name));
+    }
+
+    public List<TrigramIndex.Match> suggestCounterparties(String query, int limit) {
+        LOG.debugf("Suggesting counterparties for: %s", query);
+        if (limit <= 0 || limit > MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SUGGESTIONS);
+        }
+        return counterpartySearchIndex.search(query, limit);
     }
 
     @Transactional
@@ -91,6 +201,7 @@ public class CounterpartyService {
 
         Counterparty counterparty = request.toEntity();
         counterpartyRepository.persist(counterparty);
+        counterpartyChangedEvent.fire(CounterpartyChangedEvent.created(counterparty));
         
         LOG.infof("Created counterparty with id: %d and code: %s", counterparty.id, counterparty.code);
         return CounterpartyDto.from(counterparty);
@@ -108,6 +219,8 @@ public class CounterpartyService {
             throw new BusinessException("Counterparty with code '" + request.code + "' already exists");
         }
 
+        CounterpartySnapshot before = CounterpartySnapshot.of(counterparty);
+
         // Update fields
         counterparty.name = request.name;
         counterparty.code = request.code;
@@ -118,6 +231,7 @@ public class CounterpartyService {
         counterparty.status = request.status;
 
         counterpartyRepository.persist(counterparty);
+        counterpartyChangedEvent.fire(CounterpartyChangedEvent.updated(before, counterparty));
         
         LOG.infof("Updated counterparty with id: %d", id);
         return CounterpartyDto.from(counterparty);
@@ -135,7 +249,11 @@ public class CounterpartyService {
             throw new BusinessException("Cannot delete counterparty with existing trades. Please delete trades first.");
         }
 
+        // Cells left behind by trades that were deleted earlier (all zero by now)
+        counterpartyExposureRepository.deleteByCounterpartyId(id);
+        CounterpartySnapshot before = CounterpartySnapshot.of(counterparty);
         counterpartyRepository.delete(counterparty);
+        counterpartyChangedEvent.fire(CounterpartyChangedEvent.deleted(before));
         LOG.infof("Deleted counterparty with id: %d", id);
     }
 
@@ -146,8 +264,10 @@ public class CounterpartyService {
         Counterparty counterparty = counterpartyRepository.findByIdOptional(id)
                 .orElseThrow(() -> new BusinessException("Counterparty not found with id: " + id));
 
+        CounterpartySnapshot before = CounterpartySnapshot.of(counterparty);
         counterparty.status = status;
         counterpartyRepository.persist(counterparty);
+        counterpartyChangedEvent.fire(CounterpartyChangedEvent.updated(before, counterparty));
         
         LOG.infof("Updated counterparty status for id: %d to: %s", id, status);
         return CounterpartyDto.from(counterparty);
@@ -160,4 +280,29 @@ public class CounterpartyService {
     public long getActiveCounterpartyCount() {
         return counterpartyRepository.countByStatus(Counterparty.CounterpartyStatus.ACTIVE);
     }
+
+    private static List<CounterpartyField> withField(List<CounterpartyField> fields, CounterpartyField field) {
+        if (fields.contains(field)) {
+            return fields;
+        }
+        List<CounterpartyField> selected = new ArrayList<>(fields);
+        selected.add(field);
+        return selected;
+    }
+
+    private static List<Map<String, Object>> toFieldMaps(List<CounterpartyField> fields, List<Object[]> rows) {
+        return rows.stream()
+                .map(row -> {
+                    Map<String, Object> values = new LinkedHashMap<>(fields.size() * 2);
+                    for (int i = 0; i < fields.size(); i++) {
+                        values.put(fields.get(i).property, row[i]);
+                    }
+                    return values;
+                })
+                .toList();
+    }
+
+    private CounterpartyDto withTradeCount(CounterpartyDto counterparty) {
+        return counterparty.withTradeCount(counterpartyExposureRepository.countTradesByCounterpartyId(counterparty.id));
+    }
 }
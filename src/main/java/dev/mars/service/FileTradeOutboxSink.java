@@ -0,0 +1,50 @@
+package dev.mars.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.mars.dto.TradeEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends each trade event as one line of JSON to {@code trading.outbox.file.path}.
+ */
+@ApplicationScoped
+@Named("file")
+public class FileTradeOutboxSink implements TradeOutboxSink {
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "trading.outbox.file.path", defaultValue = "trade-events.ndjson")
+    Path path;
+
+    @Override
+    public synchronized void deliver(List<TradeEvent> events) {
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (TradeEvent event : events) {
+                    writer.write(objectMapper.writeValueAsString(event));
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append trade events to " + path, e);
+        }
+    }
+}
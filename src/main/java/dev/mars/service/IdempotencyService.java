@@ -0,0 +1,214 @@
+package dev.mars.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.mars.domain.IdempotencyRecord;
+import dev.mars.dto.IdempotentResponse;
+import dev.mars.exception.BusinessException;
+import dev.mars.exception.CapacityExceededException;
+import dev.mars.metrics.TradingMetrics;
+import dev.mars.repository.IdempotencyRecordRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Makes creation requests safe to retry. The first request with a given {@code Idempotency-Key} runs, and its
+ * response is stored in the same transaction as whatever it created; later requests with that key get the
+ * stored response back without running again, for {@code trading.idempotency.ttl}.
+ * <p>
+ * Recent responses are held in a bounded in-memory cache in front of the {@code idempotency_keys} table, so a
+ * retry storm costs a map lookup per request. A retry that arrives while the original is still running waits
+ * for its outcome instead of racing it; across nodes the primary key on the table decides the winner. A key
+ * whose response has expired counts as unused, and its old row is replaced without waiting for the purge.
+ */
+@ApplicationScoped
+public class IdempotencyService {
+
+    private static final Logger LOG = Logger.getLogger(IdempotencyService.class);
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Inject
+    IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    TradingMetrics tradingMetrics;
+
+    @ConfigProperty(name = "trading.idempotency.ttl", defaultValue = "24h")
+    Duration ttl;
+
+    @ConfigProperty(name = "trading.idempotency.cache-size", defaultValue = "10000")
+    long cacheSize;
+
+    @ConfigProperty(name = "trading.idempotency.in-flight-timeout", defaultValue = "10s")
+    Duration inFlightTimeout;
+
+    private Cache<String, IdempotencyRecord> recent;
+    // Keys whose original request is still running; completed with its record, or null if it failed
+    private final ConcurrentMap<String, CompletableFuture<IdempotencyRecord>> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        recent = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        tradingMetrics.registerCache("idempotency.keys", recent);
+    }
+
+    /**
+     * Runs {@code action} and remembers its response under {@code scope} and {@code key}, or returns the
+     * response remembered for an earlier identical request. Without a key the action simply runs.
+     * A key already used for a different {@code request} is refused with {@link BusinessException}.
+     */
+    public IdempotentResponse execute(String scope, String key, Object request, Supplier<IdempotentResponse> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String id = scope + ":" + key;
+        String requestHash = hash(request);
+
+        while (true) {
+            Optional<IdempotencyRecord> stored = find(id);
+            if (stored.isPresent()) {
+                return replay(scope, stored.get(), requestHash);
+            }
+            CompletableFuture<IdempotencyRecord> mine = new CompletableFuture<>();
+            CompletableFuture<IdempotencyRecord> running = inFlight.putIfAbsent(id, mine);
+            if (running == null) {
+                try {
+                    return executeOnce(scope, id, requestHash, action, mine);
+                } finally {
+                    inFlight.remove(id, mine);
+                }
+            }
+            IdempotencyRecord original = await(running);
+            if (original != null) {
+                return replay(scope, original, requestHash);
+            }
+            // The original failed without storing a response; run this one
+        }
+    }
+
+    @Scheduled(every = "${trading.idempotency.purge-every:1h}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void purgeExpired() {
+        long purged = QuarkusTransaction.requiringNew()
+                .call(() -> idempotencyRecordRepository.deleteExpired(LocalDateTime.now()));
+        if (purged > 0) {
+            LOG.infof("Purged %d expired idempotency keys", purged);
+        }
+    }
+
+    private IdempotentResponse executeOnce(String scope, String id, String requestHash,
+                                           Supplier<IdempotentResponse> action,
+                                           CompletableFuture<IdempotencyRecord> mine) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        IdempotentResponse response;
+        try {
+            response = QuarkusTransaction.requiringNew().call(() -> {
+                IdempotentResponse result = action.get();
+                LocalDateTime now = LocalDateTime.now();
+                record.id = id;
+                record.requestHash = requestHash;
+                record.responseStatus = result.status;
+                record.responseBody = objectMapper.writeValueAsString(result.entity);
+                record.responseLocation = result.location;
+                record.createdAt = now;
+                record.expiresAt = now.plus(ttl);
+                idempotencyRecordRepository.deleteExpired(id, now);
+                idempotencyRecordRepository.persist(record);
+                return result;
+            });
+        } catch (RuntimeException e) {
+            mine.complete(null);
+            // Another node may have committed the same key first, making this attempt a duplicate of it
+            Optional<IdempotencyRecord> winner = QuarkusTransaction.requiringNew()
+                    .call(() -> idempotencyRecordRepository.findUnexpired(id, LocalDateTime.now()));
+            if (winner.isPresent()) {
+                recent.put(id, winner.get());
+                return replay(scope, winner.get(), requestHash);
+            }
+            throw e;
+        }
+        recent.put(id, record);
+        mine.complete(record);
+        tradingMetrics.recordIdempotentRequest(scope, "executed");
+        return response;
+    }
+
+    private Optional<IdempotencyRecord> find(String id) {
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyRecord cached = recent.getIfPresent(id);
+        if (cached != null && cached.expiresAt.isAfter(now)) {
+            return Optional.of(cached);
+        }
+        Optional<IdempotencyRecord> stored = QuarkusTransaction.requiringNew()
+                .call(() -> idempotencyRecordRepository.findUnexpired(id, now));
+        stored.ifPresent(record -> recent.put(id, record));
+        return stored;
+    }
+
+    private IdempotentResponse replay(String scope, IdempotencyRecord record, String requestHash) {
+        if (!record.requestHash.equals(requestHash)) {
+            tradingMetrics.recordIdempotentRequest(scope, "mismatch");
+            throw new BusinessException("Idempotency-Key was already used for a different request");
+        }
+        tradingMetrics.recordIdempotentRequest(scope, "replayed");
+        LOG.debugf("Replaying stored response for idempotency key %s", record.id);
+        IdempotentResponse response = new IdempotentResponse(record.responseStatus, record.responseBody,
+                record.responseLocation);
+        response.replayed = true;
+        return response;
+    }
+
+    private IdempotencyRecord await(CompletableFuture<IdempotencyRecord> running) {
+        try {
+            return running.get(inFlightTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new CapacityExceededException("A request with this Idempotency-Key is still in progress", 1);
+        } catch (ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CapacityExceededException("Interrupted waiting for a request with this Idempotency-Key", 1);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot fingerprint request", e);
+        }
+    }
+}
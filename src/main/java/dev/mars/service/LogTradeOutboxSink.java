@@ -0,0 +1,36 @@
+package dev.mars.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.mars.dto.TradeEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import org.jboss.logging.Logger;
+
+import java.util.List;
+
+/**
+ * Writes each trade event as JSON to the {@code dev.mars.outbox} log category, for local use and for
+ * shipping through the log pipeline.
+ */
+@ApplicationScoped
+@Named("log")
+public class LogTradeOutboxSink implements TradeOutboxSink {
+
+    private static final Logger LOG = Logger.getLogger("dev.mars.outbox");
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Override
+    public void deliver(List<TradeEvent> events) {
+        try {
+            for (TradeEvent event : events) {
+                LOG.info(objectMapper.writeValueAsString(event));
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize trade event", e);
+        }
+    }
+}
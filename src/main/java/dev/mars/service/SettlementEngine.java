@@ -0,0 +1,273 @@
+package dev.mars.service;
+
+import dev.mars.domain.SettlementRun;
+import dev.mars.domain.Trade;
+import dev.mars.dto.SettlementResult;
+import dev.mars.exception.BusinessException;
+import dev.mars.metrics.TradingMetrics;
+import dev.mars.repository.SettlementRunRepository;
+import dev.mars.repository.TradeRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.interceptor.Interceptor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End-of-day settlement: moves CONFIRMED trades whose settlement date has arrived to SETTLED.
+ * <p>
+ * A dispatcher reads the due trade ids in id order, a chunk at a time, and hands each chunk to one of
+ * {@code trading.settlement.workers} workers, which settles it in its own transaction through
+ * {@link TradeStatusTransitionService#transitionChunk}. The run's checkpoint advances over the chunks that
+ * have committed in order, so after a crash or a failed chunk the next pass for that business date resumes
+ * from the checkpoint; chunks past it that had already committed are simply found settled again.
+ * <p>
+ * A completed business date that is run again (trades confirmed late) starts a fresh pass from the
+ * beginning, since a late confirmation can be on any trade id.
+ */
+@ApplicationScoped
+public class SettlementEngine {
+
+    private static final Logger LOG = Logger.getLogger(SettlementEngine.class);
+
+    @Inject
+    TradeRepository tradeRepository;
+
+    @Inject
+    SettlementRunRepository settlementRunRepository;
+
+    @Inject
+    TradeStatusTransitionService tradeStatusTransitionService;
+
+    @Inject
+    TradingMetrics tradingMetrics;
+
+    @ConfigProperty(name = "trading.settlement.chunk-size", defaultValue = "500")
+    int chunkSize;
+
+    @ConfigProperty(name = "trading.settlement.workers", defaultValue = "4")
+    int workers;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile long backlog;
+    private volatile long lagDays;
+
+    private ExecutorService workerPool;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threads = new AtomicInteger();
+        workerPool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "settlement-worker-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workerPool.shutdownNow();
+    }
+
+    // Interrupted passes are resumed in the background rather than waiting for the next scheduled run
+    void onStart(@Observes @Priority(Interceptor.Priority.APPLICATION + 1000) StartupEvent ev) {
+        tradingMetrics.registerSettlementBacklog(() -> backlog, () -> lagDays);
+        List<SettlementRun> interrupted = QuarkusTransaction.requiringNew().call(settlementRunRepository::findRunning);
+        if (!interrupted.isEmpty()) {
+            LocalDate businessDate = interrupted.get(interrupted.size() - 1).businessDate;
+            LOG.infof("Resuming interrupted settlement run for %s", businessDate);
+            Thread.ofPlatform().name("settlement-resume").daemon().start(() -> scheduledSettle(businessDate));
+        }
+    }
+
+    @Scheduled(cron = "${trading.settlement.cron:0 30 18 * * ?}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledSettle() {
+        scheduledSettle(LocalDate.now());
+    }
+
+    private void scheduledSettle(LocalDate businessDate) {
+        try {
+            settle(businessDate);
+        } catch (BusinessException e) {
+            LOG.warn(e.getMessage());
+        } catch (RuntimeException e) {
+            LOG.errorf(e, "Settlement run for %s failed", businessDate);
+        }
+    }
+
+    /**
+     * Settles every CONFIRMED trade due on or before {@code businessDate}, resuming that date's run if it
+     * was interrupted. Only one run executes at a time in this application.
+     */
+    public SettlementResult settle(LocalDate businessDate) {
+        if (!running.compareAndSet(false, true)) {
+            throw new BusinessException("A settlement run is already in progress");
+        }
+        try {
+            return run(businessDate);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private SettlementResult run(LocalDate businessDate) {
+        long started = System.nanoTime();
+        SettlementRun run = QuarkusTransaction.requiringNew().call(() -> startOrResume(businessDate));
+        SettlementResult result = new SettlementResult();
+        result.businessDate = businessDate;
+        result.resumed = run.checkpointTradeId > 0;
+        result.checkpointTradeId = run.checkpointTradeId;
+        refreshBacklog(businessDate);
+        LOG.infof("Settlement run for %s %s from trade id %d", businessDate,
+                result.resumed ? "resuming" : "starting", run.checkpointTradeId);
+
+        Deque<Chunk> inFlight = new ArrayDeque<>();
+        long afterId = run.checkpointTradeId;
+        boolean failed = false;
+        while (!failed) {
+            long from = afterId;
+            List<Long> ids = QuarkusTransaction.requiringNew()
+                    .call(() -> tradeRepository.findDueSettlementIds(businessDate, from, chunkSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            afterId = ids.get(ids.size() - 1);
+            // Keep at most one chunk per worker in flight; wait for the oldest before dispatching more
+            if (inFlight.size() >= workers) {
+                inFlight.peekFirst().await();
+            }
+            inFlight.addLast(new Chunk(afterId, workerPool.submit(() -> settleChunk(ids))));
+            failed = !checkpoint(run, inFlight, result);
+        }
+        while (!inFlight.isEmpty()) {
+            inFlight.peekFirst().await();
+            failed |= !checkpoint(run, inFlight, result);
+        }
+
+        result.completed = !failed;
+        if (result.completed) {
+            QuarkusTransaction.requiringNew().run(() -> settlementRunRepository.complete(run.id));
+        }
+        refreshBacklog(businessDate);
+        Duration duration = Duration.ofNanos(System.nanoTime() - started);
+        result.durationMillis = duration.toMillis();
+        tradingMetrics.recordSettlementRun(result.completed, duration);
+        LOG.infof("Settlement run for %s %s: %d trades settled in %d ms, checkpoint at trade id %d", businessDate,
+                result.completed ? "completed" : "interrupted", result.settled, result.durationMillis,
+                result.checkpointTradeId);
+        return result;
+    }
+
+    private SettlementRun startOrResume(LocalDate businessDate) {
+        SettlementRun run = settlementRunRepository.findByBusinessDate(businessDate).orElse(null);
+        if (run == null) {
+            run = new SettlementRun();
+            run.businessDate = businessDate;
+            run.status = SettlementRun.RunStatus.RUNNING;
+            run.startedAt = LocalDateTime.now();
+            settlementRunRepository.persist(run);
+        } else if (run.status == SettlementRun.RunStatus.COMPLETED) {
+            run.status = SettlementRun.RunStatus.RUNNING;
+            run.checkpointTradeId = 0;
+            run.startedAt = LocalDateTime.now();
+            run.completedAt = null;
+        }
+        return run;
+    }
+
+    private int settleChunk(List<Long> ids) {
+        long started = System.nanoTime();
+        int settled = tradeStatusTransitionService.transitionChunk(ids, Trade.TradeStatus.SETTLED);
+        tradingMetrics.recordSettlementChunk(settled, Duration.ofNanos(System.nanoTime() - started));
+        return settled;
+    }
+
+    /**
+     * Takes the finished chunks off the head of {@code inFlight} and advances the run's checkpoint past
+     * them. Returns false when the head chunk failed, which leaves the checkpoint in front of it.
+     */
+    private boolean checkpoint(SettlementRun run, Deque<Chunk> inFlight, SettlementResult result) {
+        long settled = 0;
+        long checkpoint = result.checkpointTradeId;
+        boolean ok = true;
+        while (!inFlight.isEmpty() && inFlight.peekFirst().future.isDone()) {
+            Chunk chunk = inFlight.peekFirst();
+            try {
+                settled += chunk.future.get();
+            } catch (ExecutionException e) {
+                LOG.errorf(e.getCause(), "Settlement chunk ending at trade id %d failed", chunk.lastId);
+                ok = false;
+                break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                ok = false;
+                break;
+            }
+            inFlight.removeFirst();
+            checkpoint = chunk.lastId;
+        }
+        if (checkpoint != result.checkpointTradeId) {
+            long settledDelta = settled;
+            long checkpointTradeId = checkpoint;
+            QuarkusTransaction.requiringNew()
+                    .run(() -> settlementRunRepository.saveCheckpoint(run.id, checkpointTradeId, settledDelta));
+            result.checkpointTradeId = checkpoint;
+            result.settled += settled;
+        }
+        if (!ok) {
+            // Let the chunks already dispatched finish; they are not checkpointed and are redone on resume
+            inFlight.forEach(Chunk::await);
+            inFlight.clear();
+        }
+        return ok;
+    }
+
+    private void refreshBacklog(LocalDate businessDate) {
+        Object[] row = QuarkusTransaction.requiringNew()
+                .call(() -> tradeRepository.findDueSettlementBacklog(businessDate));
+        backlog = ((Number) row[0]).longValue();
+        lagDays = row[1] != null ? ChronoUnit.DAYS.between((LocalDate) row[1], businessDate) : 0;
+    }
+
+    private static final class Chunk {
+        final long lastId;
+        final Future<Integer> future;
+
+        Chunk(long lastId, Future<Integer> future) {
+            this.lastId = lastId;
+            this.future = future;
+        }
+
+        void await() {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                // Reported when the chunk reaches the head of the queue
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package dev.mars.service;
+
+import dev.mars.domain.Counterparty;
+import dev.mars.domain.Trade;
+import dev.mars.dto.CounterpartyDto;
+import dev.mars.dto.CreateTradeRequest;
+import dev.mars.dto.TradeBatchItemResult;
+import dev.mars.dto.TradeBatchMode;
+import dev.mars.dto.TradeBatchResult;
+import dev.mars.dto.TradeDto;
+import dev.mars.event.TradeChange;
+import dev.mars.event.TradeChangedEvent;
+import dev.mars.exception.BusinessException;
+import dev.mars.metrics.TradingMetrics;
+import dev.mars.repository.TradeRepository;
+import io.micrometer.core.instrument.Timer;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.transaction.Transactional;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Creates many trades in one transaction. Every item is validated first, with counterparties and
+ * existing references resolved by set-based IN queries rather than one lookup per trade; the valid items
+ * are then inserted through Hibernate's JDBC batching and announced in a single {@link TradeChangedEvent}.
+ */
+@ApplicationScoped
+public class TradeBatchService {
+
+    private static final Logger LOG = Logger.getLogger(TradeBatchService.class);
+
+    // Keeps IN lists well below the bind parameter limits of the supported databases
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    @Inject
+    TradeRepository tradeRepository;
+
+    @Inject
+    CounterpartyCache counterpartyCache;
+
+    @Inject
+    TradeReferenceFilter tradeReferenceFilter;
+
+    @Inject
+    TradingMetrics tradingMetrics;
+
+    @Inject
+    Validator validator;
+
+    @Inject
+    Event<TradeChangedEvent> tradeChangedEvent;
+
+    @ConfigProperty(name = "trading.batch.max-size", defaultValue = "5000")
+    int maxSize;
+
+    @ConfigProperty(name = "trading.batch.flush-size", defaultValue = "500")
+    int flushSize;
+
+    @Transactional
+    public TradeBatchResult createTrades(List<CreateTradeRequest> requests, TradeBatchMode mode) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one trade");
+        }
+        if (requests.size() > maxSize) {
+            throw new IllegalArgumentException("Batch cannot contain more than " + maxSize + " trades");
+        }
+        LOG.debugf("Creating batch of %d trades in %s mode", requests.size(), mode);
+        Timer.Sample sample = tradingMetrics.startTradeProcessingTimer();
+
+        Failure[] failures = new Failure[requests.size()];
+        Map<Long, CounterpartyDto> counterparties = validate(requests, failures);
+        boolean anyFailed = Arrays.stream(failures).anyMatch(Objects::nonNull);
+
+        List<TradeBatchItemResult> results = new ArrayList<>(requests.size());
+        if (mode == TradeBatchMode.ATOMIC && anyFailed) {
+            for (int i = 0; i < requests.size(); i++) {
+                results.add(failures[i] != null
+                        ? failure(i, requests.get(i), failures[i])
+                        : TradeBatchItemResult.skipped(i, requests.get(i).tradeReference));
+            }
+            LOG.infof("Rejected atomic batch of %d trades with invalid items", requests.size());
+        } else {
+            insert(requests, failures, counterparties, results);
+        }
+
+        tradingMetrics.recordTradeProcessingTime(sample, "BATCH_CREATE");
+        TradeBatchResult result = new TradeBatchResult(mode, results);
+        LOG.infof("Processed batch of %d trades: %d created, %d failed", result.submitted, result.created, result.failed);
+        return result;
+    }
+
+    private Map<Long, CounterpartyDto> validate(List<CreateTradeRequest> requests, Failure[] failures) {
+        Map<String, Integer> firstIndexByReference = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            CreateTradeRequest request = requests.get(i);
+            if (request == null) {
+                failures[i] = new Failure("VALIDATION_ERROR", "Trade request is required");
+                continue;
+            }
+            Set<ConstraintViolation<CreateTradeRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                failures[i] = new Failure("VALIDATION_ERROR", violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+            } else if (request.settlementDate.isBefore(request.tradeDate)) {
+                failures[i] = new Failure("INVALID_SETTLEMENT_DATE", "Settlement date cannot be before trade date");
+            } else if (firstIndexByReference.putIfAbsent(request.tradeReference, i) != null) {
+                failures[i] = new Failure("DUPLICATE_REFERENCE", "Trade reference '" + request.tradeReference
+                        + "' appears more than once in the batch");
+            }
+        }
+
+        Set<Long> counterpartyIds = new HashSet<>();
+        List<String> candidateReferences = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (failures[i] == null) {
+                counterpartyIds.add(requests.get(i).counterpartyId);
+                // Only references the filter cannot rule out need to go to the database
+                if (tradeReferenceFilter.mightContain(requests.get(i).tradeReference)) {
+                    candidateReferences.add(requests.get(i).tradeReference);
+                }
+            }
+        }
+        Map<Long, CounterpartyDto> counterparties = counterpartyCache.getAll(counterpartyIds);
+        Set<String> existingReferences = findExistingReferences(candidateReferences);
+
+        for (int i = 0; i < requests.size(); i++) {
+            if (failures[i] != null) {
+                continue;
+            }
+            CreateTradeRequest request = requests.get(i);
+            CounterpartyDto counterparty = counterparties.get(request.counterpartyId);
+            if (existingReferences.contains(request.tradeReference)) {
+                failures[i] = new Failure("DUPLICATE_REFERENCE",
+                        "Trade with reference '" + request.tradeReference + "' already exists");
+            } else if (counterparty == null) {
+                failures[i] = new Failure("COUNTERPARTY_NOT_FOUND",
+                        "Counterparty not found with id: " + request.counterpartyId);
+            } else if (counterparty.status != Counterparty.CounterpartyStatus.ACTIVE) {
+                failures[i] = new Failure("COUNTERPARTY_INACTIVE",
+                        "Cannot create trade with inactive counterparty: " + counterparty.code);
+            }
+        }
+        return counterparties;
+    }
+
+    private Set<String> findExistingReferences(List<String> references) {
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < references.size(); from += IN_CHUNK_SIZE) {
+            List<String> chunk = references.subList(from, Math.min(from + IN_CHUNK_SIZE, references.size()));
+            existing.addAll(tradeRepository.findExistingTradeReferences(chunk));
+        }
+        return existing;
+    }
+
+    private void insert(List<CreateTradeRequest> requests, Failure[] failures,
+                        Map<Long, CounterpartyDto> counterparties, List<TradeBatchItemResult> results) {
+        EntityManager entityManager = tradeRepository.getEntityManager();
+        List<TradeChange> changes = new ArrayList<>();
+        try {
+            for (int i = 0; i < requests.size(); i++) {
+                CreateTradeRequest request = requests.get(i);
+                if (failures[i] != null) {
+                    results.add(failure(i, request, failures[i]));
+                    continue;
+                }
+                CounterpartyDto counterparty = counterparties.get(request.counterpartyId);
+                Trade trade = request.toEntity();
+                trade.counterparty = entityManager.getReference(Counterparty.class, counterparty.id);
+                tradeRepository.persist(trade);
+                tradeReferenceFilter.add(trade.tradeReference);
+                // Snapshots are taken now, since the entities are detached by the periodic clear below
+                changes.add(TradeChange.created(trade));
+                results.add(TradeBatchItemResult.created(i, TradeDto.from(trade, counterparty)));
+                tradingMetrics.recordTradeCreated(request.instrument, request.tradeType.toString());
+
+                if (changes.size() % flushSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.flush();
+        } catch (PersistenceException e) {
+            if (!TradeReferenceFilter.isDuplicateReference(e)) {
+                throw e;
+            }
+            // A reference inserted concurrently since validation; nothing of this batch is kept
+            throw new BusinessException("A trade reference in the batch was created concurrently; resubmit the batch");
+        }
+        if (!changes.isEmpty()) {
+            tradeChangedEvent.fire(new TradeChangedEvent(changes));
+        }
+    }
+
+    private TradeBatchItemResult failure(int index, CreateTradeRequest request, Failure failure) {
+        String tradeReference = request != null ? request.tradeReference : null;
+        tradingMetrics.recordTradeFailed(
+                request != null ? Objects.toString(request.instrument, "UNKNOWN") : "UNKNOWN",
+                request != null ? Objects.toString(request.tradeType, "UNKNOWN") : "UNKNOWN",
+                failure.errorType);
+        return TradeBatchItemResult.failed(index, tradeReference, failure.message);
+    }
+
+    private static final class Failure {
+        final String errorType;
+        final String message;
+
+        Failure(String errorType, String message) {
+            this.errorType = errorType;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package dev.mars.service;
+
+import dev.mars.dto.TradeEvent;
+import dev.mars.event.TradeChange;
+import dev.mars.event.TradeChangedEvent;
+import dev.mars.event.TradeEventFilter;
+import dev.mars.exception.CapacityExceededException;
+import dev.mars.metrics.TradingMetrics;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans committed trade changes out to stream subscribers. The committing thread only appends to each
+ * matching subscriber's buffer; the writes to the connections happen on the {@code trade-events} threads,
+ * one send in flight per subscriber, so a slow client never holds up a transaction.
+ * <p>
+ * A buffer holds at most {@code trading.events.buffer-size} trades. A change to a trade that is already
+ * buffered is folded into it, so a subscriber that falls behind gets the latest state of each trade rather
+ * than every step. A subscriber with more distinct trades outstanding than that is sent a {@code RESET}
+ * instead of what was buffered, and is expected to re-read its listing.
+ */
+@ApplicationScoped
+public class TradeEventHub {
+
+    private static final Logger LOG = Logger.getLogger(TradeEventHub.class);
+
+    @Inject
+    TradingMetrics tradingMetrics;
+
+    @ConfigProperty(name = "trading.events.max-subscribers", defaultValue = "1000")
+    int maxSubscribers;
+
+    @ConfigProperty(name = "trading.events.buffer-size", defaultValue = "1000")
+    int bufferSize;
+
+    @ConfigProperty(name = "trading.events.dispatch-threads", defaultValue = "2")
+    int dispatchThreads;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    // Slots taken against max-subscribers; reserved before a subscription is added, so two can't race past the limit
+    private final AtomicInteger reserved = new AtomicInteger();
+    private ExecutorService dispatcher;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threads = new AtomicInteger();
+        dispatcher = Executors.newFixedThreadPool(dispatchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "trade-events-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        tradingMetrics.registerTradeEventStream(subscriptions::size, this::maxPending);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscriptions.forEach(Subscription::close);
+        dispatcher.shutdownNow();
+    }
+
+    /**
+     * Starts sending the changes matching {@code filter} to {@code sink}, from the next commit on. Throws
+     * {@link CapacityExceededException} when {@code max-subscribers} are already connected.
+     */
+    public Subscription subscribe(TradeEventFilter filter, TradeEventSink sink) {
+        if (reserved.incrementAndGet() > maxSubscribers) {
+            reserved.decrementAndGet();
+            throw new CapacityExceededException("Trade event stream has no room for another subscriber", 5);
+        }
+        Subscription subscription = new Subscription(filter, sink);
+        subscriptions.add(subscription);
+        LOG.debugf("Trade event subscriber added with %s (%d connected)", filter, subscriptions.size());
+        // Opens the connection at once rather than with the first event
+        subscription.heartbeat();
+        return subscription;
+    }
+
+    public int subscriberCount() {
+        return subscriptions.size();
+    }
+
+    void onTradeChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) TradeChangedEvent event) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        long committedNanos = System.nanoTime();
+        for (TradeChange change : event.changes) {
+            TradeEvent tradeEvent = TradeEvent.of(sequence.incrementAndGet(), change);
+            for (Subscription subscription : subscriptions) {
+                if (subscription.filter.matches(change)) {
+                    subscription.offer(tradeEvent, committedNanos);
+                }
+            }
+        }
+    }
+
+    // Keeps idle connections open through proxies and notices clients that have gone away
+    @Scheduled(every = "${trading.events.heartbeat:15s}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void heartbeat() {
+        subscriptions.forEach(Subscription::heartbeat);
+    }
+
+    private int maxPending() {
+        return subscriptions.stream().mapToInt(Subscription::pending).max().orElse(0);
+    }
+
+    /**
+     * One subscriber: its filter, its buffer of undelivered changes keyed by trade id, and its sink.
+     */
+    public final class Subscription {
+        final TradeEventFilter filter;
+        private final TradeEventSink sink;
+        private final LinkedHashMap<Long, Pending> pending = new LinkedHashMap<>();
+        private boolean sending;
+        private boolean reset;
+        private boolean closed;
+
+        Subscription(TradeEventFilter filter, TradeEventSink sink) {
+            this.filter = filter;
+            this.sink = sink;
+        }
+
+        public synchronized int pending() {
+            return pending.size();
+        }
+
+        public void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                pending.clear();
+            }
+            if (subscriptions.remove(this)) {
+                reserved.decrementAndGet();
+            }
+            sink.close();
+            LOG.debugf("Trade event subscriber with %s closed (%d connected)", filter, subscriptions.size());
+        }
+
+        void offer(TradeEvent event, long committedNanos) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                // Re-queued at the tail so that sequence numbers only ever go up on the stream
+                Pending queued = pending.remove(event.tradeId);
+                if (queued != null) {
+                    TradeEvent merged = queued.event.coalesce(event);
+                    if (merged != null) {
+                        pending.put(event.tradeId, new Pending(merged, queued.committedNanos));
+                    }
+                    tradingMetrics.recordTradeEvents("coalesced", 1);
+                } else if (pending.size() >= bufferSize) {
+                    tradingMetrics.recordTradeEvents("dropped", pending.size() + 1L);
+                    pending.clear();
+                    reset = true;
+                } else {
+                    pending.put(event.tradeId, new Pending(event, committedNanos));
+                    tradingMetrics.recordTradeEvents("queued", 1);
+                }
+                if (sending) {
+                    return;
+                }
+                sending = true;
+            }
+            dispatch(this::sendNext);
+        }
+
+        void heartbeat() {
+            if (sink.isClosed()) {
+                close();
+                return;
+            }
+            synchronized (this) {
+                if (closed || sending) {
+                    return;
+                }
+                sending = true;
+            }
+            sink.heartbeat().whenComplete((ignored, error) -> afterSend(error, null));
+        }
+
+        private void sendNext() {
+            Pending next;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                next = poll();
+                if (next == null) {
+                    sending = false;
+                    return;
+                }
+            }
+            sink.send(next.event).whenComplete((ignored, error) -> afterSend(error, next));
+        }
+
+        // Goes back through the dispatcher so a chain of sends that complete at once cannot grow the stack
+        private void afterSend(Throwable error, Pending sent) {
+            if (error != null) {
+                LOG.debugf("Trade event subscriber with %s went away: %s", filter, error.getMessage());
+                close();
+                return;
+            }
+            if (sent != null && sent.committedNanos != 0) {
+                tradingMetrics.recordTradeEvents("delivered", sent.event.changes);
+                tradingMetrics.recordTradeEventLag(Duration.ofNanos(System.nanoTime() - sent.committedNanos));
+            }
+            dispatch(this::sendNext);
+        }
+
+        private Pending poll() {
+            if (reset) {
+                reset = false;
+                return new Pending(TradeEvent.reset(sequence.get()), 0);
+            }
+            Iterator<Pending> iterator = pending.values().iterator();
+            if (!iterator.hasNext()) {
+                return null;
+            }
+            Pending next = iterator.next();
+            iterator.remove();
+            return next;
+        }
+
+        private void dispatch(Runnable task) {
+            try {
+                dispatcher.execute(task);
+            } catch (RejectedExecutionException e) {
+                // Shutting down; the connections are being closed
+            }
+        }
+    }
+
+    private static final class Pending {
+        final TradeEvent event;
+        // When the first change folded into this event committed; 0 for a RESET
+        final long committedNanos;
+
+        Pending(TradeEvent event, long committedNanos) {
+            this.event = event;
+            this.committedNanos = committedNanos;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package dev.mars.service;
+
+import dev.mars.dto.TradeEvent;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Where {@link TradeEventHub} writes one subscriber's events, e.g. an SSE connection. A send completes once
+ * the event has been handed to the connection; the hub never has more than one send in flight per sink.
+ */
+public interface TradeEventSink {
+
+    CompletionStage<?> send(TradeEvent event);
+
+    /**
+     * Something that keeps an idle connection open and finds out whether the client is still there.
+     */
+    CompletionStage<?> heartbeat();
+
+    boolean isClosed();
+
+    void close();
+}
@@ -0,0 +1,170 @@
+package dev.mars.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import dev.mars.domain.Trade;
+import dev.mars.dto.TradeDto;
+import dev.mars.metrics.TradingMetrics;
+import dev.mars.repository.TradeRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.jboss.logging.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Streams the whole trade book straight from a forward-only database cursor to the response,
+ * so heap use stays flat however many rows are exported.
+ */
+@ApplicationScoped
+public class TradeExportService {
+
+    private static final Logger LOG = Logger.getLogger(TradeExportService.class);
+
+    private static final String CSV_HEADER = "id,tradeReference,counterpartyId,counterpartyCode,counterpartyName,"
+            + "instrument,tradeType,quantity,price,totalValue,tradeDate,settlementDate,currency,status,notes,"
+            + "createdAt,updatedAt";
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    TradeRepository tradeRepository;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    TradingMetrics tradingMetrics;
+
+    @ConfigProperty(name = "trading.export.chunk-size", defaultValue = "1000")
+    int chunkSize;
+
+    @ConfigProperty(name = "trading.export.transaction-timeout", defaultValue = "3600")
+    int transactionTimeoutSeconds;
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        public final String mediaType;
+        public final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public static Format fromParameter(String value) {
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + value);
+            }
+        }
+    }
+
+    /**
+     * Writes every trade to {@code output} and returns the number of rows written. The read runs in its
+     * own transaction so the JDBC driver can stream with a fetch size instead of buffering the result set.
+     */
+    public long export(Format format, OutputStream output) {
+        LOG.debugf("Exporting trades as %s with chunk size %d", format, chunkSize);
+        long started = System.nanoTime();
+
+        long rows = QuarkusTransaction.requiringNew()
+                .timeout(transactionTimeoutSeconds)
+                .call(() -> {
+                    try (StatelessSession session = sessionFactory.openStatelessSession();
+                         ScrollableResults<Trade> trades = tradeRepository.scrollTradesWithCounterparty(session, chunkSize)) {
+                        return format == Format.CSV ? writeCsv(trades, output) : writeNdjson(trades, output);
+                    }
+                });
+
+        tradingMetrics.recordDatabaseOperation("EXPORT", Duration.ofNanos(System.nanoTime() - started));
+        LOG.infof("Exported %d trades as %s", rows, format);
+        return rows;
+    }
+
+    private long writeNdjson(ScrollableResults<Trade> trades, OutputStream output) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(TradeDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+
+        long rows = 0;
+        while (trades.next()) {
+            writer.writeValue(generator, TradeDto.from(trades.get()));
+            generator.writeRaw('\n');
+            if (++rows % chunkSize == 0) {
+                generator.flush();
+            }
+        }
+        generator.close();
+        return rows;
+    }
+
+    private long writeCsv(ScrollableResults<Trade> trades, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+
+        long rows = 0;
+        while (trades.next()) {
+            TradeDto trade = TradeDto.from(trades.get());
+            writer.write(String.valueOf(trade.id));
+            writeCsvField(writer, trade.tradeReference);
+            writeCsvField(writer, trade.counterpartyId);
+            writeCsvField(writer, trade.counterpartyCode);
+            writeCsvField(writer, trade.counterpartyName);
+            writeCsvField(writer, trade.instrument);
+            writeCsvField(writer, trade.tradeType);
+            writeCsvField(writer, trade.quantity != null ? trade.quantity.toPlainString() : null);
+            writeCsvField(writer, trade.price != null ? trade.price.toPlainString() : null);
+            writeCsvField(writer, trade.totalValue != null ? trade.totalValue.toPlainString() : null);
+            writeCsvField(writer, trade.tradeDate);
+            writeCsvField(writer, trade.settlementDate);
+            writeCsvField(writer, trade.currency);
+            writeCsvField(writer, trade.status);
+            writeCsvField(writer, trade.notes);
+            writeCsvField(writer, trade.createdAt);
+            writeCsvField(writer, trade.updatedAt);
+            writer.write('\n');
+            if (++rows % chunkSize == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private void writeCsvField(Writer writer, Object value) throws IOException {
+        writer.write(',');
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            writer.write('"');
+            writer.write(text.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(text);
+        }
+    }
+}
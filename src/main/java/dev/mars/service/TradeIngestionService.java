@@ -0,0 +1,295 @@
+package dev.mars.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.mars.domain.Counterparty;
+import dev.mars.dto.CounterpartyDto;
+import dev.mars.dto.CreateTradeRequest;
+import dev.mars.dto.TradeBatchItemResult;
+import dev.mars.dto.TradeBatchMode;
+import dev.mars.dto.TradeBatchResult;
+import dev.mars.dto.TradeIngestionStatus;
+import dev.mars.exception.BusinessException;
+import dev.mars.exception.CapacityExceededException;
+import dev.mars.metrics.TradingMetrics;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.interceptor.Interceptor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind capture: trades are checked for what can be decided without a write (counterparty active,
+ * settlement date, reference not already taken or queued), put on a bounded in-memory buffer and
+ * acknowledged straight away. One consumer thread takes whatever has accumulated, up to
+ * {@code trading.ingestion.batch-size}, and group-commits it through {@link TradeBatchService}.
+ * <p>
+ * When the buffer is full, submissions either fail fast with 503 ({@code overflow=reject}) or wait up to
+ * {@code block-timeout} for space ({@code overflow=block}). Accepted trades live only in memory until
+ * committed, so shutdown stops accepting and drains the buffer before the datasource goes away. Each
+ * submission holds the read side of {@code intake} from its final {@code accepting} check until its trade
+ * is buffered, and {@link #drain()} takes the write side to stop accepting, so no acknowledged trade can
+ * land in the buffer after the consumer has been told to finish.
+ */
+@ApplicationScoped
+public class TradeIngestionService {
+
+    private static final Logger LOG = Logger.getLogger(TradeIngestionService.class);
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(100);
+
+    @Inject
+    TradeBatchService tradeBatchService;
+
+    @Inject
+    CounterpartyCache counterpartyCache;
+
+    @Inject
+    TradeReferenceFilter tradeReferenceFilter;
+
+    @Inject
+    TradingMetrics tradingMetrics;
+
+    @ConfigProperty(name = "trading.ingestion.capacity", defaultValue = "10000")
+    int capacity;
+
+    @ConfigProperty(name = "trading.ingestion.batch-size", defaultValue = "500")
+    int batchSize;
+
+    @ConfigProperty(name = "trading.ingestion.overflow", defaultValue = "reject")
+    Overflow overflow;
+
+    @ConfigProperty(name = "trading.ingestion.block-timeout", defaultValue = "100ms")
+    Duration blockTimeout;
+
+    @ConfigProperty(name = "trading.ingestion.drain-timeout", defaultValue = "30s")
+    Duration drainTimeout;
+
+    @ConfigProperty(name = "trading.ingestion.status-retention", defaultValue = "10m")
+    Duration statusRetention;
+
+    public enum Overflow {
+        REJECT,
+        BLOCK
+    }
+
+    private BlockingQueue<Ingestion> buffer;
+    // References accepted but not yet committed, so a second submission is refused before it reaches the database
+    private final Set<String> queuedReferences = ConcurrentHashMap.newKeySet();
+    private Cache<String, TradeIngestionStatus> statuses;
+
+    private final ReentrantReadWriteLock intake = new ReentrantReadWriteLock();
+    private volatile boolean accepting;
+    private volatile boolean consuming;
+    private Thread consumer;
+
+    @PostConstruct
+    void init() {
+        buffer = new ArrayBlockingQueue<>(capacity);
+        statuses = Caffeine.newBuilder()
+                .expireAfterWrite(statusRetention)
+                .maximumSize(capacity * 10L)
+                .build();
+        tradingMetrics.registerIngestionQueue(() -> buffer.size());
+    }
+
+    void onStart(@Observes @Priority(Interceptor.Priority.APPLICATION + 1000) StartupEvent ev) {
+        consuming = true;
+        consumer = new Thread(this::consume, "trade-ingestion");
+        consumer.setDaemon(true);
+        consumer.start();
+        accepting = true;
+        LOG.infof("Trade ingestion accepting up to %d buffered trades, committing in batches of %d", capacity, batchSize);
+    }
+
+    /**
+     * Validates {@code request} and buffers it for the next group commit. Throws {@link BusinessException}
+     * for a trade that can never be committed and {@link CapacityExceededException} when the buffer is full.
+     */
+    public TradeIngestionStatus submit(CreateTradeRequest request) {
+        if (!accepting) {
+            throw new CapacityExceededException("Trade ingestion is not accepting trades", 5);
+        }
+        validate(request);
+
+        Ingestion ingestion = new Ingestion(UUID.randomUUID().toString(), request);
+        TradeIngestionStatus status = TradeIngestionStatus.accepted(ingestion.id, request.tradeReference);
+        intake.readLock().lock();
+        try {
+            // Checked again under the lock: drain() may have started while the request was validated
+            if (!accepting) {
+                throw new CapacityExceededException("Trade ingestion is not accepting trades", 5);
+            }
+            if (!queuedReferences.add(request.tradeReference)) {
+                throw new BusinessException("Trade with reference '" + request.tradeReference + "' is already queued");
+            }
+            statuses.put(ingestion.id, status);
+            if (!offer(ingestion)) {
+                queuedReferences.remove(request.tradeReference);
+                statuses.invalidate(ingestion.id);
+                tradingMetrics.recordIngestion("rejected");
+                throw new CapacityExceededException("Trade ingestion buffer is full", 1);
+            }
+        } finally {
+            intake.readLock().unlock();
+        }
+        tradingMetrics.recordIngestion("accepted");
+        LOG.debugf("Accepted trade %s for asynchronous capture as %s", request.tradeReference, ingestion.id);
+        return status;
+    }
+
+    public Optional<TradeIngestionStatus> getStatus(String ingestionId) {
+        return Optional.ofNullable(statuses.getIfPresent(ingestionId));
+    }
+
+    public int queueDepth() {
+        return buffer.size();
+    }
+
+    /**
+     * Stops accepting trades and waits up to {@code drain-timeout} for the buffered ones to be committed.
+     * Submissions already past their {@code accepting} check are let finish first.
+     */
+    public void drain() {
+        intake.writeLock().lock();
+        try {
+            accepting = false;
+        } finally {
+            intake.writeLock().unlock();
+        }
+        consuming = false;
+        if (consumer == null) {
+            return;
+        }
+        LOG.infof("Draining %d buffered trades", buffer.size());
+        try {
+            consumer.join(drainTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!buffer.isEmpty()) {
+            LOG.errorf("Shut down with %d buffered trades not committed", buffer.size());
+        }
+    }
+
+    private void validate(CreateTradeRequest request) {
+        if (request.settlementDate.isBefore(request.tradeDate)) {
+            throw new BusinessException("Settlement date cannot be before trade date");
+        }
+        CounterpartyDto counterparty = counterpartyCache.get(request.counterpartyId)
+                .orElseThrow(() -> new BusinessException("Counterparty not found with id: " + request.counterpartyId));
+        if (counterparty.status != Counterparty.CounterpartyStatus.ACTIVE) {
+            throw new BusinessException("Cannot create trade with inactive counterparty: " + counterparty.code);
+        }
+        if (tradeReferenceFilter.exists(request.tradeReference)) {
+            throw new BusinessException("Trade with reference '" + request.tradeReference + "' already exists");
+        }
+    }
+
+    private boolean offer(Ingestion ingestion) {
+        if (overflow == Overflow.REJECT) {
+            return buffer.offer(ingestion);
+        }
+        try {
+            return buffer.offer(ingestion, blockTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Keeps going after drain() until the buffer is empty
+    private void consume() {
+        List<Ingestion> batch = new ArrayList<>(batchSize);
+        while (consuming || !buffer.isEmpty()) {
+            try {
+                Ingestion first = buffer.poll(POLL_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                LOG.errorf(e, "Trade ingestion consumer failed on a batch of %d", batch.size());
+            } finally {
+                // Whatever escaped commit() left these neither committed nor failed; don't leave them queued
+                for (Ingestion ingestion : batch) {
+                    if (!ingestion.completed) {
+                        complete(ingestion, null, "Trade ingestion failed while committing the batch");
+                    }
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<Ingestion> batch) {
+        TradeBatchResult result;
+        try {
+            result = tradeBatchService.createTrades(batch.stream().map(ingestion -> ingestion.request).toList(),
+                    TradeBatchMode.PARTIAL);
+        } catch (RuntimeException e) {
+            if (batch.size() > 1) {
+                // e.g. a reference inserted concurrently; commit one by one so only the offender fails
+                LOG.warnf("Group commit of %d trades failed (%s); retrying them one by one", batch.size(), e.getMessage());
+                for (Ingestion ingestion : batch) {
+                    commit(List.of(ingestion));
+                }
+            } else {
+                complete(batch.get(0), null, e.getMessage());
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            TradeBatchItemResult item = result.results.get(i);
+            if (item.status == TradeBatchItemResult.Status.CREATED) {
+                complete(batch.get(i), item.trade.id, null);
+            } else {
+                complete(batch.get(i), null, item.error);
+            }
+        }
+        LOG.debugf("Committed %d of %d buffered trades", result.created, batch.size());
+    }
+
+    private void complete(Ingestion ingestion, Long tradeId, String error) {
+        ingestion.completed = true;
+        queuedReferences.remove(ingestion.request.tradeReference);
+        statuses.asMap().computeIfPresent(ingestion.id,
+                (id, status) -> tradeId != null ? status.committed(tradeId) : status.failed(error));
+        tradingMetrics.recordIngestion(tradeId != null ? "committed" : "failed");
+        tradingMetrics.recordIngestionCommitLag(Duration.ofNanos(System.nanoTime() - ingestion.acceptedNanos));
+    }
+
+    private static final class Ingestion {
+        final String id;
+        final CreateTradeRequest request;
+        final long acceptedNanos = System.nanoTime();
+        // Only read and written by the consumer thread
+        boolean completed;
+
+        Ingestion(String id, CreateTradeRequest request) {
+            this.id = id;
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package dev.mars.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.mars.domain.OutboxEvent;
+import dev.mars.dto.TradeEvent;
+import dev.mars.metrics.TradingMetrics;
+import dev.mars.repository.OutboxEventRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.Instance;
+import jakarta.enterprise.inject.literal.NamedLiteral;
+import jakarta.inject.Inject;
+import jakarta.interceptor.Interceptor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Publishes the trade events recorded by {@link TradeOutboxWriter} to the configured {@link TradeOutboxSink}.
+ * <p>
+ * Each batch is one transaction: lock up to {@code trading.outbox.batch-size} of the oldest events, skipping
+ * rows another relay holds, deliver them, and delete them with one bulk DELETE. A failed delivery rolls the
+ * batch back, so its events stay queued and are retried on the next poll. Any number of nodes may run the
+ * relay; each claims different rows. Events go out in id order within a relay, but relays on several nodes
+ * interleave, so consumers should not rely on the order of events across batches.
+ */
+@ApplicationScoped
+public class TradeOutboxRelay {
+
+    private static final Logger LOG = Logger.getLogger(TradeOutboxRelay.class);
+
+    @Inject
+    OutboxEventRepository outboxEventRepository;
+
+    @Inject
+    @Any
+    Instance<TradeOutboxSink> sinks;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    TradingMetrics tradingMetrics;
+
+    @ConfigProperty(name = "trading.outbox.relay.enabled", defaultValue = "true")
+    boolean relayEnabled;
+
+    @ConfigProperty(name = "trading.outbox.batch-size", defaultValue = "500")
+    int batchSize;
+
+    @ConfigProperty(name = "trading.outbox.sink", defaultValue = "log")
+    String sinkName;
+
+    private TradeOutboxSink sink;
+    private volatile long backlog;
+    private volatile long lagSeconds;
+
+    void onStart(@Observes @Priority(Interceptor.Priority.APPLICATION + 1000) StartupEvent ev) {
+        Instance<TradeOutboxSink> named = sinks.select(NamedLiteral.of(sinkName));
+        if (!named.isResolvable()) {
+            throw new IllegalStateException("Unknown trading.outbox.sink '" + sinkName + "'");
+        }
+        sink = named.get();
+        tradingMetrics.registerOutboxBacklog(() -> backlog, () -> lagSeconds);
+        refreshBacklog();
+        LOG.infof("Trade outbox relay %s, delivering to the %s sink (%d events queued)",
+                relayEnabled ? "enabled" : "disabled", sinkName, backlog);
+    }
+
+    @Scheduled(every = "${trading.outbox.poll-every:1s}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledRelay() {
+        if (!relayEnabled) {
+            return;
+        }
+        try {
+            relayPending();
+        } catch (RuntimeException e) {
+            LOG.errorf(e, "Trade outbox relay failed; undelivered events stay queued");
+        }
+    }
+
+    /**
+     * Delivers batches until the outbox holds no event this relay can claim, and returns how many it
+     * delivered. A batch that fails to deliver is rolled back and the exception rethrown.
+     */
+    public int relayPending() {
+        int relayed = 0;
+        try {
+            int delivered;
+            do {
+                delivered = relayBatch();
+                relayed += delivered;
+            } while (delivered == batchSize);
+        } finally {
+            refreshBacklog();
+        }
+        if (relayed > 0) {
+            LOG.debugf("Trade outbox relayed %d events", relayed);
+        }
+        return relayed;
+    }
+
+    private int relayBatch() {
+        long started = System.nanoTime();
+        try {
+            List<OutboxEvent> claimed = QuarkusTransaction.requiringNew().call(() -> {
+                List<OutboxEvent> events = outboxEventRepository.lockBatch(batchSize);
+                if (events.isEmpty()) {
+                    return events;
+                }
+                List<TradeEvent> tradeEvents = new ArrayList<>(events.size());
+                List<Long> ids = new ArrayList<>(events.size());
+                for (OutboxEvent event : events) {
+                    tradeEvents.add(toTradeEvent(event));
+                    ids.add(event.id);
+                }
+                sink.deliver(tradeEvents);
+                outboxEventRepository.deleteByIds(ids);
+                return events;
+            });
+            if (!claimed.isEmpty()) {
+                tradingMetrics.recordOutboxBatch(true, claimed.size(), Duration.ofNanos(System.nanoTime() - started));
+                LocalDateTime now = LocalDateTime.now();
+                for (OutboxEvent event : claimed) {
+                    tradingMetrics.recordOutboxDeliveryLag(Duration.between(event.createdAt, now));
+                }
+            }
+            return claimed.size();
+        } catch (RuntimeException e) {
+            tradingMetrics.recordOutboxBatch(false, 0, Duration.ofNanos(System.nanoTime() - started));
+            throw e;
+        }
+    }
+
+    private TradeEvent toTradeEvent(OutboxEvent event) {
+        try {
+            TradeEvent tradeEvent = objectMapper.readValue(event.payload, TradeEvent.class);
+            tradeEvent.sequence = event.id;
+            return tradeEvent;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read outbox event " + event.id, e);
+        }
+    }
+
+    private void refreshBacklog() {
+        Object[] stats = QuarkusTransaction.requiringNew().call(outboxEventRepository::backlog);
+        backlog = (Long) stats[0];
+        LocalDateTime oldest = (LocalDateTime) stats[1];
+        lagSeconds = oldest != null ? Math.max(0, Duration.between(oldest, LocalDateTime.now()).toSeconds()) : 0;
+    }
+}
@@ -0,0 +1,20 @@
+package dev.mars.service;
+
+import dev.mars.dto.TradeEvent;
+
+import java.util.List;
+
+/**
+ * Where {@link TradeOutboxRelay} publishes trade events, chosen by name with {@code trading.outbox.sink}.
+ * Implementations are {@code @Named} beans; {@code log} and {@code file} are built in.
+ * <p>
+ * {@link #deliver} returns once the batch is accepted downstream and throws if it was not; the batch is
+ * then retried, possibly including events that did get through, so delivery is at least once. An event's
+ * {@code sequence} is unique and is what consumers dedupe on, but it is not commit order: it comes from
+ * pooled id blocks, so events written on different nodes interleave arbitrarily. Consumers that need the
+ * latest state of a trade keep the event with the newest {@code updatedAt} for it.
+ */
+public interface TradeOutboxSink {
+
+    void deliver(List<TradeEvent> events);
+}
@@ -0,0 +1,51 @@
+package dev.mars.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.mars.domain.OutboxEvent;
+import dev.mars.dto.TradeEvent;
+import dev.mars.event.TradeChange;
+import dev.mars.event.TradeChangedEvent;
+import dev.mars.repository.OutboxEventRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records every trade change in the outbox within the transaction that makes it, so a change is published
+ * downstream if and only if it commits. Nothing is sent from here; {@link TradeOutboxRelay} does that later.
+ */
+@ApplicationScoped
+public class TradeOutboxWriter {
+
+    @Inject
+    OutboxEventRepository outboxEventRepository;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    void onTradeChanged(@Observes(during = TransactionPhase.IN_PROGRESS) TradeChangedEvent event) {
+        LocalDateTime now = LocalDateTime.now();
+        for (TradeChange change : event.changes) {
+            // The sequence is the outbox id, which is only known once persisted; the relay fills it in
+            TradeEvent tradeEvent = TradeEvent.of(0, change);
+            OutboxEvent outboxEvent = new OutboxEvent();
+            outboxEvent.tradeId = tradeEvent.tradeId;
+            outboxEvent.eventType = tradeEvent.type;
+            outboxEvent.payload = toJson(tradeEvent);
+            outboxEvent.createdAt = now;
+            outboxEventRepository.persist(outboxEvent);
+        }
+    }
+
+    private String toJson(TradeEvent tradeEvent) {
+        try {
+            return objectMapper.writeValueAsString(tradeEvent);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize trade event for trade " + tradeEvent.tradeId, e);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package dev.mars.service;
+
+import dev.mars.metrics.TradingMetrics;
+import dev.mars.repository.TradeRepository;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.interceptor.Interceptor;
+import jakarta.persistence.PersistenceException;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.exception.ConstraintViolationException;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter over every trade reference, so the duplicate check before an insert only goes to the
+ * database when the reference might already exist. The unique constraint on {@code tradeReference}
+ * stays the final authority: a reference the filter misses (added by a transaction that was still open
+ * while the filter was rebuilt) is rejected by the constraint instead.
+ * <p>
+ * Deleted or renamed references cannot be removed from a Bloom filter and only add false positives.
+ * Rather than rebuilding after every delete, a scheduled check compares the false-positive rate observed
+ * by {@link #exists} since the last build with {@code rebuild-fpp} and rebuilds once it is exceeded, so
+ * the filter is only rescanned when the leftovers actually cost queries. It is also rebuilt, larger, when
+ * it fills past its expected size.
+ */
+@ApplicationScoped
+public class TradeReferenceFilter {
+
+    private static final Logger LOG = Logger.getLogger(TradeReferenceFilter.class);
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private static final String TRADE_REFERENCE_CONSTRAINT = "uk_trades_trade_reference";
+
+    @Inject
+    TradeRepository tradeRepository;
+
+    @Inject
+    TradingMetrics tradingMetrics;
+
+    @ConfigProperty(name = "trading.trade-reference.filter.expected-insertions", defaultValue = "1000000")
+    long expectedInsertions;
+
+    @ConfigProperty(name = "trading.trade-reference.filter.fpp", defaultValue = "0.01")
+    double falsePositiveProbability;
+
+    @ConfigProperty(name = "trading.trade-reference.filter.rebuild-fpp", defaultValue = "0.05")
+    double rebuildFalsePositiveRate;
+
+    @ConfigProperty(name = "trading.trade-reference.filter.rebuild-min-checks", defaultValue = "1000")
+    long rebuildMinChecks;
+
+    private final Object lock = new Object();
+    // checks of references that turned out not to exist since the last build, and how many of those the filter let through
+    private final AtomicLong absentChecks = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    // null until the first build completes; every reference counts as possibly present until then
+    private volatile BloomFilter current;
+    // receives the puts made while a rebuild is scanning the table
+    private BloomFilter pending;
+
+    // Runs after ApplicationLifecycle has created the sample data
+    void onStart(@Observes @Priority(Interceptor.Priority.APPLICATION + 1000) StartupEvent ev) {
+        tradingMetrics.registerTradeReferenceFilter(this::expectedFalsePositiveProbability, this::sizeInBytes);
+        rebuild();
+    }
+
+    /**
+     * Whether a trade with this reference exists. Answered without a query when the filter rules the
+     * reference out; otherwise the database decides, and a miss there is counted as a false positive
+     * once a filter has been built.
+     */
+    public boolean exists(String tradeReference) {
+        BloomFilter filter = current;
+        if (filter != null && !filter.mightContain(tradeReference)) {
+            absentChecks.incrementAndGet();
+            tradingMetrics.recordTradeReferenceCheck("skipped");
+            return false;
+        }
+        boolean exists = tradeRepository.existsByTradeReference(tradeReference);
+        if (exists) {
+            tradingMetrics.recordTradeReferenceCheck("duplicate");
+        } else if (filter != null) {
+            // Before the first build there is no filter to have been wrong
+            absentChecks.incrementAndGet();
+            falsePositives.incrementAndGet();
+            tradingMetrics.recordTradeReferenceCheck("false_positive");
+        }
+        return exists;
+    }
+
+    public boolean mightContain(String tradeReference) {
+        BloomFilter filter = current;
+        return filter == null || filter.mightContain(tradeReference);
+    }
+
+    /**
+     * Records a reference being inserted. Called before commit, so a rolled-back insert only leaves
+     * a false positive behind.
+     */
+    public void add(String tradeReference) {
+        synchronized (lock) {
+            BloomFilter filter = current;
+            if (filter != null) {
+                filter.put(tradeReference);
+            }
+            if (pending != null) {
+                pending.put(tradeReference);
+            }
+        }
+    }
+
+    @Scheduled(every = "${trading.trade-reference.filter.rebuild-check:30s}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void rebuildIfDegraded() {
+        BloomFilter filter = current;
+        boolean full = filter != null && filter.insertions() > filter.expectedInsertions();
+        if (full || observedFalsePositiveRate() > rebuildFalsePositiveRate) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Share of the checks for absent references since the last build that the filter could not answer;
+     * 0 until {@code rebuild-min-checks} of them have been seen.
+     */
+    double observedFalsePositiveRate() {
+        long checks = absentChecks.get();
+        return checks >= rebuildMinChecks && checks > 0 ? (double) falsePositives.get() / checks : 0;
+    }
+
+    @Transactional
+    public void rebuild() {
+        long started = System.nanoTime();
+        BloomFilter filter = new BloomFilter(Math.max(expectedInsertions, tradeRepository.count() * 2),
+                falsePositiveProbability);
+        synchronized (lock) {
+            pending = filter;
+        }
+        boolean complete = false;
+        try (Stream<String> references = tradeRepository.streamTradeReferences(FETCH_SIZE)) {
+            references.forEach(filter::put);
+            complete = true;
+        } finally {
+            synchronized (lock) {
+                // A rebuild started later has replaced pending; let that one win
+                if (pending == filter) {
+                    if (complete) {
+                        current = filter;
+                        absentChecks.set(0);
+                        falsePositives.set(0);
+                    }
+                    pending = null;
+                }
+            }
+        }
+        LOG.infof("Trade reference filter rebuilt with %d references (%d bytes) in %d ms",
+                filter.insertions(), filter.sizeInBytes(), Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    /**
+     * Whether {@code e} is a violation of the trade reference unique constraint, i.e. a duplicate the
+     * filter let through.
+     */
+    static boolean isDuplicateReference(PersistenceException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null
+                    && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(TRADE_REFERENCE_CONSTRAINT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public double expectedFalsePositiveProbability() {
+        BloomFilter filter = current;
+        return filter != null ? filter.expectedFalsePositiveProbability() : 0;
+    }
+
+    public long sizeInBytes() {
+        BloomFilter filter = current;
+        return filter != null ? filter.sizeInBytes() : 0;
+    }
+}
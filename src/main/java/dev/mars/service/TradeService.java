@@ -2,105 +2,198 @@ package dev.mars.service;
 
 import dev.mars.domain.Counterparty;
 import dev.mars.domain.Trade;
+import dev.mars.dto.CounterpartyDto;
+import dev.mars.dto.CounterpartyExposureDto;
 import dev.mars.dto.CreateTradeRequest;
+import dev.mars.dto.CursorPage;
+import dev.mars.dto.ResourceVersion;
 import dev.mars.dto.TradeDto;
+import dev.mars.dto.TradeStatistics;
+import dev.mars.event.TradeChange;
+import dev.mars.event.TradeChangedEvent;
+import dev.mars.event.TradeSnapshot;
 import dev.mars.exception.BusinessException;
 import dev.mars.metrics.TradingMetrics;
 import dev.mars.repository.CounterpartyRepository;
+import dev.mars.repository.TradeCursor;
+import dev.mars.repository.TradeField;
+import dev.mars.repository.TradeFilter;
 import dev.mars.repository.TradeRepository;
 import io.micrometer.core.instrument.Timer;
+import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
+import jakarta.persistence.PersistenceException;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import org.jboss.logging.Logger;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class TradeService {
 
     private static final Logger LOG = Logger.getLogger(TradeService.class);
 
+    private static final Sort ID_ORDER = Sort.by("id");
+
     @Inject
     TradeRepository tradeRepository;
 
     @Inject
     CounterpartyRepository counterpartyRepository;
 
+    @Inject
+    CounterpartyCache counterpartyCache;
+
+    @Inject
+    TradeReferenceFilter tradeReferenceFilter;
+
     @Inject
     TradingMetrics tradingMetrics;
 
+    @Inject
+    TradeStatisticsService tradeStatisticsService;
+
+    @Inject
+    CounterpartyExposureService counterpartyExposureService;
+
+    @Inject
+    Event<TradeChangedEvent> tradeChangedEvent;
+
     public List<TradeDto> getAllTrades() {
         LOG.debug("Fetching all trades");
-        return tradeRepository.findTradesWithCounterparty()
-                .stream()
-                .map(TradeDto::from)
-                .collect(Collectors.toList());
+        return tradeRepository.findDtosByFilter(TradeFilter.all(), ID_ORDER);
     }
 
     public List<TradeDto> getAllTradesPaged(int page, int size) {
         LOG.debugf("Fetching trades page %d with size %d", page, size);
-        return tradeRepository.findAllPaged(page, size)
-                .stream()
-                .map(TradeDto::from)
-                .collect(Collectors.toList());
+        return tradeRepository.findDtosByFilter(TradeFilter.all(), TradeRepository.sortOf(null), page, size);
     }
 
     public Optional<TradeDto> getTradeById(Long id) {
         LOG.debugf("Fetching trade with id: %d", id);
-        return tradeRepository.findByIdOptional(id)
-                .map(TradeDto::from);
+        return tradeRepository.findDtoById(id);
     }
 
     public Optional<TradeDto> getTradeByReference(String tradeReference) {
         LOG.debugf("Fetching trade with reference: %s", tradeReference);
-        return tradeRepository.findByTradeReference(tradeReference)
-                .map(TradeDto::from);
+        return tradeRepository.findDtoByTradeReference(tradeReference);
+    }
+
+    /**
+     * Validators for the trade's representation, from a two-column lookup rather than the full DTO.
+     */
+    public Optional<ResourceVersion> getTradeVersion(Long id) {
+        return tradeRepository.findVersionById(id).map(row -> ResourceVersion.of(false, row[0], row[1]));
+    }
+
+    public Optional<ResourceVersion> getTradeVersionByReference(String tradeReference) {
+        return tradeRepository.findVersionByTradeReference(tradeReference)
+                .map(row -> ResourceVersion.of(false, row[0], row[1]));
+    }
+
+    /**
+     * Weak entity tag for any listing of the trades matching {@code filter}: it changes when a matching trade
+     * or its counterparty is modified, or when trades start or stop matching. There is no Last-Modified, since
+     * a trade that stops matching leaves the latest timestamp as it was.
+     */
+    public ResourceVersion getTradesVersion(TradeFilter filter) {
+        Object[] row = tradeRepository.findVersionByFilter(filter);
+        return ResourceVersion.of(true, row[0], row[1], row[2]);
     }
 
     public List<TradeDto> getTradesByCounterpartyId(Long counterpartyId) {
         LOG.debugf("Fetching trades for counterparty id: %d", counterpartyId);
-        return tradeRepository.findByCounterpartyId(counterpartyId)
-                .stream()
-                .map(TradeDto::from)
-                .collect(Collectors.toList());
+        return tradeRepository.findDtosByFilter(TradeFilter.all().counterpartyId(counterpartyId), ID_ORDER);
     }
 
     public List<TradeDto> getTradesByStatus(Trade.TradeStatus status) {
         LOG.debugf("Fetching trades with status: %s", status);
-        return tradeRepository.findByStatus(status)
-                .stream()
-                .map(TradeDto::from)
-                .collect(Collectors.toList());
+        return tradeRepository.findDtosByFilter(TradeFilter.all().status(status), ID_ORDER);
     }
 
     public List<TradeDto> getTradesByDateRange(LocalDate startDate, LocalDate endDate) {
         LOG.debugf("Fetching trades between %s and %s", startDate, endDate);
-        return tradeRepository.findByTradeDateRange(startDate, endDate)
-                .stream()
-                .map(TradeDto::from)
-                .collect(Collectors.toList());
+        return tradeRepository.findDtosByFilter(TradeFilter.all().tradeDateBetween(startDate, endDate), ID_ORDER);
     }
 
     public List<TradeDto> getPendingTrades() {
         LOG.debug("Fetching pending trades");
-        return tradeRepository.findPendingTrades()
-                .stream()
-                .map(TradeDto::from)
-                .collect(Collectors.toList());
+        return tradeRepository.findDtosByFilter(TradeFilter.all().status(Trade.TradeStatus.PENDING), ID_ORDER);
     }
 
     public List<TradeDto> getRecentTrades(int days) {
         LOG.debugf("Fetching trades from last %d days", days);
-        return tradeRepository.findRecentTrades(days)
-                .stream()
-                .map(TradeDto::from)
-                .collect(Collectors.toList());
+        return tradeRepository.findDtosByFilter(TradeFilter.all().recentDays(days), ID_ORDER);
+    }
+
+    public List<TradeDto> searchTrades(TradeFilter filter, String sort, int page, int size) {
+        LOG.debugf("Searching trades with %s sorted by %s, page %d with size %d", filter, sort, page, size);
+        if (page < 0 || size <= 0) {
+            throw new IllegalArgumentException("Page must not be negative and size must be greater than 0");
+        }
+        return tradeRepository.findDtosByFilter(filter, TradeRepository.sortOf(sort), page, size);
+    }
+
+    public List<TradeDto> getTopTradesByNotional(TradeFilter filter, int limit) {
+        LOG.debugf("Fetching top %d trades by notional with %s", limit, filter);
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        }
+        return tradeRepository.findTopDtosByNotional(filter, limit);
+    }
+
+    public CursorPage<TradeDto> getTradesAfter(TradeFilter filter, String cursor, int size) {
+        LOG.debugf("Fetching trades with %s after cursor %s with size %d", filter, cursor, size);
+        return toCursorPage(tradeRepository.findDtosByFilterAfter(filter, TradeCursor.decode(cursor), fetchSize(size)), size);
+    }
+
+    /**
+     * {@link #searchTrades} narrowed to {@code fields}: only those columns are read, and each trade comes back
+     * as a map of property name to value in the requested order.
+     */
+    public List<Map<String, Object>> searchTradeFields(TradeFilter filter, List<TradeField> fields, String sort,
+                                                       int page, int size) {
+        LOG.debugf("Searching trade fields %s with %s sorted by %s, page %d with size %d", fields, filter, sort, page, size);
+        if (page < 0 || size <= 0) {
+            throw new IllegalArgumentException("Page must not be negative and size must be greater than 0");
+        }
+        return tradeRepository.findFieldsByFilter(filter, fields, TradeRepository.sortOf(sort), page, size).stream()
+                .map(row -> toFieldMap(fields, row))
+                .toList();
+    }
+
+    public CursorPage<Map<String, Object>> getTradeFieldsAfter(TradeFilter filter, List<TradeField> fields,
+                                                               String cursor, int size) {
+        LOG.debugf("Fetching trade fields %s with %s after cursor %s with size %d", fields, filter, cursor, size);
+        // The keyset columns are read after the requested ones when missing, for the next cursor only
+        List<TradeField> selected = new ArrayList<>(fields);
+        for (TradeField keyset : List.of(TradeField.TRADE_DATE, TradeField.CREATED_AT, TradeField.ID)) {
+            if (!selected.contains(keyset)) {
+                selected.add(keyset);
+            }
+        }
+        List<Object[]> rows = tradeRepository.findFieldsByFilterAfter(filter, selected, TradeCursor.decode(cursor),
+                fetchSize(size));
+        boolean hasMore = rows.size() > size;
+        List<Object[]> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            Object[] last = page.get(page.size() - 1);
+            nextCursor = new TradeCursor((LocalDate) last[selected.indexOf(TradeField.TRADE_DATE)],
+                    (LocalDateTime) last[selected.indexOf(TradeField.CREATED_AT)],
+                    (Long) last[selected.indexOf(TradeField.ID)]).encode();
+        }
+        return new CursorPage<>(page.stream().map(row -> toFieldMap(fields, row)).toList(), nextCursor);
     }
 
     @Transactional
@@ -110,14 +203,14 @@ public class TradeService {
         Timer.Sample sample = tradingMetrics.startTradeCreationTimer();
 
         try {
-            // Check if trade reference already exists
-            if (tradeRepository.existsByTradeReference(request.tradeReference)) {
+            // Check if trade reference already exists; the filter answers most new references without a query
+            if (tradeReferenceFilter.exists(request.tradeReference)) {
                 tradingMetrics.recordTradeFailed(request.instrument, request.tradeType.toString(), "DUPLICATE_REFERENCE");
                 throw new BusinessException("Trade with reference '" + request.tradeReference + "' already exists");
             }
 
-            // Validate counterparty exists and is active
-            Counterparty counterparty = counterpartyRepository.findByIdOptional(request.counterpartyId)
+            // Validate counterparty exists and is active, from cached reference data
+            CounterpartyDto counterparty = counterpartyCache.get(request.counterpartyId)
                     .orElseThrow(() -> {
                         tradingMetrics.recordTradeFailed(request.instrument, request.tradeType.toString(), "COUNTERPARTY_NOT_FOUND");
                         return new BusinessException("Counterparty not found with id: " + request.counterpartyId);
@@ -135,15 +228,26 @@ public class TradeService {
             }
 
             Trade trade = request.toEntity();
-            trade.counterparty = counterparty;
-            tradeRepository.persist(trade);
+            trade.counterparty = counterpartyReference(counterparty.id);
+            try {
+                // Flushed here so a reference the filter missed surfaces as a business error, not at commit
+                tradeRepository.persistAndFlush(trade);
+            } catch (PersistenceException e) {
+                if (!TradeReferenceFilter.isDuplicateReference(e)) {
+                    throw e;
+                }
+                tradingMetrics.recordTradeFailed(request.instrument, request.tradeType.toString(), "DUPLICATE_REFERENCE");
+                throw new BusinessException("Trade with reference '" + request.tradeReference + "' already exists");
+            }
+            tradeReferenceFilter.add(trade.tradeReference);
+            tradeChangedEvent.fire(TradeChangedEvent.of(TradeChange.created(trade)));
 
             // Record successful trade creation metrics
             tradingMetrics.recordTradeCreated(request.instrument, request.tradeType.toString());
             tradingMetrics.recordTradeCreationTime(sample, request.instrument);
 
             LOG.infof("Created trade with id: %d and reference: %s", trade.id, trade.tradeReference);
-            return TradeDto.from(trade);
+            return TradeDto.from(trade, counterparty);
         } catch (BusinessException e) {
             // Timer is already recorded in specific error cases above
             throw e;
@@ -161,12 +265,14 @@ public class TradeService {
                 .orElseThrow(() -> new BusinessException("Trade not found with id: " + id));
 
         // Check if trade reference already exists for another trade
-        if (tradeRepository.existsByTradeReferenceAndNotId(request.tradeReference, id)) {
+        boolean referenceChanged = !request.tradeReference.equals(trade.tradeReference);
+        if (referenceChanged && tradeReferenceFilter.mightContain(request.tradeReference)
+                && tradeRepository.existsByTradeReferenceAndNotId(request.tradeReference, id)) {
             throw new BusinessException("Trade with reference '" + request.tradeReference + "' already exists");
         }
 
-        // Validate counterparty exists and is active
-        Counterparty counterparty = counterpartyRepository.findByIdOptional(request.counterpartyId)
+        // Validate counterparty exists and is active, from cached reference data
+        CounterpartyDto counterparty = counterpartyCache.get(request.counterpartyId)
                 .orElseThrow(() -> new BusinessException("Counterparty not found with id: " + request.counterpartyId));
 
         if (counterparty.status != Counterparty.CounterpartyStatus.ACTIVE) {
@@ -178,9 +284,11 @@ public class TradeService {
             throw new BusinessException("Settlement date cannot be before trade date");
         }
 
+        TradeSnapshot before = TradeSnapshot.of(trade);
+
         // Update fields
         trade.tradeReference = request.tradeReference;
-        trade.counterparty = counterparty;
+        trade.counterparty = counterpartyReference(counterparty.id);
         trade.instrument = request.instrument;
         trade.tradeType = request.tradeType;
         trade.quantity = request.quantity;
@@ -190,11 +298,25 @@ public class TradeService {
         trade.currency = request.currency;
         trade.status = request.status;
         trade.notes = request.notes;
+        trade.updateNotional();
 
-        tradeRepository.persist(trade);
+        try {
+            // Flushed here so a new reference the filter missed surfaces as a business error, as in createTrade
+            tradeRepository.persistAndFlush(trade);
+        } catch (PersistenceException e) {
+            if (!TradeReferenceFilter.isDuplicateReference(e)) {
+                throw e;
+            }
+            throw new BusinessException("Trade with reference '" + request.tradeReference + "' already exists");
+        }
+        tradeChangedEvent.fire(TradeChangedEvent.of(TradeChange.updated(before, trade)));
+        if (referenceChanged) {
+            // The old reference stays in the filter as a false positive, counted towards the next rebuild
+            tradeReferenceFilter.add(trade.tradeReference);
+        }
         
         LOG.infof("Updated trade with id: %d", id);
-        return TradeDto.from(trade);
+        return TradeDto.from(trade, counterparty);
     }
 
     @Transactional
@@ -206,15 +328,18 @@ public class TradeService {
         Trade trade = tradeRepository.findByIdOptional(id)
                 .orElseThrow(() -> new BusinessException("Trade not found with id: " + id));
 
+        TradeSnapshot before = TradeSnapshot.of(trade);
         Trade.TradeStatus oldStatus = trade.status;
         trade.status = status;
-        tradeRepository.persist(trade);
+        // Flushed so the change carries the updatedAt it is stored with
+        tradeRepository.persistAndFlush(trade);
+        tradeChangedEvent.fire(TradeChangedEvent.of(TradeChange.updated(before, trade)));
 
         // Record metrics based on status change
         if (status == Trade.TradeStatus.CONFIRMED && oldStatus == Trade.TradeStatus.PENDING) {
             tradingMetrics.recordTradeConfirmed(trade.instrument, trade.tradeType.toString());
         } else if (status == Trade.TradeStatus.SETTLED && oldStatus == Trade.TradeStatus.CONFIRMED) {
-            double tradeValue = trade.quantity.multiply(trade.price).doubleValue();
+            double tradeValue = trade.notional.doubleValue();
             tradingMetrics.recordTradeSettled(trade.instrument, trade.tradeType.toString(), tradeValue);
         }
 
@@ -236,10 +361,18 @@ public class TradeService {
             throw new BusinessException("Cannot delete confirmed or settled trades");
         }
 
+        TradeSnapshot before = TradeSnapshot.of(trade);
         tradeRepository.delete(trade);
+        tradeChangedEvent.fire(TradeChangedEvent.of(TradeChange.deleted(before)));
+        // The deleted reference stays in the filter as a false positive, counted towards the next rebuild
         LOG.infof("Deleted trade with id: %d", id);
     }
 
+    public TradeStatistics getTradeStatistics() {
+        LOG.debug("Fetching trade statistics");
+        return tradeStatisticsService.getStatistics();
+    }
+
     public long getTradeCount() {
         return tradeRepository.count();
     }
@@ -248,8 +381,40 @@ public class TradeService {
         return tradeRepository.countByStatus(status);
     }
 
+    // Served from the maintained exposure cells rather than summing every trade of the counterparty
     public BigDecimal getTotalTradeValueByCounterparty(Long counterpartyId) {
-        BigDecimal total = tradeRepository.getTotalValueByCounterpartyId(counterpartyId);
-        return total != null ? total : BigDecimal.ZERO;
+        return counterpartyExposureService.getTotalNotional(counterpartyId);
+    }
+
+    public CounterpartyExposureDto getCounterpartyExposure(Long counterpartyId) {
+        return counterpartyExposureService.getExposure(counterpartyId);
+    }
+
+    // Trades only need the foreign key, so the association is set without loading the counterparty row
+    private Counterparty counterpartyReference(Long counterpartyId) {
+        return counterpartyRepository.getEntityManager().getReference(Counterparty.class, counterpartyId);
+    }
+
+    // One extra row is fetched so we know whether another page exists without a COUNT query
+    private int fetchSize(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than 0");
+        }
+        return size + 1;
+    }
+
+    private static Map<String, Object> toFieldMap(List<TradeField> fields, Object[] row) {
+        Map<String, Object> values = new LinkedHashMap<>(fields.size() * 2);
+        for (int i = 0; i < fields.size(); i++) {
+            values.put(fields.get(i).property, row[i]);
+        }
+        return values;
+    }
+
+    private CursorPage<TradeDto> toCursorPage(List<TradeDto> rows, int size) {
+        boolean hasMore = rows.size() > size;
+        List<TradeDto> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = hasMore ? TradeCursor.of(page.get(page.size() - 1)).encode() : null;
+        return new CursorPage<>(page, nextCursor);
     }
 }
@@ -0,0 +1,98 @@
+package dev.mars.service;
+
+import dev.mars.domain.Trade;
+import dev.mars.dto.TradeAggregate;
+import dev.mars.dto.TradeStatistics;
+import dev.mars.event.TradeChange;
+import dev.mars.event.TradeSnapshot;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * In-memory copy of the (status, tradeType, currency) aggregate cells, kept current by applying
+ * committed trade changes as deltas. Writers serialise on the ledger; readers get a cached immutable
+ * snapshot that is only rebuilt after a change, so a burst of dashboard polls costs one roll-up.
+ */
+class TradeStatisticsLedger {
+
+    private final Map<CellKey, TradeAggregate> cells = new HashMap<>();
+    private volatile TradeStatistics snapshot;
+
+    synchronized void reset(Collection<TradeAggregate> aggregates) {
+        cells.clear();
+        for (TradeAggregate aggregate : aggregates) {
+            cells.put(new CellKey(aggregate.status, aggregate.tradeType, aggregate.currency),
+                    new TradeAggregate(aggregate.status, aggregate.tradeType, aggregate.currency,
+                            aggregate.count, aggregate.notional));
+        }
+        snapshot = null;
+    }
+
+    synchronized void apply(List<TradeChange> changes) {
+        for (TradeChange change : changes) {
+            if (change.before != null) {
+                add(change.before, -1);
+            }
+            if (change.after != null) {
+                add(change.after, 1);
+            }
+        }
+        snapshot = null;
+    }
+
+    TradeStatistics statistics() {
+        TradeStatistics current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = TradeStatistics.from(new ArrayList<>(cells.values()), "memory");
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private void add(TradeSnapshot trade, int sign) {
+        CellKey key = new CellKey(trade.status, trade.tradeType, trade.currency);
+        TradeAggregate cell = cells.computeIfAbsent(key,
+                k -> new TradeAggregate(k.status, k.tradeType, k.currency, 0L, BigDecimal.ZERO));
+        BigDecimal notional = trade.notional;
+        cell.count += sign;
+        cell.notional = sign > 0 ? cell.notional.add(notional) : cell.notional.subtract(notional);
+        if (cell.count == 0) {
+            cells.remove(key);
+        }
+    }
+
+    private static final class CellKey {
+        final Trade.TradeStatus status;
+        final Trade.TradeType tradeType;
+        final String currency;
+
+        CellKey(Trade.TradeStatus status, Trade.TradeType tradeType, String currency) {
+            this.status = status;
+            this.tradeType = tradeType;
+            this.currency = currency;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof CellKey other)) return false;
+            return status == other.status && tradeType == other.tradeType && Objects.equals(currency, other.currency);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(status, tradeType, currency);
+        }
+    }
+}
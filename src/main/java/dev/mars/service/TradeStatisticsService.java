@@ -0,0 +1,80 @@
+package dev.mars.service;
+
+import dev.mars.dto.TradeStatistics;
+import dev.mars.event.TradeChangedEvent;
+import dev.mars.metrics.TradingMetrics;
+import dev.mars.repository.TradeRepository;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.interceptor.Interceptor;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+
+/**
+ * Trade statistics by status, trade type and currency. By default each call is one GROUP BY round trip;
+ * with {@code trading.stats.in-memory.enabled=true} the answer comes from a ledger seeded once at startup
+ * and then maintained from committed {@link TradeChangedEvent}s, without touching the database.
+ */
+@ApplicationScoped
+public class TradeStatisticsService {
+
+    private static final Logger LOG = Logger.getLogger(TradeStatisticsService.class);
+
+    @Inject
+    TradeRepository tradeRepository;
+
+    @Inject
+    TradingMetrics tradingMetrics;
+
+    @ConfigProperty(name = "trading.stats.in-memory.enabled", defaultValue = "false")
+    boolean inMemoryEnabled;
+
+    private final TradeStatisticsLedger ledger = new TradeStatisticsLedger();
+    private volatile boolean ledgerLoaded;
+
+    // Runs after ApplicationLifecycle has created the sample data
+    @Transactional
+    void onStart(@Observes @Priority(Interceptor.Priority.APPLICATION + 1000) StartupEvent ev) {
+        if (inMemoryEnabled) {
+            rebuild();
+        }
+    }
+
+    public TradeStatistics getStatistics() {
+        if (inMemoryEnabled && ledgerLoaded) {
+            return ledger.statistics();
+        }
+        return loadFromDatabase();
+    }
+
+    /**
+     * Reseeds the in-memory ledger from the database.
+     */
+    @Transactional
+    public void rebuild() {
+        long started = System.nanoTime();
+        ledger.reset(tradeRepository.aggregateByStatusTypeAndCurrency());
+        ledgerLoaded = true;
+        LOG.infof("Trade statistics ledger rebuilt in %d ms", Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    void onTradeChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) TradeChangedEvent event) {
+        if (inMemoryEnabled && ledgerLoaded) {
+            ledger.apply(event.changes);
+        }
+    }
+
+    private TradeStatistics loadFromDatabase() {
+        long started = System.nanoTime();
+        TradeStatistics stats = TradeStatistics.from(tradeRepository.aggregateByStatusTypeAndCurrency(), "database");
+        tradingMetrics.recordDatabaseOperation("TRADE_STATS", Duration.ofNanos(System.nanoTime() - started));
+        return stats;
+    }
+}
@@ -0,0 +1,190 @@
+package dev.mars.service;
+
+import dev.mars.domain.Trade;
+import dev.mars.dto.BulkStatusUpdateRequest;
+import dev.mars.dto.BulkStatusUpdateResult;
+import dev.mars.event.TradeChange;
+import dev.mars.event.TradeChangedEvent;
+import dev.mars.event.TradeSnapshot;
+import dev.mars.metrics.TradingMetrics;
+import dev.mars.repository.TradeFilter;
+import dev.mars.repository.TradeRepository;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Moves many trades to one status with guarded, set-based UPDATEs instead of loading and saving each entity.
+ * Only trades in one of the target's {@link Trade.TradeStatus#allowedPredecessors() allowed predecessors}
+ * are changed. Work is split into chunks of {@code trading.status-transition.chunk-size} trades, each in
+ * its own transaction, so row locks are held briefly and a failure only loses the chunk in flight.
+ * <p>
+ * Each chunk first locks and snapshots the rows it is about to change, so the {@link TradeChangedEvent} and
+ * the confirmed/settled counters describe exactly the rows the UPDATE moved.
+ */
+@ApplicationScoped
+public class TradeStatusTransitionService {
+
+    private static final Logger LOG = Logger.getLogger(TradeStatusTransitionService.class);
+
+    @Inject
+    TradeRepository tradeRepository;
+
+    @Inject
+    TradingMetrics tradingMetrics;
+
+    @Inject
+    Event<TradeChangedEvent> tradeChangedEvent;
+
+    @ConfigProperty(name = "trading.status-transition.chunk-size", defaultValue = "1000")
+    int chunkSize;
+
+    @ConfigProperty(name = "trading.status-transition.max-ids", defaultValue = "50000")
+    int maxIds;
+
+    public BulkStatusUpdateResult transition(BulkStatusUpdateRequest request) {
+        if (request == null || request.status == null) {
+            throw new IllegalArgumentException("Target status is required");
+        }
+        boolean hasIds = request.ids != null && !request.ids.isEmpty();
+        boolean hasFilter = request.filter != null && !request.filter.isEmpty();
+        if (hasIds == hasFilter) {
+            throw new IllegalArgumentException("Specify either ids or a filter with at least one criterion");
+        }
+        if (hasIds && request.ids.size() > maxIds) {
+            throw new IllegalArgumentException("Cannot transition more than " + maxIds + " trades by id");
+        }
+        return hasIds ? transitionByIds(request.ids, request.status) : transitionByFilter(request.filter, request.status);
+    }
+
+    public BulkStatusUpdateResult transitionByIds(List<Long> ids, Trade.TradeStatus status) {
+        LOG.debugf("Transitioning %d trades by id to %s", ids.size(), status);
+        Timer.Sample sample = tradingMetrics.startTradeProcessingTimer();
+        Set<Trade.TradeStatus> fromStatuses = status.allowedPredecessors();
+        BulkStatusUpdateResult result = new BulkStatusUpdateResult(status);
+
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        for (int from = 0; from < distinctIds.size(); from += chunkSize) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + chunkSize, distinctIds.size()));
+            List<TradeSnapshot> moved = QuarkusTransaction.requiringNew().call(() -> {
+                List<TradeSnapshot> candidates = tradeRepository.lockByIdsAndStatus(chunk, fromStatuses);
+                apply(candidates, fromStatuses, status);
+
+                // Classify the rest of the chunk; the moved rows are already in the target status
+                Map<Long, Trade.TradeStatus> statuses = tradeRepository.findStatusesByIds(chunk);
+                for (Long id : chunk) {
+                    Trade.TradeStatus current = statuses.get(id);
+                    if (current == null) {
+                        result.notFound++;
+                    } else if (current != status) {
+                        result.rejected++;
+                    }
+                }
+                return candidates;
+            });
+            recordTransitions(moved, status);
+            result.updated += moved.size();
+        }
+        result.unchanged = distinctIds.size() - result.updated - result.rejected - result.notFound;
+
+        tradingMetrics.recordTradeProcessingTime(sample, "BULK_STATUS_UPDATE");
+        LOG.infof("Transitioned trades by id to %s: %d updated, %d unchanged, %d rejected, %d not found",
+                status, result.updated, result.unchanged, result.rejected, result.notFound);
+        return result;
+    }
+
+    public BulkStatusUpdateResult transitionByFilter(TradeFilter filter, Trade.TradeStatus status) {
+        LOG.debugf("Transitioning trades matching %s to %s", filter, status);
+        Timer.Sample sample = tradingMetrics.startTradeProcessingTimer();
+        Set<Trade.TradeStatus> fromStatuses = status.allowedPredecessors();
+        BulkStatusUpdateResult result = new BulkStatusUpdateResult(status);
+
+        long afterId = Long.MIN_VALUE;
+        List<TradeSnapshot> moved;
+        do {
+            long lastId = afterId;
+            moved = QuarkusTransaction.requiringNew().call(() -> {
+                List<TradeSnapshot> candidates = tradeRepository.lockByFilterAndStatus(filter, fromStatuses, lastId, chunkSize);
+                apply(candidates, fromStatuses, status);
+                return candidates;
+            });
+            recordTransitions(moved, status);
+            result.updated += moved.size();
+            if (!moved.isEmpty()) {
+                afterId = moved.get(moved.size() - 1).id;
+            }
+        } while (moved.size() == chunkSize);
+
+        tradingMetrics.recordTradeProcessingTime(sample, "BULK_STATUS_UPDATE");
+        LOG.infof("Transitioned %d trades matching %s to %s", result.updated, filter, status);
+        return result;
+    }
+
+    /**
+     * Moves the trades among {@code ids} that can make the transition in one new transaction, and returns
+     * how many moved. Safe to repeat: trades already moved no longer match the guard.
+     */
+    public int transitionChunk(List<Long> ids, Trade.TradeStatus status) {
+        Set<Trade.TradeStatus> fromStatuses = status.allowedPredecessors();
+        List<TradeSnapshot> moved = QuarkusTransaction.requiringNew().call(() -> {
+            List<TradeSnapshot> candidates = tradeRepository.lockByIdsAndStatus(ids, fromStatuses);
+            apply(candidates, fromStatuses, status);
+            return candidates;
+        });
+        recordTransitions(moved, status);
+        return moved.size();
+    }
+
+    private void apply(List<TradeSnapshot> candidates, Set<Trade.TradeStatus> fromStatuses, Trade.TradeStatus status) {
+        if (candidates.isEmpty()) {
+            return;
+        }
+        List<Long> ids = candidates.stream().map(candidate -> candidate.id).toList();
+        LocalDateTime updatedAt = LocalDateTime.now();
+        int updated = tradeRepository.updateStatus(ids, fromStatuses, status, updatedAt);
+        if (updated != candidates.size()) {
+            // Cannot happen while the rows are locked; refuse to publish changes that do not match the table
+            throw new IllegalStateException("Expected to update " + candidates.size() + " trades but updated " + updated);
+        }
+        List<TradeChange> changes = new ArrayList<>(candidates.size());
+        for (TradeSnapshot before : candidates) {
+            changes.add(new TradeChange(before, before.withStatus(status, updatedAt)));
+        }
+        tradeChangedEvent.fire(new TradeChangedEvent(changes));
+    }
+
+    // Counted once the chunk has committed, one increment per instrument and trade type
+    private void recordTransitions(List<TradeSnapshot> moved, Trade.TradeStatus status) {
+        Map<List<String>, Long> counts = new HashMap<>();
+        Map<List<String>, BigDecimal> values = new HashMap<>();
+        for (TradeSnapshot before : moved) {
+            boolean counted = (status == Trade.TradeStatus.CONFIRMED && before.status == Trade.TradeStatus.PENDING)
+                    || (status == Trade.TradeStatus.SETTLED && before.status == Trade.TradeStatus.CONFIRMED);
+            if (counted) {
+                List<String> key = List.of(before.instrument, before.tradeType.toString());
+                counts.merge(key, 1L, Long::sum);
+                values.merge(key, before.notional, BigDecimal::add);
+            }
+        }
+        counts.forEach((key, count) -> {
+            if (status == Trade.TradeStatus.CONFIRMED) {
+                tradingMetrics.recordTradesConfirmed(key.get(0), key.get(1), count);
+            } else {
+                tradingMetrics.recordTradesSettled(key.get(0), key.get(1), count, values.get(key).doubleValue());
+            }
+        });
+    }
+}
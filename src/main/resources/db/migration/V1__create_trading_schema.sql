@@ -0,0 +1,40 @@
+-- Baseline schema for the trading application (PostgreSQL).
+-- Mirrors what Hibernate generated from the Counterparty and Trade entities under drop-and-create.
+
+CREATE SEQUENCE counterparty_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE trade_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE counterparties (
+    id          BIGINT       NOT NULL,
+    name        VARCHAR(100) NOT NULL,
+    code        VARCHAR(20)  NOT NULL,
+    email       VARCHAR(100),
+    phoneNumber VARCHAR(20),
+    address     VARCHAR(500),
+    type        VARCHAR(255) NOT NULL CHECK (type IN ('INDIVIDUAL', 'CORPORATE', 'INSTITUTIONAL')),
+    status      VARCHAR(255) NOT NULL CHECK (status IN ('ACTIVE', 'INACTIVE', 'SUSPENDED')),
+    createdAt   TIMESTAMP(6) NOT NULL,
+    updatedAt   TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_counterparties PRIMARY KEY (id),
+    CONSTRAINT uk_counterparties_code UNIQUE (code)
+);
+
+CREATE TABLE trades (
+    id              BIGINT         NOT NULL,
+    tradeReference  VARCHAR(50)    NOT NULL,
+    counterparty_id BIGINT         NOT NULL,
+    instrument      VARCHAR(100)   NOT NULL,
+    tradeType       VARCHAR(255)   NOT NULL CHECK (tradeType IN ('BUY', 'SELL')),
+    quantity        NUMERIC(19, 4) NOT NULL,
+    price           NUMERIC(19, 4) NOT NULL,
+    tradeDate       DATE           NOT NULL,
+    settlementDate  DATE           NOT NULL,
+    currency        VARCHAR(3)     NOT NULL,
+    status          VARCHAR(255)   NOT NULL CHECK (status IN ('PENDING', 'CONFIRMED', 'SETTLED', 'CANCELLED', 'FAILED')),
+    notes           VARCHAR(1000),
+    createdAt       TIMESTAMP(6)   NOT NULL,
+    updatedAt       TIMESTAMP(6)   NOT NULL,
+    CONSTRAINT pk_trades PRIMARY KEY (id),
+    CONSTRAINT uk_trades_trade_reference UNIQUE (tradeReference),
+    CONSTRAINT fk_trades_counterparty FOREIGN KEY (counterparty_id) REFERENCES counterparties (id)
+);
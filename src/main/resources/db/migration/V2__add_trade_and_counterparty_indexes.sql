@@ -0,0 +1,29 @@
+-- Secondary indexes matched to the predicates and sort orders used by TradeRepository and CounterpartyRepository.
+-- The plain B-tree indexes are also declared on the entities so the H2 dev/test schema carries them;
+-- BRIN and expression/trigram indexes are PostgreSQL-only and live here alone.
+
+-- Trades: equality column first, then the tradeDate range/sort column
+CREATE INDEX idx_trades_status_trade_date ON trades (status, tradeDate);
+CREATE INDEX idx_trades_counterparty_trade_date ON trades (counterparty_id, tradeDate DESC);
+CREATE INDEX idx_trades_instrument_trade_date ON trades (instrument, tradeDate);
+CREATE INDEX idx_trades_currency_trade_date ON trades (currency, tradeDate);
+CREATE INDEX idx_trades_settlement_date ON trades (settlementDate);
+
+-- Default listing order and keyset pagination: tradeDate DESC, createdAt DESC, id DESC
+CREATE INDEX idx_trades_keyset ON trades (tradeDate DESC, createdAt DESC, id DESC);
+
+-- Trades are appended roughly in tradeDate order, so a BRIN index answers wide date-range scans
+-- (exports, reports) at a fraction of the size of a B-tree
+CREATE INDEX idx_trades_trade_date_brin ON trades USING BRIN (tradeDate);
+
+-- Counterparties: keyset listing by name, status/type lookups
+CREATE INDEX idx_counterparties_name_id ON counterparties (name, id);
+CREATE INDEX idx_counterparties_status ON counterparties (status);
+CREATE INDEX idx_counterparties_type ON counterparties (type);
+
+-- Case-insensitive name search: LOWER(name) LIKE LOWER(?)
+-- text_pattern_ops serves prefix matches regardless of collation; the trigram index serves '%term%'
+CREATE INDEX idx_counterparties_lower_name ON counterparties (LOWER(name) text_pattern_ops);
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX idx_counterparties_lower_name_trgm ON counterparties USING GIN (LOWER(name) gin_trgm_ops);
@@ -0,0 +1,22 @@
+-- Per-counterparty exposure cells maintained by CounterpartyExposureService alongside the trade writes.
+-- No foreign key to counterparties: the cells are derived data and are pruned by the reconciliation job.
+
+CREATE SEQUENCE counterpartyexposure_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE counterparty_exposures (
+    id              BIGINT         NOT NULL,
+    counterparty_id BIGINT         NOT NULL,
+    status          VARCHAR(255)   NOT NULL CHECK (status IN ('PENDING', 'CONFIRMED', 'SETTLED', 'CANCELLED', 'FAILED')),
+    currency        VARCHAR(3)     NOT NULL,
+    tradeCount      BIGINT         NOT NULL,
+    notional        NUMERIC(38, 8) NOT NULL,
+    updatedAt       TIMESTAMP(6)   NOT NULL,
+    CONSTRAINT pk_counterparty_exposures PRIMARY KEY (id),
+    CONSTRAINT uk_counterparty_exposures_cell UNIQUE (counterparty_id, status, currency)
+);
+
+-- Seed the cells from the existing trades
+INSERT INTO counterparty_exposures (id, counterparty_id, status, currency, tradeCount, notional, updatedAt)
+SELECT nextval('counterpartyexposure_seq'), counterparty_id, status, currency, COUNT(*), SUM(quantity * price), now()
+FROM trades
+GROUP BY counterparty_id, status, currency;
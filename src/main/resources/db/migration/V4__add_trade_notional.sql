@@ -0,0 +1,11 @@
+-- Stored notional (quantity * price), maintained by the Trade entity on insert and update.
+-- Replaces the computed quantity * price predicates, which no index could serve.
+
+ALTER TABLE trades ADD COLUMN notional NUMERIC(38, 8);
+
+UPDATE trades SET notional = quantity * price;
+
+ALTER TABLE trades ALTER COLUMN notional SET NOT NULL;
+
+-- Value thresholds (notional >= ?) and top-N by notional (ORDER BY notional DESC, read backwards)
+CREATE INDEX idx_trades_notional ON trades (notional);
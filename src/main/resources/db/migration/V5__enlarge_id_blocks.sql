@@ -0,0 +1,5 @@
+-- Trade and counterparty ids are handed out by the pooled-lo optimizer in blocks of trading.id.block-size,
+-- one sequence call per block. The sequence increment must equal that block size.
+-- Sequence values already returned are below the next block, so no id is reused.
+ALTER SEQUENCE counterparty_seq INCREMENT BY 1000;
+ALTER SEQUENCE trade_seq INCREMENT BY 1000;
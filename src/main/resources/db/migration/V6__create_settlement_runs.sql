@@ -0,0 +1,19 @@
+-- Settlement engine: due trades are selected by status and settlement date, and each business date's
+-- run keeps a checkpoint so an interrupted run resumes where it stopped.
+
+CREATE INDEX idx_trades_status_settlement_date ON trades (status, settlementDate);
+
+CREATE SEQUENCE settlementrun_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE settlement_runs (
+    id                BIGINT       NOT NULL,
+    businessDate      DATE         NOT NULL,
+    status            VARCHAR(255) NOT NULL CHECK (status IN ('RUNNING', 'COMPLETED')),
+    checkpointTradeId BIGINT       NOT NULL,
+    settledCount      BIGINT       NOT NULL,
+    startedAt         TIMESTAMP(6) NOT NULL,
+    updatedAt         TIMESTAMP(6) NOT NULL,
+    completedAt       TIMESTAMP(6),
+    CONSTRAINT pk_settlement_runs PRIMARY KEY (id),
+    CONSTRAINT uk_settlement_runs_business_date UNIQUE (businessDate)
+);
@@ -0,0 +1,14 @@
+-- Responses to requests sent with an Idempotency-Key header, replayed to retries until they expire.
+
+CREATE TABLE idempotency_keys (
+    id               VARCHAR(320)  NOT NULL,
+    requestHash      VARCHAR(64)   NOT NULL,
+    responseStatus   INTEGER       NOT NULL,
+    responseBody     VARCHAR(8192) NOT NULL,
+    responseLocation VARCHAR(512),
+    createdAt        TIMESTAMP(6)  NOT NULL,
+    expiresAt        TIMESTAMP(6)  NOT NULL,
+    CONSTRAINT pk_idempotency_keys PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_idempotency_keys_expires_at ON idempotency_keys (expiresAt);
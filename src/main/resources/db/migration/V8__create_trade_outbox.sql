@@ -0,0 +1,14 @@
+-- Transactional outbox: one row per trade change, inserted with the change and deleted once the relay has
+-- delivered it. Relays on several nodes claim disjoint batches in id order with FOR UPDATE SKIP LOCKED.
+-- Ids come from the pooled-lo optimizer like trades, so the increment must equal trading.id.block-size.
+
+CREATE SEQUENCE trade_outbox_seq START WITH 1 INCREMENT BY 1000;
+
+CREATE TABLE trade_outbox (
+    id        BIGINT        NOT NULL,
+    tradeId   BIGINT        NOT NULL,
+    eventType VARCHAR(255)  NOT NULL CHECK (eventType IN ('CREATED', 'UPDATED', 'DELETED', 'RESET')),
+    payload   VARCHAR(4000) NOT NULL,
+    createdAt TIMESTAMP(6)  NOT NULL,
+    CONSTRAINT pk_trade_outbox PRIMARY KEY (id)
+);
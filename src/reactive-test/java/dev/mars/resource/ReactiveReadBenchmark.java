@@ -0,0 +1,170 @@
+package dev.mars.resource;
+
+import dev.mars.domain.Counterparty;
+import dev.mars.domain.Trade;
+import dev.mars.repository.CounterpartyRepository;
+import dev.mars.repository.TradeRepository;
+import dev.mars.testcontainers.PostgreSQLTestResource;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads trades by id through the blocking endpoint and its reactive twin, on the same PostgreSQL
+ * Testcontainer, with the same number of concurrent requests in flight. Tagged so it only runs with
+ * {@code mvn test -Preactive,benchmark}.
+ */
+@QuarkusTest
+@TestProfile(ReactiveReadBenchmark.PostgreSQLProfile.class)
+@Tag("benchmark")
+class ReactiveReadBenchmark {
+
+    private static final int TRADES = 20_000;
+    private static final int BATCH = 5_000;
+    private static final int REQUESTS = 20_000;
+    private static final int CONCURRENCY = 256;
+
+    public static class PostgreSQLProfile implements QuarkusTestProfile {
+        @Override
+        public String getConfigProfile() {
+            return "testcontainers";
+        }
+
+        @Override
+        public List<TestResourceEntry> testResources() {
+            return List.of(new TestResourceEntry(PostgreSQLTestResource.class));
+        }
+    }
+
+    @Inject
+    TradeRepository tradeRepository;
+
+    @Inject
+    CounterpartyRepository counterpartyRepository;
+
+    @Inject
+    EntityManager entityManager;
+
+    @TestHTTPResource("/api")
+    URL api;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @Test
+    void benchmarkBlockingAgainstReactiveReads() {
+        List<Long> ids = seed();
+
+        System.out.printf("%n%-10s %12s %10s %10s %10s%n", "path", "req/s", "p50 (ms)", "p99 (ms)", "max (ms)");
+        for (String path : new String[]{"/trades/", "/reactive/trades/", "/trades/", "/reactive/trades/"}) {
+            // The first round of each path warms it up; the second is reported
+            Result result = run(path, ids);
+            System.out.printf("%-10s %12.0f %10.2f %10.2f %10.2f%n", path.startsWith("/reactive") ? "reactive" : "blocking",
+                    result.throughput, result.percentile(50), result.percentile(99), result.percentile(100));
+            assertEquals(0, result.errors, "non-200 responses on " + path);
+        }
+    }
+
+    private List<Long> seed() {
+        Long counterpartyId = QuarkusTransaction.requiringNew().call(() -> {
+            Counterparty counterparty = new Counterparty();
+            counterparty.code = "RBM001";
+            counterparty.name = "Reactive Benchmark Counterparty";
+            counterparty.type = Counterparty.CounterpartyType.INSTITUTIONAL;
+            counterparty.status = Counterparty.CounterpartyStatus.ACTIVE;
+            counterpartyRepository.persist(counterparty);
+            return counterparty.id;
+        });
+        List<Long> ids = new ArrayList<>(TRADES);
+        for (int start = 0; start < TRADES; start += BATCH) {
+            int from = start;
+            ids.addAll(QuarkusTransaction.requiringNew().timeout(600).call(() -> {
+                List<Long> batch = new ArrayList<>(BATCH);
+                for (int i = from; i < from + BATCH; i++) {
+                    Trade trade = new Trade();
+                    trade.tradeReference = "RBM-" + i;
+                    trade.counterparty = entityManager.getReference(Counterparty.class, counterpartyId);
+                    trade.instrument = "AAPL";
+                    trade.tradeType = i % 2 == 0 ? Trade.TradeType.BUY : Trade.TradeType.SELL;
+                    trade.quantity = new BigDecimal("100");
+                    trade.price = new BigDecimal("150.25");
+                    trade.tradeDate = LocalDate.now();
+                    trade.settlementDate = LocalDate.now().plusDays(2);
+                    trade.currency = "USD";
+                    tradeRepository.persist(trade);
+                    batch.add(trade.id);
+                }
+                entityManager.flush();
+                entityManager.clear();
+                return batch;
+            }));
+        }
+        return ids;
+    }
+
+    private Result run(String path, List<Long> ids) {
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        long[] latencies = new long[REQUESTS];
+        AtomicInteger errors = new AtomicInteger();
+        List<CompletableFuture<?>> pending = new ArrayList<>(REQUESTS);
+        long started = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            Long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+            HttpRequest request = HttpRequest.newBuilder(URI.create(api + path + id)).GET().build();
+            inFlight.acquireUninterruptibly();
+            int slot = i;
+            long sent = System.nanoTime();
+            pending.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        latencies[slot] = System.nanoTime() - sent;
+                        if (error != null || response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                        inFlight.release();
+                    }));
+        }
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+        long elapsed = System.nanoTime() - started;
+        return new Result(REQUESTS / (elapsed / 1_000_000_000.0), latencies, errors.get());
+    }
+
+    private static final class Result {
+        final double throughput;
+        final long[] latencies;
+        final int errors;
+
+        Result(double throughput, long[] latencies, int errors) {
+            this.throughput = throughput;
+            this.latencies = latencies.clone();
+            this.errors = errors;
+            Arrays.sort(this.latencies);
+        }
+
+        double percentile(int percent) {
+            int index = Math.min(latencies.length - 1, (int) Math.ceil(percent / 100.0 * latencies.length) - 1);
+            return latencies[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package dev.mars.repository;
+
+import dev.mars.domain.Trade;
+import dev.mars.dto.TradeDto;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+
+/**
+ * Non-blocking counterpart of the {@link TradeRepository} DTO finders, on the Vert.x PostgreSQL client.
+ * Queries return {@link Uni}/{@link Multi} and never occupy a worker thread while the database works.
+ * <p>
+ * The pool only exists when the datasource is PostgreSQL, so it is looked up on first use rather than
+ * injected directly; the H2 dev and test profiles still start with the reactive build.
+ */
+@ApplicationScoped
+public class ReactiveTradeRepository {
+
+    private static final String DTO_SELECT = "SELECT t.id, t.tradeReference, c.id, c.name, c.code, t.instrument, "
+            + "t.tradeType, t.quantity, t.price, t.notional, t.tradeDate, t.settlementDate, t.currency, t.status, "
+            + "t.notes, t.createdAt, t.updatedAt "
+            + "FROM trades t JOIN counterparties c ON c.id = t.counterparty_id";
+
+    @Inject
+    Instance<Pool> pool;
+
+    public Uni<TradeDto> findDtoById(Long id) {
+        return client().preparedQuery(DTO_SELECT + " WHERE t.id = $1")
+                .execute(Tuple.of(id))
+                .map(ReactiveTradeRepository::firstOrNull);
+    }
+
+    public Uni<TradeDto> findDtoByTradeReference(String tradeReference) {
+        return client().preparedQuery(DTO_SELECT + " WHERE t.tradeReference = $1")
+                .execute(Tuple.of(tradeReference))
+                .map(ReactiveTradeRepository::firstOrNull);
+    }
+
+    public Multi<TradeDto> findDtosByCounterpartyId(Long counterpartyId) {
+        return client().preparedQuery(DTO_SELECT + " WHERE t.counterparty_id = $1 ORDER BY t.id")
+                .execute(Tuple.of(counterpartyId))
+                .onItem().transformToMulti(rows -> Multi.createFrom().iterable(rows))
+                .map(ReactiveTradeRepository::toDto);
+    }
+
+    public Uni<Long> countByStatus(Trade.TradeStatus status) {
+        return client().preparedQuery("SELECT COUNT(*) FROM trades WHERE status = $1")
+                .execute(Tuple.of(status.name()))
+                .map(rows -> rows.iterator().next().getLong(0));
+    }
+
+    private Pool client() {
+        if (!pool.isResolvable()) {
+            throw new IllegalStateException("The reactive read path needs a PostgreSQL datasource");
+        }
+        return pool.get();
+    }
+
+    private static TradeDto firstOrNull(RowSet<Row> rows) {
+        return rows.iterator().hasNext() ? toDto(rows.iterator().next()) : null;
+    }
+
+    // Columns by position, in DTO_SELECT order
+    private static TradeDto toDto(Row row) {
+        return new TradeDto(row.getLong(0), row.getString(1), row.getLong(2), row.getString(3), row.getString(4),
+                row.getString(5), Trade.TradeType.valueOf(row.getString(6)),
+                row.getBigDecimal(7), row.getBigDecimal(8), row.getBigDecimal(9),
+                row.getLocalDate(10), row.getLocalDate(11), row.getString(12),
+                Trade.TradeStatus.valueOf(row.getString(13)), row.getString(14),
+                row.getLocalDateTime(15), row.getLocalDateTime(16));
+    }
+}
@@ -0,0 +1,63 @@
+package dev.mars.resource;
+
+import dev.mars.domain.Trade;
+import dev.mars.dto.TradeDto;
+import dev.mars.service.ReactiveTradeService;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.jboss.logging.Logger;
+
+import java.util.Map;
+
+/**
+ * Reactive variants of the trade read endpoints. Returning {@link Uni}/{@link Multi} keeps the handlers
+ * on the Vert.x event loop, so a burst of reads waits on database connections rather than worker threads.
+ */
+@Path("/api/reactive/trades")
+@Produces(MediaType.APPLICATION_JSON)
+public class ReactiveTradeResource {
+
+    private static final Logger LOG = Logger.getLogger(ReactiveTradeResource.class);
+
+    @Inject
+    ReactiveTradeService reactiveTradeService;
+
+    @GET
+    @Path("/{id}")
+    public Uni<Response> getTradeById(@PathParam("id") Long id) {
+        LOG.debugf("GET /api/reactive/trades/%d", id);
+        return reactiveTradeService.getTradeById(id).map(ReactiveTradeResource::okOrNotFound);
+    }
+
+    @GET
+    @Path("/reference/{reference}")
+    public Uni<Response> getTradeByReference(@PathParam("reference") String reference) {
+        LOG.debugf("GET /api/reactive/trades/reference/%s", reference);
+        return reactiveTradeService.getTradeByReference(reference).map(ReactiveTradeResource::okOrNotFound);
+    }
+
+    @GET
+    @Path("/counterparty/{counterpartyId}")
+    public Multi<TradeDto> getTradesByCounterparty(@PathParam("counterpartyId") Long counterpartyId) {
+        LOG.debugf("GET /api/reactive/trades/counterparty/%d", counterpartyId);
+        return reactiveTradeService.getTradesByCounterpartyId(counterpartyId);
+    }
+
+    @GET
+    @Path("/stats/count")
+    public Uni<Map<String, Long>> getTradeCountByStatus(@QueryParam("status") Trade.TradeStatus status) {
+        return reactiveTradeService.getTradeCountByStatus(status).map(count -> Map.of("count", count));
+    }
+
+    private static Response okOrNotFound(TradeDto trade) {
+        return trade != null ? Response.ok(trade).build() : Response.status(Response.Status.NOT_FOUND).build();
+    }
+}
@@ -0,0 +1,47 @@
+package dev.mars.service;
+
+import dev.mars.domain.Trade;
+import dev.mars.dto.TradeDto;
+import dev.mars.exception.BusinessException;
+import dev.mars.repository.ReactiveTradeRepository;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+/**
+ * Read side of {@link TradeService} on the reactive client. Writes stay on the blocking path: exposure
+ * cells, the statistics ledger, the counterparty cache and the trade reference filter are all maintained
+ * from JTA transactional events that a reactive transaction would not fire.
+ */
+@ApplicationScoped
+public class ReactiveTradeService {
+
+    private static final Logger LOG = Logger.getLogger(ReactiveTradeService.class);
+
+    @Inject
+    ReactiveTradeRepository reactiveTradeRepository;
+
+    public Uni<TradeDto> getTradeById(Long id) {
+        LOG.debugf("Fetching trade with id: %d (reactive)", id);
+        return reactiveTradeRepository.findDtoById(id);
+    }
+
+    public Uni<TradeDto> getTradeByReference(String tradeReference) {
+        LOG.debugf("Fetching trade with reference: %s (reactive)", tradeReference);
+        return reactiveTradeRepository.findDtoByTradeReference(tradeReference);
+    }
+
+    public Multi<TradeDto> getTradesByCounterpartyId(Long counterpartyId) {
+        LOG.debugf("Fetching trades for counterparty id: %d (reactive)", counterpartyId);
+        return reactiveTradeRepository.findDtosByCounterpartyId(counterpartyId);
+    }
+
+    public Uni<Long> getTradeCountByStatus(Trade.TradeStatus status) {
+        if (status == null) {
+            return Uni.createFrom().failure(new BusinessException("Status is required"));
+        }
+        return reactiveTradeRepository.countByStatus(status);
+    }
+}
@@ -0,0 +1,96 @@
+package dev.mars;
+
+import dev.mars.domain.Counterparty;
+import dev.mars.domain.Trade;
+import dev.mars.dto.CreateTradeRequest;
+import dev.mars.repository.CounterpartyExposureRepository;
+import dev.mars.repository.CounterpartyRepository;
+import dev.mars.repository.IdempotencyRecordRepository;
+import dev.mars.repository.OutboxEventRepository;
+import dev.mars.repository.SettlementRunRepository;
+import dev.mars.repository.TradeRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Fixtures shared by the service tests: a clean database with one active counterparty, and trade requests
+ * against it. A new table only has to be added to {@link #deleteAll()}.
+ */
+@ApplicationScoped
+public class TestData {
+
+    @Inject
+    OutboxEventRepository outboxEventRepository;
+
+    @Inject
+    IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Inject
+    SettlementRunRepository settlementRunRepository;
+
+    @Inject
+    TradeRepository tradeRepository;
+
+    @Inject
+    CounterpartyExposureRepository counterpartyExposureRepository;
+
+    @Inject
+    CounterpartyRepository counterpartyRepository;
+
+    /**
+     * Deletes every row in one new transaction, children before their parents. The bulk deletes raise no
+     * change events, so in-memory views built from them need rebuilding afterwards.
+     */
+    public void deleteAll() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            outboxEventRepository.deleteAll();
+            idempotencyRecordRepository.deleteAll();
+            settlementRunRepository.deleteAll();
+            tradeRepository.deleteAll();
+            counterpartyExposureRepository.deleteAll();
+            counterpartyRepository.deleteAll();
+        });
+    }
+
+    /**
+     * {@link #deleteAll()}, then one ACTIVE counterparty; returns its id.
+     */
+    public Long resetWithCounterparty(String code, String name, Counterparty.CounterpartyType type) {
+        deleteAll();
+        return QuarkusTransaction.requiringNew().call(() -> {
+            Counterparty counterparty = new Counterparty();
+            counterparty.code = code;
+            counterparty.name = name;
+            counterparty.type = type;
+            counterparty.status = Counterparty.CounterpartyStatus.ACTIVE;
+            counterpartyRepository.persist(counterparty);
+            return counterparty.id;
+        });
+    }
+
+    /**
+     * A BUY traded today and settling in two days.
+     */
+    public static CreateTradeRequest tradeRequest(Long counterpartyId, String reference, String instrument,
+                                                  String currency, String quantity, String price) {
+        CreateTradeRequest request = new CreateTradeRequest();
+        request.tradeReference = reference;
+        request.counterpartyId = counterpartyId;
+        request.instrument = instrument;
+        request.tradeType = Trade.TradeType.BUY;
+        request.quantity = new BigDecimal(quantity);
+        request.price = new BigDecimal(price);
+        request.tradeDate = LocalDate.now();
+        request.settlementDate = LocalDate.now().plusDays(2);
+        request.currency = currency;
+        return request;
+    }
+
+    public static CreateTradeRequest tradeRequest(Long counterpartyId, String reference, String instrument) {
+        return tradeRequest(counterpartyId, reference, instrument, "USD", "10", "100");
+    }
+}
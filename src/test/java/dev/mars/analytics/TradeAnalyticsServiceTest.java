@@ -0,0 +1,172 @@
+package dev.mars.analytics;
+
+import dev.mars.TestData;
+import dev.mars.domain.Counterparty;
+import dev.mars.domain.Trade;
+import dev.mars.dto.TradeAnalyticsGroup;
+import dev.mars.dto.TradeAnalyticsResult;
+import dev.mars.event.TradeChange;
+import dev.mars.event.TradeSnapshot;
+import dev.mars.repository.TradeFilter;
+import dev.mars.service.TradeService;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class TradeAnalyticsServiceTest {
+
+    @Inject
+    TradeAnalyticsService tradeAnalyticsService;
+
+    @Inject
+    TradeService tradeService;
+
+    @Inject
+    TestData testData;
+
+    private Long counterpartyId;
+
+    @BeforeEach
+    void setUp() {
+        counterpartyId = testData.resetWithCounterparty("ANALYTICS001", "Analytics Counterparty",
+                Counterparty.CounterpartyType.INSTITUTIONAL);
+        // The reset deletes in bulk, bypassing the change events, so start from what the database holds
+        tradeAnalyticsService.rebuild();
+    }
+
+    @Test
+    void testGroupsByInstrumentAndCurrency() {
+        create("AN-1", "AAPL", "USD", "10", "100.5");
+        create("AN-2", "AAPL", "USD", "30", "99.5");
+        create("AN-3", "AAPL", "EUR", "5", "90");
+        create("AN-4", "MSFT", "USD", "2", "300");
+
+        TradeAnalyticsResult result = tradeAnalyticsService.query(TradeFilter.all(),
+                TradeDimension.parse("instrument,currency"), 10);
+        assertEquals(List.of("instrument", "currency"), result.groupBy);
+        assertEquals(4, result.tradesMatched);
+        assertEquals(3, result.totalGroups);
+        assertTrue(result.partitions > 1);
+
+        // Largest notional first: 1005 + 2985 for AAPL/USD
+        TradeAnalyticsGroup first = result.groups.get(0);
+        assertEquals("AAPL", first.instrument);
+        assertEquals("USD", first.currency);
+        assertNull(first.status);
+        assertEquals(2, first.count);
+        assertEquals(0, new BigDecimal("40").compareTo(first.quantity));
+        assertEquals(0, new BigDecimal("3990").compareTo(first.notional));
+        assertEquals(0, new BigDecimal("99.75").compareTo(first.averagePrice));
+        assertEquals("MSFT", result.groups.get(1).instrument);
+        assertEquals("EUR", result.groups.get(2).currency);
+
+        assertEquals(1, tradeAnalyticsService.query(TradeFilter.all(), TradeDimension.parse("instrument"), 1)
+                .groups.size());
+    }
+
+    @Test
+    void testFollowsCommittedChanges() {
+        Long first = create("AN-10", "AAPL", "USD", "10", "100");
+        Long second = create("AN-11", "AAPL", "USD", "10", "100");
+
+        tradeService.updateTradeStatus(first, Trade.TradeStatus.CONFIRMED);
+        tradeService.deleteTrade(second);
+
+        TradeAnalyticsResult byStatus = tradeAnalyticsService.query(TradeFilter.all(),
+                TradeDimension.parse("status"), 10);
+        assertEquals(1, byStatus.tradesMatched);
+        assertEquals(Trade.TradeStatus.CONFIRMED, byStatus.groups.get(0).status);
+
+        // A reload agrees with what was applied incrementally
+        tradeAnalyticsService.rebuild();
+        assertEquals(1, tradeAnalyticsService.query(TradeFilter.all(), List.of(), 10).tradesMatched);
+    }
+
+    @Test
+    void testFiltersOnDictionaryAndRangeColumns() {
+        create("AN-20", "AAPL", "USD", "10", "100");
+        create("AN-21", "MSFT", "USD", "10", "20");
+
+        TradeAnalyticsResult total = tradeAnalyticsService.query(TradeFilter.all().minValue(new BigDecimal("500")),
+                List.of(), 10);
+        assertEquals(1, total.tradesMatched);
+        assertEquals(0, new BigDecimal("1000").compareTo(total.groups.get(0).notional));
+
+        TradeFilter unknownInstrument = TradeFilter.all().instrument("NOPE");
+        assertEquals(0, tradeAnalyticsService.query(unknownInstrument, List.of(), 10).tradesMatched);
+
+        TradeFilter future = TradeFilter.all().tradeDateBetween(LocalDate.now().plusDays(1), null);
+        assertTrue(tradeAnalyticsService.query(future, List.of(), 10).groups.isEmpty());
+
+        assertThrows(IllegalArgumentException.class, () -> TradeDimension.parse("instrument,colour"));
+    }
+
+    @Test
+    void testNotionalKeepsItsColumnScale() {
+        // 0.5 x 100.0001 = 50.00005, which four decimals would round
+        create("AN-25", "FINE", "USD", "0.5", "100.0001");
+
+        TradeAnalyticsGroup fine = tradeAnalyticsService.query(TradeFilter.all().instrument("FINE"),
+                TradeDimension.parse("instrument"), 10).groups.get(0);
+        assertEquals(0, new BigDecimal("50.00005").compareTo(fine.notional));
+
+        // The same answers as notional >= :minValue in SQL
+        TradeFilter atNotional = TradeFilter.all().instrument("FINE").minValue(new BigDecimal("50.00005"));
+        assertEquals(1, tradeAnalyticsService.query(atNotional, List.of(), 10).tradesMatched);
+        TradeFilter aboveNotional = TradeFilter.all().instrument("FINE").minValue(new BigDecimal("50.000050001"));
+        assertEquals(0, tradeAnalyticsService.query(aboveNotional, List.of(), 10).tradesMatched);
+    }
+
+    @Test
+    void testTotalsBeyondTheLongRange() {
+        // Each notional is beyond a scaled long, and the two quantities together are too
+        create("AN-30", "HUGE", "USD", "900000000000000", "10");
+        create("AN-31", "HUGE", "USD", "900000000000000", "10");
+
+        TradeAnalyticsGroup huge = tradeAnalyticsService.query(TradeFilter.all().instrument("HUGE"),
+                TradeDimension.parse("instrument"), 10).groups.get(0);
+        assertEquals(2, huge.count);
+        assertEquals(0, new BigDecimal("1800000000000000").compareTo(huge.quantity));
+        assertEquals(0, new BigDecimal("18000000000000000").compareTo(huge.notional));
+        assertEquals(0, new BigDecimal("10").compareTo(huge.averagePrice));
+
+        TradeFilter atNotional = TradeFilter.all().minValue(new BigDecimal("9000000000000000"));
+        assertEquals(2, tradeAnalyticsService.query(atNotional, List.of(), 10).tradesMatched);
+        TradeFilter aboveNotional = TradeFilter.all().minValue(new BigDecimal("9000000000000000.0001"));
+        assertEquals(0, tradeAnalyticsService.query(aboveNotional, List.of(), 10).tradesMatched);
+    }
+
+    @Test
+    void testChangeThatCannotBeStoredLeavesTheBatchUnapplied() {
+        TradeColumnStore store = new TradeColumnStore();
+        TradeSnapshot valid = snapshot(1L, Trade.TradeStatus.PENDING);
+        TradeSnapshot invalid = snapshot(2L, null);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> store.apply(List.of(new TradeChange(null, valid), new TradeChange(null, invalid))));
+        assertEquals(0, store.size());
+
+        store.apply(List.of(new TradeChange(null, valid)));
+        assertEquals(1, store.size());
+    }
+
+    private TradeSnapshot snapshot(Long id, Trade.TradeStatus status) {
+        return new TradeSnapshot(id, "AN-S" + id, counterpartyId, "AAPL", Trade.TradeType.BUY, status, "USD",
+                new BigDecimal("10"), new BigDecimal("100"), new BigDecimal("1000"),
+                LocalDate.now(), LocalDate.now().plusDays(2), LocalDateTime.now());
+    }
+
+    private Long create(String reference, String instrument, String currency, String quantity, String price) {
+        return tradeService.createTrade(
+                TestData.tradeRequest(counterpartyId, reference, instrument, currency, quantity, price)).id;
+    }
+}
@@ -0,0 +1,65 @@
+package dev.mars.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeIdsTest {
+
+    @Test
+    void testIdsCarryTimestampAndNode() {
+        long now = System.currentTimeMillis();
+        long id = new SnowflakeIds(42, () -> now).next();
+
+        assertEquals(now, SnowflakeIds.epochMillisOf(id));
+        assertEquals(42, SnowflakeIds.nodeIdOf(id));
+    }
+
+    @Test
+    void testIdsIncreaseEvenWhenClockStallsOrGoesBack() {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        SnowflakeIds ids = new SnowflakeIds(1, clock::get);
+
+        long previous = ids.next();
+        // More ids than fit in one millisecond, then the clock steps back
+        for (int i = 0; i < 10_000; i++) {
+            if (i == 5_000) {
+                clock.addAndGet(-1_000);
+            }
+            long next = ids.next();
+            assertTrue(next > previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void testIdsAreUniqueAcrossThreads() throws InterruptedException {
+        SnowflakeIds ids = new SnowflakeIds(7);
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int thread = 0; thread < 4; thread++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 25_000; i++) {
+                    seen.add(ids.next());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(100_000, seen.size());
+    }
+
+    @Test
+    void testNodeIdMustFitInTenBits() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIds(SnowflakeIds.MAX_NODE_ID + 1));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIds(-1));
+    }
+}
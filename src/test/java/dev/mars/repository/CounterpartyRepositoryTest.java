@@ -43,6 +43,26 @@ class CounterpartyRepositoryTest {
         assertEquals("Test Bank", found.get().name);
     }
 
+    @Test
+    @Transactional
+    void testIdsAreAssignedInIncreasingOrderFromMemory() {
+        // Given
+        Counterparty first = createTestCounterparty("ORDER001", "First Bank");
+        Counterparty second = createTestCounterparty("ORDER002", "Second Bank");
+        Counterparty third = createTestCounterparty("ORDER003", "Third Bank");
+
+        // When
+        counterpartyRepository.persist(first);
+        counterpartyRepository.persist(second);
+        counterpartyRepository.persist(third);
+
+        // Then
+        assertTrue(first.id < second.id);
+        assertTrue(second.id < third.id);
+        // pooled-lo hands out contiguous blocks from memory, so one node's ids are consecutive
+        assertEquals(2, third.id - first.id);
+    }
+
     @Test
     @Transactional
     void testFindByCode() {
@@ -2,6 +2,8 @@ package dev.mars.repository;
 
 import dev.mars.domain.Counterparty;
 import dev.mars.domain.Trade;
+import dev.mars.dto.TradeDto;
+import io.quarkus.panache.common.Sort;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
@@ -265,6 +267,140 @@ class TradeRepositoryTest {
         assertEquals(0, new BigDecimal("115000.00").compareTo(totalValue));
     }
 
+    @Test
+    @Transactional
+    void testFindAllAfterWalksKeysetPages() {
+        // Given
+        Trade older = createTestTrade("TRD-001", "AAPL");
+        older.tradeDate = LocalDate.now().minusDays(2);
+        tradeRepository.persist(older);
+
+        Trade middle = createTestTrade("TRD-002", "GOOGL");
+        middle.tradeDate = LocalDate.now().minusDays(1);
+        tradeRepository.persist(middle);
+
+        Trade newest = createTestTrade("TRD-003", "MSFT");
+        tradeRepository.persist(newest);
+        tradeRepository.flush();
+
+        // When
+        List<TradeDto> firstPage = tradeRepository.findDtosByFilterAfter(TradeFilter.all(), null, 2);
+        List<TradeDto> secondPage = tradeRepository.findDtosByFilterAfter(TradeFilter.all(), TradeCursor.of(firstPage.get(1)), 2);
+
+        // Then
+        assertEquals(2, firstPage.size());
+        assertEquals("TRD-003", firstPage.get(0).tradeReference);
+        assertEquals("TRD-002", firstPage.get(1).tradeReference);
+        assertEquals(1, secondPage.size());
+        assertEquals("TRD-001", secondPage.get(0).tradeReference);
+    }
+
+    @Test
+    @Transactional
+    void testFindByFilterAfterOnlyReturnsMatchingStatus() {
+        // Given
+        Trade pending = createTestTrade("TRD-001", "AAPL");
+        tradeRepository.persist(pending);
+
+        Trade confirmed = createTestTrade("TRD-002", "GOOGL");
+        confirmed.status = Trade.TradeStatus.CONFIRMED;
+        tradeRepository.persist(confirmed);
+        tradeRepository.flush();
+
+        // When
+        List<TradeDto> result = tradeRepository.findDtosByFilterAfter(
+                TradeFilter.all().status(Trade.TradeStatus.CONFIRMED), null, 10);
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals("TRD-002", result.get(0).tradeReference);
+    }
+
+    @Test
+    @Transactional
+    void testFindByFilterCombinesCriteria() {
+        // Given
+        Trade match = createTestTrade("TRD-001", "AAPL");
+        match.currency = "EUR";
+        match.quantity = new BigDecimal("1000");
+        tradeRepository.persist(match);
+
+        Trade wrongCurrency = createTestTrade("TRD-002", "AAPL");
+        wrongCurrency.quantity = new BigDecimal("1000");
+        tradeRepository.persist(wrongCurrency);
+
+        Trade tooSmall = createTestTrade("TRD-003", "AAPL");
+        tooSmall.currency = "EUR";
+        tooSmall.quantity = new BigDecimal("1");
+        tradeRepository.persist(tooSmall);
+
+        Trade otherInstrument = createTestTrade("TRD-004", "MSFT");
+        otherInstrument.currency = "EUR";
+        otherInstrument.quantity = new BigDecimal("1000");
+        tradeRepository.persist(otherInstrument);
+
+        // When
+        TradeFilter filter = TradeFilter.all()
+                .counterpartyId(testCounterparty.id)
+                .instrument("AAPL")
+                .currency("EUR")
+                .minValue(new BigDecimal("10000"))
+                .tradeDateBetween(LocalDate.now().minusDays(1), LocalDate.now());
+        List<TradeDto> result = tradeRepository.findDtosByFilter(filter, TradeRepository.sortOf("tradeReference,asc"), 0, 10);
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals("TRD-001", result.get(0).tradeReference);
+    }
+
+    @Test
+    @Transactional
+    void testNotionalIsStoredAndMaintained() {
+        // Given
+        Trade trade = createTestTrade("TRD-NOT-001", "AAPL");
+        tradeRepository.persist(trade);
+        assertEquals(0, new BigDecimal("15000").compareTo(trade.notional));
+
+        // When
+        trade.quantity = new BigDecimal("200");
+        tradeRepository.flush();
+
+        // Then
+        assertEquals(0, new BigDecimal("30000").compareTo(trade.notional));
+        assertEquals(1, tradeRepository.findTradesAboveValue(new BigDecimal("20000")).size());
+    }
+
+    @Test
+    @Transactional
+    void testFindTopDtosByNotional() {
+        // Given
+        for (int i = 1; i <= 4; i++) {
+            Trade trade = createTestTrade("TRD-TOP-00" + i, "AAPL");
+            trade.quantity = new BigDecimal(i * 10);
+            tradeRepository.persist(trade);
+        }
+
+        // When
+        List<TradeDto> top = tradeRepository.findTopDtosByNotional(TradeFilter.all(), 2);
+
+        // Then
+        assertEquals(2, top.size());
+        assertEquals("TRD-TOP-004", top.get(0).tradeReference);
+        assertEquals("TRD-TOP-003", top.get(1).tradeReference);
+        assertEquals(0, new BigDecimal("6000").compareTo(top.get(0).totalValue));
+    }
+
+    @Test
+    void testDefaultSortEndsWithIdTieBreaker() {
+        List<Sort.Column> columns = TradeRepository.sortOf(null).getColumns();
+        assertEquals(List.of("tradeDate", "createdAt", "id"), columns.stream().map(Sort.Column::getName).toList());
+    }
+
+    @Test
+    void testSortOfRejectsUnknownField() {
+        assertThrows(IllegalArgumentException.class, () -> TradeRepository.sortOf("notes,asc"));
+    }
+
     private Trade createTestTrade(String reference, String instrument) {
         Trade trade = new Trade();
         trade.tradeReference = reference;
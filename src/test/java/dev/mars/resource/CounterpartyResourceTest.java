@@ -3,6 +3,7 @@ package dev.mars.resource;
 import dev.mars.domain.Counterparty;
 import dev.mars.dto.CreateCounterpartyRequest;
 import dev.mars.repository.CounterpartyRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.http.ContentType;
 import jakarta.inject.Inject;
@@ -10,6 +11,9 @@ import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDateTime;
+import java.util.UUID;
+
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
 
@@ -154,6 +158,36 @@ class CounterpartyResourceTest {
                 .body("message", containsString("already exists"));
     }
 
+    @Test
+    void testCreateCounterpartyRetryWithIdempotencyKey() {
+        CreateCounterpartyRequest request = CounterpartyRequestBuilder.builder()
+                .name("Retry Bank")
+                .code("RETRY001")
+                .type(Counterparty.CounterpartyType.INSTITUTIONAL)
+                .build();
+        String key = UUID.randomUUID().toString();
+
+        Integer id = given()
+                .contentType(ContentType.JSON)
+                .header("Idempotency-Key", key)
+                .body(request)
+                .when().post("/api/counterparties")
+                .then()
+                .statusCode(201)
+                .extract().path("id");
+
+        given()
+                .contentType(ContentType.JSON)
+                .header("Idempotency-Key", key)
+                .body(request)
+                .when().post("/api/counterparties")
+                .then()
+                .statusCode(201)
+                .header("Idempotent-Replayed", "true")
+                .body("id", equalTo(id))
+                .body("code", equalTo("RETRY001"));
+    }
+
     @Test
     void testGetCounterpartyById() {
         // Create a counterparty first
@@ -180,6 +214,81 @@ class CounterpartyResourceTest {
                 .body("code", equalTo("TEST001"));
     }
 
+    @Test
+    void testConditionalGetCounterparty() {
+        CreateCounterpartyRequest request = CounterpartyRequestBuilder.builder()
+                .name("Etag Bank")
+                .code("ETAG001")
+                .build();
+        Integer id = given()
+                .contentType(ContentType.JSON)
+                .body(request)
+                .when().post("/api/counterparties")
+                .then()
+                .statusCode(201)
+                .extract().path("id");
+
+        String etag = given()
+                .when().get("/api/counterparties/" + id)
+                .then()
+                .statusCode(200)
+                .extract().header("ETag");
+
+        given()
+                .header("If-None-Match", etag)
+                .when().get("/api/counterparties/" + id)
+                .then()
+                .statusCode(304);
+
+        request.name = "Etag Bank Renamed";
+        given()
+                .contentType(ContentType.JSON)
+                .body(request)
+                .when().put("/api/counterparties/" + id)
+                .then()
+                .statusCode(200);
+
+        given()
+                .header("If-None-Match", etag)
+                .when().get("/api/counterparties/" + id)
+                .then()
+                .statusCode(200)
+                .body("name", equalTo("Etag Bank Renamed"));
+    }
+
+    @Test
+    void testConditionalGetCounterpartySeesChangesTheCacheMissed() {
+        CreateCounterpartyRequest request = CounterpartyRequestBuilder.builder()
+                .name("Remote Bank")
+                .code("ETAG002")
+                .build();
+        Integer id = given()
+                .contentType(ContentType.JSON)
+                .body(request)
+                .when().post("/api/counterparties")
+                .then()
+                .statusCode(201)
+                .extract().path("id");
+
+        String etag = given()
+                .when().get("/api/counterparties/" + id)
+                .then()
+                .statusCode(200)
+                .extract().header("ETag");
+
+        // As if renamed on another node: the row changes without an event reaching this node's cache
+        QuarkusTransaction.requiringNew().run(() -> counterpartyRepository.update(
+                "name = ?1, updatedAt = ?2 where id = ?3", "Remote Bank Renamed", LocalDateTime.now().plusSeconds(1), id.longValue()));
+
+        given()
+                .header("If-None-Match", etag)
+                .when().get("/api/counterparties/" + id)
+                .then()
+                .statusCode(200)
+                .header("ETag", not(equalTo(etag)))
+                .body("name", equalTo("Remote Bank Renamed"));
+    }
+
     @Test
     void testGetCounterpartyByIdNotFound() {
         given()
@@ -479,6 +588,121 @@ class CounterpartyResourceTest {
                 .statusCode(200)
                 .body("size()", is(1))
                 .body("[0].code", equalTo("BANK001"));
+
+        // Any substring of the name, however short, and not the code; every match regardless of page size
+        given()
+                .queryParam("search", "an")
+                .queryParam("size", 1)
+                .when().get("/api/counterparties")
+                .then()
+                .statusCode(200)
+                .body("size()", is(2));
+
+        given()
+                .queryParam("search", "CORP001")
+                .when().get("/api/counterparties")
+                .then()
+                .statusCode(200)
+                .body("size()", is(0));
+    }
+
+    @Test
+    void testCursorPagination() {
+        for (String name : new String[]{"Charlie Capital", "Alpha Advisors", "Bravo Brokers"}) {
+            given()
+                    .contentType(ContentType.JSON)
+                    .body(CounterpartyRequestBuilder.builder()
+                            .name(name)
+                            .code(name.substring(0, 3).toUpperCase() + "001")
+                            .build())
+                    .when().post("/api/counterparties")
+                    .then()
+                    .statusCode(201);
+        }
+
+        String nextCursor = given()
+                .queryParam("cursor", "")
+                .queryParam("size", 2)
+                .when().get("/api/counterparties")
+                .then()
+                .statusCode(200)
+                .body("items.size()", is(2))
+                .body("items[0].name", equalTo("Alpha Advisors"))
+                .body("items[1].name", equalTo("Bravo Brokers"))
+                .extract().path("nextCursor");
+
+        given()
+                .queryParam("cursor", nextCursor)
+                .queryParam("size", 2)
+                .when().get("/api/counterparties")
+                .then()
+                .statusCode(200)
+                .body("items.size()", is(1))
+                .body("items[0].name", equalTo("Charlie Capital"))
+                .body("nextCursor", nullValue());
+    }
+
+    @Test
+    void testSparseFieldsets() {
+        for (String name : new String[]{"Charlie Capital", "Alpha Advisors", "Bravo Brokers"}) {
+            given()
+                    .contentType(ContentType.JSON)
+                    .body(CounterpartyRequestBuilder.builder()
+                            .name(name)
+                            .code(name.substring(0, 3).toUpperCase() + "002")
+                            .build())
+                    .when().post("/api/counterparties")
+                    .then()
+                    .statusCode(201);
+        }
+
+        given()
+                .queryParam("fields", "code,tradeCount")
+                .when().get("/api/counterparties")
+                .then()
+                .statusCode(200)
+                .body("size()", is(3))
+                .body("[0].keySet()", containsInAnyOrder("code", "tradeCount"))
+                .body("[0].code", equalTo("CHA002"))
+                .body("[0].tradeCount", equalTo(0));
+
+        // name and id are read for the cursor but only the code is returned
+        String nextCursor = given()
+                .queryParam("fields", "code")
+                .queryParam("cursor", "")
+                .queryParam("size", 2)
+                .when().get("/api/counterparties")
+                .then()
+                .statusCode(200)
+                .body("items.size()", is(2))
+                .body("items[0].keySet()", contains("code"))
+                .body("items[0].code", equalTo("ALP002"))
+                .extract().path("nextCursor");
+
+        given()
+                .queryParam("fields", "code")
+                .queryParam("cursor", nextCursor)
+                .queryParam("size", 2)
+                .when().get("/api/counterparties")
+                .then()
+                .statusCode(200)
+                .body("items.size()", is(1))
+                .body("items[0].code", equalTo("CHA002"))
+                .body("nextCursor", nullValue());
+
+        given()
+                .queryParam("fields", "name")
+                .queryParam("search", "Bravo")
+                .when().get("/api/counterparties")
+                .then()
+                .statusCode(200)
+                .body("[0].name", equalTo("Bravo Brokers"));
+
+        given()
+                .queryParam("fields", "name,balance")
+                .when().get("/api/counterparties")
+                .then()
+                .statusCode(400);
     }
 
     private Counterparty createTestCounterparty(String code, String name) {
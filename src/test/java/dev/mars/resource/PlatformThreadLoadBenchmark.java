@@ -0,0 +1,154 @@
+package dev.mars.resource;
+
+import dev.mars.domain.Counterparty;
+import dev.mars.domain.Trade;
+import dev.mars.repository.CounterpartyExposureRepository;
+import dev.mars.repository.CounterpartyRepository;
+import dev.mars.repository.TradeRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives the trade listing endpoint with far more concurrent requests than worker threads, on the default
+ * worker-pool execution. {@link VirtualThreadLoadBenchmark} runs the same load with the resources built
+ * for virtual threads; compare the two tables. Tagged so it only runs with {@code mvn test -Pbenchmark}.
+ */
+@QuarkusTest
+@TestProfile(PlatformThreadLoadBenchmark.PlatformThreadProfile.class)
+@Tag("benchmark")
+class PlatformThreadLoadBenchmark {
+
+    private static final int TRADES = 10_000;
+    private static final int REQUESTS = 10_000;
+    private static final int[] CONCURRENCY = {16, 64, 256};
+
+    // A small worker pool and a larger connection pool, so threads rather than connections are the limit
+    public static class PlatformThreadProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("quarkus.thread-pool.max-threads", "16",
+                    "quarkus.datasource.jdbc.max-size", "64");
+        }
+    }
+
+    @Inject
+    TradeRepository tradeRepository;
+
+    @Inject
+    CounterpartyRepository counterpartyRepository;
+
+    @Inject
+    CounterpartyExposureRepository counterpartyExposureRepository;
+
+    @Inject
+    EntityManager entityManager;
+
+    @TestHTTPResource("/api/trades")
+    URL trades;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @Test
+    void benchmarkConcurrentListing() {
+        Long counterpartyId = seed();
+        URI uri = URI.create(trades + "?counterpartyId=" + counterpartyId + "&size=50&sort=notional,desc");
+
+        run(uri, CONCURRENCY[0]);
+        System.out.printf("%n%s%n%-12s %12s %10s %10s%n", getClass().getSimpleName(),
+                "concurrency", "req/s", "p50 (ms)", "p99 (ms)");
+        for (int concurrency : CONCURRENCY) {
+            long[] latencies = new long[REQUESTS];
+            long started = System.nanoTime();
+            int errors = run(uri, concurrency, latencies);
+            double seconds = (System.nanoTime() - started) / 1_000_000_000.0;
+            Arrays.sort(latencies);
+            System.out.printf("%-12d %12.0f %10.2f %10.2f%n", concurrency, REQUESTS / seconds,
+                    latencies[REQUESTS / 2] / 1_000_000.0, latencies[REQUESTS * 99 / 100] / 1_000_000.0);
+            assertEquals(0, errors, "non-200 responses at concurrency " + concurrency);
+        }
+    }
+
+    private Long seed() {
+        return QuarkusTransaction.requiringNew().timeout(600).call(() -> {
+            tradeRepository.deleteAll();
+            counterpartyExposureRepository.deleteAll();
+            counterpartyRepository.deleteAll();
+
+            Counterparty counterparty = new Counterparty();
+            counterparty.code = "LOAD001";
+            counterparty.name = "Load Test Counterparty";
+            counterparty.type = Counterparty.CounterpartyType.INSTITUTIONAL;
+            counterparty.status = Counterparty.CounterpartyStatus.ACTIVE;
+            counterpartyRepository.persist(counterparty);
+            for (int i = 0; i < TRADES; i++) {
+                Trade trade = new Trade();
+                trade.tradeReference = "LOAD-" + i;
+                trade.counterparty = counterparty;
+                trade.instrument = "AAPL";
+                trade.tradeType = i % 2 == 0 ? Trade.TradeType.BUY : Trade.TradeType.SELL;
+                trade.quantity = BigDecimal.valueOf(1 + i % 500);
+                trade.price = new BigDecimal("150.25");
+                trade.tradeDate = LocalDate.now().minusDays(i % 30);
+                trade.settlementDate = trade.tradeDate.plusDays(2);
+                trade.currency = "USD";
+                tradeRepository.persist(trade);
+                if (i % 1_000 == 999) {
+                    entityManager.flush();
+                    entityManager.clear();
+                    counterparty = entityManager.getReference(Counterparty.class, counterparty.id);
+                }
+            }
+            return counterparty.id;
+        });
+    }
+
+    private void run(URI uri, int concurrency) {
+        run(uri, concurrency, new long[REQUESTS]);
+    }
+
+    private int run(URI uri, int concurrency, long[] latencies) {
+        Semaphore inFlight = new Semaphore(concurrency);
+        AtomicInteger errors = new AtomicInteger();
+        List<CompletableFuture<?>> pending = new ArrayList<>(REQUESTS);
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        for (int i = 0; i < REQUESTS; i++) {
+            inFlight.acquireUninterruptibly();
+            int slot = i;
+            long sent = System.nanoTime();
+            pending.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        latencies[slot] = System.nanoTime() - sent;
+                        if (error != null || response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                        inFlight.release();
+                    }));
+        }
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+        return errors.get();
+    }
+}
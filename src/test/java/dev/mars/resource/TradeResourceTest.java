@@ -1,11 +1,21 @@
 package dev.mars.resource;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORMapper;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.UnknownFieldSet;
 import dev.mars.domain.Counterparty;
+import dev.mars.domain.IdempotencyRecord;
 import dev.mars.domain.Trade;
 import dev.mars.dto.CreateCounterpartyRequest;
 import dev.mars.dto.CreateTradeRequest;
 import dev.mars.repository.CounterpartyRepository;
+import dev.mars.repository.IdempotencyRecordRepository;
 import dev.mars.repository.TradeRepository;
+import dev.mars.serialization.ProtobufCodec;
+import dev.mars.serialization.WireFormats;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.common.http.TestHTTPResource;
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.http.ContentType;
 import jakarta.inject.Inject;
@@ -13,12 +23,29 @@ import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Integration tests for TradeResource using H2 in-memory database.
@@ -33,6 +60,12 @@ class TradeResourceTest {
     @Inject
     CounterpartyRepository counterpartyRepository;
 
+    @Inject
+    IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @TestHTTPResource("/api/trades/stream")
+    URL stream;
+
     private static final AtomicInteger COUNTER = new AtomicInteger(1);
 
     @BeforeEach
@@ -220,6 +253,224 @@ class TradeResourceTest {
                 .body("id", notNullValue());
     }
 
+    @Test
+    void testCreateTradeWithIdempotencyKey() {
+        Long counterpartyId = createTestCounterparty();
+        CreateTradeRequest request = TradeRequestBuilder.builder()
+                .tradeReference("IDEM-001").counterpartyId(counterpartyId).build();
+        String key = UUID.randomUUID().toString();
+
+        Integer id = given()
+                .contentType(ContentType.JSON)
+                .header("Idempotency-Key", key)
+                .body(request)
+                .when().post("/api/trades")
+                .then()
+                .statusCode(201)
+                .header("Idempotent-Replayed", nullValue())
+                .extract().path("id");
+
+        // A retry gets the original response instead of a duplicate-reference error
+        given()
+                .contentType(ContentType.JSON)
+                .header("Idempotency-Key", key)
+                .body(request)
+                .when().post("/api/trades")
+                .then()
+                .statusCode(201)
+                .header("Idempotent-Replayed", "true")
+                .body("id", equalTo(id))
+                .body("tradeReference", equalTo("IDEM-001"));
+
+        assertEquals(1, tradeRepository.count("tradeReference", "IDEM-001"));
+
+        // The same key with a different request is refused
+        CreateTradeRequest other = TradeRequestBuilder.builder()
+                .tradeReference("IDEM-002").counterpartyId(counterpartyId).build();
+        given()
+                .contentType(ContentType.JSON)
+                .header("Idempotency-Key", key)
+                .body(other)
+                .when().post("/api/trades")
+                .then()
+                .statusCode(400)
+                .body("message", containsString("Idempotency-Key"));
+    }
+
+    @Test
+    void testIdempotencyKeyReusedAfterItsTtlBeforeThePurge() {
+        Long counterpartyId = createTestCounterparty();
+        String key = UUID.randomUUID().toString();
+
+        // An expired response the hourly purge has not removed yet, unknown to this node's cache
+        QuarkusTransaction.requiringNew().run(() -> {
+            IdempotencyRecord expired = new IdempotencyRecord();
+            expired.id = "trades:" + key;
+            expired.requestHash = "0".repeat(64);
+            expired.responseStatus = 201;
+            expired.responseBody = "{}";
+            expired.createdAt = LocalDateTime.now().minusDays(2);
+            expired.expiresAt = LocalDateTime.now().minusDays(1);
+            idempotencyRecordRepository.persist(expired);
+        });
+
+        CreateTradeRequest request = TradeRequestBuilder.builder()
+                .tradeReference("IDEM-EXP-001").counterpartyId(counterpartyId).build();
+        given()
+                .contentType(ContentType.JSON)
+                .header("Idempotency-Key", key)
+                .body(request)
+                .when().post("/api/trades")
+                .then()
+                .statusCode(201)
+                .header("Idempotent-Replayed", nullValue())
+                .body("tradeReference", equalTo("IDEM-EXP-001"));
+
+        assertEquals(1, tradeRepository.count("tradeReference", "IDEM-EXP-001"));
+        IdempotencyRecord replaced = QuarkusTransaction.requiringNew()
+                .call(() -> idempotencyRecordRepository.findById("trades:" + key));
+        assertTrue(replaced.expiresAt.isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    void testConditionalGetTrade() {
+        Long counterpartyId = createTestCounterparty();
+        CreateTradeRequest request = TradeRequestBuilder.builder()
+                .tradeReference("ETAG-001").counterpartyId(counterpartyId).build();
+        Integer id = given()
+                .contentType(ContentType.JSON)
+                .body(request)
+                .when().post("/api/trades")
+                .then()
+                .statusCode(201)
+                .extract().path("id");
+
+        String etag = given()
+                .when().get("/api/trades/" + id)
+                .then()
+                .statusCode(200)
+                .header("Last-Modified", notNullValue())
+                .extract().header("ETag");
+
+        given()
+                .header("If-None-Match", etag)
+                .when().get("/api/trades/" + id)
+                .then()
+                .statusCode(304);
+
+        // The JSON tag does not validate the CBOR representation, which has its own
+        given()
+                .accept(WireFormats.CBOR)
+                .header("If-None-Match", etag)
+                .when().get("/api/trades/" + id)
+                .then()
+                .statusCode(200)
+                .contentType(WireFormats.CBOR)
+                .header("ETag", not(equalTo(etag)));
+
+        String listEtag = given()
+                .when().get("/api/trades")
+                .then()
+                .statusCode(200)
+                .header("ETag", startsWith("W/"))
+                .header("Last-Modified", nullValue())
+                .extract().header("ETag");
+
+        given()
+                .header("If-None-Match", listEtag)
+                .when().get("/api/trades")
+                .then()
+                .statusCode(304);
+
+        given()
+                .queryParam("status", "CONFIRMED")
+                .when().patch("/api/trades/" + id + "/status")
+                .then()
+                .statusCode(200);
+
+        // Both representations changed, so the old tags no longer match
+        given()
+                .header("If-None-Match", etag)
+                .when().get("/api/trades/" + id)
+                .then()
+                .statusCode(200)
+                .header("ETag", not(equalTo(etag)))
+                .body("status", equalTo("CONFIRMED"));
+
+        given()
+                .header("If-None-Match", listEtag)
+                .when().get("/api/trades")
+                .then()
+                .statusCode(200);
+    }
+
+    @Test
+    void testTradeInBinaryFormats() throws IOException {
+        Long counterpartyId = createTestCounterparty();
+        CreateTradeRequest request = TradeRequestBuilder.builder()
+                .tradeReference("BIN-001").counterpartyId(counterpartyId).build();
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(body);
+        ProtobufCodec.writeCreateTradeRequest(out, request);
+        out.flush();
+
+        Integer id = given()
+                .contentType(WireFormats.PROTOBUF)
+                .body(body.toByteArray())
+                .when().post("/api/trades")
+                .then()
+                .statusCode(201)
+                .body("tradeReference", equalTo("BIN-001"))
+                .body("quantity", equalTo(100))
+                .extract().path("id");
+
+        byte[] cbor = given()
+                .accept(WireFormats.CBOR)
+                .when().get("/api/trades/" + id)
+                .then()
+                .statusCode(200)
+                .contentType(WireFormats.CBOR)
+                .extract().asByteArray();
+        JsonNode trade = new CBORMapper().readTree(cbor);
+        assertEquals("BIN-001", trade.get("tradeReference").asText());
+        assertEquals(0, new BigDecimal("150.00").compareTo(trade.get("price").decimalValue()));
+
+        byte[] protobuf = given()
+                .accept(WireFormats.PROTOBUF)
+                .when().get("/api/trades/" + id)
+                .then()
+                .statusCode(200)
+                .contentType(WireFormats.PROTOBUF)
+                .extract().asByteArray();
+        UnknownFieldSet fields = UnknownFieldSet.parseFrom(protobuf);
+        assertEquals(id.longValue(), fields.getField(1).getVarintList().get(0).longValue());
+        assertEquals("BIN-001", fields.getField(2).getLengthDelimitedList().get(0).toStringUtf8());
+
+        // JSON stays the default
+        given()
+                .when().get("/api/trades/" + id)
+                .then()
+                .statusCode(200)
+                .contentType(ContentType.JSON);
+    }
+
+    @Test
+    void testProtobufTradeWithNegativeEnumNumberIsRejected() throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(body);
+        out.writeString(1, "BIN-NEG");
+        out.writeEnum(4, -1);
+        out.flush();
+
+        given()
+                .contentType(WireFormats.PROTOBUF)
+                .body(body.toByteArray())
+                .when().post("/api/trades")
+                .then()
+                .statusCode(400);
+    }
+
     @Test
     void testCreateTradeWithInvalidData() {
         CreateTradeRequest request = new CreateTradeRequest();
@@ -410,4 +661,578 @@ class TradeResourceTest {
                 .body("size()", is(1))
                 .body("[0].tradeReference", equalTo("PENDING-001"));
     }
+
+    @Test
+    void testCursorPagination() {
+        Long counterpartyId = createTestCounterparty();
+
+        for (int i = 1; i <= 3; i++) {
+            CreateTradeRequest request = TradeRequestBuilder.builder()
+                    .tradeReference("CURSOR-00" + i)
+                    .counterpartyId(counterpartyId)
+                    .tradeDate(LocalDate.now().minusDays(i))
+                    .build();
+
+            given()
+                    .contentType(ContentType.JSON)
+                    .body(request)
+                    .when().post("/api/trades")
+                    .then()
+                    .statusCode(201);
+        }
+
+        String nextCursor = given()
+                .queryParam("cursor", "")
+                .queryParam("size", 2)
+                .when().get("/api/trades")
+                .then()
+                .statusCode(200)
+                .body("items.size()", is(2))
+                .body("items[0].tradeReference", equalTo("CURSOR-001"))
+                .body("items[1].tradeReference", equalTo("CURSOR-002"))
+                .body("nextCursor", notNullValue())
+                .extract().path("nextCursor");
+
+        given()
+                .queryParam("cursor", nextCursor)
+                .queryParam("size", 2)
+                .when().get("/api/trades")
+                .then()
+                .statusCode(200)
+                .body("items.size()", is(1))
+                .body("items[0].tradeReference", equalTo("CURSOR-003"))
+                .body("nextCursor", nullValue());
+    }
+
+    @Test
+    void testCursorPaginationWithInvalidCursor() {
+        given()
+                .queryParam("cursor", "not-a-cursor")
+                .when().get("/api/trades")
+                .then()
+                .statusCode(400)
+                .body("code", equalTo("INVALID_ARGUMENT"));
+    }
+
+    @Test
+    void testSparseFieldsets() {
+        Long counterpartyId = createTestCounterparty();
+
+        for (int i = 1; i <= 3; i++) {
+            CreateTradeRequest request = TradeRequestBuilder.builder()
+                    .tradeReference("FIELDS-00" + i)
+                    .counterpartyId(counterpartyId)
+                    .tradeDate(LocalDate.now().minusDays(i))
+                    .build();
+
+            given()
+                    .contentType(ContentType.JSON)
+                    .body(request)
+                    .when().post("/api/trades")
+                    .then()
+                    .statusCode(201);
+        }
+
+        given()
+                .queryParam("fields", "id,tradeReference,status,totalValue")
+                .queryParam("sort", "tradeDate,desc")
+                .when().get("/api/trades")
+                .then()
+                .statusCode(200)
+                .body("size()", is(3))
+                .body("[0].keySet()", containsInAnyOrder("id", "tradeReference", "status", "totalValue"))
+                .body("[0].tradeReference", equalTo("FIELDS-001"))
+                .body("[0].status", equalTo("PENDING"))
+                .body("[0].totalValue", comparesEqualTo(15000.0f));
+
+        // Counterparty name needs the join; the keyset columns are read for the cursor but not returned
+        String nextCursor = given()
+                .queryParam("fields", "tradeReference,counterpartyName")
+                .queryParam("cursor", "")
+                .queryParam("size", 2)
+                .when().get("/api/trades")
+                .then()
+                .statusCode(200)
+                .body("items.size()", is(2))
+                .body("items[0].keySet()", containsInAnyOrder("tradeReference", "counterpartyName"))
+                .body("items[0].counterpartyName", equalTo("Test Bank"))
+                .body("nextCursor", notNullValue())
+                .extract().path("nextCursor");
+
+        given()
+                .queryParam("fields", "tradeReference")
+                .queryParam("cursor", nextCursor)
+                .queryParam("size", 2)
+                .when().get("/api/trades")
+                .then()
+                .statusCode(200)
+                .body("items.size()", is(1))
+                .body("items[0].tradeReference", equalTo("FIELDS-003"))
+                .body("nextCursor", nullValue());
+
+        given()
+                .queryParam("fields", "id,secret")
+                .when().get("/api/trades")
+                .then()
+                .statusCode(400)
+                .body("code", equalTo("INVALID_ARGUMENT"));
+
+        // The protobuf messages have a fixed shape
+        given()
+                .queryParam("fields", "id")
+                .accept(WireFormats.PROTOBUF)
+                .when().get("/api/trades")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void testStreamTrades() throws Exception {
+        Long counterpartyId = createTestCounterparty();
+
+        HttpRequest subscribe = HttpRequest.newBuilder(URI.create(stream + "?instrument=TSLA"))
+                .header("Accept", "text/event-stream")
+                .GET().build();
+        // Headers arrive with the first heartbeat, so the subscription exists before the trade is created
+        HttpResponse<Stream<String>> response = HttpClient.newHttpClient()
+                .sendAsync(subscribe, HttpResponse.BodyHandlers.ofLines())
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(200, response.statusCode());
+
+        CompletableFuture<List<String>> received = CompletableFuture.supplyAsync(() -> {
+            List<String> lines = new ArrayList<>();
+            Iterator<String> iterator = response.body().iterator();
+            while (iterator.hasNext()) {
+                String line = iterator.next();
+                lines.add(line);
+                if (line.contains("STREAM-TSLA")) {
+                    break;
+                }
+            }
+            return lines;
+        });
+
+        for (String instrument : new String[]{"AAPL", "TSLA"}) {
+            given()
+                    .contentType(ContentType.JSON)
+                    .body(TradeRequestBuilder.builder()
+                            .tradeReference("STREAM-" + instrument)
+                            .counterpartyId(counterpartyId)
+                            .instrument(instrument)
+                            .build())
+                    .when().post("/api/trades")
+                    .then()
+                    .statusCode(201);
+        }
+
+        List<String> lines = received.get(5, TimeUnit.SECONDS);
+        response.body().close();
+        assertTrue(lines.stream().anyMatch(line -> line.replace(" ", "").equals("event:created")));
+        assertTrue(lines.stream().noneMatch(line -> line.contains("STREAM-AAPL")));
+    }
+
+    @Test
+    void testExportTradesAsNdjson() {
+        Long counterpartyId = createTestCounterparty();
+
+        for (String reference : new String[]{"EXPORT-001", "EXPORT-002"}) {
+            given()
+                    .contentType(ContentType.JSON)
+                    .body(TradeRequestBuilder.builder()
+                            .tradeReference(reference)
+                            .counterpartyId(counterpartyId)
+                            .build())
+                    .when().post("/api/trades")
+                    .then()
+                    .statusCode(201);
+        }
+
+        String body = given()
+                .when().get("/api/trades/export")
+                .then()
+                .statusCode(200)
+                .contentType(startsWith("application/x-ndjson"))
+                .extract().asString();
+
+        String[] lines = body.trim().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"tradeReference\":\"EXPORT-001\""));
+        assertTrue(lines[1].contains("\"tradeReference\":\"EXPORT-002\""));
+    }
+
+    @Test
+    void testExportTradesAsCsv() {
+        Long counterpartyId = createTestCounterparty();
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(TradeRequestBuilder.builder()
+                        .tradeReference("EXPORT-CSV")
+                        .counterpartyId(counterpartyId)
+                        .notes("contains, a comma")
+                        .build())
+                .when().post("/api/trades")
+                .then()
+                .statusCode(201);
+
+        given()
+                .queryParam("format", "csv")
+                .when().get("/api/trades/export")
+                .then()
+                .statusCode(200)
+                .contentType(startsWith("text/csv"))
+                .body(startsWith("id,tradeReference,"))
+                .body(containsString("EXPORT-CSV"))
+                .body(containsString("\"contains, a comma\""));
+    }
+
+    @Test
+    void testGetTradesWithCombinedFilters() {
+        Long counterpartyId = createTestCounterparty();
+
+        CreateTradeRequest eurAapl = TradeRequestBuilder.builder()
+                .tradeReference("FILTER-001")
+                .counterpartyId(counterpartyId)
+                .instrument("AAPL")
+                .currency("EUR")
+                .build();
+        CreateTradeRequest usdAapl = TradeRequestBuilder.builder()
+                .tradeReference("FILTER-002")
+                .counterpartyId(counterpartyId)
+                .instrument("AAPL")
+                .currency("USD")
+                .build();
+        CreateTradeRequest eurSell = TradeRequestBuilder.builder()
+                .tradeReference("FILTER-003")
+                .counterpartyId(counterpartyId)
+                .instrument("AAPL")
+                .currency("EUR")
+                .tradeType(Trade.TradeType.SELL)
+                .build();
+
+        for (CreateTradeRequest request : new CreateTradeRequest[]{eurAapl, usdAapl, eurSell}) {
+            given()
+                    .contentType(ContentType.JSON)
+                    .body(request)
+                    .when().post("/api/trades")
+                    .then()
+                    .statusCode(201);
+        }
+
+        given()
+                .queryParam("instrument", "AAPL")
+                .queryParam("currency", "EUR")
+                .queryParam("tradeType", "BUY")
+                .queryParam("status", "PENDING")
+                .queryParam("counterpartyId", counterpartyId)
+                .when().get("/api/trades")
+                .then()
+                .statusCode(200)
+                .body("size()", is(1))
+                .body("[0].tradeReference", equalTo("FILTER-001"));
+
+        given()
+                .queryParam("currency", "EUR")
+                .queryParam("sort", "tradeReference,desc")
+                .queryParam("size", 1)
+                .when().get("/api/trades")
+                .then()
+                .statusCode(200)
+                .body("size()", is(1))
+                .body("[0].tradeReference", equalTo("FILTER-003"));
+    }
+
+    @Test
+    void testGetTradeStatistics() {
+        Long counterpartyId = createTestCounterparty();
+
+        CreateTradeRequest usdBuy = TradeRequestBuilder.builder()
+                .tradeReference("STATS-001")
+                .counterpartyId(counterpartyId)
+                .quantity(new BigDecimal("10"))
+                .price(new BigDecimal("2.50"))
+                .currency("USD")
+                .build();
+        CreateTradeRequest eurSell = TradeRequestBuilder.builder()
+                .tradeReference("STATS-002")
+                .counterpartyId(counterpartyId)
+                .quantity(new BigDecimal("4"))
+                .price(new BigDecimal("5"))
+                .currency("EUR")
+                .tradeType(Trade.TradeType.SELL)
+                .build();
+
+        for (CreateTradeRequest request : new CreateTradeRequest[]{usdBuy, eurSell}) {
+            given()
+                    .contentType(ContentType.JSON)
+                    .body(request)
+                    .when().post("/api/trades")
+                    .then()
+                    .statusCode(201);
+        }
+
+        given()
+                .when().get("/api/trades/stats")
+                .then()
+                .statusCode(200)
+                .body("totalCount", is(2))
+                .body("source", equalTo("database"))
+                .body("byStatus.PENDING.count", is(2))
+                .body("byStatus.SETTLED.count", is(0))
+                .body("byTradeType.BUY.count", is(1))
+                .body("byTradeType.SELL.count", is(1))
+                .body("byCurrency.USD.notional", comparesEqualTo(25.0f))
+                .body("byCurrency.EUR.notional", comparesEqualTo(20.0f));
+
+        given()
+                .when().get("/api/trades/stats/count")
+                .then()
+                .statusCode(200)
+                .body("totalCount", is(2))
+                .body("pendingCount", is(2))
+                .body("confirmedCount", is(0));
+    }
+
+    @Test
+    void testGetTopTradesByNotional() {
+        Long counterpartyId = createTestCounterparty();
+
+        String[] quantities = {"5", "50", "20"};
+        for (int i = 0; i < quantities.length; i++) {
+            given()
+                    .contentType(ContentType.JSON)
+                    .body(TradeRequestBuilder.builder()
+                            .tradeReference("TOP-00" + i)
+                            .counterpartyId(counterpartyId)
+                            .quantity(new BigDecimal(quantities[i]))
+                            .build())
+                    .when().post("/api/trades")
+                    .then()
+                    .statusCode(201);
+        }
+
+        given()
+                .queryParam("limit", 2)
+                .when().get("/api/trades/top")
+                .then()
+                .statusCode(200)
+                .body("size()", is(2))
+                .body("[0].tradeReference", equalTo("TOP-001"))
+                .body("[1].tradeReference", equalTo("TOP-002"));
+
+        given()
+                .queryParam("limit", 0)
+                .when().get("/api/trades/top")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void testCreateTradesBatchPartial() {
+        Long counterpartyId = createTestCounterparty();
+        given()
+                .contentType(ContentType.JSON)
+                .body(TradeRequestBuilder.builder().tradeReference("BATCH-EXISTING").counterpartyId(counterpartyId).build())
+                .when().post("/api/trades")
+                .then()
+                .statusCode(201);
+
+        List<CreateTradeRequest> batch = List.of(
+                TradeRequestBuilder.builder().tradeReference("BATCH-001").counterpartyId(counterpartyId).build(),
+                TradeRequestBuilder.builder().tradeReference("BATCH-EXISTING").counterpartyId(counterpartyId).build(),
+                TradeRequestBuilder.builder().tradeReference("BATCH-002").counterpartyId(999999L).build(),
+                TradeRequestBuilder.builder().tradeReference("BATCH-001").counterpartyId(counterpartyId).build(),
+                TradeRequestBuilder.builder().tradeReference("BATCH-003").counterpartyId(counterpartyId)
+                        .quantity(new BigDecimal("-1")).build(),
+                TradeRequestBuilder.builder().tradeReference("BATCH-004").counterpartyId(counterpartyId).build());
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(batch)
+                .when().post("/api/trades/batch")
+                .then()
+                .statusCode(200)
+                .body("mode", equalTo("PARTIAL"))
+                .body("submitted", is(6))
+                .body("created", is(2))
+                .body("failed", is(4))
+                .body("results[0].status", equalTo("CREATED"))
+                .body("results[0].trade.id", notNullValue())
+                .body("results[1].error", containsString("already exists"))
+                .body("results[2].error", containsString("Counterparty not found"))
+                .body("results[3].error", containsString("more than once"))
+                .body("results[4].error", containsString("quantity"))
+                .body("results[5].status", equalTo("CREATED"));
+
+        given()
+                .when().get("/api/trades/stats/count")
+                .then()
+                .statusCode(200)
+                .body("totalCount", is(3));
+    }
+
+    @Test
+    void testCreateTradesBatchAtomic() {
+        Long counterpartyId = createTestCounterparty();
+
+        List<CreateTradeRequest> invalid = List.of(
+                TradeRequestBuilder.builder().tradeReference("ATOMIC-001").counterpartyId(counterpartyId).build(),
+                TradeRequestBuilder.builder().tradeReference("ATOMIC-002").counterpartyId(counterpartyId)
+                        .settlementDate(LocalDate.now().minusDays(1)).build());
+
+        given()
+                .contentType(ContentType.JSON)
+                .queryParam("mode", "ATOMIC")
+                .body(invalid)
+                .when().post("/api/trades/batch")
+                .then()
+                .statusCode(400)
+                .body("created", is(0))
+                .body("results[0].status", equalTo("SKIPPED"))
+                .body("results[1].status", equalTo("FAILED"));
+
+        given()
+                .when().get("/api/trades/reference/ATOMIC-001")
+                .then()
+                .statusCode(404);
+
+        List<CreateTradeRequest> valid = List.of(
+                TradeRequestBuilder.builder().tradeReference("ATOMIC-001").counterpartyId(counterpartyId).build(),
+                TradeRequestBuilder.builder().tradeReference("ATOMIC-003").counterpartyId(counterpartyId).build());
+
+        given()
+                .contentType(ContentType.JSON)
+                .queryParam("mode", "ATOMIC")
+                .body(valid)
+                .when().post("/api/trades/batch")
+                .then()
+                .statusCode(201)
+                .body("created", is(2));
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(List.of())
+                .when().post("/api/trades/batch")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void testBulkStatusTransition() {
+        Long counterpartyId = createTestCounterparty();
+        List<CreateTradeRequest> trades = List.of(
+                TradeRequestBuilder.builder().tradeReference("BULK-001").counterpartyId(counterpartyId).build(),
+                TradeRequestBuilder.builder().tradeReference("BULK-002").counterpartyId(counterpartyId).build(),
+                TradeRequestBuilder.builder().tradeReference("BULK-003").counterpartyId(counterpartyId).build());
+        List<Long> ids = given()
+                .contentType(ContentType.JSON)
+                .body(trades)
+                .when().post("/api/trades/batch")
+                .then()
+                .statusCode(201)
+                .extract().jsonPath().getList("results.trade.id", Long.class);
+
+        given()
+                .queryParam("status", "CONFIRMED")
+                .when().patch("/api/trades/" + ids.get(0) + "/status")
+                .then()
+                .statusCode(200);
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("{\"status\": \"CONFIRMED\", \"ids\": [" + ids.get(0) + ", " + ids.get(1) + ", "
+                        + ids.get(2) + ", 999999999]}")
+                .when().patch("/api/trades/status")
+                .then()
+                .statusCode(200)
+                .body("updated", is(2))
+                .body("unchanged", is(1))
+                .body("rejected", is(0))
+                .body("notFound", is(1));
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("{\"status\": \"SETTLED\", \"filter\": {\"counterpartyId\": " + counterpartyId + "}}")
+                .when().patch("/api/trades/status")
+                .then()
+                .statusCode(200)
+                .body("updated", is(3));
+
+        // A settled trade can no longer be cancelled
+        given()
+                .contentType(ContentType.JSON)
+                .body("{\"status\": \"CANCELLED\", \"ids\": [" + ids.get(0) + "]}")
+                .when().patch("/api/trades/status")
+                .then()
+                .statusCode(200)
+                .body("updated", is(0))
+                .body("rejected", is(1));
+
+        given()
+                .when().get("/api/trades/" + ids.get(2))
+                .then()
+                .statusCode(200)
+                .body("status", equalTo("SETTLED"));
+
+        // Neither ids nor a filter criterion
+        given()
+                .contentType(ContentType.JSON)
+                .body("{\"status\": \"CONFIRMED\", \"filter\": {}}")
+                .when().patch("/api/trades/status")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void testCreateTradeAsync() throws InterruptedException {
+        Long counterpartyId = createTestCounterparty();
+        CreateTradeRequest request = TradeRequestBuilder.builder()
+                .tradeReference("ASYNC-001").counterpartyId(counterpartyId).build();
+
+        String ingestionId = given()
+                .contentType(ContentType.JSON)
+                .queryParam("async", true)
+                .body(request)
+                .when().post("/api/trades")
+                .then()
+                .statusCode(202)
+                .header("Location", containsString("/api/trades/ingestion/"))
+                .body("state", equalTo("ACCEPTED"))
+                .body("tradeReference", equalTo("ASYNC-001"))
+                .extract().path("ingestionId");
+
+        String state = "ACCEPTED";
+        for (int attempt = 0; attempt < 50 && state.equals("ACCEPTED"); attempt++) {
+            Thread.sleep(100);
+            state = given()
+                    .when().get("/api/trades/ingestion/" + ingestionId)
+                    .then()
+                    .statusCode(200)
+                    .extract().path("state");
+        }
+        assertEquals("COMMITTED", state);
+
+        given()
+                .when().get("/api/trades/reference/ASYNC-001")
+                .then()
+                .statusCode(200);
+
+        // Rejected up front: the reference is now taken
+        given()
+                .contentType(ContentType.JSON)
+                .queryParam("async", true)
+                .body(request)
+                .when().post("/api/trades")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void testGetTradesWithUnknownSortField() {
+        given()
+                .queryParam("sort", "notes")
+                .when().get("/api/trades")
+                .then()
+                .statusCode(400);
+    }
 }
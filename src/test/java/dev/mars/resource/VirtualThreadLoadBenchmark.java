@@ -0,0 +1,45 @@
+package dev.mars.resource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PlatformThreadLoadBenchmark} with the resources built for virtual threads, plus the pinning the
+ * run caused, by blocking site.
+ */
+@QuarkusTest
+@TestProfile(VirtualThreadLoadBenchmark.VirtualThreadProfile.class)
+@Tag("benchmark")
+class VirtualThreadLoadBenchmark extends PlatformThreadLoadBenchmark {
+
+    public static class VirtualThreadProfile extends PlatformThreadProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            Map<String, String> overrides = new HashMap<>(super.getConfigOverrides());
+            overrides.put("trading.virtual-threads.enabled", "true");
+            overrides.put("trading.virtual-threads.pinning-threshold", "1ms");
+            return overrides;
+        }
+    }
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @AfterEach
+    void reportPinning() {
+        System.out.printf("%n%-60s %8s %12s%n", "pinned at", "count", "total (ms)");
+        for (Timer timer : meterRegistry.find("trading.virtual-threads.pinned").timers()) {
+            System.out.printf("%-60s %8d %12.1f%n", timer.getId().getTag("site"), timer.count(),
+                    timer.totalTime(TimeUnit.MILLISECONDS));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package dev.mars.search;
+
+import dev.mars.domain.Counterparty;
+import dev.mars.repository.CounterpartyRepository;
+import dev.mars.repository.TradeRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the in-memory trigram index with the {@code LOWER(name) LIKE '%x%'} query it replaces,
+ * at 100k counterparties. Tagged so it only runs with {@code mvn test -Pbenchmark}.
+ */
+@QuarkusTest
+@Tag("benchmark")
+class CounterpartySearchBenchmark {
+
+    private static final int COUNTERPARTIES = 100_000;
+    private static final int BATCH = 5_000;
+    private static final int ITERATIONS = 50;
+
+    private static final String[] FIRST = {"Global", "Northern", "Pacific", "Atlantic", "Summit", "Harbor",
+            "Granite", "Silver", "Meridian", "Cedar", "Falcon", "Beacon", "Sterling", "Liberty", "Orion"};
+    private static final String[] SECOND = {"Investment", "Commercial", "Mutual", "Private", "Capital",
+            "Strategic", "Pension", "Municipal", "Sovereign", "Regional"};
+    private static final String[] THIRD = {"Bank", "Partners", "Holdings", "Securities", "Fund", "Trust",
+            "Advisors", "Markets", "Asset Management", "Insurance"};
+
+    @Inject
+    CounterpartyRepository counterpartyRepository;
+
+    @Inject
+    TradeRepository tradeRepository;
+
+    @Inject
+    CounterpartySearchIndex counterpartySearchIndex;
+
+    @Inject
+    EntityManager entityManager;
+
+    @AfterEach
+    void tearDown() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            tradeRepository.deleteAll();
+            counterpartyRepository.deleteAll();
+        });
+        counterpartySearchIndex.rebuild();
+    }
+
+    @Test
+    void benchmarkIndexAgainstLikeQuery() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            tradeRepository.deleteAll();
+            counterpartyRepository.deleteAll();
+        });
+        for (int start = 0; start < COUNTERPARTIES; start += BATCH) {
+            int from = start;
+            QuarkusTransaction.requiringNew().timeout(600).run(() -> {
+                for (int i = from; i < from + BATCH; i++) {
+                    Counterparty counterparty = new Counterparty();
+                    counterparty.name = FIRST[i % FIRST.length] + " " + SECOND[(i / FIRST.length) % SECOND.length]
+                            + " " + THIRD[(i / 7) % THIRD.length] + " " + i;
+                    counterparty.code = "BM" + i;
+                    counterparty.type = Counterparty.CounterpartyType.CORPORATE;
+                    counterparty.status = Counterparty.CounterpartyStatus.ACTIVE;
+                    counterpartyRepository.persist(counterparty);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+        counterpartySearchIndex.rebuild();
+
+        System.out.printf("%n%-20s %10s %14s %14s %9s%n", "query", "matches", "LIKE (us)", "index (us)", "speedup");
+        for (String query : new String[]{"meridian", "sovereign trust", "lcon", "12345", "zzzz"}) {
+            List<Counterparty> likeResult = QuarkusTransaction.requiringNew()
+                    .call(() -> counterpartyRepository.findByNameContaining(query));
+            Set<Long> likeIds = likeResult.stream().map(c -> c.id).collect(Collectors.toSet());
+            Set<Long> indexIds = counterpartySearchIndex.search(query, Integer.MAX_VALUE).stream()
+                    .map(match -> match.id)
+                    .collect(Collectors.toSet());
+            // The index also matches codes, so it may find more, never fewer
+            assertTrue(indexIds.containsAll(likeIds), "index misses LIKE matches for " + query);
+
+            double likeMicros = averageMicros(() -> QuarkusTransaction.requiringNew()
+                    .call(() -> counterpartyRepository.findByNameContaining(query)));
+            double indexMicros = averageMicros(() -> counterpartySearchIndex.search(query, 10));
+            System.out.printf("%-20s %10d %14.1f %14.1f %8.1fx%n",
+                    query, likeIds.size(), likeMicros, indexMicros, likeMicros / indexMicros);
+        }
+    }
+
+    private static double averageMicros(Supplier<?> search) {
+        for (int i = 0; i < ITERATIONS / 5; i++) {
+            search.get();
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            search.get();
+        }
+        return (System.nanoTime() - started) / 1_000.0 / ITERATIONS;
+    }
+}
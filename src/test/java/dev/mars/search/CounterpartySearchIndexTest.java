@@ -0,0 +1,90 @@
+package dev.mars.search;
+
+import dev.mars.domain.Counterparty;
+import dev.mars.dto.CounterpartyDto;
+import dev.mars.dto.CreateCounterpartyRequest;
+import dev.mars.exception.BusinessException;
+import dev.mars.service.CounterpartyService;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class CounterpartySearchIndexTest {
+
+    @Inject
+    CounterpartySearchIndex counterpartySearchIndex;
+
+    @Inject
+    CounterpartyService counterpartyService;
+
+    @Test
+    void testMatchesAreRankedAndLimited() {
+        create("Zephyr Bank", "ZPB001");
+        create("Bank of Zephyrhills", "BZH001");
+        create("First Zephyr Capital", "FZC001");
+
+        List<TrigramIndex.Match> matches = counterpartySearchIndex.search("zephyr", 10);
+        assertEquals(3, matches.size());
+        assertEquals("Zephyr Bank", matches.get(0).name);
+        assertEquals("First Zephyr Capital", matches.get(1).name);
+        assertEquals("Bank of Zephyrhills", matches.get(2).name);
+
+        assertEquals(1, counterpartySearchIndex.search("zephyr", 1).size());
+        assertEquals("BZH001", counterpartySearchIndex.search("bzh001", 5).get(0).code);
+        assertTrue(counterpartySearchIndex.search("zephyrz", 5).isEmpty());
+    }
+
+    @Test
+    void testShortQueriesMatchWordPrefixes() {
+        create("Quokka Holdings", "QKH001");
+
+        assertTrue(counterpartySearchIndex.search("qu", 10).stream().anyMatch(m -> m.code.equals("QKH001")));
+        assertTrue(counterpartySearchIndex.search("ho", 10).stream().anyMatch(m -> m.code.equals("QKH001")));
+        assertTrue(counterpartySearchIndex.search("ok", 10).stream().noneMatch(m -> m.code.equals("QKH001")));
+    }
+
+    @Test
+    void testIndexFollowsUpdatesAndDeletes() {
+        CounterpartyDto created = create("Wombat Trading", "WBT001");
+
+        CreateCounterpartyRequest rename = request("Platypus Trading", "WBT001");
+        counterpartyService.updateCounterparty(created.id, rename);
+        assertTrue(counterpartySearchIndex.search("wombat", 10).isEmpty());
+        assertEquals(created.id, counterpartySearchIndex.search("platypus", 10).get(0).id);
+
+        counterpartyService.deleteCounterparty(created.id);
+        assertTrue(counterpartySearchIndex.search("platypus", 10).isEmpty());
+    }
+
+    @Test
+    void testRolledBackChangesAreUndone() {
+        CounterpartyDto created = create("Numbat Partners", "NBP001");
+
+        assertThrows(BusinessException.class, () -> QuarkusTransaction.requiringNew().run(() -> {
+            counterpartyService.updateCounterparty(created.id, request("Echidna Partners", "NBP001"));
+            throw new BusinessException("rollback");
+        }));
+
+        assertTrue(counterpartySearchIndex.search("echidna", 10).isEmpty());
+        assertEquals(created.id, counterpartySearchIndex.search("numbat", 10).get(0).id);
+    }
+
+    private CounterpartyDto create(String name, String code) {
+        return counterpartyService.createCounterparty(request(name, code));
+    }
+
+    private CreateCounterpartyRequest request(String name, String code) {
+        CreateCounterpartyRequest request = new CreateCounterpartyRequest();
+        request.name = name;
+        request.code = code;
+        request.type = Counterparty.CounterpartyType.CORPORATE;
+        request.status = Counterparty.CounterpartyStatus.ACTIVE;
+        return request;
+    }
+}
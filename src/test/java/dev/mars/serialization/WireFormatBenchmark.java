@@ -0,0 +1,107 @@
+package dev.mars.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.protobuf.CodedOutputStream;
+import dev.mars.domain.Trade;
+import dev.mars.dto.TradeDto;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Serialises a 10k-trade listing as JSON and in each binary format, reporting payload size and the time
+ * to write it. Tagged so it only runs with {@code mvn test -Pbenchmark}.
+ */
+@QuarkusTest
+@Tag("benchmark")
+class WireFormatBenchmark {
+
+    private static final int TRADES = 10_000;
+    private static final int ITERATIONS = 50;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Test
+    void benchmarkTradeListSerialisation() {
+        List<TradeDto> trades = trades();
+        ObjectMapper cbor = BinaryJacksonProvider.binaryCopy(objectMapper, new CBORFactory());
+        ObjectMapper smile = BinaryJacksonProvider.binaryCopy(objectMapper, new SmileFactory());
+
+        int json = report("json", trades, list -> write(objectMapper, list), 0);
+        assertTrue(report("cbor", trades, list -> write(cbor, list), json) < json);
+        assertTrue(report("smile", trades, list -> write(smile, list), json) < json);
+        assertTrue(report("protobuf", trades, WireFormatBenchmark::writeProtobuf, json) < json);
+    }
+
+    private static int report(String format, List<TradeDto> trades, Function<List<TradeDto>, byte[]> serialiser,
+                              int jsonBytes) {
+        if (jsonBytes == 0) {
+            System.out.printf("%n%-10s %12s %10s %12s%n", "format", "bytes", "vs json", "write (ms)");
+        }
+        int bytes = serialiser.apply(trades).length;
+        for (int i = 0; i < ITERATIONS / 5; i++) {
+            serialiser.apply(trades);
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            serialiser.apply(trades);
+        }
+        double millis = (System.nanoTime() - started) / 1_000_000.0 / ITERATIONS;
+        System.out.printf("%-10s %12d %9.0f%% %12.2f%n", format, bytes,
+                jsonBytes == 0 ? 100.0 : 100.0 * bytes / jsonBytes, millis);
+        return bytes;
+    }
+
+    private static byte[] write(ObjectMapper mapper, List<TradeDto> trades) {
+        try {
+            return mapper.writeValueAsBytes(trades);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] writeProtobuf(List<TradeDto> trades) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+            ProtobufCodec.write(out, trades);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<TradeDto> trades() {
+        String[] instruments = {"AAPL", "MSFT", "GOOGL", "AMZN", "TSLA", "JPM", "BAC", "XOM"};
+        LocalDateTime now = LocalDateTime.now();
+        List<TradeDto> trades = new ArrayList<>(TRADES);
+        for (int i = 0; i < TRADES; i++) {
+            BigDecimal quantity = BigDecimal.valueOf(100 + i % 900);
+            BigDecimal price = new BigDecimal("150.2500").add(BigDecimal.valueOf(i % 1000, 2));
+            trades.add(new TradeDto((long) i + 1, "TRD-2025-" + i, (long) (i % 50) + 1, "Counterparty " + i % 50,
+                    "CP" + i % 50, instruments[i % instruments.length],
+                    i % 2 == 0 ? Trade.TradeType.BUY : Trade.TradeType.SELL, quantity, price,
+                    quantity.multiply(price), LocalDate.now().minusDays(i % 30), LocalDate.now().plusDays(2),
+                    "USD", Trade.TradeStatus.values()[i % Trade.TradeStatus.values().length], null,
+                    now.minusSeconds(i), now));
+        }
+        return trades;
+    }
+}
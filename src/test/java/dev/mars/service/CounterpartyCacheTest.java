@@ -0,0 +1,139 @@
+package dev.mars.service;
+
+import dev.mars.TestData;
+import dev.mars.domain.Counterparty;
+import dev.mars.dto.CounterpartyDto;
+import dev.mars.dto.CreateCounterpartyRequest;
+import dev.mars.dto.CreateTradeRequest;
+import dev.mars.exception.BusinessException;
+import dev.mars.repository.CounterpartyRepository;
+import dev.mars.repository.TradeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class CounterpartyCacheTest {
+
+    @Inject
+    CounterpartyCache counterpartyCache;
+
+    @Inject
+    CounterpartyService counterpartyService;
+
+    @Inject
+    TradeService tradeService;
+
+    @Inject
+    TradeRepository tradeRepository;
+
+    @Inject
+    CounterpartyRepository counterpartyRepository;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    TestData testData;
+
+    private Long counterpartyId;
+
+    @BeforeEach
+    void setUp() {
+        counterpartyId = testData.resetWithCounterparty("CACHE001", "Cached Counterparty",
+                Counterparty.CounterpartyType.CORPORATE);
+        // The reset replaced the rows behind the cache's back
+        counterpartyCache.invalidateAll();
+    }
+
+    @Test
+    void testRepeatedLookupsAreServedFromCache() {
+        double hitsBefore = gets("counterparty.by-id", "hit");
+        double missesBefore = gets("counterparty.by-id", "miss");
+
+        assertTrue(counterpartyCache.get(counterpartyId).isPresent());
+        assertTrue(counterpartyCache.get(counterpartyId).isPresent());
+        tradeService.createTrade(request("CACHE-T1"));
+
+        assertEquals(1, gets("counterparty.by-id", "miss") - missesBefore);
+        assertEquals(2, gets("counterparty.by-id", "hit") - hitsBefore);
+    }
+
+    @Test
+    void testStatusChangeInvalidatesEntry() {
+        assertEquals(Counterparty.CounterpartyStatus.ACTIVE, counterpartyCache.get(counterpartyId).orElseThrow().status);
+
+        counterpartyService.updateCounterpartyStatus(counterpartyId, Counterparty.CounterpartyStatus.SUSPENDED);
+
+        assertEquals(Counterparty.CounterpartyStatus.SUSPENDED, counterpartyCache.get(counterpartyId).orElseThrow().status);
+        assertThrows(BusinessException.class, () -> tradeService.createTrade(request("CACHE-T2")));
+    }
+
+    @Test
+    void testStatusChangeMissedByCacheIsSeenOnceTheEntryIsReloaded() {
+        assertEquals(Counterparty.CounterpartyStatus.ACTIVE, counterpartyCache.get(counterpartyId).orElseThrow().status);
+
+        // As if suspended on another node: the row changes without an event reaching this cache
+        QuarkusTransaction.requiringNew().run(() ->
+                counterpartyRepository.update("status = ?1 where id = ?2", Counterparty.CounterpartyStatus.SUSPENDED, counterpartyId));
+
+        // Until the entry expires, trades are still checked against the cached status
+        tradeService.createTrade(request("CACHE-T4"));
+        assertEquals(1, tradeRepository.count());
+
+        counterpartyCache.invalidateAll();
+
+        BusinessException exception = assertThrows(BusinessException.class, () -> tradeService.createTrade(request("CACHE-T5")));
+        assertTrue(exception.getMessage().contains("inactive counterparty"));
+        assertEquals(1, tradeRepository.count());
+    }
+
+    @Test
+    void testCodeChangeInvalidatesOldCode() {
+        assertTrue(counterpartyService.getCounterpartyByCode("CACHE001").isPresent());
+
+        CreateCounterpartyRequest update = new CreateCounterpartyRequest();
+        update.name = "Renamed Counterparty";
+        update.code = "CACHE002";
+        update.type = Counterparty.CounterpartyType.CORPORATE;
+        counterpartyService.updateCounterparty(counterpartyId, update);
+
+        assertTrue(counterpartyService.getCounterpartyByCode("CACHE001").isEmpty());
+        CounterpartyDto renamed = counterpartyService.getCounterpartyByCode("CACHE002").orElseThrow();
+        assertEquals(counterpartyId, renamed.id);
+        assertEquals("Renamed Counterparty", renamed.name);
+    }
+
+    @Test
+    void testDeleteInvalidatesEntry() {
+        assertTrue(counterpartyCache.get(counterpartyId).isPresent());
+
+        counterpartyService.deleteCounterparty(counterpartyId);
+
+        assertTrue(counterpartyCache.get(counterpartyId).isEmpty());
+        assertTrue(counterpartyCache.getByCode("CACHE001").isEmpty());
+    }
+
+    @Test
+    void testTradeCountIsNotCached() {
+        assertEquals(0, counterpartyService.getCounterpartyById(counterpartyId).orElseThrow().tradeCount);
+
+        tradeService.createTrade(request("CACHE-T3"));
+
+        assertEquals(1, counterpartyService.getCounterpartyById(counterpartyId).orElseThrow().tradeCount);
+        assertEquals(1, counterpartyService.getCounterpartyByCode("CACHE001").orElseThrow().tradeCount);
+    }
+
+    private double gets(String cache, String result) {
+        return meterRegistry.get("cache.gets").tag("cache", cache).tag("result", result).functionCounter().count();
+    }
+
+    private CreateTradeRequest request(String reference) {
+        return TestData.tradeRequest(counterpartyId, reference, "IBM");
+    }
+}
@@ -0,0 +1,83 @@
+package dev.mars.service;
+
+import dev.mars.TestData;
+import dev.mars.domain.Counterparty;
+import dev.mars.domain.Trade;
+import dev.mars.dto.CounterpartyExposureDto;
+import dev.mars.dto.CreateTradeRequest;
+import dev.mars.dto.TradeDto;
+import dev.mars.repository.CounterpartyExposureRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class CounterpartyExposureServiceTest {
+
+    @Inject
+    CounterpartyExposureService counterpartyExposureService;
+
+    @Inject
+    TradeService tradeService;
+
+    @Inject
+    CounterpartyExposureRepository counterpartyExposureRepository;
+
+    @Inject
+    TestData testData;
+
+    private Long counterpartyId;
+
+    @BeforeEach
+    void setUp() {
+        counterpartyId = testData.resetWithCounterparty("EXP001", "Exposure Counterparty",
+                Counterparty.CounterpartyType.INSTITUTIONAL);
+    }
+
+    @Test
+    void testExposureFollowsTradeChanges() {
+        TradeDto usd = tradeService.createTrade(request("EXP-T1", "USD", "100", "2"));
+        tradeService.createTrade(request("EXP-T2", "EUR", "10", "5"));
+        TradeDto removed = tradeService.createTrade(request("EXP-T3", "USD", "1", "1"));
+        tradeService.updateTradeStatus(usd.id, Trade.TradeStatus.CONFIRMED);
+        tradeService.deleteTrade(removed.id);
+
+        CounterpartyExposureDto exposure = counterpartyExposureService.getExposure(counterpartyId);
+
+        assertEquals(2, exposure.tradeCount);
+        assertEquals(0, new BigDecimal("250").compareTo(exposure.notional));
+        assertEquals(1, exposure.byStatus.get(Trade.TradeStatus.CONFIRMED).count);
+        assertEquals(0, new BigDecimal("200").compareTo(exposure.byStatus.get(Trade.TradeStatus.CONFIRMED).notional));
+        assertEquals(1, exposure.byStatus.get(Trade.TradeStatus.PENDING).count);
+        assertEquals(0, new BigDecimal("50").compareTo(exposure.byCurrency.get("EUR").notional));
+        assertEquals(0, new BigDecimal("250").compareTo(tradeService.getTotalTradeValueByCounterparty(counterpartyId)));
+        assertEquals(0, counterpartyExposureService.reconcile());
+    }
+
+    @Test
+    void testReconciliationCorrectsDrift() {
+        tradeService.createTrade(request("EXP-T4", "USD", "3", "4"));
+
+        // Simulate a write that bypassed the service
+        QuarkusTransaction.requiringNew().run(() -> counterpartyExposureRepository.addDelta(
+                counterpartyId, Trade.TradeStatus.PENDING, "USD", 5, new BigDecimal("999")));
+        assertEquals(6, counterpartyExposureService.getExposure(counterpartyId).tradeCount);
+
+        assertEquals(1, counterpartyExposureService.reconcile());
+
+        CounterpartyExposureDto exposure = counterpartyExposureService.getExposure(counterpartyId);
+        assertEquals(1, exposure.tradeCount);
+        assertEquals(0, new BigDecimal("12").compareTo(exposure.notional));
+        assertEquals(0, counterpartyExposureService.reconcile());
+    }
+
+    private CreateTradeRequest request(String reference, String currency, String quantity, String price) {
+        return TestData.tradeRequest(counterpartyId, reference, "MSFT", currency, quantity, price);
+    }
+}
@@ -1,8 +1,10 @@
 package dev.mars.service;
 
 import dev.mars.domain.Counterparty;
+import dev.mars.domain.Trade;
 import dev.mars.dto.CounterpartyDto;
 import dev.mars.dto.CreateCounterpartyRequest;
+import dev.mars.dto.CreateTradeRequest;
 import dev.mars.exception.BusinessException;
 import dev.mars.repository.CounterpartyRepository;
 import io.quarkus.test.junit.QuarkusTest;
@@ -11,6 +13,8 @@ import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,11 +29,15 @@ class CounterpartyServiceTest {
     @Inject
     CounterpartyRepository counterpartyRepository;
 
+    @Inject
+    TradeService tradeService;
+
     @BeforeEach
     @Transactional
     void setUp() {
         // Clean up before each test - delete trades first to avoid foreign key constraints
         counterpartyRepository.getEntityManager().createQuery("DELETE FROM Trade").executeUpdate();
+        counterpartyRepository.getEntityManager().createQuery("DELETE FROM CounterpartyExposure").executeUpdate();
         counterpartyRepository.deleteAll();
     }
 
@@ -324,4 +332,40 @@ class CounterpartyServiceTest {
         assertEquals(1, globalResults.size());
         assertEquals("GIB001", globalResults.get(0).code);
     }
+
+    @Test
+    @Transactional
+    void testGetCounterpartyIncludesTradeCount() {
+        // Given
+        CreateCounterpartyRequest request = new CreateCounterpartyRequest();
+        request.name = "Counted Bank";
+        request.code = "CNT001";
+        request.type = Counterparty.CounterpartyType.INSTITUTIONAL;
+        CounterpartyDto created = counterpartyService.createCounterparty(request);
+
+        // Through the trade service, which keeps the exposure cells the trade count is read from
+        for (String reference : new String[]{"CNT-TRD-1", "CNT-TRD-2"}) {
+            CreateTradeRequest trade = new CreateTradeRequest();
+            trade.tradeReference = reference;
+            trade.counterpartyId = created.id;
+            trade.instrument = "AAPL";
+            trade.tradeType = Trade.TradeType.BUY;
+            trade.quantity = new BigDecimal("10");
+            trade.price = new BigDecimal("100.00");
+            trade.tradeDate = LocalDate.now();
+            trade.settlementDate = LocalDate.now().plusDays(2);
+            trade.currency = "USD";
+            tradeService.createTrade(trade);
+        }
+
+        // When
+        Optional<CounterpartyDto> byId = counterpartyService.getCounterpartyById(created.id);
+        List<CounterpartyDto> all = counterpartyService.getAllCounterparties();
+
+        // Then
+        assertTrue(byId.isPresent());
+        assertEquals(2, byId.get().tradeCount);
+        assertEquals(1, all.size());
+        assertEquals(2, all.get(0).tradeCount);
+    }
 }
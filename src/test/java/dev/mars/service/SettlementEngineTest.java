@@ -0,0 +1,126 @@
+package dev.mars.service;
+
+import dev.mars.TestData;
+import dev.mars.domain.Counterparty;
+import dev.mars.domain.SettlementRun;
+import dev.mars.domain.Trade;
+import dev.mars.dto.SettlementResult;
+import dev.mars.repository.CounterpartyRepository;
+import dev.mars.repository.SettlementRunRepository;
+import dev.mars.repository.TradeRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class SettlementEngineTest {
+
+    @Inject
+    SettlementEngine settlementEngine;
+
+    @Inject
+    TradeRepository tradeRepository;
+
+    @Inject
+    CounterpartyRepository counterpartyRepository;
+
+    @Inject
+    SettlementRunRepository settlementRunRepository;
+
+    @Inject
+    TestData testData;
+
+    private final LocalDate businessDate = LocalDate.now();
+    private Long counterpartyId;
+
+    @BeforeEach
+    void setUp() {
+        counterpartyId = testData.resetWithCounterparty("SETTLE001", "Settlement Counterparty",
+                Counterparty.CounterpartyType.INSTITUTIONAL);
+    }
+
+    @Test
+    void testSettlesOnlyConfirmedTradesThatAreDue() {
+        Long overdue = createTrade("SETTLE-T1", Trade.TradeStatus.CONFIRMED, businessDate.minusDays(2));
+        Long due = createTrade("SETTLE-T2", Trade.TradeStatus.CONFIRMED, businessDate);
+        Long future = createTrade("SETTLE-T3", Trade.TradeStatus.CONFIRMED, businessDate.plusDays(1));
+        Long pending = createTrade("SETTLE-T4", Trade.TradeStatus.PENDING, businessDate);
+
+        SettlementResult result = settlementEngine.settle(businessDate);
+
+        assertTrue(result.completed);
+        assertFalse(result.resumed);
+        assertEquals(2, result.settled);
+        assertEquals(Trade.TradeStatus.SETTLED, statusOf(overdue));
+        assertEquals(Trade.TradeStatus.SETTLED, statusOf(due));
+        assertEquals(Trade.TradeStatus.CONFIRMED, statusOf(future));
+        assertEquals(Trade.TradeStatus.PENDING, statusOf(pending));
+
+        SettlementRun run = QuarkusTransaction.requiringNew()
+                .call(() -> settlementRunRepository.findByBusinessDate(businessDate).orElseThrow());
+        assertEquals(SettlementRun.RunStatus.COMPLETED, run.status);
+        assertEquals(2, run.settledCount);
+        assertNotNull(run.completedAt);
+    }
+
+    @Test
+    void testInterruptedRunResumesFromCheckpoint() {
+        Long first = createTrade("SETTLE-R1", Trade.TradeStatus.CONFIRMED, businessDate);
+        Long second = createTrade("SETTLE-R2", Trade.TradeStatus.CONFIRMED, businessDate);
+
+        // A run that crashed after checkpointing the first trade
+        QuarkusTransaction.requiringNew().run(() -> {
+            SettlementRun run = new SettlementRun();
+            run.businessDate = businessDate;
+            run.status = SettlementRun.RunStatus.RUNNING;
+            run.checkpointTradeId = first;
+            run.startedAt = LocalDateTime.now();
+            settlementRunRepository.persist(run);
+        });
+
+        SettlementResult resumed = settlementEngine.settle(businessDate);
+
+        assertTrue(resumed.resumed);
+        assertTrue(resumed.completed);
+        assertEquals(1, resumed.settled);
+        assertEquals(Trade.TradeStatus.CONFIRMED, statusOf(first));
+        assertEquals(Trade.TradeStatus.SETTLED, statusOf(second));
+
+        // A new pass over a completed date starts from the beginning again
+        SettlementResult rerun = settlementEngine.settle(businessDate);
+
+        assertFalse(rerun.resumed);
+        assertEquals(1, rerun.settled);
+        assertEquals(Trade.TradeStatus.SETTLED, statusOf(first));
+    }
+
+    private Long createTrade(String reference, Trade.TradeStatus status, LocalDate settlementDate) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            Trade trade = new Trade();
+            trade.tradeReference = reference;
+            trade.counterparty = counterpartyRepository.findById(counterpartyId);
+            trade.instrument = "MSFT";
+            trade.tradeType = Trade.TradeType.BUY;
+            trade.quantity = new BigDecimal("10");
+            trade.price = new BigDecimal("100");
+            trade.tradeDate = settlementDate.minusDays(2);
+            trade.settlementDate = settlementDate;
+            trade.currency = "USD";
+            trade.status = status;
+            tradeRepository.persist(trade);
+            return trade.id;
+        });
+    }
+
+    private Trade.TradeStatus statusOf(Long id) {
+        return QuarkusTransaction.requiringNew().call(() -> tradeRepository.findById(id).status);
+    }
+}
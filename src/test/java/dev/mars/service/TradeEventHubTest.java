@@ -0,0 +1,191 @@
+package dev.mars.service;
+
+import dev.mars.TestData;
+import dev.mars.domain.Counterparty;
+import dev.mars.domain.Trade;
+import dev.mars.dto.CreateTradeRequest;
+import dev.mars.dto.TradeBatchMode;
+import dev.mars.dto.TradeEvent;
+import dev.mars.event.TradeEventFilter;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class TradeEventHubTest {
+
+    @Inject
+    TradeEventHub tradeEventHub;
+
+    @Inject
+    TradeService tradeService;
+
+    @Inject
+    TradeBatchService tradeBatchService;
+
+    @Inject
+    TestData testData;
+
+    private final List<TradeEventHub.Subscription> subscriptions = new ArrayList<>();
+    private Long counterpartyId;
+
+    @BeforeEach
+    void setUp() {
+        counterpartyId = testData.resetWithCounterparty("EVENTS001", "Event Stream Counterparty",
+                Counterparty.CounterpartyType.INSTITUTIONAL);
+    }
+
+    @AfterEach
+    void tearDown() {
+        subscriptions.forEach(TradeEventHub.Subscription::close);
+    }
+
+    @Test
+    void testSlowSubscriberGetsCoalescedChanges() throws InterruptedException {
+        HeldSink sink = new HeldSink();
+        subscribe(TradeEventFilter.all(), sink);
+
+        // The first event is stuck in flight while the rest queue up behind it
+        Long first = tradeService.createTrade(request("EVT-1", "AAPL")).id;
+        assertEquals(TradeEvent.Type.CREATED, sink.next().type);
+        tradeService.updateTradeStatus(first, Trade.TradeStatus.CONFIRMED);
+        tradeService.updateTradeStatus(first, Trade.TradeStatus.SETTLED);
+        Long second = tradeService.createTrade(request("EVT-2", "AAPL")).id;
+        Long third = tradeService.createTrade(request("EVT-3", "AAPL")).id;
+        tradeService.deleteTrade(third);
+
+        sink.release();
+        TradeEvent updated = sink.next();
+        assertEquals(TradeEvent.Type.UPDATED, updated.type);
+        assertEquals(first, updated.tradeId);
+        assertEquals(2, updated.changes);
+        assertEquals(Trade.TradeStatus.PENDING, updated.previousStatus);
+        assertEquals(Trade.TradeStatus.SETTLED, updated.status);
+
+        TradeEvent created = sink.next();
+        assertEquals(TradeEvent.Type.CREATED, created.type);
+        assertEquals(second, created.tradeId);
+        assertTrue(created.sequence > updated.sequence);
+
+        // Created and deleted before it was sent: nothing to tell
+        assertNull(sink.poll());
+    }
+
+    @Test
+    void testCreationCoalescedWithUpdateHasNoPreviousStatus() throws InterruptedException {
+        HeldSink sink = new HeldSink();
+        subscribe(TradeEventFilter.all(), sink);
+
+        tradeService.createTrade(request("EVT-HOLD", "AAPL"));
+        assertEquals(TradeEvent.Type.CREATED, sink.next().type);
+        Long id = tradeService.createTrade(request("EVT-4", "AAPL")).id;
+        tradeService.updateTradeStatus(id, Trade.TradeStatus.CONFIRMED);
+
+        sink.release();
+        TradeEvent created = sink.next();
+        assertEquals(TradeEvent.Type.CREATED, created.type);
+        assertEquals(id, created.tradeId);
+        assertEquals(2, created.changes);
+        assertEquals(Trade.TradeStatus.CONFIRMED, created.status);
+        assertNull(created.previousStatus);
+        assertNull(sink.poll());
+    }
+
+    @Test
+    void testSubscriberTooFarBehindIsReset() throws InterruptedException {
+        HeldSink sink = new HeldSink();
+        subscribe(TradeEventFilter.all(), sink);
+
+        tradeService.createTrade(request("EVT-HOLD", "AAPL"));
+        assertEquals(TradeEvent.Type.CREATED, sink.next().type);
+
+        // More distinct trades than the default buffer of 1000
+        List<CreateTradeRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 1001; i++) {
+            requests.add(request("EVT-BULK-" + i, "AAPL"));
+        }
+        tradeBatchService.createTrades(requests, TradeBatchMode.ATOMIC);
+
+        sink.release();
+        assertEquals(TradeEvent.Type.RESET, sink.next().type);
+        assertNull(sink.poll());
+    }
+
+    @Test
+    void testFilteredSubscriberOnlyGetsMatchingTrades() throws InterruptedException {
+        HeldSink sink = new HeldSink();
+        sink.release();
+        subscribe(new TradeEventFilter(counterpartyId, "MSFT", null), sink);
+
+        tradeService.createTrade(request("EVT-AAPL", "AAPL"));
+        tradeService.createTrade(request("EVT-MSFT", "MSFT"));
+
+        TradeEvent event = sink.next();
+        assertEquals("EVT-MSFT", event.tradeReference);
+        assertNull(sink.poll());
+    }
+
+    private void subscribe(TradeEventFilter filter, HeldSink sink) {
+        subscriptions.add(tradeEventHub.subscribe(filter, sink));
+    }
+
+    private CreateTradeRequest request(String reference, String instrument) {
+        return TestData.tradeRequest(counterpartyId, reference, instrument);
+    }
+
+    /**
+     * Records what is sent; sends do not complete until {@link #release()}, like a client that stopped reading.
+     */
+    private static final class HeldSink implements TradeEventSink {
+        private final BlockingQueue<TradeEvent> sent = new LinkedBlockingQueue<>();
+        private final CompletableFuture<Void> released = new CompletableFuture<>();
+        private volatile boolean closed;
+
+        void release() {
+            released.complete(null);
+        }
+
+        TradeEvent next() throws InterruptedException {
+            TradeEvent event = sent.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "no event sent within 5 seconds");
+            return event;
+        }
+
+        TradeEvent poll() throws InterruptedException {
+            return sent.poll(200, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public CompletionStage<?> send(TradeEvent event) {
+            sent.add(event);
+            return released;
+        }
+
+        @Override
+        public CompletionStage<?> heartbeat() {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
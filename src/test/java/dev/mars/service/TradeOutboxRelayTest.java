@@ -0,0 +1,111 @@
+package dev.mars.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.mars.TestData;
+import dev.mars.domain.Counterparty;
+import dev.mars.domain.OutboxEvent;
+import dev.mars.domain.Trade;
+import dev.mars.dto.CreateTradeRequest;
+import dev.mars.dto.TradeEvent;
+import dev.mars.repository.OutboxEventRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.panache.common.Sort;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class TradeOutboxRelayTest {
+
+    @Inject
+    TradeOutboxRelay tradeOutboxRelay;
+
+    @Inject
+    TradeService tradeService;
+
+    @Inject
+    OutboxEventRepository outboxEventRepository;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "trading.outbox.file.path")
+    Path eventFile;
+
+    @Inject
+    TestData testData;
+
+    private Long counterpartyId;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        counterpartyId = testData.resetWithCounterparty("OUTBOX001", "Outbox Counterparty",
+                Counterparty.CounterpartyType.INSTITUTIONAL);
+        Files.deleteIfExists(eventFile);
+    }
+
+    @Test
+    void testTradeChangesAreQueuedWithTheChange() {
+        Long tradeId = tradeService.createTrade(request("OUTBOX-1")).id;
+        tradeService.updateTradeStatus(tradeId, Trade.TradeStatus.CONFIRMED);
+
+        List<OutboxEvent> queued = QuarkusTransaction.requiringNew()
+                .call(() -> outboxEventRepository.listAll(Sort.by("id")));
+        assertEquals(2, queued.size());
+        assertEquals(TradeEvent.Type.CREATED, queued.get(0).eventType);
+        assertEquals(TradeEvent.Type.UPDATED, queued.get(1).eventType);
+        assertEquals(tradeId, queued.get(1).tradeId);
+
+        // A change that rolls back leaves nothing behind to publish
+        assertThrows(IllegalStateException.class, () -> QuarkusTransaction.requiringNew().run(() -> {
+            tradeService.createTrade(request("OUTBOX-ROLLBACK"));
+            throw new IllegalStateException("rolled back");
+        }));
+        assertEquals(2L, QuarkusTransaction.requiringNew().call(outboxEventRepository::count));
+    }
+
+    @Test
+    void testRelayDeliversInOrderAndDeletes() throws IOException {
+        Long tradeId = tradeService.createTrade(request("OUTBOX-2")).id;
+        tradeService.updateTradeStatus(tradeId, Trade.TradeStatus.CONFIRMED);
+        tradeService.deleteTrade(tradeId);
+
+        assertEquals(3, tradeOutboxRelay.relayPending());
+        assertEquals(0L, QuarkusTransaction.requiringNew().call(outboxEventRepository::count));
+
+        List<TradeEvent> delivered = new ArrayList<>();
+        for (String line : Files.readAllLines(eventFile)) {
+            delivered.add(objectMapper.readValue(line, TradeEvent.class));
+        }
+        assertEquals(3, delivered.size());
+        assertEquals(TradeEvent.Type.CREATED, delivered.get(0).type);
+        assertEquals(TradeEvent.Type.UPDATED, delivered.get(1).type);
+        assertEquals(Trade.TradeStatus.PENDING, delivered.get(1).previousStatus);
+        assertEquals(Trade.TradeStatus.CONFIRMED, delivered.get(1).status);
+        assertEquals(TradeEvent.Type.DELETED, delivered.get(2).type);
+        assertTrue(delivered.get(0).sequence < delivered.get(1).sequence);
+        assertTrue(delivered.get(1).sequence < delivered.get(2).sequence);
+        // updatedAt, not sequence, orders the changes to a trade
+        assertNotNull(delivered.get(0).updatedAt);
+        assertFalse(delivered.get(1).updatedAt.isBefore(delivered.get(0).updatedAt));
+        assertFalse(delivered.get(2).updatedAt.isBefore(delivered.get(1).updatedAt));
+
+        // Nothing left to deliver
+        assertEquals(0, tradeOutboxRelay.relayPending());
+        assertEquals(3, Files.readAllLines(eventFile).size());
+    }
+
+    private CreateTradeRequest request(String reference) {
+        return TestData.tradeRequest(counterpartyId, reference, "AAPL");
+    }
+}
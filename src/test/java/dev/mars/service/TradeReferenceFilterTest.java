@@ -0,0 +1,158 @@
+package dev.mars.service;
+
+import dev.mars.TestData;
+import dev.mars.domain.Counterparty;
+import dev.mars.domain.Trade;
+import dev.mars.dto.CreateTradeRequest;
+import dev.mars.dto.TradeDto;
+import dev.mars.exception.BusinessException;
+import dev.mars.repository.CounterpartyRepository;
+import dev.mars.repository.TradeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class TradeReferenceFilterTest {
+
+    @Inject
+    TradeReferenceFilter tradeReferenceFilter;
+
+    @Inject
+    TradeService tradeService;
+
+    @Inject
+    TradeRepository tradeRepository;
+
+    @Inject
+    CounterpartyRepository counterpartyRepository;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    TestData testData;
+
+    private Long counterpartyId;
+
+    @BeforeEach
+    void setUp() {
+        counterpartyId = testData.resetWithCounterparty("BLOOM001", "Bloom Counterparty",
+                Counterparty.CounterpartyType.CORPORATE);
+        tradeReferenceFilter.rebuild();
+    }
+
+    @Test
+    void testNewReferenceSkipsDatabaseCheck() {
+        double skippedBefore = checks("skipped");
+
+        assertFalse(tradeReferenceFilter.exists("BLOOM-NEW-1"));
+
+        assertEquals(1, checks("skipped") - skippedBefore);
+    }
+
+    @Test
+    void testInsertedReferenceIsRejectedAsDuplicate() {
+        tradeService.createTrade(request("BLOOM-T1"));
+
+        assertTrue(tradeReferenceFilter.mightContain("BLOOM-T1"));
+        assertTrue(tradeReferenceFilter.exists("BLOOM-T1"));
+        assertThrows(BusinessException.class, () -> tradeService.createTrade(request("BLOOM-T1")));
+    }
+
+    @Test
+    void testReferenceMissedByFilterIsRejectedByConstraint() {
+        // Inserted behind the filter's back, so only the unique constraint knows about it
+        QuarkusTransaction.requiringNew().run(() -> {
+            Trade trade = request("BLOOM-T2").toEntity();
+            trade.counterparty = counterpartyRepository.findById(counterpartyId);
+            tradeRepository.persist(trade);
+        });
+        assertFalse(tradeReferenceFilter.mightContain("BLOOM-T2"));
+
+        BusinessException error = assertThrows(BusinessException.class,
+                () -> tradeService.createTrade(request("BLOOM-T2")));
+        assertTrue(error.getMessage().contains("already exists"));
+        assertEquals(1, tradeRepository.count());
+    }
+
+    @Test
+    void testRenameToReferenceMissedByFilterIsRejected() {
+        TradeDto trade = tradeService.createTrade(request("BLOOM-T4"));
+        QuarkusTransaction.requiringNew().run(() -> {
+            Trade other = request("BLOOM-T5").toEntity();
+            other.counterparty = counterpartyRepository.findById(counterpartyId);
+            tradeRepository.persist(other);
+        });
+        assertFalse(tradeReferenceFilter.mightContain("BLOOM-T5"));
+
+        BusinessException error = assertThrows(BusinessException.class,
+                () -> tradeService.updateTrade(trade.id, request("BLOOM-T5")));
+        assertTrue(error.getMessage().contains("already exists"));
+        assertEquals("BLOOM-T4", tradeRepository.findById(trade.id).tradeReference);
+    }
+
+    @Test
+    void testObservedFalsePositivesTriggerRebuild() {
+        for (int i = 0; i < 10; i++) {
+            TradeDto trade = tradeService.createTrade(request("BLOOM-D" + i));
+            tradeService.deleteTrade(trade.id);
+        }
+        tradeReferenceFilter.rebuildIfDegraded();
+        assertTrue(tradeReferenceFilter.mightContain("BLOOM-D0"));
+
+        // Every deleted reference now costs a query that finds nothing
+        for (int i = 0; i < 10; i++) {
+            assertFalse(tradeReferenceFilter.exists("BLOOM-D" + i));
+        }
+        tradeReferenceFilter.rebuildIfDegraded();
+
+        assertFalse(tradeReferenceFilter.mightContain("BLOOM-D0"));
+        assertEquals(0, tradeReferenceFilter.observedFalsePositiveRate());
+    }
+
+    @Test
+    void testRebuildDropsDeletedReferences() {
+        TradeDto trade = tradeService.createTrade(request("BLOOM-T3"));
+        tradeService.deleteTrade(trade.id);
+        assertTrue(tradeReferenceFilter.mightContain("BLOOM-T3"));
+
+        tradeReferenceFilter.rebuild();
+
+        assertFalse(tradeReferenceFilter.mightContain("BLOOM-T3"));
+        assertTrue(tradeReferenceFilter.sizeInBytes() > 0);
+    }
+
+    @Test
+    void testFalsePositiveRateStaysNearTarget() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("TRD-" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("TRD-" + i));
+            if (filter.mightContain("OTHER-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 200, "false positives: " + falsePositives);
+        assertEquals(0.01, filter.expectedFalsePositiveProbability(), 0.005);
+    }
+
+    private double checks(String result) {
+        Counter counter = meterRegistry.find("trading.trade-reference.checks").tag("result", result).counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private CreateTradeRequest request(String reference) {
+        return TestData.tradeRequest(counterpartyId, reference, "AAPL");
+    }
+}
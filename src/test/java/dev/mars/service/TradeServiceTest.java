@@ -7,16 +7,20 @@ import dev.mars.dto.TradeDto;
 import dev.mars.exception.BusinessException;
 import dev.mars.repository.CounterpartyRepository;
 import dev.mars.repository.TradeRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.BeforeEach;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -32,6 +36,9 @@ class TradeServiceTest {
     @Inject
     CounterpartyRepository counterpartyRepository;
 
+    @Inject
+    SessionFactory sessionFactory;
+
     private Counterparty testCounterparty;
 
     @BeforeEach
@@ -461,4 +468,42 @@ class TradeServiceTest {
         // Expected: (100 * 150) + (50 * 2000) = 15000 + 100000 = 115000
         assertEquals(0, new BigDecimal("115000.00").compareTo(totalValue));
     }
+
+    @Test
+    void testListQueriesIssueOneStatementEach() {
+        // Given - trades committed in their own transactions so nothing is left in a persistence context
+        for (int i = 1; i <= 3; i++) {
+            CreateTradeRequest request = new CreateTradeRequest();
+            request.tradeReference = "PROJ-00" + i;
+            request.counterpartyId = testCounterparty.id;
+            request.instrument = "AAPL";
+            request.tradeType = Trade.TradeType.BUY;
+            request.quantity = new BigDecimal("100");
+            request.price = new BigDecimal("150.00");
+            request.tradeDate = LocalDate.now();
+            request.settlementDate = LocalDate.now().plusDays(2);
+            request.currency = "USD";
+            QuarkusTransaction.requiringNew().run(() -> tradeService.createTrade(request));
+        }
+
+        // When & Then
+        assertSingleStatement(3, () -> tradeService.getAllTrades());
+        assertSingleStatement(3, () -> tradeService.getTradesByStatus(Trade.TradeStatus.PENDING));
+        assertSingleStatement(3, () -> tradeService.getTradesByCounterpartyId(testCounterparty.id));
+        assertSingleStatement(3, () -> tradeService.getPendingTrades());
+        assertSingleStatement(3, () -> tradeService.getRecentTrades(7));
+        assertSingleStatement(3, () -> tradeService.getTradesByDateRange(LocalDate.now().minusDays(1), LocalDate.now()));
+        assertSingleStatement(2, () -> tradeService.getAllTradesPaged(0, 2));
+    }
+
+    private void assertSingleStatement(int expectedRows, Supplier<List<TradeDto>> listCall) {
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        List<TradeDto> result = listCall.get();
+
+        assertEquals(expectedRows, result.size());
+        assertEquals("Test Counterparty", result.get(0).counterpartyName);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
 }
@@ -0,0 +1,92 @@
+package dev.mars.service;
+
+import dev.mars.TestData;
+import dev.mars.domain.Counterparty;
+import dev.mars.domain.Trade;
+import dev.mars.dto.CreateTradeRequest;
+import dev.mars.dto.TradeDto;
+import dev.mars.dto.TradeStatistics;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs with the in-memory ledger enabled and checks it stays equal to the GROUP BY answer
+ * as trades are created, re-statused and deleted.
+ */
+@QuarkusTest
+@TestProfile(TradeStatisticsServiceTest.InMemoryStatisticsProfile.class)
+class TradeStatisticsServiceTest {
+
+    public static class InMemoryStatisticsProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("trading.stats.in-memory.enabled", "true");
+        }
+    }
+
+    @Inject
+    TradeStatisticsService tradeStatisticsService;
+
+    @Inject
+    TradeService tradeService;
+
+    @Inject
+    TestData testData;
+
+    private Long counterpartyId;
+
+    @BeforeEach
+    void setUp() {
+        counterpartyId = testData.resetWithCounterparty("STAT001", "Statistics Counterparty",
+                Counterparty.CounterpartyType.CORPORATE);
+        tradeStatisticsService.rebuild();
+    }
+
+    @Test
+    void testLedgerTracksCommittedChanges() {
+        TradeDto first = tradeService.createTrade(request("STAT-T1", "USD", "10", "3"));
+        TradeDto second = tradeService.createTrade(request("STAT-T2", "EUR", "2", "50"));
+        tradeService.updateTradeStatus(first.id, Trade.TradeStatus.CONFIRMED);
+        tradeService.deleteTrade(second.id);
+
+        TradeStatistics statistics = tradeStatisticsService.getStatistics();
+
+        assertEquals("memory", statistics.source);
+        assertEquals(1, statistics.totalCount);
+        assertEquals(1, statistics.countOf(Trade.TradeStatus.CONFIRMED));
+        assertEquals(0, statistics.countOf(Trade.TradeStatus.PENDING));
+        assertEquals(0, new BigDecimal("30").compareTo(statistics.byCurrency.get("USD").notional));
+        assertFalse(statistics.byCurrency.containsKey("EUR"));
+
+        tradeStatisticsService.rebuild();
+        TradeStatistics rebuilt = tradeStatisticsService.getStatistics();
+        assertEquals(statistics.totalCount, rebuilt.totalCount);
+        assertEquals(0, statistics.totalNotional.compareTo(rebuilt.totalNotional));
+    }
+
+    @Test
+    void testRolledBackChangesAreNotApplied() {
+        tradeService.createTrade(request("STAT-T3", "USD", "1", "1"));
+
+        assertThrows(IllegalStateException.class, () -> QuarkusTransaction.requiringNew().run(() -> {
+            tradeService.createTrade(request("STAT-T4", "USD", "1", "1"));
+            throw new IllegalStateException("rollback");
+        }));
+
+        assertEquals(1, tradeStatisticsService.getStatistics().totalCount);
+    }
+
+    private CreateTradeRequest request(String reference, String currency, String quantity, String price) {
+        return TestData.tradeRequest(counterpartyId, reference, "AAPL", currency, quantity, price);
+    }
+}
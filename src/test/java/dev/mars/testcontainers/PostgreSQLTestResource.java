@@ -36,8 +36,11 @@ public class PostgreSQLTestResource implements QuarkusTestResourceLifecycleManag
                 "quarkus.datasource.username", postgres.getUsername(),
                 "quarkus.datasource.password", postgres.getPassword(),
                 "quarkus.datasource.jdbc.url", postgres.getJdbcUrl(),
+                "quarkus.datasource.reactive.url", "postgresql://" + postgres.getHost() + ":"
+                        + postgres.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/" + postgres.getDatabaseName(),
                 "quarkus.datasource.jdbc.max-size", "10",
-                "quarkus.hibernate-orm.database.generation", "drop-and-create",
+                "quarkus.hibernate-orm.database.generation", "none",
+                "quarkus.flyway.migrate-at-start", "true",
                 "quarkus.hibernate-orm.log.sql", "false"
         );
     }
@@ -0,0 +1,111 @@
+package dev.mars.testcontainers;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Applies the Flyway migrations to a real PostgreSQL instance and checks that the finder
+ * predicates are answered from the secondary indexes rather than sequential scans.
+ */
+@Testcontainers
+@DisplayName("Flyway schema migrations on PostgreSQL")
+class SchemaMigrationTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("trading_migration")
+            .withUsername("test_user")
+            .withPassword("test_password");
+
+    private static MigrateResult migrateResult;
+
+    @BeforeAll
+    static void migrate() {
+        migrateResult = Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+    }
+
+    @Test
+    @DisplayName("All migrations should apply cleanly")
+    void testMigrationsApply() {
+        assertTrue(migrateResult.success);
+        assertTrue(migrateResult.migrationsExecuted >= 2);
+    }
+
+    @Test
+    @DisplayName("Secondary indexes should exist on trades and counterparties")
+    void testIndexesCreated() throws SQLException {
+        Set<String> indexes = new HashSet<>();
+        try (Connection connection = connect();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "SELECT indexname FROM pg_indexes WHERE tablename IN ('trades', 'counterparties')")) {
+            while (rs.next()) {
+                indexes.add(rs.getString(1));
+            }
+        }
+
+        assertTrue(indexes.contains("idx_trades_status_trade_date"));
+        assertTrue(indexes.contains("idx_trades_counterparty_trade_date"));
+        assertTrue(indexes.contains("idx_trades_instrument_trade_date"));
+        assertTrue(indexes.contains("idx_trades_trade_date_brin"));
+        assertTrue(indexes.contains("idx_trades_keyset"));
+        assertTrue(indexes.contains("idx_counterparties_lower_name"));
+        assertTrue(indexes.contains("idx_counterparties_lower_name_trgm"));
+    }
+
+    @Test
+    @DisplayName("Status and counterparty lookups should not use sequential scans")
+    void testFinderPredicatesUseIndexes() throws SQLException {
+        try (Connection connection = connect();
+             Statement statement = connection.createStatement()) {
+            // The tables are empty, so steer the planner off seq scans to see which index it would pick
+            statement.execute("SET enable_seqscan = off");
+
+            String statusPlan = explain(statement,
+                    "SELECT * FROM trades WHERE status = 'PENDING' ORDER BY tradeDate");
+            assertTrue(statusPlan.contains("idx_trades_status_trade_date"), statusPlan);
+
+            String counterpartyPlan = explain(statement,
+                    "SELECT * FROM trades WHERE counterparty_id = 1 ORDER BY tradeDate DESC");
+            assertTrue(counterpartyPlan.contains("idx_trades_counterparty_trade_date"), counterpartyPlan);
+
+            String namePlan = explain(statement,
+                    "SELECT * FROM counterparties WHERE LOWER(name) LIKE LOWER('%bank%')");
+            assertTrue(namePlan.contains("idx_counterparties_lower_name_trgm"), namePlan);
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+    }
+
+    private String explain(Statement statement, String sql) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (ResultSet rs = statement.executeQuery("EXPLAIN " + sql)) {
+            while (rs.next()) {
+                plan.append(rs.getString(1)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+}